@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * Compares two JMH result files in JSON format, e.g. of the last release and of the current
+ * version, and prints the relative change of every benchmark. A benchmark counts as regression if
+ * it got worse by more than the threshold and by more than the combined score errors. The program
+ * exits with status 1 if there is at least one regression.
+ * <p>
+ * Arguments: {@code <baseline.json> <current.json> [threshold in percent, default 10]}
+ *
+ * @since 8.0
+ */
+public final class BenchmarkComparison {
+
+	private static final double DEFAULT_THRESHOLD = 10;
+
+	/** The score of a benchmark with its error and whether larger scores are better. */
+	private static final class Result {
+
+		private final double score;
+		private final double error;
+		private final String unit;
+		private final boolean higherIsBetter;
+
+		private Result(JsonNode node) {
+			JsonNode metric = node.get("primaryMetric");
+			score = metric.get("score").asDouble();
+			double scoreError = metric.path("scoreError").asDouble(0);
+			error = Double.isNaN(scoreError) ? 0 : scoreError;
+			unit = metric.path("scoreUnit").asText();
+			higherIsBetter = "thrpt".equals(node.path("mode").asText());
+		}
+	}
+
+	private BenchmarkComparison() {
+		// main class
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [threshold in percent]");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+		Map<String, Result> baseline = readResults(new File(args[0]));
+		Map<String, Result> current = readResults(new File(args[1]));
+
+		int regressions = 0;
+		System.out.println(String.format("%-100s %14s %14s %9s", "Benchmark", "Baseline", "Current", "Change"));
+		for (Entry<String, Result> entry : current.entrySet()) {
+			Result now = entry.getValue();
+			Result before = baseline.get(entry.getKey());
+			if (before == null) {
+				System.out.println(String.format("%-100s %14s %14.3f %9s  new", entry.getKey(), "-", now.score, "-"));
+				continue;
+			}
+			double change = (now.score - before.score) / before.score * 100;
+			double worsening = now.higherIsBetter ? -change : change;
+			boolean beyondError = Math.abs(now.score - before.score) > now.error + before.error;
+			String verdict = "";
+			if (worsening > threshold && beyondError) {
+				verdict = "  REGRESSION";
+				regressions++;
+			} else if (worsening < -threshold && beyondError) {
+				verdict = "  improvement";
+			}
+			System.out.println(String.format("%-100s %14.3f %14.3f %+8.1f%% %s%s", entry.getKey(), before.score,
+					now.score, change, now.unit, verdict));
+		}
+		for (String missing : baseline.keySet()) {
+			if (!current.containsKey(missing)) {
+				System.out.println(String.format("%-100s %14.3f %14s %9s  missing", missing, baseline.get(missing).score,
+						"-", "-"));
+			}
+		}
+		System.out.println();
+		System.out.println(regressions + " regression(s) above " + threshold + "%");
+		if (regressions > 0) {
+			System.exit(1);
+		}
+	}
+
+	/** Reads the results by benchmark name and parameters. */
+	private static Map<String, Result> readResults(File file) throws IOException {
+		JsonNode root = new ObjectMapper().readTree(file);
+		Map<String, Result> results = new LinkedHashMap<>();
+		for (JsonNode node : root) {
+			StringBuilder key = new StringBuilder(node.get("benchmark").asText());
+			JsonNode params = node.get("params");
+			if (params != null) {
+				// sort the parameters to get the same key for both files
+				Map<String, String> sorted = new TreeMap<>();
+				Iterator<Entry<String, JsonNode>> fields = params.fields();
+				while (fields.hasNext()) {
+					Entry<String, JsonNode> field = fields.next();
+					sorted.put(field.getKey(), field.getValue().asText());
+				}
+				key.append(sorted);
+			}
+			results.put(key.toString(), new Result(node));
+		}
+		return results;
+	}
+}
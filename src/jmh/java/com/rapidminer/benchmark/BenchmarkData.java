@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSetBuilder;
+import com.rapidminer.example.utils.ExampleSetBuilder.DataManagement;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * Creates the synthetic data used by the benchmarks. All data is generated from fixed seeds, so
+ * that every run works on exactly the same values.
+ *
+ * @since 8.0
+ */
+final class BenchmarkData {
+
+	private static final long SEED = 2017;
+
+	private static final int NOMINAL_VALUES = 20;
+
+	private BenchmarkData() {
+		// utility class
+	}
+
+	/**
+	 * Creates an example set with numerical attributes named {@code att1} to {@code attN} and
+	 * nominal attributes named {@code nom1} to {@code nomM} with gaussian values and about one
+	 * percent missing values, as well as a binominal label depending on the first attributes.
+	 *
+	 * @param rows
+	 *            the number of examples
+	 * @param numericalAttributes
+	 *            the number of numerical attributes, at least one
+	 * @param nominalAttributes
+	 *            the number of nominal attributes
+	 * @param management
+	 *            the data management of the created table
+	 * @return the example set
+	 */
+	static ExampleSet createExampleSet(int rows, int numericalAttributes, int nominalAttributes,
+			DataManagement management) {
+		List<Attribute> attributes = new ArrayList<>();
+		for (int i = 1; i <= numericalAttributes; i++) {
+			attributes.add(AttributeFactory.createAttribute("att" + i, Ontology.REAL));
+		}
+		for (int i = 1; i <= nominalAttributes; i++) {
+			Attribute nominal = AttributeFactory.createAttribute("nom" + i, Ontology.POLYNOMINAL);
+			for (int value = 0; value < NOMINAL_VALUES; value++) {
+				nominal.getMapping().mapString("value" + value);
+			}
+			attributes.add(nominal);
+		}
+		Attribute label = AttributeFactory.createAttribute("label", Ontology.BINOMINAL);
+		label.getMapping().mapString("negative");
+		label.getMapping().mapString("positive");
+		attributes.add(label);
+
+		Random random = new Random(SEED);
+		double[][] values = new double[attributes.size()][rows];
+		for (int row = 0; row < rows; row++) {
+			double score = 0;
+			for (int i = 0; i < numericalAttributes; i++) {
+				double value = random.nextGaussian();
+				values[i][row] = random.nextInt(100) == 0 ? Double.NaN : value;
+				if (i < 3) {
+					score += value;
+				}
+			}
+			for (int i = numericalAttributes; i < numericalAttributes + nominalAttributes; i++) {
+				values[i][row] = random.nextInt(100) == 0 ? Double.NaN : random.nextInt(NOMINAL_VALUES);
+			}
+			values[attributes.size() - 1][row] = score + random.nextGaussian() * 0.5 > 0 ? 1 : 0;
+		}
+
+		ExampleSetBuilder builder = ExampleSets.from(attributes).withOptimizationHint(management).withBlankSize(rows)
+				.withRole(label, Attributes.LABEL_NAME);
+		for (int i = 0; i < attributes.size(); i++) {
+			double[] column = values[i];
+			builder.withColumnFiller(attributes.get(i), row -> column[row]);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Creates lines of comma separated values with some quoted and some empty entries.
+	 *
+	 * @param rows
+	 *            the number of lines
+	 * @param columns
+	 *            the number of values per line
+	 * @return the lines
+	 */
+	static String[] createCsvLines(int rows, int columns) {
+		Random random = new Random(SEED);
+		String[] lines = new String[rows];
+		StringBuilder line = new StringBuilder();
+		for (int row = 0; row < rows; row++) {
+			line.setLength(0);
+			for (int column = 0; column < columns; column++) {
+				if (column > 0) {
+					line.append(',');
+				}
+				switch (column % 4) {
+					case 0:
+						line.append(random.nextInt(100_000));
+						break;
+					case 1:
+						line.append(random.nextGaussian());
+						break;
+					case 2:
+						line.append("\"value, ").append(random.nextInt(NOMINAL_VALUES)).append('"');
+						break;
+					default:
+						if (random.nextInt(10) > 0) {
+							line.append("value").append(random.nextInt(NOMINAL_VALUES));
+						}
+				}
+			}
+			lines[row] = line.toString();
+		}
+		return lines;
+	}
+}
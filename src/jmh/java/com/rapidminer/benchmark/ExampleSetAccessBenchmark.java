@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.SortedExampleSet;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.ExampleTable;
+import com.rapidminer.example.utils.ExampleSetBuilder.DataManagement;
+
+
+/**
+ * Measures reading values from example sets by {@link Example#getValue(Attribute)}, directly from
+ * the rows of the example table and through a view.
+ *
+ * @since 8.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class ExampleSetAccessBenchmark {
+
+	@Param({ "AUTO", "SPEED_OPTIMIZED", "MEMORY_OPTIMIZED" })
+	public DataManagement management;
+
+	@Param({ "100000" })
+	public int rows;
+
+	@Param({ "50" })
+	public int attributes;
+
+	private ExampleSet exampleSet;
+
+	private ExampleSet sortedExampleSet;
+
+	private Attribute[] regularAttributes;
+
+	@Setup
+	public void setup() {
+		exampleSet = BenchmarkData.createExampleSet(rows, attributes, 0, management);
+		regularAttributes = exampleSet.getAttributes().createRegularAttributeArray();
+		sortedExampleSet = new SortedExampleSet(exampleSet, regularAttributes[0], SortedExampleSet.INCREASING);
+	}
+
+	@Benchmark
+	public double rowWiseGetValue() {
+		double sum = 0;
+		for (Example example : exampleSet) {
+			for (Attribute attribute : regularAttributes) {
+				sum += example.getValue(attribute);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double columnWiseGetValue() {
+		double sum = 0;
+		for (Attribute attribute : regularAttributes) {
+			for (int row = 0; row < exampleSet.size(); row++) {
+				sum += exampleSet.getExample(row).getValue(attribute);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double columnWiseTableAccess() {
+		ExampleTable table = exampleSet.getExampleTable();
+		double sum = 0;
+		for (Attribute attribute : regularAttributes) {
+			for (int row = 0; row < table.size(); row++) {
+				DataRow dataRow = table.getDataRow(row);
+				sum += dataRow.get(attribute);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double sortedViewGetValue() {
+		double sum = 0;
+		for (Example example : sortedExampleSet) {
+			for (Attribute attribute : regularAttributes) {
+				sum += example.getValue(attribute);
+			}
+		}
+		return sum;
+	}
+}
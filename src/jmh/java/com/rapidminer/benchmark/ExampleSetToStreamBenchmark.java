@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.utils.ExampleSetBuilder.DataManagement;
+import com.rapidminer.operator.tools.ExampleSetToColumns;
+import com.rapidminer.operator.tools.ExampleSetToStream;
+
+
+/**
+ * Measures writing and reading example sets with {@link ExampleSetToStream}, the format of
+ * repository entries, and with {@link ExampleSetToColumns}.
+ *
+ * @since 8.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class ExampleSetToStreamBenchmark {
+
+	@Param({ "100000" })
+	public int rows;
+
+	@Param({ "20" })
+	public int attributes;
+
+	private ExampleSet exampleSet;
+
+	private byte[] streamed;
+
+	private byte[] columnar;
+
+	@Setup
+	public void setup() throws IOException {
+		exampleSet = BenchmarkData.createExampleSet(rows, attributes, attributes / 2, DataManagement.AUTO);
+		streamed = writeStreamed();
+		columnar = writeColumnar();
+	}
+
+	@Benchmark
+	public byte[] writeStreamed() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ExampleSetToStream(ExampleSetToStream.CURRENT_VERSION).write(exampleSet, out);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public ExampleSet readStreamed() throws IOException {
+		return new ExampleSetToStream(ExampleSetToStream.CURRENT_VERSION).read(new ByteArrayInputStream(streamed));
+	}
+
+	@Benchmark
+	public byte[] writeColumnar() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ExampleSetToColumns().write(exampleSet, out);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public ExampleSet readColumnar() throws IOException {
+		return new ExampleSetToColumns().read(new ByteArrayInputStream(columnar));
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.utils.ExampleSetBuilder.DataManagement;
+import com.rapidminer.tools.expression.ExampleResolver;
+import com.rapidminer.tools.expression.Expression;
+import com.rapidminer.tools.expression.ExpressionException;
+import com.rapidminer.tools.expression.ExpressionParser;
+import com.rapidminer.tools.expression.ExpressionParserBuilder;
+import com.rapidminer.tools.expression.ExpressionRegistry;
+
+
+/**
+ * Measures parsing and evaluating expressions of the kind used by Generate Attributes for every
+ * example of an example set.
+ *
+ * @since 8.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class ExpressionBenchmark {
+
+	@Param({ "[att1] + [att2] * 2", "sqrt(abs([att1])) + log(1 + abs([att2]))",
+			"if([att1] > 0, [att2], -[att3])", "concat(nom1, \"_\", nom2)" })
+	public String expression;
+
+	@Param({ "100000" })
+	public int rows;
+
+	private ExampleSet exampleSet;
+
+	private ExampleResolver resolver;
+
+	private ExpressionParser parser;
+
+	private Expression parsed;
+
+	@Setup
+	public void setup() throws ExpressionException {
+		exampleSet = BenchmarkData.createExampleSet(rows, 3, 2, DataManagement.AUTO);
+		resolver = new ExampleResolver(exampleSet);
+		parser = new ExpressionParserBuilder().withDynamics(resolver).withModules(ExpressionRegistry.INSTANCE.getAll())
+				.build();
+		parsed = parser.parse(expression);
+	}
+
+	@Benchmark
+	public Expression parse() throws ExpressionException {
+		return parser.parse(expression);
+	}
+
+	@Benchmark
+	public int evaluate() throws ExpressionException {
+		int hash = 0;
+		for (Example example : exampleSet) {
+			resolver.bind(example);
+			Object result = parsed.evaluate();
+			hash += result == null ? 0 : result.hashCode();
+		}
+		resolver.unbind();
+		return hash;
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.CSVParseException;
+import com.rapidminer.tools.LineParser;
+
+
+/**
+ * Measures splitting lines of comma separated values with the {@link LineParser} used by the CSV
+ * import.
+ *
+ * @since 8.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class LineParserBenchmark {
+
+	@Param({ "10000" })
+	public int rows;
+
+	@Param({ "20" })
+	public int columns;
+
+	@Param({ "true", "false" })
+	public boolean useQuotes;
+
+	private String[] lines;
+
+	private LineParser parser;
+
+	@Setup
+	public void setup() throws OperatorException {
+		lines = BenchmarkData.createCsvLines(rows, columns);
+		parser = new LineParser();
+		parser.setSplitExpression(LineParser.SPLIT_BY_COMMA_EXPRESSION);
+		parser.setUseQuotes(useQuotes);
+		parser.setQuoteCharacter(LineParser.DEFAULT_QUOTE_CHARACTER);
+		parser.setQuoteEscapeCharacter(LineParser.DEFAULT_QUOTE_ESCAPE_CHARACTER);
+		parser.setTrimLine(true);
+		parser.setSkipComments(false);
+	}
+
+	@Benchmark
+	public void parse(Blackhole blackhole) throws CSVParseException {
+		for (String line : lines) {
+			blackhole.consume(parser.parse(line));
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.benchmark;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.utils.ExampleSetBuilder.DataManagement;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.learner.tree.ColumnMaxDepthTermination;
+import com.rapidminer.operator.learner.tree.ColumnTerminator;
+import com.rapidminer.operator.learner.tree.ConcurrentTreeBuilder;
+import com.rapidminer.operator.learner.tree.Tree;
+import com.rapidminer.operator.learner.tree.criterions.GainRatioColumnCriterion;
+
+
+/**
+ * Measures growing decision trees with the {@link ConcurrentTreeBuilder} used by the Decision Tree
+ * and the Random Forest operators. No operator is given, so the tree is built sequentially.
+ *
+ * @since 8.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TreeBuildingBenchmark {
+
+	@Param({ "10000", "100000" })
+	public int rows;
+
+	@Param({ "20" })
+	public int attributes;
+
+	@Param({ "10" })
+	public int maximalDepth;
+
+	private ExampleSet exampleSet;
+
+	@Setup
+	public void setup() {
+		exampleSet = BenchmarkData.createExampleSet(rows, attributes, attributes / 4, DataManagement.AUTO);
+	}
+
+	@Benchmark
+	public Tree learnTree() throws OperatorException {
+		List<ColumnTerminator> terminators = new LinkedList<>();
+		terminators.add(new ColumnMaxDepthTermination(maximalDepth));
+		return new ConcurrentTreeBuilder(null, new GainRatioColumnCriterion(0.01), terminators, null, null, true, 3, 4, 2)
+				.learnTree(exampleSet);
+	}
+}
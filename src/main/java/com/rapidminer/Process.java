@@ -37,6 +37,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -141,7 +142,10 @@ public class Process extends AbstractObservable<Process> implements Cloneable {
 	private ProcessRootOperator rootOperator = null;
 
 	/** This is the operator which is currently applied. */
-	private Operator currentOperator;
+	private volatile Operator currentOperator;
+
+	/** The number of running concurrent executions of independent operators. */
+	private final AtomicInteger concurrentExecutions = new AtomicInteger();
 
 	/**
 	 * The process might be connected to this file or repository location which is then used to
@@ -659,6 +663,37 @@ public class Process extends AbstractObservable<Process> implements Cloneable {
 		this.currentOperator = operator;
 	}
 
+	/**
+	 * Marks the beginning of a concurrent execution of independent operators of this process. Until
+	 * the matching call of {@link #endConcurrentExecution()}, operators neither change the current
+	 * operator nor notify the process listeners about their start and end, since both assume that
+	 * only one operator is executed at a time. Pausing is deferred until the concurrent execution
+	 * has ended.
+	 *
+	 * @since 8.0
+	 */
+	public void beginConcurrentExecution() {
+		concurrentExecutions.incrementAndGet();
+	}
+
+	/**
+	 * Marks the end of a concurrent execution started by {@link #beginConcurrentExecution()}.
+	 *
+	 * @since 8.0
+	 */
+	public void endConcurrentExecution() {
+		concurrentExecutions.decrementAndGet();
+	}
+
+	/**
+	 * Returns whether independent operators of this process are currently executed concurrently.
+	 *
+	 * @since 8.0
+	 */
+	public boolean isConcurrentExecution() {
+		return concurrentExecutions.get() > 0;
+	}
+
 	// -------------------------------------
 	// start, stop, resume, breakpoints
 	// -------------------------------------
@@ -389,6 +389,14 @@ public class RapidMiner {
 	 */
 	public static final String PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS = "rapidminer.general.number_of_threads";
 
+	/**
+	 * The maximum number of working threads a single process can use while other processes are
+	 * running.
+	 *
+	 * @since 8.0
+	 */
+	public static final String PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS_PER_PROCESS = "rapidminer.general.number_of_threads_per_process";
+
 	/**
 	 * The maximum number of working threads that should be used by processes.
 	 */
@@ -416,6 +424,38 @@ public class RapidMiner {
 	 */
 	public static final String PROPERTY_RAPIDMINER_SYSTEM_LEGACY_DATA_MGMT = "rapidminer.system.legacy_data_mgmt";
 
+	/**
+	 * The name of the property indicating whether independent operators of a subprocess should be
+	 * executed in parallel.
+	 *
+	 * @since 8.0
+	 */
+	public static final String PROPERTY_RAPIDMINER_SYSTEM_PARALLEL_SUBPROCESS_EXECUTION = "rapidminer.system.parallel_subprocess_execution";
+
+	/**
+	 * The name of the property indicating whether example sets should be stored column by column in
+	 * local repositories.
+	 *
+	 * @since 8.0
+	 */
+	public static final String PROPERTY_RAPIDMINER_SYSTEM_COLUMNAR_EXAMPLE_SET_STORAGE = "rapidminer.system.columnar_example_set_storage";
+
+	/**
+	 * The name of the property indicating whether expressions evaluated for every example should be
+	 * compiled.
+	 *
+	 * @since 8.0
+	 */
+	public static final String PROPERTY_RAPIDMINER_SYSTEM_COMPILE_EXPRESSIONS = "rapidminer.system.compile_expressions";
+
+	/**
+	 * The name of the property indicating whether data import should store the values of
+	 * polynominal attributes in compact mappings.
+	 *
+	 * @since 8.0
+	 */
+	public static final String PROPERTY_RAPIDMINER_SYSTEM_COMPACT_NOMINAL_MAPPINGS = "rapidminer.system.compact_nominal_mappings";
+
 	public static final String PROPERTY_RAPIDMINER_PROXY_MODE = "rapidminer.proxy.mode";
 	public static final String PROPERTY_RAPIDMINER_PROXY_EXCLUDE = "rapidminer.proxy.exclude";
 
@@ -521,6 +561,8 @@ public class RapidMiner {
 		registerParameter(
 				new ParameterTypeBoolean(CapabilityProvider.PROPERTY_RAPIDMINER_GENERAL_CAPABILITIES_WARN, "", false));
 		registerParameter(new ParameterTypeInt(PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "", 0, Integer.MAX_VALUE, 0));
+		registerParameter(new ParameterTypeInt(PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS_PER_PROCESS, "", 0,
+				Integer.MAX_VALUE, 0));
 		registerParameter(
 				new ParameterTypeInt(PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_PROCESSES, "", 0, Integer.MAX_VALUE, 0));
 		registerParameter(new ParameterTypeString(PROPERTY_RAPIDMINER_TOOLS_EDITOR, "", true));
@@ -552,6 +594,13 @@ public class RapidMiner {
 		registerParameter(new ParameterTypeInt(PROPERTY_RAPIDMINER_MAX_MEMORY, "", 384, Integer.MAX_VALUE, true), "system");
 		
 		registerParameter(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_SYSTEM_LEGACY_DATA_MGMT, "", false), "system");
+		registerParameter(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_SYSTEM_PARALLEL_SUBPROCESS_EXECUTION, "", false),
+				"system");
+		registerParameter(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_SYSTEM_COLUMNAR_EXAMPLE_SET_STORAGE, "", false),
+				"system");
+		registerParameter(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_SYSTEM_COMPILE_EXPRESSIONS, "", false), "system");
+		registerParameter(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_SYSTEM_COMPACT_NOMINAL_MAPPINGS, "", false),
+				"system");
 
 		registerParameter(new ParameterTypeInt(WebServiceTools.WEB_SERVICE_TIMEOUT, "", 1, Integer.MAX_VALUE, 20000),
 				"system");
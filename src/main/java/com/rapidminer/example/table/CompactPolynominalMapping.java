@@ -0,0 +1,626 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.example.table;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.rapidminer.example.AttributeTypeException;
+import com.rapidminer.example.Example;
+
+
+/**
+ * A {@link NominalMapping} for nominal attributes with a very large number of different values,
+ * e.g. ids or URLs. In contrast to the {@link PolynominalMapping}, it does not keep a
+ * {@link String} object per value and does not box the indices. The values are stored encoded as
+ * modified UTF-8 (as used by {@link java.io.DataOutput#writeUTF(String)}, lossless for all strings)
+ * one after another in byte pages and are found by an open-addressing hash table of primitive
+ * indices. This needs roughly 20 bytes plus the encoded length per value. The pages grow with the
+ * content, and the bytes of overwritten values are reclaimed once they make up half of the pages.
+ * <p>
+ * The price is that {@link #mapIndex(int)} creates a new string on every call. The serialized
+ * form only contains the encoded values.
+ * <p>
+ * {@link PolynominalAttribute}s keep this mapping when it is set via
+ * {@link PolynominalAttribute#setMapping(NominalMapping)}.
+ *
+ * @since 8.0
+ */
+public class CompactPolynominalMapping implements NominalMapping {
+
+	private static final long serialVersionUID = 2717460402154307619L;
+
+	/** the maximal size of the byte pages, longer values get a page of their own */
+	private static final int PAGE_SIZE = 1 << 20;
+
+	/** the size of the first page, pages double in size until they reach the maximal size */
+	private static final int INITIAL_PAGE_SIZE = 256;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** the address of indices without value */
+	private static final long NO_VALUE = -1;
+
+	/** the pages storing the encoded values, each prefixed with its length */
+	private transient byte[][] pages;
+	private transient int numberOfPages;
+	private transient int pageFill;
+
+	/** the number of bytes in all pages and the number of them belonging to overwritten values */
+	private transient long storedBytes;
+	private transient long garbageBytes;
+
+	/** the page and offset of the value per index */
+	private transient long[] addresses;
+	private transient int[] hashes;
+	private transient int size;
+
+	/** the open-addressing hash table storing index + 1 and 0 for empty slots */
+	private transient int[] table;
+	private transient int numberOfKeys;
+
+	public CompactPolynominalMapping() {
+		initialize(INITIAL_CAPACITY);
+	}
+
+	public CompactPolynominalMapping(Map<Integer, String> map) {
+		this();
+		for (Map.Entry<Integer, String> entry : map.entrySet()) {
+			int index = entry.getKey();
+			while (size <= index) {
+				append(NO_VALUE, 0);
+			}
+			assign(index, entry.getValue());
+		}
+	}
+
+	public CompactPolynominalMapping(NominalMapping mapping) {
+		if (mapping instanceof CompactPolynominalMapping) {
+			CompactPolynominalMapping other = (CompactPolynominalMapping) mapping;
+			this.numberOfPages = other.numberOfPages;
+			this.pages = new byte[Math.max(1, other.numberOfPages)][];
+			for (int i = 0; i < numberOfPages; i++) {
+				// pages are immutable except for the unused rest of the last one, which grows on
+				// demand
+				pages[i] = i == numberOfPages - 1 ? Arrays.copyOf(other.pages[i], other.pageFill) : other.pages[i];
+			}
+			this.pageFill = other.pageFill;
+			this.storedBytes = other.storedBytes;
+			this.garbageBytes = other.garbageBytes;
+			this.addresses = other.addresses.clone();
+			this.hashes = other.hashes.clone();
+			this.size = other.size;
+			this.table = other.table.clone();
+			this.numberOfKeys = other.numberOfKeys;
+		} else {
+			initialize(Math.max(INITIAL_CAPACITY, mapping.size()));
+			for (int i = 0; i < mapping.size(); i++) {
+				append(NO_VALUE, 0);
+				assign(i, mapping.mapIndex(i));
+			}
+		}
+	}
+
+	private void initialize(int capacity) {
+		pages = new byte[1][];
+		numberOfPages = 0;
+		pageFill = 0;
+		storedBytes = 0;
+		garbageBytes = 0;
+		addresses = new long[capacity];
+		hashes = new int[capacity];
+		size = 0;
+		table = new int[Integer.highestOneBit(Math.max(INITIAL_CAPACITY, capacity) - 1) << 2];
+		numberOfKeys = 0;
+	}
+
+	@Override
+	public Object clone() {
+		return new CompactPolynominalMapping(this);
+	}
+
+	@Override
+	public boolean equals(NominalMapping mapping) {
+		if (mapping.size() != size()) {
+			return false;
+		}
+		for (String value : mapping.getValues()) {
+			if (getIndex(value) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the index for the nominal attribute value <code>str</code>. If the string is unknown,
+	 * a new index value is assigned. Returns -1, if str is null.
+	 */
+	@Override
+	public int mapString(String str) {
+		if (str == null) {
+			return -1;
+		}
+		byte[] encoded = encode(str);
+		int hash = hash(str);
+		int index = find(encoded, hash);
+		if (index < 0) {
+			index = size;
+			append(store(encoded), hash);
+			insert(index);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the index of the given nominal value or -1 if this value was not mapped before.
+	 */
+	@Override
+	public int getIndex(String str) {
+		if (str == null) {
+			return -1;
+		}
+		return find(encode(str), hash(str));
+	}
+
+	/**
+	 * Returns the attribute value, that is associated with this index. Index counting starts with
+	 * 0.
+	 */
+	@Override
+	public String mapIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new AttributeTypeException(
+					"Cannot map index of nominal attribute to nominal value: index " + index + " is out of bounds!");
+		}
+		return decode(addresses[index]);
+	}
+
+	/**
+	 * Sets the given mapping. Please note that this will overwrite existing mappings and might
+	 * cause data changes in this way.
+	 */
+	@Override
+	public void setMapping(String nominalValue, int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		assign(index, nominalValue);
+	}
+
+	@Override
+	public int getNegativeIndex() {
+		ensureClassification();
+		if (mapIndex(0) == null) {
+			throw new AttributeTypeException("Attribute: Cannot use FIRST_CLASS_INDEX for negative class!");
+		}
+		return 0;
+	}
+
+	@Override
+	public int getPositiveIndex() {
+		ensureClassification();
+		if (mapIndex(0) == null) {
+			throw new AttributeTypeException("Attribute: Cannot use FIRST_CLASS_INDEX for negative class!");
+		}
+		for (int index = 1; index < size; index++) {
+			if (addresses[index] != NO_VALUE) {
+				return index;
+			}
+		}
+		throw new AttributeTypeException("Attribute: No other class than FIRST_CLASS_INDEX found!");
+	}
+
+	@Override
+	public String getNegativeString() {
+		return mapIndex(getNegativeIndex());
+	}
+
+	@Override
+	public String getPositiveString() {
+		return mapIndex(getPositiveIndex());
+	}
+
+	/**
+	 * Returns an unmodifiable view on the values. The strings are created on access.
+	 */
+	@Override
+	public List<String> getValues() {
+		return new AbstractList<String>() {
+
+			@Override
+			public String get(int index) {
+				if (index < 0 || index >= size) {
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+				}
+				return decode(addresses[index]);
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * This method rearranges the string to number mappings such that they are in alphabetical
+	 * order. <br>
+	 * <b>VERY IMPORTANT NOTE:</b> Do not call this method when this attribute is already associated
+	 * with an {@link ExampleTable} and it already contains {@link Example}s. All examples will be
+	 * messed up since the indices will not be replaced in the data table.
+	 */
+	@Override
+	public void sortMappings() {
+		List<String> allStrings = new ArrayList<>(numberOfKeys);
+		for (int entry : table) {
+			if (entry != 0) {
+				allStrings.add(decode(addresses[entry - 1]));
+			}
+		}
+		Collections.sort(allStrings);
+		clear();
+		for (String value : allStrings) {
+			mapString(value);
+		}
+	}
+
+	@Override
+	public void clear() {
+		initialize(INITIAL_CAPACITY);
+	}
+
+	private void ensureClassification() {
+		if (size() != 2) {
+			throw new AttributeTypeException("Attribute " + this.toString() + " is not a classification attribute!");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getValues().toString();
+	}
+
+	/**
+	 * Sets the value of an existing index. Like for the {@link PolynominalMapping}, the previous
+	 * value of the index and other indices of the new value are no longer found.
+	 */
+	private void assign(int index, String value) {
+		if (addresses[index] != NO_VALUE) {
+			String oldValue = decode(addresses[index]);
+			int oldIndex = find(encode(oldValue), hashes[index]);
+			if (oldIndex >= 0) {
+				remove(oldIndex);
+			}
+			garbageBytes += getStoredLength(addresses[index]);
+		}
+		if (value == null) {
+			addresses[index] = NO_VALUE;
+			hashes[index] = 0;
+		} else {
+			byte[] encoded = encode(value);
+			int hash = hash(value);
+			int existing = find(encoded, hash);
+			if (existing >= 0) {
+				remove(existing);
+			}
+			addresses[index] = store(encoded);
+			hashes[index] = hash;
+			insert(index);
+		}
+		if (garbageBytes > INITIAL_PAGE_SIZE && 2 * garbageBytes > storedBytes) {
+			compact();
+		}
+	}
+
+	private void append(long address, int hash) {
+		if (size == addresses.length) {
+			int capacity = size + (size >> 1) + 1;
+			addresses = Arrays.copyOf(addresses, capacity);
+			hashes = Arrays.copyOf(hashes, capacity);
+		}
+		addresses[size] = address;
+		hashes[size] = hash;
+		size++;
+	}
+
+	// ================================================================================
+	// hash table
+	// ================================================================================
+
+	private static int hash(String value) {
+		int hash = value.hashCode() * 0x9E3779B9;
+		return hash ^ hash >>> 16;
+	}
+
+	/**
+	 * Returns the index with the given encoded value or -1.
+	 */
+	private int find(byte[] encoded, int hash) {
+		int mask = table.length - 1;
+		for (int slot = hash & mask;; slot = slot + 1 & mask) {
+			int entry = table[slot];
+			if (entry == 0) {
+				return -1;
+			}
+			int index = entry - 1;
+			if (hashes[index] == hash && equalsStored(addresses[index], encoded)) {
+				return index;
+			}
+		}
+	}
+
+	private void insert(int index) {
+		if (2 * (numberOfKeys + 1) > table.length) {
+			int[] oldTable = table;
+			table = new int[oldTable.length * 2];
+			for (int entry : oldTable) {
+				if (entry != 0) {
+					place(entry);
+				}
+			}
+		}
+		place(index + 1);
+		numberOfKeys++;
+	}
+
+	private void place(int entry) {
+		int mask = table.length - 1;
+		int slot = hashes[entry - 1] & mask;
+		while (table[slot] != 0) {
+			slot = slot + 1 & mask;
+		}
+		table[slot] = entry;
+	}
+
+	/**
+	 * Removes the index from the table, shifting back the following entries of the probe sequence.
+	 */
+	private void remove(int index) {
+		int mask = table.length - 1;
+		int slot = hashes[index] & mask;
+		while (table[slot] != index + 1) {
+			slot = slot + 1 & mask;
+		}
+		int next = slot;
+		while (true) {
+			next = next + 1 & mask;
+			int entry = table[next];
+			if (entry == 0) {
+				break;
+			}
+			int ideal = hashes[entry - 1] & mask;
+			// moving the entry if its ideal slot is not in the cyclic range (slot, next]
+			boolean inRange = slot <= next ? slot < ideal && ideal <= next : slot < ideal || ideal <= next;
+			if (!inRange) {
+				table[slot] = entry;
+				slot = next;
+			}
+		}
+		table[slot] = 0;
+		numberOfKeys--;
+	}
+
+	// ================================================================================
+	// byte pages
+	// ================================================================================
+
+	/**
+	 * Stores the encoded value with its length and returns its address. The last page grows up to
+	 * the maximal page size before a new page is started.
+	 */
+	private long store(byte[] encoded) {
+		int needed = lengthOfLength(encoded.length) + encoded.length;
+		if (numberOfPages > 0 && pageFill + needed > pages[numberOfPages - 1].length && pageFill + needed <= PAGE_SIZE) {
+			// addresses stay valid since only the page but not the offsets change
+			int length = Math.max(2 * pages[numberOfPages - 1].length, pageFill + needed);
+			pages[numberOfPages - 1] = Arrays.copyOf(pages[numberOfPages - 1], Math.min(PAGE_SIZE, length));
+		} else if (numberOfPages == 0 || pageFill + needed > pages[numberOfPages - 1].length) {
+			if (numberOfPages == pages.length) {
+				pages = Arrays.copyOf(pages, pages.length * 2);
+			}
+			pages[numberOfPages++] = new byte[Math.max(INITIAL_PAGE_SIZE, needed)];
+			pageFill = 0;
+		}
+		byte[] page = pages[numberOfPages - 1];
+		long address = (long) (numberOfPages - 1) << 32 | pageFill;
+		int offset = pageFill;
+		int length = encoded.length;
+		while (length >= 0x80) {
+			page[offset++] = (byte) (length | 0x80);
+			length >>>= 7;
+		}
+		page[offset++] = (byte) length;
+		System.arraycopy(encoded, 0, page, offset, encoded.length);
+		pageFill = offset + encoded.length;
+		storedBytes += needed;
+		return address;
+	}
+
+	/**
+	 * Copies all values into new pages, dropping the bytes of overwritten values.
+	 */
+	private void compact() {
+		byte[][] oldPages = pages;
+		pages = new byte[1][];
+		numberOfPages = 0;
+		pageFill = 0;
+		storedBytes = 0;
+		garbageBytes = 0;
+		for (int index = 0; index < size; index++) {
+			long address = addresses[index];
+			if (address != NO_VALUE) {
+				byte[] page = oldPages[(int) (address >>> 32)];
+				int offset = (int) address;
+				int length = readLength(page, offset);
+				offset += lengthOfLength(length);
+				addresses[index] = store(Arrays.copyOfRange(page, offset, offset + length));
+			}
+		}
+	}
+
+	private int getStoredLength(long address) {
+		int length = readLength(pages[(int) (address >>> 32)], (int) address);
+		return lengthOfLength(length) + length;
+	}
+
+	private static int lengthOfLength(int length) {
+		int bytes = 1;
+		while (length >= 0x80) {
+			length >>>= 7;
+			bytes++;
+		}
+		return bytes;
+	}
+
+	private boolean equalsStored(long address, byte[] encoded) {
+		byte[] page = pages[(int) (address >>> 32)];
+		int offset = (int) address;
+		int length = readLength(page, offset);
+		offset += lengthOfLength(length);
+		if (length != encoded.length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (page[offset + i] != encoded[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String decode(long address) {
+		if (address == NO_VALUE) {
+			return null;
+		}
+		byte[] page = pages[(int) (address >>> 32)];
+		int offset = (int) address;
+		int length = readLength(page, offset);
+		return decode(page, offset + lengthOfLength(length), length);
+	}
+
+	private static int readLength(byte[] page, int offset) {
+		int length = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = page[offset++];
+			length |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return length;
+	}
+
+	private static String decode(byte[] bytes, int offset, int length) {
+		char[] chars = new char[length];
+		int count = 0;
+		int end = offset + length;
+		while (offset < end) {
+			int first = bytes[offset++] & 0xFF;
+			if (first < 0x80) {
+				chars[count++] = (char) first;
+			} else if (first < 0xE0) {
+				chars[count++] = (char) ((first & 0x1F) << 6 | bytes[offset++] & 0x3F);
+			} else {
+				chars[count++] = (char) ((first & 0x0F) << 12 | (bytes[offset++] & 0x3F) << 6 | bytes[offset++] & 0x3F);
+			}
+		}
+		return new String(chars, 0, count);
+	}
+
+	/**
+	 * Encodes the string as modified UTF-8, which maps every char sequence to a unique byte
+	 * sequence.
+	 */
+	private static byte[] encode(String value) {
+		int length = value.length();
+		int encodedLength = length;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c == 0 || c >= 0x80) {
+				encodedLength += c >= 0x800 ? 2 : 1;
+			}
+		}
+		byte[] encoded = new byte[encodedLength];
+		int offset = 0;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c != 0 && c < 0x80) {
+				encoded[offset++] = (byte) c;
+			} else if (c < 0x800) {
+				encoded[offset++] = (byte) (0xC0 | c >> 6);
+				encoded[offset++] = (byte) (0x80 | c & 0x3F);
+			} else {
+				encoded[offset++] = (byte) (0xE0 | c >> 12);
+				encoded[offset++] = (byte) (0x80 | c >> 6 & 0x3F);
+				encoded[offset++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		return encoded;
+	}
+
+	// ================================================================================
+	// serialization
+	// ================================================================================
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(size);
+		for (int index = 0; index < size; index++) {
+			long address = addresses[index];
+			if (address == NO_VALUE) {
+				out.writeInt(-1);
+				continue;
+			}
+			byte[] page = pages[(int) (address >>> 32)];
+			int offset = (int) address;
+			int length = readLength(page, offset);
+			out.writeInt(length);
+			out.write(page, offset + lengthOfLength(length), length);
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int numberOfValues = in.readInt();
+		initialize(Math.max(INITIAL_CAPACITY, numberOfValues));
+		for (int index = 0; index < numberOfValues; index++) {
+			int length = in.readInt();
+			append(NO_VALUE, 0);
+			if (length >= 0) {
+				byte[] encoded = new byte[length];
+				in.readFully(encoded);
+				assign(index, decode(encoded, 0, length));
+			}
+		}
+	}
+
+}
@@ -82,9 +82,17 @@ public class PolynominalAttribute extends NominalAttribute {
 		return this.nominalMapping;
 	}
 
+	/**
+	 * Sets a copy of the given mapping. A {@link CompactPolynominalMapping} stays compact, all
+	 * other mappings are copied into a {@link PolynominalMapping}.
+	 */
 	@Override
 	public void setMapping(NominalMapping newMapping) {
-		this.nominalMapping = new PolynominalMapping(newMapping);
+		if (newMapping instanceof CompactPolynominalMapping) {
+			this.nominalMapping = new CompactPolynominalMapping(newMapping);
+		} else {
+			this.nominalMapping = new PolynominalMapping(newMapping);
+		}
 	}
 
 	// ================================================================================
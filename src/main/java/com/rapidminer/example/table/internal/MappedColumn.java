@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.example.table.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * This implementation of {@link Column} reads its values from a region of a file containing
+ * little-endian doubles. The region is split into pages which are mapped into memory when they are
+ * accessed first, so that the operating system loads and evicts them as needed. The file is never
+ * written: setting a value copies the affected page to the heap and changes the copy. Columns
+ * without a file start with missing values only and allocate their pages on the first write. The
+ * column can grow beyond the region of the file, the additional values are kept on the heap in the
+ * same way.
+ * <p>
+ * Reading and writing different rows concurrently is safe, growing the column is not.
+ *
+ * @see Column
+ * @see MappedExampleTable
+ * @since 8.0
+ */
+class MappedColumn implements Column {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int PAGE_SHIFT = 20;
+
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	private final File file;
+
+	private final long offset;
+
+	/** The number of values in the file. */
+	private final int mappedSize;
+
+	private int size;
+
+	/** The mapped pages, recreated on access after deserialization. */
+	private transient AtomicReferenceArray<DoubleBuffer> mappedPages;
+
+	/** The pages copied to the heap because they were changed, replaced when the column grows. */
+	private volatile AtomicReferenceArray<double[]> copiedPages;
+
+	/**
+	 * Creates a column reading its values from the file.
+	 *
+	 * @param file
+	 *            the file containing the values, {@code null} for a column of missing values
+	 * @param offset
+	 *            the position of the first value in the file
+	 * @param size
+	 *            the number of values
+	 */
+	MappedColumn(File file, long offset, int size) {
+		this.file = file;
+		this.offset = offset;
+		this.mappedSize = size;
+		this.size = size;
+		this.mappedPages = new AtomicReferenceArray<>(getNumberOfPages(size));
+		this.copiedPages = new AtomicReferenceArray<>(getNumberOfPages(size));
+	}
+
+	@Override
+	public double get(int row) {
+		int page = row >>> PAGE_SHIFT;
+		double[] copy = copiedPages.get(page);
+		if (copy != null) {
+			return copy[row & PAGE_MASK];
+		}
+		if (file == null || row >= mappedSize) {
+			return Double.NaN;
+		}
+		return getMappedPage(page).get(row & PAGE_MASK);
+	}
+
+	@Override
+	public void set(int row, double value) {
+		int page = row >>> PAGE_SHIFT;
+		double[] copy = copiedPages.get(page);
+		if (copy == null) {
+			copy = copyPage(page);
+		}
+		copy[row & PAGE_MASK] = value;
+	}
+
+	@Override
+	public void setLast(int row, double value) {
+		set(row, value);
+	}
+
+	@Override
+	public synchronized void ensure(int size) {
+		if (size <= this.size) {
+			return;
+		}
+		AtomicReferenceArray<double[]> pages = copiedPages;
+		AtomicReferenceArray<double[]> grown = new AtomicReferenceArray<>(getNumberOfPages(size));
+		for (int i = 0; i < pages.length(); i++) {
+			grown.set(i, pages.get(i));
+		}
+		int lastPage = pages.length() - 1;
+		double[] last = lastPage < 0 ? null : pages.get(lastPage);
+		this.size = size;
+		if (last != null && last.length < getPageLength(lastPage)) {
+			// the former last page was copied with its old length
+			double[] extended = Arrays.copyOf(last, getPageLength(lastPage));
+			Arrays.fill(extended, last.length, extended.length, Double.NaN);
+			grown.set(lastPage, extended);
+		}
+		copiedPages = grown;
+	}
+
+	private static int getNumberOfPages(int size) {
+		return (int) (((long) size + PAGE_SIZE - 1) >> PAGE_SHIFT);
+	}
+
+	private int getPageLength(int page) {
+		return Math.min(PAGE_SIZE, size - (page << PAGE_SHIFT));
+	}
+
+	private int getMappedPageLength(int page) {
+		return Math.min(PAGE_SIZE, mappedSize - (page << PAGE_SHIFT));
+	}
+
+	/**
+	 * Returns the heap copy of the page, creating it if necessary. The copy is created at most
+	 * once, so that no write to a concurrently created copy is lost.
+	 */
+	private synchronized double[] copyPage(int page) {
+		double[] copy = copiedPages.get(page);
+		if (copy != null) {
+			return copy;
+		}
+		copy = new double[getPageLength(page)];
+		int mappedLength = file == null ? 0 : Math.max(0, Math.min(copy.length, mappedSize - (page << PAGE_SHIFT)));
+		if (mappedLength > 0) {
+			// the duplicate keeps the position of the shared buffer untouched
+			getMappedPage(page).duplicate().get(copy, 0, mappedLength);
+		}
+		Arrays.fill(copy, mappedLength, copy.length, Double.NaN);
+		copiedPages.set(page, copy);
+		return copy;
+	}
+
+	private DoubleBuffer getMappedPage(int page) {
+		AtomicReferenceArray<DoubleBuffer> pages = mappedPages;
+		if (pages == null) {
+			synchronized (this) {
+				if (mappedPages == null) {
+					mappedPages = new AtomicReferenceArray<>(getNumberOfPages(mappedSize));
+				}
+				pages = mappedPages;
+			}
+		}
+		DoubleBuffer buffer = pages.get(page);
+		if (buffer == null) {
+			long position = offset + ((long) page << PAGE_SHIFT) * Double.BYTES;
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				// the mapping stays valid after closing the channel
+				buffer = channel.map(MapMode.READ_ONLY, position, (long) getMappedPageLength(page) * Double.BYTES)
+						.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot map " + file + ": " + e.getMessage(), e);
+			}
+			if (!pages.compareAndSet(page, null, buffer)) {
+				buffer = pages.get(page);
+			}
+		}
+		return buffer;
+	}
+
+}
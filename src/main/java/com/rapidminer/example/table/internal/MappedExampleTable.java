@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.example.table.internal;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AbstractExampleTable;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.DataRowReader;
+
+
+/**
+ * {@linkplain Column} oriented example table whose columns are read from a file on demand, see
+ * {@link MappedColumn}. Only the accessed pages of the file are loaded into memory, and the
+ * operating system can evict them again, so the table can be larger than the heap. Changed values
+ * are kept on the heap page by page, the file is never modified. Attributes added later get columns
+ * of missing values whose pages are allocated on the heap when they are first written. The number
+ * of rows is fixed.
+ * <p>
+ * The file must neither be modified nor deleted while the table is in use. <br/>
+ * Caution: This class is not part of the official API. Please do not use it, instead use
+ * {@link com.rapidminer.operator.tools.ExampleSetToMappedFile}.
+ *
+ * @see MappedColumn
+ * @since 8.0
+ */
+public class MappedExampleTable extends AbstractExampleTable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Column NAN_COLUMN = new NaNColumn();
+
+	/**
+	 * View of a single data row. The view itself does not store any data.
+	 */
+	private class RowView extends DataRow {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int row;
+
+		private RowView(int index) {
+			row = index;
+		}
+
+		@Override
+		protected double get(int column, double defaultValue) {
+			return columns[column].get(row);
+		}
+
+		@Override
+		protected void set(int column, double value, double defaultValue) {
+			columns[column].set(row, value);
+		}
+
+		@Override
+		protected void ensureNumberOfColumns(int columns) {
+			// not necessary
+		}
+
+		@Override
+		public void trim() {
+			// no data to trim
+		}
+
+		@Override
+		public int getType() {
+			return DataRowFactory.TYPE_COLUMN_VIEW;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder result = new StringBuilder();
+			for (int i = 0; i < getNumberOfAttributes(); i++) {
+				result.append(i == 0 ? "" : ",").append(columns[i].get(row));
+			}
+			return result.toString();
+		}
+
+	}
+
+	/**
+	 * Reader for data row views.
+	 */
+	private class RowReader implements DataRowReader {
+
+		private int current = 0;
+
+		@Override
+		public boolean hasNext() {
+			return current < size;
+		}
+
+		@Override
+		public DataRow next() {
+			return new RowView(current++);
+		}
+
+	}
+
+	private Column[] columns;
+
+	private final int size;
+
+	/**
+	 * Creates a table reading the values of the attributes from the file. The values of the
+	 * attribute at position {@code i} are stored as {@code size} consecutive little-endian doubles
+	 * starting at {@code columnOffsets[i]}.
+	 *
+	 * @param attributes
+	 *            the table's attributes
+	 * @param file
+	 *            the file containing the values
+	 * @param columnOffsets
+	 *            the position of the first value of each attribute in the file
+	 * @param size
+	 *            the number of rows
+	 */
+	public MappedExampleTable(List<Attribute> attributes, File file, long[] columnOffsets, int size) {
+		super(attributes);
+		if (columnOffsets.length != attributes.size()) {
+			throw new IllegalArgumentException("Number of column offsets must match the number of attributes.");
+		}
+		this.size = size;
+		columns = new Column[attributes.size()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = new MappedColumn(file, columnOffsets[i], size);
+		}
+	}
+
+	@Override
+	public synchronized int addAttribute(Attribute attribute) {
+		int newIndex = super.addAttribute(attribute);
+		if (columns != null) {
+			if (newIndex >= columns.length) {
+				columns = Arrays.copyOf(columns, Math.max(newIndex + 1, columns.length + (columns.length >> 1)));
+			}
+			columns[newIndex] = new MappedColumn(null, 0, size);
+		}
+		return newIndex;
+	}
+
+	@Override
+	public synchronized void removeAttribute(int index) {
+		super.removeAttribute(index);
+		columns[index] = NAN_COLUMN;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public DataRowReader getDataRowReader() {
+		return new RowReader();
+	}
+
+	@Override
+	public DataRow getDataRow(int index) {
+		return new RowView(index);
+	}
+
+}
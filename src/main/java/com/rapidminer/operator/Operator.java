@@ -296,6 +296,9 @@ public abstract class Operator extends AbstractObservable<Operator>
 
 	private boolean shouldStopStandaloneExecution = false;
 
+	/** Set if the execution of this operator and its inner operators should be cancelled. */
+	private volatile boolean cancelRequested = false;
+
 	private OperatorVersion compatibilityLevel;
 
 	/**
@@ -964,10 +967,13 @@ public abstract class Operator extends AbstractObservable<Operator>
 			// check for stop
 			checkForStop(process);
 
+			// independent operators executed concurrently must not change the current operator
+			boolean notifyProcess = process != null && !process.isConcurrentExecution();
+
 			applyCountAtLastExecution = applyCount.incrementAndGet();
 			startTime = loopStartTime = System.currentTimeMillis();
 			startCpuTime = getThreadCpuTime();
-			if (process != null) {
+			if (notifyProcess) {
 				process.setCurrentOperator(this);
 				process.getRootOperator().processStartedOperator(this);
 			}
@@ -1046,7 +1052,7 @@ public abstract class Operator extends AbstractObservable<Operator>
 			getLogger().finest(getName() + ": execution time was " + (System.currentTimeMillis() - startTime) + " ms");
 
 			//
-			if (process != null) {
+			if (notifyProcess) {
 				process.getRootOperator().processFinishedOperator(this);
 			}
 
@@ -1074,6 +1080,11 @@ public abstract class Operator extends AbstractObservable<Operator>
 	 * {@link ProcessStoppedException} to cancel the execution.
 	 */
 	public final void checkForStop() throws ProcessStoppedException {
+		for (Operator operator = this; operator != null; operator = operator.getParent()) {
+			if (operator.cancelRequested) {
+				stop();
+			}
+		}
 		if (getParent() != null) {
 			checkForStop(getParent().getProcess());
 		} else {
@@ -1086,7 +1097,7 @@ public abstract class Operator extends AbstractObservable<Operator>
 			stop();
 			return;
 		}
-		if (process != null && process.shouldPause()) {
+		if (process != null && process.shouldPause() && !process.isConcurrentExecution()) {
 			getLogger().info("Process interrupted in " + getName());
 			processBreakpoint(null, BreakpointListener.BREAKPOINT_AFTER);
 		}
@@ -1110,6 +1121,27 @@ public abstract class Operator extends AbstractObservable<Operator>
 		}
 	}
 
+	/**
+	 * Causes the execution of this operator and of its inner operators to stop at the next call of
+	 * {@link #checkForStop()}, independent of the state of the process. This is used to cancel
+	 * operators that run concurrently to a failed operator. The request stays active until
+	 * {@link #clearCancelRequest()} is called.
+	 *
+	 * @since 8.0
+	 */
+	public final void requestCancel() {
+		cancelRequested = true;
+	}
+
+	/**
+	 * Withdraws a request made by {@link #requestCancel()}.
+	 *
+	 * @since 8.0
+	 */
+	public final void clearCancelRequest() {
+		cancelRequested = false;
+	}
+
 	private final void stop() throws ProcessStoppedException {
 		getLogger().info(getName() + ": Process stopped.");
 		throw new ProcessStoppedException(this);
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.rapidminer.core.concurrency.ConcurrencyContext;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
@@ -52,6 +53,7 @@ import com.rapidminer.operator.ports.metadata.MetaData;
 import com.rapidminer.operator.ports.metadata.SetRelation;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeStringCategory;
+import com.rapidminer.studio.internal.Resources;
 import com.rapidminer.tools.ObjectVisualizerService;
 import com.rapidminer.tools.Ontology;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
@@ -63,6 +65,9 @@ import com.rapidminer.tools.math.similarity.DistanceMeasures;
  * This operator implements agglomerative clustering, providing the three different strategies
  * SingleLink, CompleteLink and AverageLink. The last is also called UPGMA. The result will be a
  * hierarchical cluster model, providing distance information to plot as a dendogram.
+ * <p>
+ * Single linkage needs only linear memory, the other strategies store the distances condensed in
+ * single precision. See {@link MemoryEfficientLinkage}.
  *
  * @author Sebastian Land
  */
@@ -76,6 +81,13 @@ public class AgglomerativeClustering extends Operator implements CapabilityProvi
 
 	private static final int OPERATOR_PROGRESS_STEPS = 10;
 
+	/**
+	 * Up to this version, the clustering used a dense {@link DistanceMatrix} and searched the
+	 * complete matrix for every agglomeration. The results only differ for equal distances and, for
+	 * complete and average linkage, by the distances being rounded to single precision.
+	 */
+	public static final OperatorVersion VERSION_DENSE_DISTANCE_MATRIX = new OperatorVersion(7, 6, 3);
+
 	private InputPort exampleSetInput = getInputPorts().createPort("example set", new ExampleSetMetaData());
 	private OutputPort modelOutput = getOutputPorts().createPort("cluster model");
 	private OutputPort exampleSetOutput = getOutputPorts().createPort("example set");
@@ -119,6 +131,116 @@ public class AgglomerativeClustering extends Operator implements CapabilityProvi
 		// initialize operator progress
 		getProgress().setTotal(100);
 
+		HierarchicalClusterNode root;
+		if (getCompatibilityLevel().isAtMost(VERSION_DENSE_DISTANCE_MATRIX)) {
+			root = clusterWithDistanceMatrix(exampleSet, measure);
+		} else {
+			root = clusterMemoryEfficient(exampleSet, measure);
+		}
+
+		// creating model
+		HierarchicalClusterModel model = new DendogramHierarchicalClusterModel(root);
+
+		// registering visualizer
+		ObjectVisualizerService.addObjectVisualizer(model, new ExampleVisualizer((ExampleSet) exampleSet.clone()));
+
+		modelOutput.deliver(model);
+		exampleSetOutput.deliver(exampleSet);
+	}
+
+	/**
+	 * Computes the agglomerations with {@link MemoryEfficientLinkage} and builds the cluster tree
+	 * from them. The clusters are numbered in the order of their agglomeration.
+	 */
+	private HierarchicalClusterNode clusterMemoryEfficient(ExampleSet exampleSet, DistanceMeasure measure)
+			throws OperatorException {
+		ConcurrencyContext context = Resources.getConcurrencyContext(this);
+		Attributes attributes = exampleSet.getAttributes();
+		Attribute idAttribute = attributes.getId();
+		boolean idAttributeIsNominal = idAttribute.isNominal();
+
+		// extracting the values in the attribute order used by the distance measure
+		int size = exampleSet.size();
+		double[][] points = new double[size][attributes.size()];
+		HierarchicalClusterNode[] clusters = new HierarchicalClusterNode[size];
+		int row = 0;
+		for (Example example : exampleSet) {
+			int column = 0;
+			for (Attribute attribute : attributes) {
+				points[row][column++] = example.getValue(attribute);
+			}
+			if (idAttributeIsNominal) {
+				clusters[row] = new HierarchicalClusterLeafNode(row, example.getValueAsString(idAttribute));
+			} else {
+				clusters[row] = new HierarchicalClusterLeafNode(row, example.getValue(idAttribute));
+			}
+			row++;
+		}
+
+		Agglomeration[] agglomerations;
+		String mode = getParameterAsString(PARAMETER_MODE);
+		if (mode.equals(modes[1]) || mode.equals(modes[2])) {
+			CondensedDistanceMatrix matrix = MemoryEfficientLinkage.computeDistances(points, measure, context);
+			agglomerations = MemoryEfficientLinkage.nearestNeighbourChain(matrix,
+					mode.equals(modes[1]) ? MemoryEfficientLinkage.COMPLETE_LINKAGE
+							: MemoryEfficientLinkage.AVERAGE_LINKAGE,
+					context);
+		} else {
+			agglomerations = MemoryEfficientLinkage.singleLinkage(points, measure, context);
+		}
+		getProgress().setCompleted((int) INTERMEDIATE_PROGRESS);
+
+		// joining the clusters in the order of the agglomerations, every cluster is represented by
+		// its point of the smallest index
+		int[] representative = new int[size];
+		for (int i = 0; i < size; i++) {
+			representative[i] = i;
+		}
+		int nextClusterId = size;
+		for (Agglomeration agglomeration : agglomerations) {
+			int first = findRepresentative(representative, agglomeration.getClusterId1());
+			int second = findRepresentative(representative, agglomeration.getClusterId2());
+			if (first > second) {
+				int swap = first;
+				first = second;
+				second = swap;
+			}
+			HierarchicalClusterNode newNode = new HierarchicalClusterNode(nextClusterId, agglomeration.getDistance());
+			newNode.addSubNode(clusters[first]);
+			newNode.addSubNode(clusters[second]);
+			clusters[first] = newNode;
+			clusters[second] = null;
+			representative[second] = first;
+			nextClusterId++;
+			if (nextClusterId % OPERATOR_PROGRESS_STEPS == 0) {
+				checkForStop();
+				getProgress().setCompleted((int) (INTERMEDIATE_PROGRESS
+						+ (100.0 - INTERMEDIATE_PROGRESS) * (nextClusterId - size) / size));
+			}
+		}
+		return clusters[0];
+	}
+
+	private static int findRepresentative(int[] representative, int point) {
+		int root = point;
+		while (representative[root] != root) {
+			root = representative[root];
+		}
+		// compressing the path
+		while (representative[point] != root) {
+			int next = representative[point];
+			representative[point] = root;
+			point = next;
+		}
+		return root;
+	}
+
+	/**
+	 * The original implementation filling a dense {@link DistanceMatrix} and searching it
+	 * completely for every agglomeration.
+	 */
+	private HierarchicalClusterNode clusterWithDistanceMatrix(ExampleSet exampleSet, DistanceMeasure measure)
+			throws OperatorException {
 		Attribute idAttribute = exampleSet.getAttributes().getId();
 		boolean idAttributeIsNominal = idAttribute.isNominal();
 		DistanceMatrix matrix = new DistanceMatrix(exampleSet.size());
@@ -174,15 +296,7 @@ public class AgglomerativeClustering extends Operator implements CapabilityProvi
 			}
 		}
 
-		// creating model
-		HierarchicalClusterModel model = new DendogramHierarchicalClusterModel(
-				clusterMap.entrySet().iterator().next().getValue());
-
-		// registering visualizer
-		ObjectVisualizerService.addObjectVisualizer(model, new ExampleVisualizer((ExampleSet) exampleSet.clone()));
-
-		modelOutput.deliver(model);
-		exampleSetOutput.deliver(exampleSet);
+		return clusterMap.entrySet().iterator().next().getValue();
 	}
 
 	@Override
@@ -231,8 +345,9 @@ public class AgglomerativeClustering extends Operator implements CapabilityProvi
 	@Override
 	public OperatorVersion[] getIncompatibleVersionChanges() {
 		OperatorVersion[] old = super.getIncompatibleVersionChanges();
-		OperatorVersion[] versions = Arrays.copyOf(old, old.length + 1);
+		OperatorVersion[] versions = Arrays.copyOf(old, old.length + 2);
 		versions[old.length] = AbstractClusterer.BEFORE_EMPTY_CHECKS;
+		versions[old.length + 1] = VERSION_DENSE_DISTANCE_MATRIX;
 		return versions;
 	}
 }
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.clustering.clusterer;
+
+/**
+ * A symmetric distance matrix storing only the upper right triangle without the diagonal in single
+ * precision. Row x holds the distances to all y > x, thus n * (n - 1) / 2 values are stored for n
+ * points, spread over n arrays.
+ *
+ * @since 8.0
+ */
+public class CondensedDistanceMatrix {
+
+	private final float[][] rows;
+
+	private final int size;
+
+	public CondensedDistanceMatrix(int size) {
+		this.size = size;
+		this.rows = new float[size][];
+		for (int x = 0; x < size; x++) {
+			rows[x] = new float[size - x - 1];
+		}
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the distance between x and y, which must differ.
+	 */
+	public float get(int x, int y) {
+		if (x < y) {
+			return rows[x][y - x - 1];
+		} else {
+			return rows[y][x - y - 1];
+		}
+	}
+
+	/**
+	 * Sets the distance between x and y, which must differ.
+	 */
+	public void set(int x, int y, float distance) {
+		if (x < y) {
+			rows[x][y - x - 1] = distance;
+		} else {
+			rows[y][x - y - 1] = distance;
+		}
+	}
+
+	/**
+	 * Returns the row of x which holds the distances to all y > x at position y - x - 1.
+	 */
+	float[] getRow(int x) {
+		return rows[x];
+	}
+}
@@ -19,10 +19,14 @@
 package com.rapidminer.operator.clustering.clusterer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.rapidminer.core.concurrency.ConcurrencyContext;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
@@ -34,12 +38,18 @@ import com.rapidminer.operator.clustering.ClusterModel;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.studio.internal.Resources;
+import com.rapidminer.tools.math.container.RangeQueryKDTree;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 
 
 /**
  * This operator provides the DBScan cluster algorithm. If no id attribute is present, the operator
  * will create one.
+ * <p>
+ * The region queries are answered by a {@link RangeQueryKDTree} if the distance measure allows it
+ * and by a linear scan otherwise. The neighbourhoods of all points are computed in parallel before
+ * the clusters are expanded.
  *
  * @author Sebastian Land
  */
@@ -49,6 +59,15 @@ public class DBScan extends RMAbstractClusterer {
 
 	private static final String PARAMETER_MIN_POINTS = "min_points";
 
+	/** the number of points whose neighbourhoods are computed in one parallel task */
+	private static final int NEIGHBOURHOOD_BLOCK_SIZE = 1024;
+
+	/**
+	 * the maximal total number of neighbour indices kept in memory, larger neighbourhoods are
+	 * recomputed when the cluster is expanded
+	 */
+	private static final long MAXIMAL_STORED_NEIGHBOURS = 1L << 26;
+
 	public DBScan(OperatorDescription description) {
 		super(description);
 	}
@@ -75,39 +94,65 @@ public class DBScan extends RMAbstractClusterer {
 			attributeNames.add(attribute.getName());
 		}
 
+		// extracting the values in the attribute order used by the distance measure
+		double[][] points = new double[exampleSet.size()][attributes.size()];
+		int row = 0;
+		for (Example example : exampleSet) {
+			int column = 0;
+			for (Attribute attribute : attributes) {
+				points[row][column++] = example.getValue(attribute);
+			}
+			row++;
+		}
+		RangeQueryKDTree index = null;
+		if (RangeQueryKDTree.isSupported(measure)) {
+			index = new RangeQueryKDTree(points, measure);
+		}
+
+		boolean[] core = new boolean[exampleSet.size()];
+		int[][] neighbourhoods = computeNeighbourhoods(points, index, measure, epsilon, minPoints, core);
+
 		boolean[] visited = new boolean[exampleSet.size()];
 		boolean[] noised = new boolean[exampleSet.size()];
 		int[] clusterAssignments = new int[exampleSet.size()];
 
-		int i = 0;
+		int[] queue = new int[16];
 		int clusterIndex = 1;
-		for (Example example : exampleSet) {
+		for (int i = 0; i < points.length; i++) {
 			if (!visited[i]) {
-				Queue<Integer> centerNeighbourhood = getNeighbourhood(example, exampleSet, measure, epsilon);
-				if (centerNeighbourhood.size() < minPoints) {
+				if (!core[i]) {
 					noised[i] = true;
 				} else {
 					// then its center point of a cluster. Assign example to new cluster
 					clusterAssignments[i] = clusterIndex;
+					int[] centerNeighbourhood = takeNeighbourhood(i, neighbourhoods, points, index, measure, epsilon);
+					if (queue.length < centerNeighbourhood.length) {
+						queue = new int[centerNeighbourhood.length];
+					}
+					System.arraycopy(centerNeighbourhood, 0, queue, 0, centerNeighbourhood.length);
+					int head = 0;
+					int tail = centerNeighbourhood.length;
 					// expanding cluster within density borders
-					while (centerNeighbourhood.size() > 0) {
-						int currentIndex = centerNeighbourhood.poll().intValue();
-						Example currentExample = exampleSet.getExample(currentIndex);
+					while (head < tail) {
+						int currentIndex = queue[head++];
 						// assigning example to current cluster
 						clusterAssignments[currentIndex] = clusterIndex;
 						visited[currentIndex] = true;
 
 						// appending own neighbourhood to queue
-						Queue<Integer> neighbourhood = getNeighbourhood(currentExample, exampleSet, measure, epsilon);
-						if (neighbourhood.size() >= minPoints) {
+						if (core[currentIndex]) {
 							// then this neighbor of center is also a center of the cluster
-							while (neighbourhood.size() > 0) {
-								int neighbourIndex = neighbourhood.poll().intValue();
+							int[] neighbourhood = takeNeighbourhood(currentIndex, neighbourhoods, points, index, measure,
+									epsilon);
+							for (int neighbourIndex : neighbourhood) {
 								if (!visited[neighbourIndex]) {
 									if (!noised[neighbourIndex]) {
 										// if its not noised, then it might be center of cluster! So
 										// append to queue
-										centerNeighbourhood.add(neighbourIndex);
+										if (tail == queue.length) {
+											queue = Arrays.copyOf(queue, queue.length * 2);
+										}
+										queue[tail++] = neighbourIndex;
 									}
 									clusterAssignments[neighbourIndex] = clusterIndex;
 									visited[neighbourIndex] = true;
@@ -119,7 +164,6 @@ public class DBScan extends RMAbstractClusterer {
 					clusterIndex++;
 				}
 			}
-			i++;
 			getProgress().step();
 		}
 
@@ -135,20 +179,111 @@ public class DBScan extends RMAbstractClusterer {
 		return model;
 	}
 
-	private LinkedList<Integer> getNeighbourhood(Example centerExample, ExampleSet exampleSet, DistanceMeasure measure,
-			double epsilon) {
-		LinkedList<Integer> neighbourhood = new LinkedList<Integer>();
-		int i = 0;
-		for (Example example : exampleSet) {
-			double distance = measure.calculateDistance(centerExample, example);
-			if (distance < epsilon) {
-				neighbourhood.add(i);
+	/**
+	 * Runs the region queries for all points in parallel and marks the core points, i.e. the points
+	 * with at least minPoints neighbours. The neighbourhoods of the core points are returned as long
+	 * as their total size does not exceed {@link #MAXIMAL_STORED_NEIGHBOURS}, all other entries are
+	 * <code>null</code>.
+	 */
+	private int[][] computeNeighbourhoods(final double[][] points, final RangeQueryKDTree index,
+			final DistanceMeasure measure, final double epsilon, final int minPoints, final boolean[] core)
+			throws OperatorException {
+		final int[][] neighbourhoods = new int[points.length][];
+		final AtomicLong storedNeighbours = new AtomicLong();
+		final ConcurrencyContext context = Resources.getConcurrencyContext(this);
+
+		List<Callable<Void>> todo = new ArrayList<>();
+		for (int start = 0; start < points.length; start += NEIGHBOURHOOD_BLOCK_SIZE) {
+			final int startRow = start;
+			final int endRow = Math.min(points.length, start + NEIGHBOURHOOD_BLOCK_SIZE);
+			todo.add(new Callable<Void>() {
+
+				@Override
+				public Void call() throws OperatorException {
+					context.checkStatus();
+					for (int i = startRow; i < endRow; i++) {
+						int[] neighbourhood = getNeighbourhood(points[i], points, index, measure, epsilon);
+						if (neighbourhood.length >= minPoints) {
+							core[i] = true;
+							if (storedNeighbours.addAndGet(neighbourhood.length) <= MAXIMAL_STORED_NEIGHBOURS) {
+								neighbourhoods[i] = neighbourhood;
+							} else {
+								storedNeighbours.addAndGet(-neighbourhood.length);
+							}
+						}
+					}
+					return null;
+				}
+
+			});
+		}
+
+		if (todo.size() == 1 || context.getParallelism() <= 1) {
+			for (Callable<Void> task : todo) {
+				try {
+					task.call();
+				} catch (OperatorException | RuntimeException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new OperatorException(e.getMessage(), e);
+				}
 			}
-			i++;
+			return neighbourhoods;
 		}
+
+		try {
+			context.call(todo);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof OperatorException) {
+				throw (OperatorException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new OperatorException(cause.getMessage(), cause);
+			}
+		}
+		return neighbourhoods;
+	}
+
+	/**
+	 * Returns the neighbourhood of the given point. A stored neighbourhood is released since it is
+	 * rarely needed twice; it is recomputed in that case.
+	 */
+	private int[] takeNeighbourhood(int point, int[][] neighbourhoods, double[][] points, RangeQueryKDTree index,
+			DistanceMeasure measure, double epsilon) {
+		int[] neighbourhood = neighbourhoods[point];
+		if (neighbourhood == null) {
+			return getNeighbourhood(points[point], points, index, measure, epsilon);
+		}
+		neighbourhoods[point] = null;
 		return neighbourhood;
 	}
 
+	/**
+	 * Returns the indices of all points closer than epsilon to the center in ascending order.
+	 */
+	private static int[] getNeighbourhood(double[] center, double[][] points, RangeQueryKDTree index,
+			DistanceMeasure measure, double epsilon) {
+		if (index != null) {
+			return index.getNeighbours(center, epsilon);
+		}
+		int[] neighbourhood = new int[16];
+		int size = 0;
+		for (int i = 0; i < points.length; i++) {
+			double distance = measure.calculateDistance(center, points[i]);
+			if (distance < epsilon) {
+				if (size == neighbourhood.length) {
+					neighbourhood = Arrays.copyOf(neighbourhood, size * 2);
+				}
+				neighbourhood[size++] = i;
+			}
+		}
+		return Arrays.copyOf(neighbourhood, size);
+	}
+
 	@Override
 	protected boolean usesDistanceMeasures() {
 		return true;
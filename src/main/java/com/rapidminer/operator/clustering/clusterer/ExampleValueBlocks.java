@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.clustering.clusterer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+
+
+/**
+ * The values of the regular attributes of an {@link ExampleSet} extracted into row-major blocks of
+ * consecutive examples. The blocks are the units of work for the parallel computations of the
+ * centroid based clusterers, which thereby neither iterate over examples nor allocate arrays per
+ * example.
+ * <p>
+ * All computations are done per example, such that the results do not depend on the parallelism.
+ * If no {@link ConcurrencyContext} is given, they run sequentially.
+ *
+ * @since 8.0
+ */
+public class ExampleValueBlocks {
+
+	/** the number of examples in a block */
+	private static final int BLOCK_SIZE = 4096;
+
+	/**
+	 * A computation run for every example of a block.
+	 */
+	public interface RowTask {
+
+		/**
+		 * Processes the example with the given index whose values are in the buffer.
+		 */
+		void process(int index, double[] values) throws OperatorException;
+	}
+
+	private final double[][] blocks;
+
+	private final int size;
+
+	private final int dimensions;
+
+	/**
+	 * Extracts the values of the regular attributes in the order of the attributes.
+	 */
+	public ExampleValueBlocks(ExampleSet exampleSet) {
+		Attributes attributes = exampleSet.getAttributes();
+		this.size = exampleSet.size();
+		this.dimensions = attributes.size();
+		this.blocks = new double[(size + BLOCK_SIZE - 1) / BLOCK_SIZE][];
+		int index = 0;
+		double[] block = null;
+		for (Example example : exampleSet) {
+			int row = index % BLOCK_SIZE;
+			if (row == 0) {
+				block = new double[Math.min(BLOCK_SIZE, size - index) * dimensions];
+				blocks[index / BLOCK_SIZE] = block;
+			}
+			int offset = row * dimensions;
+			for (Attribute attribute : attributes) {
+				block[offset++] = example.getValue(attribute);
+			}
+			index++;
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getDimensions() {
+		return dimensions;
+	}
+
+	/**
+	 * Copies the values of the example with the given index into the buffer and returns it.
+	 */
+	public double[] getValues(int index, double[] buffer) {
+		System.arraycopy(blocks[index / BLOCK_SIZE], index % BLOCK_SIZE * dimensions, buffer, 0, dimensions);
+		return buffer;
+	}
+
+	/**
+	 * Runs the task for all examples, in parallel blocks if a context is given. Every block uses its
+	 * own buffer for the values.
+	 */
+	public void forEachExample(final RowTask task, final ConcurrencyContext context) throws OperatorException {
+		if (context == null || blocks.length <= 1 || context.getParallelism() <= 1) {
+			double[] buffer = new double[dimensions];
+			for (int block = 0; block < blocks.length; block++) {
+				processBlock(block, task, buffer, context);
+			}
+			return;
+		}
+
+		List<Callable<Void>> todo = new ArrayList<>(blocks.length);
+		for (int block = 0; block < blocks.length; block++) {
+			final int currentBlock = block;
+			todo.add(new Callable<Void>() {
+
+				@Override
+				public Void call() throws OperatorException {
+					processBlock(currentBlock, task, new double[dimensions], context);
+					return null;
+				}
+			});
+		}
+		try {
+			context.call(todo);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof OperatorException) {
+				throw (OperatorException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new OperatorException(cause.getMessage(), cause);
+			}
+		}
+	}
+
+	private void processBlock(int block, RowTask task, double[] buffer, ConcurrencyContext context)
+			throws OperatorException {
+		if (context != null) {
+			context.checkStatus();
+		}
+		double[] values = blocks[block];
+		int start = block * BLOCK_SIZE;
+		int rows = Math.min(BLOCK_SIZE, size - start);
+		for (int row = 0; row < rows; row++) {
+			System.arraycopy(values, row * dimensions, buffer, 0, dimensions);
+			task.process(start + row, buffer);
+		}
+	}
+
+	/**
+	 * Assigns every example to the nearest of the given centroids and stores the distances to it.
+	 * On equal distances, the centroid with the smaller index is chosen.
+	 *
+	 * @param distances
+	 *            the array for the distances to the nearest centroids, can be <code>null</code>
+	 */
+	public void assignToNearest(final double[][] centroids, final DistanceMeasure measure, final int[] assignments,
+			final double[] distances, ConcurrencyContext context) throws OperatorException {
+		forEachExample(new RowTask() {
+
+			@Override
+			public void process(int index, double[] values) {
+				double nearestDistance = measure.calculateDistance(centroids[0], values);
+				int nearestIndex = 0;
+				for (int centroidIndex = 1; centroidIndex < centroids.length; centroidIndex++) {
+					double distance = measure.calculateDistance(centroids[centroidIndex], values);
+					if (distance < nearestDistance) {
+						nearestDistance = distance;
+						nearestIndex = centroidIndex;
+					}
+				}
+				assignments[index] = nearestIndex;
+				if (distances != null) {
+					distances[index] = nearestDistance;
+				}
+			}
+		}, context);
+	}
+
+}
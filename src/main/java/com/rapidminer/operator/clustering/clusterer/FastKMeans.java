@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import com.rapidminer.core.concurrency.ConcurrencyContext;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
@@ -36,6 +37,7 @@ import com.rapidminer.operator.clustering.ClusterModel;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.studio.internal.Resources;
 import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasures;
@@ -51,6 +53,8 @@ import de.dfki.madm.operator.KMeanspp;
  * Accelerate k-Means - Proceedings of the Twentieth International Conference on Machine Learning
  * (ICML-2003), Washington DC, 2003
  *
+ * The bounds of the examples are updated in parallel on extracted {@link ExampleValueBlocks}.
+ *
  * @author Alexander Arimond
  */
 
@@ -87,12 +91,12 @@ public class FastKMeans extends RMAbstractClusterer {
 
 	@Override
 	protected ClusterModel generateInternalClusterModel(ExampleSet exampleSet) throws OperatorException {
-		int k = getParameterAsInt(PARAMETER_K);
+		final int k = getParameterAsInt(PARAMETER_K);
 		int maxOptimizationSteps = getParameterAsInt(PARAMETER_MAX_OPTIMIZATION_STEPS);
 		int maxRuns = getParameterAsInt(PARAMETER_MAX_RUNS);
 		boolean addAsLabel = addsLabelAttribute();
 		boolean removeUnlabeled = getParameterAsBoolean(RMAbstractClusterer.PARAMETER_REMOVE_UNLABELED);
-		DistanceMeasure measure = getInitializedMeasure(exampleSet);
+		final DistanceMeasure measure = getInitializedMeasure(exampleSet);
 
 		// init operator progress
 		getProgress().setTotal(maxRuns);
@@ -118,9 +122,15 @@ public class FastKMeans extends RMAbstractClusterer {
 		CentroidClusterModel bestModel = null;
 		int[] bestAssignments = null;
 
+		// the operator has no process when used by the x-means
+		ConcurrencyContext context = getProcess() != null ? Resources.getConcurrencyContext(this) : null;
+		ExampleValueBlocks data = new ExampleValueBlocks(exampleSet);
+		double[] values = new double[attributes.size()];
+		final double[] distances = new double[exampleSet.size()];
+
 		for (int iter = 0; iter < maxRuns; iter++) {
-			CentroidClusterModel model = new CentroidClusterModel(exampleSet, k, attributeNames, measure, addAsLabel,
-					removeUnlabeled);
+			final CentroidClusterModel model = new CentroidClusterModel(exampleSet, k, attributeNames, measure,
+					addAsLabel, removeUnlabeled);
 
 			// init centroids by assigning one single, unique example!
 			int i = 0;
@@ -156,29 +166,30 @@ public class FastKMeans extends RMAbstractClusterer {
 			computeClusterDistances(centroidDistances, s, model, measure);
 
 			// initialization step (has many distance calculations)
-			int x = 0;
-			for (Example example : exampleSet) {
-				double[] exampleValues = getAsDoubleArray(example, attributes);
-				double nearestDistance = measure.calculateDistance(model.getCentroidCoordinates(0), exampleValues);
-				l[x][0] = nearestDistance;
-				int nearestIndex = 0;
-				for (int centroidIndex = 1; centroidIndex < k; centroidIndex++) {
-					if (centroidDistances.get(nearestIndex, centroidIndex) >= 2 * nearestDistance) {
-						continue;
-					}
-					final double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidIndex),
-							exampleValues);
-					l[x][centroidIndex] = distance;
-					if (distance < nearestDistance) {
-						nearestDistance = distance;
-						nearestIndex = centroidIndex;
+			data.forEachExample(new ExampleValueBlocks.RowTask() {
+
+				@Override
+				public void process(int x, double[] exampleValues) {
+					double nearestDistance = measure.calculateDistance(model.getCentroidCoordinates(0), exampleValues);
+					l[x][0] = nearestDistance;
+					int nearestIndex = 0;
+					for (int centroidIndex = 1; centroidIndex < k; centroidIndex++) {
+						if (centroidDistances.get(nearestIndex, centroidIndex) >= 2 * nearestDistance) {
+							continue;
+						}
+						final double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidIndex),
+								exampleValues);
+						l[x][centroidIndex] = distance;
+						if (distance < nearestDistance) {
+							nearestDistance = distance;
+							nearestIndex = centroidIndex;
+						}
 					}
+					centroidAssignments[x] = nearestIndex;
+					u[x] = nearestDistance;
+					r[x] = false;
 				}
-				centroidAssignments[x] = nearestIndex;
-				u[x] = nearestDistance;
-				r[x] = false;
-				x++;
-			}
+			}, context);
 
 			// optimization steps (repeat until convergence)
 			boolean stable = false;
@@ -187,46 +198,50 @@ public class FastKMeans extends RMAbstractClusterer {
 				// step 1.
 				computeClusterDistances(centroidDistances, s, model, measure);
 
-				x = 0;
-				for (Example example : exampleSet) {
-					final double[] exampleValue = getAsDoubleArray(example, attributes);
+				data.forEachExample(new ExampleValueBlocks.RowTask() {
 
-					// step 2.
-					if (u[x] <= s[centroidAssignments[x]]) {
-					} else {
-						// step 3.
-						for (int c = 0; c < k; c++) {
-							if (c != centroidAssignments[x]  // (i)
-									&& u[x] > l[x][c] 			// (ii)
-									&& u[x] > 0.5 * centroidDistances.get(centroidAssignments[x], c) // (iii)
-							) {
-								// step 3a.
-								final double d_x_c;   // d(x,c(x))
-								if (r[x]) {
-									d_x_c = measure.calculateDistance(exampleValue,
-											model.getCentroidCoordinates(centroidAssignments[x]));
-									l[x][centroidAssignments[x]] = d_x_c;
-									u[x] = d_x_c;
-									r[x] = false;
-								} else {
-									d_x_c = u[x];
-								}
-								// step 3b.
-								if (d_x_c > l[x][c] && d_x_c > 0.5 * centroidDistances.get(centroidAssignments[x], c)) {
-									final double d_x_c_new = measure.calculateDistance(exampleValue,
-											model.getCentroidCoordinates(c)); // d(x,c)
-									l[x][c] = d_x_c_new;
-									if (d_x_c_new < d_x_c) {
-										centroidAssignments[x] = c;
-										u[x] = d_x_c_new;
+					@Override
+					public void process(int x, double[] exampleValue) {
+						// step 2.
+						if (u[x] <= s[centroidAssignments[x]]) {
+						} else {
+							// step 3.
+							for (int c = 0; c < k; c++) {
+								if (c != centroidAssignments[x]  // (i)
+										&& u[x] > l[x][c] 			// (ii)
+										&& u[x] > 0.5 * centroidDistances.get(centroidAssignments[x], c) // (iii)
+								) {
+									// step 3a.
+									final double d_x_c;   // d(x,c(x))
+									if (r[x]) {
+										d_x_c = measure.calculateDistance(exampleValue,
+												model.getCentroidCoordinates(centroidAssignments[x]));
+										l[x][centroidAssignments[x]] = d_x_c;
+										u[x] = d_x_c;
+										r[x] = false;
+									} else {
+										d_x_c = u[x];
+									}
+									// step 3b.
+									if (d_x_c > l[x][c]
+											&& d_x_c > 0.5 * centroidDistances.get(centroidAssignments[x], c)) {
+										final double d_x_c_new = measure.calculateDistance(exampleValue,
+												model.getCentroidCoordinates(c)); // d(x,c)
+										l[x][c] = d_x_c_new;
+										if (d_x_c_new < d_x_c) {
+											centroidAssignments[x] = c;
+											u[x] = d_x_c_new;
+										}
 									}
 								}
 							}
-						}
 
+						}
 					}
-					model.assignExample(centroidAssignments[x], exampleValue);
-					x++;
+				}, context);
+				// the centroids are updated in the order of the examples
+				for (int x = 0; x < centroidAssignments.length; x++) {
+					model.assignExample(centroidAssignments[x], data.getValues(x, values));
 				}
 
 				// step 4
@@ -244,30 +259,38 @@ public class FastKMeans extends RMAbstractClusterer {
 				}
 
 				// step 5 & 6
-				for (x = 0; x < exampleSet.size(); x++) {
-					// step 5
-					for (int c = 0; c < k; c++) {
-						final double d = l[x][c] - mean_distances[c];
-						if (d > 0) {
-							l[x][c] = d;
-						} else {
-							l[x][c] = 0;
+				data.forEachExample(new ExampleValueBlocks.RowTask() {
+
+					@Override
+					public void process(int x, double[] exampleValue) {
+						// step 5
+						for (int c = 0; c < k; c++) {
+							final double d = l[x][c] - mean_distances[c];
+							if (d > 0) {
+								l[x][c] = d;
+							} else {
+								l[x][c] = 0;
+							}
 						}
+						// step 6
+						u[x] = u[x] + mean_distances[centroidAssignments[x]];
+						r[x] = true;
 					}
-					// step 6
-					u[x] = u[x] + mean_distances[centroidAssignments[x]];
-					r[x] = true;
-				}
+				}, context);
 
 			}
 			// assessing quality of this model
+			data.forEachExample(new ExampleValueBlocks.RowTask() {
+
+				@Override
+				public void process(int x, double[] exampleValues) {
+					distances[x] = measure.calculateDistance(model.getCentroidCoordinates(centroidAssignments[x]),
+							exampleValues);
+				}
+			}, context);
 			double distanceSum = 0;
-			i = 0;
-			for (Example example : exampleSet) {
-				double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidAssignments[i]),
-						getAsDoubleArray(example, attributes));
+			for (double distance : distances) {
 				distanceSum += distance * distance;
-				i++;
 			}
 			if (distanceSum < minimalIntraClusterDistance) {
 				bestModel = model;
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.rapidminer.core.concurrency.ConcurrencyContext;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
@@ -36,6 +37,8 @@ import com.rapidminer.operator.clustering.ClusterModel;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.conditions.BooleanParameterCondition;
+import com.rapidminer.studio.internal.Resources;
 import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasures;
@@ -46,6 +49,10 @@ import de.dfki.madm.operator.KMeanspp;
 /**
  * This operator represents an implementation of k-means. This operator will create a cluster
  * attribute if not present yet.
+ * <p>
+ * The examples are assigned to the centroids in parallel on extracted {@link ExampleValueBlocks}.
+ * For very large example sets, the mini-batch variant of D. Sculley (Web-Scale K-Means Clustering,
+ * WWW 2010) updates the centroids from small random samples instead of all examples.
  *
  * @author Sebastian Land
  */
@@ -66,6 +73,12 @@ public class KMeans extends RMAbstractClusterer {
 	 */
 	public static final String PARAMETER_MAX_OPTIMIZATION_STEPS = "max_optimization_steps";
 
+	/** The parameter name for &quot;use random mini-batches to update the centroids&quot; */
+	public static final String PARAMETER_USE_MINI_BATCHES = "use_mini_batches";
+
+	/** The parameter name for &quot;the number of examples in a mini-batch&quot; */
+	public static final String PARAMETER_MINI_BATCH_SIZE = "mini_batch_size";
+
 	private static final int SQUARED_EUCLIDEAN_INDEX = 6;
 
 	public KMeans(OperatorDescription description) {
@@ -89,11 +102,13 @@ public class KMeans extends RMAbstractClusterer {
 		boolean kpp = getParameterAsBoolean(KMeanspp.PARAMETER_USE_KPP);
 		boolean addAsLabel = addsLabelAttribute();
 		boolean removeUnlabeled = getParameterAsBoolean(RMAbstractClusterer.PARAMETER_REMOVE_UNLABELED);
+		boolean miniBatches = getParameterAsBoolean(PARAMETER_USE_MINI_BATCHES);
+		int miniBatchSize = getParameterAsInt(PARAMETER_MINI_BATCH_SIZE);
 
 		// init operator progress
 		getProgress().setTotal(maxRuns * maxOptimizationSteps);
 
-		DistanceMeasure measure = getInitializedMeasure(exampleSet);
+		final DistanceMeasure measure = getInitializedMeasure(exampleSet);
 
 		// checking and creating ids if necessary
 		Tools.checkAndCreateIds(exampleSet);
@@ -117,6 +132,11 @@ public class KMeans extends RMAbstractClusterer {
 		int[] bestAssignments = null;
 		double[] values = new double[attributes.size()];
 
+		// the operator has no process when used by the x-means
+		ConcurrencyContext context = getProcess() != null ? Resources.getConcurrencyContext(this) : null;
+		ExampleValueBlocks data = new ExampleValueBlocks(exampleSet);
+		final double[] distances = new double[exampleSet.size()];
+
 		for (int iter = 0; iter < maxRuns; iter++) {
 			CentroidClusterModel model = new CentroidClusterModel(exampleSet, k, attributeNames, measure, addAsLabel,
 					removeUnlabeled);
@@ -141,41 +161,38 @@ public class KMeans extends RMAbstractClusterer {
 			model.finishAssign();
 
 			// run optimization steps
-			int[] centroidAssignments = new int[exampleSet.size()];
-			boolean stable = false;
-			for (int step = 0; step < maxOptimizationSteps && !stable; step++) {
-				getProgress().step();
-
-				// assign examples to new centroids
-				i = 0;
-				for (Example example : exampleSet) {
-					double[] exampleValues = getAsDoubleArray(example, attributes, values);
-					double nearestDistance = measure.calculateDistance(model.getCentroidCoordinates(0), exampleValues);
-					int nearestIndex = 0;
-					for (int centroidIndex = 1; centroidIndex < k; centroidIndex++) {
-						double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidIndex),
-								exampleValues);
-						if (distance < nearestDistance) {
-							nearestDistance = distance;
-							nearestIndex = centroidIndex;
-						}
+			final int[] centroidAssignments = new int[exampleSet.size()];
+			if (miniBatches) {
+				runMiniBatches(model, data, measure, miniBatchSize, maxOptimizationSteps, generator, context,
+						centroidAssignments);
+			} else {
+				boolean stable = false;
+				for (int step = 0; step < maxOptimizationSteps && !stable; step++) {
+					getProgress().step();
+
+					// assign examples to new centroids
+					data.assignToNearest(getCentroids(model), measure, centroidAssignments, null, context);
+					for (i = 0; i < centroidAssignments.length; i++) {
+						model.getCentroid(centroidAssignments[i]).assignExample(data.getValues(i, values));
 					}
-					centroidAssignments[i] = nearestIndex;
-					model.getCentroid(nearestIndex).assignExample(exampleValues);
-					i++;
-				}
 
-				// finishing assignment
-				stable = model.finishAssign();
+					// finishing assignment
+					stable = model.finishAssign();
+				}
 			}
 			// assessing quality of this model
+			final double[][] centroids = getCentroids(model);
+			data.forEachExample(new ExampleValueBlocks.RowTask() {
+
+				@Override
+				public void process(int index, double[] exampleValues) {
+					distances[index] = measure.calculateDistance(centroids[centroidAssignments[index]],
+							exampleValues);
+				}
+			}, context);
 			double distanceSum = 0;
-			i = 0;
-			for (Example example : exampleSet) {
-				double distance = measure.calculateDistance(model.getCentroidCoordinates(centroidAssignments[i]),
-						getAsDoubleArray(example, attributes, values));
+			for (double distance : distances) {
 				distanceSum += distance * distance;
-				i++;
 			}
 			if (distanceSum < minimalIntraClusterDistance) {
 				bestModel = model;
@@ -195,6 +212,63 @@ public class KMeans extends RMAbstractClusterer {
 		return bestModel;
 	}
 
+	/**
+	 * Runs the given number of mini-batch steps. Every step assigns a random sample of examples to
+	 * the nearest centroids and moves these centroids towards the examples with a per centroid
+	 * learning rate. Finally, all examples are assigned to the nearest centroids.
+	 */
+	private void runMiniBatches(CentroidClusterModel model, ExampleValueBlocks data, DistanceMeasure measure,
+			int batchSize, int steps, RandomGenerator generator, ConcurrencyContext context, int[] centroidAssignments)
+			throws OperatorException {
+		double[][] centroids = getCentroids(model);
+		int[] counts = new int[centroids.length];
+		int[] batch = new int[Math.min(batchSize, data.size())];
+		int[] batchAssignments = new int[batch.length];
+		double[] values = new double[data.getDimensions()];
+		for (int step = 0; step < steps; step++) {
+			getProgress().step();
+			for (int i = 0; i < batch.length; i++) {
+				batch[i] = generator.nextInt(data.size());
+			}
+
+			// assigning with the centroids before the update
+			for (int i = 0; i < batch.length; i++) {
+				data.getValues(batch[i], values);
+				double nearestDistance = measure.calculateDistance(centroids[0], values);
+				int nearestIndex = 0;
+				for (int centroidIndex = 1; centroidIndex < centroids.length; centroidIndex++) {
+					double distance = measure.calculateDistance(centroids[centroidIndex], values);
+					if (distance < nearestDistance) {
+						nearestDistance = distance;
+						nearestIndex = centroidIndex;
+					}
+				}
+				batchAssignments[i] = nearestIndex;
+			}
+
+			// moving the centroids, the centroid arrays belong to the model
+			for (int i = 0; i < batch.length; i++) {
+				data.getValues(batch[i], values);
+				int centroidIndex = batchAssignments[i];
+				double[] centroid = centroids[centroidIndex];
+				counts[centroidIndex]++;
+				double learningRate = 1d / counts[centroidIndex];
+				for (int d = 0; d < centroid.length; d++) {
+					centroid[d] += learningRate * (values[d] - centroid[d]);
+				}
+			}
+		}
+		data.assignToNearest(centroids, measure, centroidAssignments, null, context);
+	}
+
+	private static double[][] getCentroids(CentroidClusterModel model) {
+		double[][] centroids = new double[model.getNumberOfClusters()][];
+		for (int i = 0; i < centroids.length; i++) {
+			centroids[i] = model.getCentroidCoordinates(i);
+		}
+		return centroids;
+	}
+
 	private double[] getAsDoubleArray(Example example, Attributes attributes, double[] values) {
 		int i = 0;
 		for (Attribute attribute : attributes) {
@@ -241,6 +315,13 @@ public class KMeans extends RMAbstractClusterer {
 
 		types.add(new ParameterTypeInt(PARAMETER_MAX_OPTIMIZATION_STEPS,
 				"The maximal number of iterations performed for one run of k-Means.", 1, Integer.MAX_VALUE, 100, false));
+		types.add(new ParameterTypeBoolean(PARAMETER_USE_MINI_BATCHES,
+				"If checked, every iteration updates the centroids from a random sample of examples only. This is much faster for large example sets.",
+				false, true));
+		type = new ParameterTypeInt(PARAMETER_MINI_BATCH_SIZE, "The number of examples sampled in every iteration.", 1,
+				Integer.MAX_VALUE, 1000, true);
+		type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_USE_MINI_BATCHES, false, true));
+		types.add(type);
 		types.addAll(RandomGenerator.getRandomGeneratorParameters(this));
 		return types;
 	}
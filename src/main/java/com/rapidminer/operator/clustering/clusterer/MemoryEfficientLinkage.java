@@ -0,0 +1,328 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.clustering.clusterer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+
+
+/**
+ * Computes the agglomerations of the {@link AgglomerativeClustering} without a dense
+ * {@link DistanceMatrix}. Single linkage is derived from a minimum spanning tree built with Prim's
+ * algorithm, which only needs linear memory. Complete and average linkage use the nearest neighbour
+ * chain algorithm on a {@link CondensedDistanceMatrix}. Both take quadratic time and compute the
+ * distances in parallel.
+ * <p>
+ * Single linkage keeps the distances in double precision. The condensed matrix stores them in
+ * single precision to halve its memory, so the distances of complete and average linkage
+ * agglomerations are rounded to {@code float}, i.e. they carry a relative error of about
+ * {@code 6e-8}.
+ * <p>
+ * The agglomerations refer to the clusters by the index of one of their points and are sorted by
+ * ascending distance. Distances are always computed with the point of the smaller index first, as
+ * done by the dense implementation. If no {@link ConcurrencyContext} is given, everything is
+ * computed sequentially.
+ *
+ * @since 8.0
+ */
+public final class MemoryEfficientLinkage {
+
+	public static final int SINGLE_LINKAGE = 0;
+	public static final int COMPLETE_LINKAGE = 1;
+	public static final int AVERAGE_LINKAGE = 2;
+
+	/** the minimal number of remaining points for which a step of Prim's algorithm runs parallel */
+	private static final int THRESHOLD_PARALLEL = 20_000;
+
+	private static final Comparator<Agglomeration> DISTANCE_ORDER = new Comparator<Agglomeration>() {
+
+		@Override
+		public int compare(Agglomeration a1, Agglomeration a2) {
+			return Double.compare(a1.getDistance(), a2.getDistance());
+		}
+	};
+
+	private MemoryEfficientLinkage() {}
+
+	/**
+	 * Computes the single linkage agglomerations from the minimum spanning tree of the points.
+	 */
+	public static Agglomeration[] singleLinkage(final double[][] points, final DistanceMeasure measure,
+			ConcurrencyContext context) throws OperatorException {
+		return singleLinkage(points, measure, context, THRESHOLD_PARALLEL);
+	}
+
+	/**
+	 * Computes the single linkage agglomerations, running the steps of Prim's algorithm with at
+	 * least the given number of remaining points in parallel.
+	 */
+	static Agglomeration[] singleLinkage(final double[][] points, final DistanceMeasure measure,
+			ConcurrencyContext context, int parallelThreshold) throws OperatorException {
+		int n = points.length;
+		Agglomeration[] agglomerations = new Agglomeration[Math.max(0, n - 1)];
+		// the points not yet in the tree with their minimal distance to it and the tree point
+		// realizing that distance
+		final int[] remaining = new int[Math.max(0, n - 1)];
+		final double[] minimalDistance = new double[remaining.length];
+		final int[] nearest = new int[remaining.length];
+		for (int i = 0; i < remaining.length; i++) {
+			remaining[i] = i + 1;
+			minimalDistance[i] = Double.POSITIVE_INFINITY;
+		}
+		int numberOfRemaining = remaining.length;
+		int current = 0;
+		int step = 0;
+		while (numberOfRemaining > 0) {
+			int best;
+			if (context == null || numberOfRemaining < parallelThreshold || context.getParallelism() <= 1) {
+				best = updateAndFindNearest(points, measure, current, remaining, minimalDistance, nearest, 0,
+						numberOfRemaining);
+			} else {
+				final int treePoint = current;
+				int numberOfTasks = context.getParallelism();
+				int blocksize = numberOfRemaining / numberOfTasks;
+				int rest = numberOfRemaining % numberOfTasks;
+				List<Callable<Integer>> todo = new ArrayList<>(numberOfTasks);
+				int start = 0;
+				int end = 0;
+				while (end < numberOfRemaining) {
+					start = end;
+					end += blocksize;
+					if (rest > 0) {
+						end++;
+						rest--;
+					}
+					final int startPosition = start;
+					final int endPosition = end;
+					todo.add(new Callable<Integer>() {
+
+						@Override
+						public Integer call() {
+							return updateAndFindNearest(points, measure, treePoint, remaining, minimalDistance, nearest,
+									startPosition, endPosition);
+						}
+					});
+				}
+				// the blocks are in ascending order, so ties are resolved as in the sequential case
+				best = -1;
+				for (int position : call(context, todo)) {
+					if (best < 0 || minimalDistance[position] < minimalDistance[best]) {
+						best = position;
+					}
+				}
+			}
+
+			int point = remaining[best];
+			agglomerations[step++] = new Agglomeration(nearest[best], point, minimalDistance[best]);
+			numberOfRemaining--;
+			remaining[best] = remaining[numberOfRemaining];
+			minimalDistance[best] = minimalDistance[numberOfRemaining];
+			nearest[best] = nearest[numberOfRemaining];
+			current = point;
+			if (context != null) {
+				context.checkStatus();
+			}
+		}
+		Arrays.sort(agglomerations, DISTANCE_ORDER);
+		return agglomerations;
+	}
+
+	/**
+	 * Updates the minimal distances of the remaining points at the positions from start (inclusive)
+	 * to end (exclusive) with the point just added to the tree and returns the position with the
+	 * smallest distance.
+	 */
+	private static int updateAndFindNearest(double[][] points, DistanceMeasure measure, int treePoint, int[] remaining,
+			double[] minimalDistance, int[] nearest, int start, int end) {
+		int best = start;
+		for (int position = start; position < end; position++) {
+			int point = remaining[position];
+			double distance = treePoint < point ? measure.calculateDistance(points[treePoint], points[point])
+					: measure.calculateDistance(points[point], points[treePoint]);
+			if (distance < minimalDistance[position]) {
+				minimalDistance[position] = distance;
+				nearest[position] = treePoint;
+			}
+			if (minimalDistance[position] < minimalDistance[best]) {
+				best = position;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Computes the pairwise distances of the points in parallel. The distances are rounded to single
+	 * precision.
+	 */
+	public static CondensedDistanceMatrix computeDistances(final double[][] points, final DistanceMeasure measure,
+			final ConcurrencyContext context) throws OperatorException {
+		final CondensedDistanceMatrix matrix = new CondensedDistanceMatrix(points.length);
+		if (context == null || context.getParallelism() <= 1) {
+			fillRows(points, measure, matrix, 0, 1, context);
+			return matrix;
+		}
+		// rows are distributed round robin since their length decreases
+		final int numberOfTasks = Math.max(1, Math.min(points.length, 4 * context.getParallelism()));
+		List<Callable<Void>> todo = new ArrayList<>(numberOfTasks);
+		for (int task = 0; task < numberOfTasks; task++) {
+			final int firstRow = task;
+			todo.add(new Callable<Void>() {
+
+				@Override
+				public Void call() {
+					fillRows(points, measure, matrix, firstRow, numberOfTasks, context);
+					return null;
+				}
+			});
+		}
+		call(context, todo);
+		return matrix;
+	}
+
+	/**
+	 * Fills every step-th row of the matrix beginning with the given one.
+	 */
+	private static void fillRows(double[][] points, DistanceMeasure measure, CondensedDistanceMatrix matrix,
+			int firstRow, int step, ConcurrencyContext context) {
+		for (int x = firstRow; x < points.length; x += step) {
+			if (context != null) {
+				context.checkStatus();
+			}
+			float[] row = matrix.getRow(x);
+			for (int y = x + 1; y < points.length; y++) {
+				row[y - x - 1] = (float) measure.calculateDistance(points[x], points[y]);
+			}
+		}
+	}
+
+	/**
+	 * Computes the agglomerations of the given linkage with the nearest neighbour chain algorithm.
+	 * The matrix is overwritten with the distances between the clusters. Like the matrix, the
+	 * distances of the agglomerations are of single precision.
+	 *
+	 * @param linkage
+	 *            one of {@link #SINGLE_LINKAGE}, {@link #COMPLETE_LINKAGE} and
+	 *            {@link #AVERAGE_LINKAGE}
+	 */
+	public static Agglomeration[] nearestNeighbourChain(CondensedDistanceMatrix matrix, int linkage,
+			ConcurrencyContext context) {
+		int n = matrix.getSize();
+		Agglomeration[] agglomerations = new Agglomeration[Math.max(0, n - 1)];
+		boolean[] active = new boolean[n];
+		Arrays.fill(active, true);
+		int[] clusterSize = new int[n];
+		Arrays.fill(clusterSize, 1);
+		int[] chain = new int[n];
+		int chainLength = 0;
+		int firstActive = 0;
+
+		for (int step = 0; step < agglomerations.length; step++) {
+			if (context != null) {
+				context.checkStatus();
+			}
+			if (chainLength == 0) {
+				while (!active[firstActive]) {
+					firstActive++;
+				}
+				chain[chainLength++] = firstActive;
+			}
+
+			// growing the chain until two clusters are reciprocal nearest neighbours
+			int a;
+			int b;
+			float distance;
+			while (true) {
+				a = chain[chainLength - 1];
+				int previous = chainLength > 1 ? chain[chainLength - 2] : -1;
+				// preferring the previous cluster on ties avoids cycles
+				b = previous;
+				distance = previous >= 0 ? matrix.get(a, previous) : Float.POSITIVE_INFINITY;
+				for (int c = 0; c < n; c++) {
+					if (active[c] && c != a) {
+						float value = matrix.get(a, c);
+						if (value < distance || b < 0) {
+							distance = value;
+							b = c;
+						}
+					}
+				}
+				if (b == previous) {
+					break;
+				}
+				chain[chainLength++] = b;
+			}
+			chainLength -= 2;
+
+			// merging into the cluster with the smaller index
+			int kept = Math.min(a, b);
+			int removed = Math.max(a, b);
+			agglomerations[step] = new Agglomeration(kept, removed, distance);
+			double keptWeight = clusterSize[kept];
+			double removedWeight = clusterSize[removed];
+			for (int c = 0; c < n; c++) {
+				if (active[c] && c != kept && c != removed) {
+					float keptDistance = matrix.get(kept, c);
+					float removedDistance = matrix.get(removed, c);
+					float updated;
+					switch (linkage) {
+						case SINGLE_LINKAGE:
+							updated = Math.min(keptDistance, removedDistance);
+							break;
+						case COMPLETE_LINKAGE:
+							updated = Math.max(keptDistance, removedDistance);
+							break;
+						default:
+							updated = (float) ((keptWeight * keptDistance + removedWeight * removedDistance)
+									/ (keptWeight + removedWeight));
+					}
+					matrix.set(kept, c, updated);
+				}
+			}
+			active[removed] = false;
+			clusterSize[kept] += clusterSize[removed];
+		}
+		Arrays.sort(agglomerations, DISTANCE_ORDER);
+		return agglomerations;
+	}
+
+	private static <T> List<T> call(ConcurrencyContext context, List<Callable<T>> todo) throws OperatorException {
+		try {
+			return context.call(todo);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof OperatorException) {
+				throw (OperatorException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new OperatorException(cause.getMessage(), cause);
+			}
+		}
+	}
+}
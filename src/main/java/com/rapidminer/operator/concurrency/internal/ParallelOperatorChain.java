@@ -59,22 +59,54 @@ public abstract class ParallelOperatorChain extends OperatorChain {
 	 * @return
 	 */
 	protected boolean checkParallelizability() {
-		if(Integer.parseInt(ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS)) == 1) {
+		return checkParallelizability(this, getParameterAsBoolean(PARAMETER_ENABLE_PARALLEL_EXECUTION));
+	}
+
+	/**
+	 * Checks whether the given operator chain can execute its subprocesses in parallel. This is
+	 * not the case if only one thread may be used, if the user has disabled the parallel execution
+	 * or if there are breakpoints inside the subprocesses. Can be used by operator chains that
+	 * cannot extend this class.
+	 *
+	 * @param chain
+	 *            the operator chain to check
+	 * @param parallelExecutionEnabled
+	 *            whether the parallel execution is enabled for the chain
+	 * @return {@code true} if the subprocesses can be executed in parallel
+	 * @since 8.0
+	 */
+	public static boolean checkParallelizability(OperatorChain chain, boolean parallelExecutionEnabled) {
+		if (Integer.parseInt(ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS)) == 1) {
 			return false;
 		}
 
-		boolean executeParallely = getParameterAsBoolean(PARAMETER_ENABLE_PARALLEL_EXECUTION);
-		if (executeParallely) {
+		if (parallelExecutionEnabled) {
 			// now check if there's a break point. Then we switch back to serial as well.
-			for (ExecutionUnit unit : getSubprocesses()) {
-				for (Operator operator : unit.getAllInnerOperators()) {
-					if (operator.isEnabled() && operator.hasBreakpoint()) {
-						return false;
-					}
+			for (ExecutionUnit unit : chain.getSubprocesses()) {
+				if (containsBreakpoint(unit)) {
+					return false;
 				}
 			}
 		}
-		return executeParallely;
+		return parallelExecutionEnabled;
+	}
+
+	/**
+	 * Checks whether an enabled operator inside the given unit or its nested subprocesses has a
+	 * breakpoint. Breakpoints require the operators to be executed one after another.
+	 *
+	 * @param unit
+	 *            the execution unit to check
+	 * @return {@code true} if there is a breakpoint
+	 * @since 8.0
+	 */
+	public static boolean containsBreakpoint(ExecutionUnit unit) {
+		for (Operator operator : unit.getAllInnerOperators()) {
+			if (operator.isEnabled() && operator.hasBreakpoint()) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
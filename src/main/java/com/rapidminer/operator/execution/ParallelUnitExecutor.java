@@ -0,0 +1,338 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.execution;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.rapidminer.Process;
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.core.concurrency.ExecutionStoppedException;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.ExecutionUnit;
+import com.rapidminer.operator.IOObject;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorChain;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessStoppedException;
+import com.rapidminer.operator.concurrency.internal.ParallelOperatorChain;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.studio.internal.Resources;
+
+
+/**
+ * Executes an {@link ExecutionUnit} by running its operators as soon as all operators they are
+ * connected to via their input ports have finished. Independent branches of the subprocess are
+ * therefore executed concurrently on the {@link ConcurrencyContext} of the process.
+ * <p>
+ * Only port connections are considered as dependencies. Operators that communicate via side
+ * effects (e.g. macros, remembered objects or files) must be connected via through ports if they
+ * have to be executed in a fixed order.
+ * <p>
+ * Operators whose input may also be used by a concurrently running branch, i.e. operators reading
+ * from the inner sources or from an operator with several successors, receive thread-safe copies
+ * of their input example sets (see {@link ExampleSets#createThreadSafeCopy(ExampleSet)}). Thus
+ * branches that add attributes to example sets sharing the same example table do not interfere.
+ * If an operator fails, no further operators are started and the operators which are still running
+ * are cancelled via {@link Operator#requestCancel()}.
+ * <p>
+ * While the operators are executed, the process is marked via
+ * {@link Process#beginConcurrentExecution()}, so the enclosing operator stays the current operator
+ * of the process. If an operator fails, it becomes the current operator afterwards.
+ * <p>
+ * The unit is executed by a {@link SimpleUnitExecutor} instead if it contains breakpoints, if the
+ * process allows only one thread or if the operators form a single chain anyway. Instances of this
+ * class can be shared.
+ *
+ * @since 8.0
+ */
+public class ParallelUnitExecutor implements UnitExecutor {
+
+	/** Node of the port connection graph of an execution unit. */
+	private static final class OperatorNode {
+
+		private final Operator operator;
+
+		private final Set<OperatorNode> successors = new LinkedHashSet<>();
+
+		private final AtomicInteger pendingPredecessors = new AtomicInteger();
+
+		/** whether the input may be shared with another branch */
+		private boolean copyInput;
+
+		private OperatorNode(Operator operator) {
+			this.operator = operator;
+		}
+	}
+
+	/** State shared by all tasks of a single execution of an {@link ExecutionUnit}. */
+	private static final class UnitExecution {
+
+		private final Process process;
+
+		private final ConcurrencyContext context;
+
+		/** the first exception thrown by an operator, no new operators are started once it is set */
+		private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+		/** the operator which threw the failure */
+		private volatile Operator failedOperator;
+
+		/** the operator which finished last, guarded by this object's monitor */
+		private Operator lastOperator;
+
+		/** the operators which are executed at the moment */
+		private final Set<Operator> runningOperators = ConcurrentHashMap.newKeySet();
+
+		private UnitExecution(Process process, ConcurrencyContext context) {
+			this.process = process;
+			this.context = context;
+		}
+	}
+
+	private final SimpleUnitExecutor serialExecutor = new SimpleUnitExecutor();
+
+	@Override
+	public void execute(ExecutionUnit unit) throws OperatorException {
+		OperatorChain enclosingOperator = unit.getEnclosingOperator();
+		Process process = enclosingOperator.getProcess();
+		if (process == null || !isParallelizable(unit)) {
+			serialExecutor.execute(unit);
+			return;
+		}
+		ConcurrencyContext context = Resources.getConcurrencyContext(enclosingOperator);
+		if (context.getParallelism() < 2) {
+			serialExecutor.execute(unit);
+			return;
+		}
+
+		Logger logger = enclosingOperator.getLogger();
+		if (logger.isLoggable(Level.FINE)) {
+			logger.fine("Executing subprocess " + enclosingOperator.getName() + "." + unit.getName()
+					+ " in parallel. Operators are: " + unit.getOperators());
+		}
+
+		UnitExecution execution = new UnitExecution(process, context);
+		List<Callable<Void>> startTasks = new ArrayList<>();
+		for (OperatorNode node : createGraph(unit).values()) {
+			if (node.pendingPredecessors.get() == 0) {
+				startTasks.add(createTask(node, execution));
+			}
+		}
+
+		process.beginConcurrentExecution();
+		try {
+			context.call(startTasks);
+		} catch (ExecutionStoppedException e) {
+			throw new ProcessStoppedException(enclosingOperator);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof OperatorException) {
+				throw (OperatorException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new OperatorException(cause.getMessage(), cause);
+			}
+		} finally {
+			process.endConcurrentExecution();
+			for (Operator operator : unit.getOperators()) {
+				operator.clearCancelRequest();
+			}
+		}
+
+		Exception failure = execution.failure.get();
+		if (failure != null && execution.failedOperator != null) {
+			process.setCurrentOperator(execution.failedOperator);
+		}
+		if (failure instanceof OperatorException) {
+			throw (OperatorException) failure;
+		} else if (failure != null) {
+			throw (RuntimeException) failure;
+		}
+	}
+
+	/**
+	 * Creates a task which executes the operator of the given node and afterwards starts all
+	 * successors which do not wait for other operators anymore.
+	 */
+	private Callable<Void> createTask(final OperatorNode node, final UnitExecution execution) {
+		return new Callable<Void>() {
+
+			@Override
+			public Void call() throws Exception {
+				if (execution.failure.get() != null) {
+					return null;
+				}
+				List<OperatorNode> readySuccessors;
+				try {
+					readySuccessors = executeOperator(node, execution);
+				} catch (OperatorException | RuntimeException e) {
+					if (execution.failure.compareAndSet(null, e)) {
+						execution.failedOperator = node.operator;
+						for (Operator running : execution.runningOperators) {
+							running.requestCancel();
+						}
+					}
+					return null;
+				}
+				if (!readySuccessors.isEmpty()) {
+					List<Callable<Void>> tasks = new ArrayList<>(readySuccessors.size());
+					for (OperatorNode successor : readySuccessors) {
+						tasks.add(createTask(successor, execution));
+					}
+					execution.context.call(tasks);
+				}
+				return null;
+			}
+		};
+	}
+
+	/**
+	 * Executes the operator of the given node surrounded by the process flow events and returns the
+	 * successors which are ready to be executed now.
+	 */
+	private List<OperatorNode> executeOperator(OperatorNode node, UnitExecution execution) throws OperatorException {
+		Operator operator = node.operator;
+		Process process = execution.process;
+
+		if (node.copyInput) {
+			for (InputPort inputPort : operator.getInputPorts().getAllPorts()) {
+				IOObject data = inputPort.getAnyDataOrNull();
+				if (data instanceof ExampleSet) {
+					inputPort.receive(ExampleSets.createThreadSafeCopy((ExampleSet) data));
+				}
+			}
+		}
+
+		// process flow filters are not expected to be thread-safe
+		synchronized (execution) {
+			process.fireProcessFlowBeforeOperator(execution.lastOperator, operator, SimpleUnitExecutor.collectInput(operator));
+		}
+
+		execution.runningOperators.add(operator);
+		try {
+			// another branch might have failed before the operator was registered as running
+			if (execution.failure.get() != null) {
+				operator.requestCancel();
+			}
+			operator.execute();
+		} finally {
+			execution.runningOperators.remove(operator);
+		}
+
+		List<OperatorNode> readySuccessors = new ArrayList<>(node.successors.size());
+		for (OperatorNode successor : node.successors) {
+			if (successor.pendingPredecessors.decrementAndGet() == 0) {
+				readySuccessors.add(successor);
+			}
+		}
+
+		synchronized (execution) {
+			Operator nextOperator = readySuccessors.isEmpty() ? null : readySuccessors.get(0).operator;
+			process.fireProcessFlowAfterOperator(operator, nextOperator, SimpleUnitExecutor.collectOutput(operator));
+			execution.lastOperator = operator;
+		}
+		operator.freeMemory();
+		return readySuccessors;
+	}
+
+	/**
+	 * Builds the port connection graph of the operators of the given unit and marks the operators
+	 * whose input may be shared with another branch. The returned map keeps the execution order of
+	 * the unit.
+	 */
+	private static Map<Operator, OperatorNode> createGraph(ExecutionUnit unit) {
+		Map<Operator, OperatorNode> nodes = new LinkedHashMap<>();
+		for (Operator operator : unit.getOperators()) {
+			nodes.put(operator, new OperatorNode(operator));
+		}
+		for (OperatorNode node : nodes.values()) {
+			for (OutputPort outputPort : node.operator.getOutputPorts().getAllPorts()) {
+				InputPort destination = outputPort.getDestination();
+				if (destination != null) {
+					// inner sinks belong to the enclosing operator which is not part of the graph
+					OperatorNode successor = nodes.get(destination.getPorts().getOwner().getOperator());
+					if (successor != null && successor != node && node.successors.add(successor)) {
+						successor.pendingPredecessors.incrementAndGet();
+					}
+				}
+			}
+		}
+		for (OperatorNode node : nodes.values()) {
+			for (InputPort inputPort : node.operator.getInputPorts().getAllPorts()) {
+				OutputPort source = inputPort.getSource();
+				if (source != null) {
+					// inner sources belong to the enclosing operator and can feed several branches
+					OperatorNode predecessor = nodes.get(source.getPorts().getOwner().getOperator());
+					if (predecessor == null || predecessor.successors.size() > 1) {
+						node.copyInput = true;
+					}
+				}
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * Checks whether the unit contains independent operators and no breakpoints. Breakpoints
+	 * require the operators to be executed one after another in the execution order.
+	 */
+	private static boolean isParallelizable(ExecutionUnit unit) {
+		List<Operator> operators = unit.getOperators();
+		if (operators.size() < 2 || ParallelOperatorChain.containsBreakpoint(unit)) {
+			return false;
+		}
+
+		// the operators are topologically sorted, so they form a single chain if and only if every
+		// operator is directly connected to its predecessor
+		for (int i = 1; i < operators.size(); i++) {
+			if (!isConnected(operators.get(i - 1), operators.get(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isConnected(Operator from, Operator to) {
+		for (OutputPort outputPort : from.getOutputPorts().getAllPorts()) {
+			InputPort destination = outputPort.getDestination();
+			if (destination != null && destination.getPorts().getOwner().getOperator() == to) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -18,11 +18,16 @@
 */
 package com.rapidminer.operator.execution;
 
+import com.rapidminer.RapidMiner;
 import com.rapidminer.operator.ExecutionUnit;
+import com.rapidminer.tools.ParameterService;
+import com.rapidminer.tools.parameter.ParameterChangeListener;
 
 
 /**
- * Returns a shared instance of a {@link SimpleUnitExecutor}.
+ * Returns a shared instance of a {@link SimpleUnitExecutor}. If
+ * {@link RapidMiner#PROPERTY_RAPIDMINER_SYSTEM_PARALLEL_SUBPROCESS_EXECUTION} is enabled, a shared
+ * instance of a {@link ParallelUnitExecutor} is returned instead.
  *
  * @author Simon Fischer
  *
@@ -31,9 +36,31 @@ public class SimpleUnitExecutionFactory extends UnitExecutionFactory {
 
 	private final SimpleUnitExecutor executor = new SimpleUnitExecutor();
 
+	private final ParallelUnitExecutor parallelExecutor = new ParallelUnitExecutor();
+
+	private volatile boolean parallelExecution = Boolean
+			.parseBoolean(ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_SYSTEM_PARALLEL_SUBPROCESS_EXECUTION));
+
+	public SimpleUnitExecutionFactory() {
+		ParameterService.registerParameterChangeListener(new ParameterChangeListener() {
+
+			@Override
+			public void informParameterSaved() {
+				// not necessary
+			}
+
+			@Override
+			public void informParameterChanged(String key, String value) {
+				if (RapidMiner.PROPERTY_RAPIDMINER_SYSTEM_PARALLEL_SUBPROCESS_EXECUTION.equals(key)) {
+					parallelExecution = Boolean.parseBoolean(value);
+				}
+			}
+		});
+	}
+
 	@Override
 	public UnitExecutor getExecutor(ExecutionUnit unit) {
-		return executor;
+		return parallelExecution ? parallelExecutor : executor;
 	}
 
 }
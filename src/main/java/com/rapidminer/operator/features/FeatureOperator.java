@@ -22,6 +22,8 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -31,17 +33,22 @@ import com.rapidminer.example.Attribute;
 import com.rapidminer.example.AttributeWeights;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.set.AttributeWeightedExampleSet;
+import com.rapidminer.example.utils.ExampleSets;
 import com.rapidminer.gui.dialog.IndividualSelector;
+import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.OperatorChain;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorVersion;
 import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.ValueDouble;
 import com.rapidminer.operator.ValueString;
+import com.rapidminer.operator.concurrency.internal.ParallelOperatorChain;
 import com.rapidminer.operator.performance.PerformanceVector;
 import com.rapidminer.operator.ports.InputPort;
 import com.rapidminer.operator.ports.OutputPort;
 import com.rapidminer.operator.ports.PortPairExtender;
+import com.rapidminer.operator.ports.PortPairExtender.PortPair;
 import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.ExampleSetPassThroughRule;
 import com.rapidminer.operator.ports.metadata.GenerateNewMDRule;
@@ -57,6 +64,8 @@ import com.rapidminer.parameter.ParameterTypeFile;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.parameter.conditions.BooleanParameterCondition;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyExecutionServiceProvider;
+import com.rapidminer.studio.internal.Resources;
 import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.Tools;
 
@@ -89,6 +98,21 @@ public abstract class FeatureOperator extends OperatorChain {
 
 	public static final String PARAMETER_MAXIMAL_FITNESS = "maximal_fitness";
 
+	/** The parameter name for &quot;This parameter enables the parallel execution of this operator.&quot; */
+	public static final String PARAMETER_ENABLE_PARALLEL_EXECUTION = "enable_parallel_execution";
+
+	/**
+	 * The parameter name for &quot;The maximal number of individuals which are evaluated at the same
+	 * time.&quot;
+	 */
+	public static final String PARAMETER_MAX_PARALLEL_EVALUATIONS = "max_parallel_evaluations";
+
+	/**
+	 * Up to this version, every individual is evaluated sequentially and individuals which reappear
+	 * in later generations are evaluated again.
+	 */
+	public static final OperatorVersion VERSION_SERIAL_POPULATION_EVALUATION = new OperatorVersion(7, 6, 3);
+
 	private final InputPort exampleSetInput = getInputPorts().createPort("example set in");
 	private final OutputPort exampleSetOutput = getOutputPorts().createPort("example set out");
 	private final OutputPort attributeWeightsOutput = getOutputPorts().createPort("weights");
@@ -487,6 +511,48 @@ public abstract class FeatureOperator extends OperatorChain {
 		getSubprocess(0).execute();
 	}
 
+	/**
+	 * Checks whether the individuals can be evaluated in parallel on copies of this operator. This
+	 * requires the concurrency execution service, parallel execution to be enabled and no
+	 * breakpoints inside the evaluation process.
+	 *
+	 * @since 8.0
+	 */
+	protected boolean canEvaluateInParallel() {
+		return ConcurrencyExecutionServiceProvider.INSTANCE.isInitialized() && ParallelOperatorChain
+				.checkParallelizability(this, getParameterAsBoolean(PARAMETER_ENABLE_PARALLEL_EXECUTION));
+	}
+
+	/**
+	 * Returns thread-safe versions of the data at the through ports which can be handed to the
+	 * copies created by {@link #createEvaluationCopy(List)}.
+	 */
+	List<IOObject> getThreadSafeThroughData() {
+		List<IOObject> data = new ArrayList<>();
+		for (PortPair pair : throughExtender.getManagedPairs()) {
+			IOObject object = pair.getInputPort().getAnyDataOrNull();
+			if (object instanceof ExampleSet) {
+				object = ExampleSets.createThreadSafeCopy((ExampleSet) object);
+			}
+			data.add(object);
+		}
+		return data;
+	}
+
+	/**
+	 * Creates a copy of this operator whose through ports contain copies of the given data. The
+	 * evaluation process of the copy can be executed via {@link #executeEvaluationProcess(ExampleSet)}.
+	 */
+	FeatureOperator createEvaluationCopy(List<IOObject> throughData) {
+		FeatureOperator copy = (FeatureOperator) cloneOperator(getName(), true);
+		List<PortPair> pairs = copy.throughExtender.getManagedPairs();
+		for (int i = 0; i < pairs.size() && i < throughData.size(); i++) {
+			IOObject data = throughData.get(i);
+			pairs.get(i).getInputPort().receive(data != null ? data.copy() : null);
+		}
+		return copy;
+	}
+
 	/** This method checks if the maximum was reached for the main criterion. */
 	private boolean isMaximumReached() {
 		if (checkForMaximalFitness) {
@@ -563,11 +629,44 @@ public abstract class FeatureOperator extends OperatorChain {
 		types.add(new ParameterTypeDouble(PARAMETER_MAXIMAL_FITNESS,
 				"The optimization will stop if the fitness reaches the defined maximum.", 0.0d, Double.POSITIVE_INFINITY,
 				Double.POSITIVE_INFINITY));
+
+		types.add(new ParameterTypeBoolean(PARAMETER_ENABLE_PARALLEL_EXECUTION,
+				"This parameter enables the parallel execution of this operator. Please disable the parallel execution if you run into memory problems.",
+				true, true));
+		type = new ParameterTypeInt(PARAMETER_MAX_PARALLEL_EVALUATIONS,
+				"The maximal number of individuals which are evaluated at the same time. 0 uses the number of available threads.",
+				0, Integer.MAX_VALUE, 0, true);
+		type.registerDependencyCondition(
+				new BooleanParameterCondition(this, PARAMETER_ENABLE_PARALLEL_EXECUTION, false, true));
+		types.add(type);
 		return types;
 	}
 
+	@Override
+	public OperatorVersion[] getIncompatibleVersionChanges() {
+		OperatorVersion[] old = super.getIncompatibleVersionChanges();
+		OperatorVersion[] versions = Arrays.copyOf(old, old.length + 1);
+		versions[old.length] = VERSION_SERIAL_POPULATION_EVALUATION;
+		return versions;
+	}
+
+	/**
+	 * Returns the evaluator for the populations of this operator. Starting with version 8.0 the
+	 * fitness of every weight mask is computed only once and the individuals are evaluated in
+	 * parallel if {@link #canEvaluateInParallel()} allows it.
+	 */
 	protected PopulationEvaluator getPopulationEvaluator(ExampleSet exampleSet) throws OperatorException {
-		return new SimplePopulationEvaluator(this, exampleSet);
+		if (getCompatibilityLevel().isAtMost(VERSION_SERIAL_POPULATION_EVALUATION)) {
+			return new SimplePopulationEvaluator(this, exampleSet);
+		}
+		int parallelEvaluations = 1;
+		if (canEvaluateInParallel()) {
+			parallelEvaluations = getParameterAsInt(PARAMETER_MAX_PARALLEL_EVALUATIONS);
+			if (parallelEvaluations <= 0) {
+				parallelEvaluations = Resources.getConcurrencyContext(this).getParallelism();
+			}
+		}
+		return new ParallelPopulationEvaluator(this, exampleSet, parallelEvaluations);
 	}
 
 	/**
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.features;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.IOObject;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyExecutionService;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyExecutionServiceProvider;
+
+
+/**
+ * A population evaluator which computes the fitness of every weight mask only once. Individuals
+ * whose weights were already evaluated in an earlier generation, or which occur several times in
+ * the same generation, get a copy of the known performance without running the evaluation process
+ * again.
+ * The remaining weight masks are evaluated on copies of the feature operator if more than one
+ * parallel evaluation is allowed, and sequentially by the operator itself otherwise. The results
+ * are assigned in the order of the population, so the outcome does not depend on the scheduling.
+ *
+ * @since 8.0
+ */
+public class ParallelPopulationEvaluator implements PopulationEvaluator {
+
+	/** Wraps the weights of an individual so they can be used as key of the fitness cache. */
+	private static final class WeightsKey {
+
+		private final double[] weights;
+
+		private final int hashCode;
+
+		private WeightsKey(double[] weights) {
+			this.weights = weights.clone();
+			this.hashCode = Arrays.hashCode(this.weights);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof WeightsKey)) {
+				return false;
+			}
+			WeightsKey other = (WeightsKey) obj;
+			return hashCode == other.hashCode && Arrays.equals(weights, other.weights);
+		}
+	}
+
+	private final FeatureOperator operator;
+
+	private final ExampleSet originalSet;
+
+	private final int parallelEvaluations;
+
+	/** The known performances by weight mask. */
+	private final Map<WeightsKey, PerformanceVector> cache = new HashMap<>();
+
+	/** The thread-safe version of the original example set, created on first use. */
+	private ExampleSet threadSafeSet;
+
+	/** The thread-safe versions of the through data, created on first use. */
+	private List<IOObject> threadSafeThroughData;
+
+	/** The number of evaluations executed on copies of the operator so far. */
+	private int parallelApplyCount;
+
+	/**
+	 * Creates a new evaluator.
+	 *
+	 * @param operator
+	 *            the operator whose evaluation process computes the performances
+	 * @param originalSet
+	 *            the example set the weights of the individuals refer to
+	 * @param parallelEvaluations
+	 *            the maximal number of individuals which are evaluated at the same time, values
+	 *            smaller than 2 lead to a sequential evaluation
+	 */
+	public ParallelPopulationEvaluator(FeatureOperator operator, ExampleSet originalSet, int parallelEvaluations) {
+		this.operator = operator;
+		this.originalSet = originalSet;
+		this.parallelEvaluations = parallelEvaluations;
+	}
+
+	@Override
+	public void evaluate(Population population) throws OperatorException {
+		// group the individuals without performance by their weights
+		Map<WeightsKey, List<Individual>> pending = new LinkedHashMap<>();
+		for (int i = 0; i < population.getNumberOfIndividuals(); i++) {
+			Individual individual = population.get(i);
+			WeightsKey key = new WeightsKey(individual.getWeights());
+			if (individual.getPerformance() != null) {
+				if (!cache.containsKey(key)) {
+					cache.put(key, copy(individual.getPerformance()));
+				}
+				operator.getProgress().step();
+				continue;
+			}
+			PerformanceVector performance = cache.get(key);
+			if (performance != null) {
+				individual.setPerformance(copy(performance));
+				operator.getProgress().step();
+				continue;
+			}
+			List<Individual> group = pending.get(key);
+			if (group == null) {
+				group = new ArrayList<>();
+				pending.put(key, group);
+			}
+			group.add(individual);
+		}
+
+		if (!pending.isEmpty()) {
+			List<WeightsKey> keys = new ArrayList<>(pending.keySet());
+			if (parallelEvaluations > 1 && keys.size() > 1) {
+				evaluateInParallel(keys, pending);
+			} else {
+				for (WeightsKey key : keys) {
+					ExampleSet clone = FeatureOperator.createCleanClone(originalSet, key.weights);
+					assign(key, pending.get(key), operator.executeEvaluationProcess(clone));
+				}
+			}
+		}
+		population.updateEvaluation();
+	}
+
+	/**
+	 * Evaluates the given weight masks on copies of the operator in windows of at most
+	 * {@link #parallelEvaluations} masks.
+	 */
+	private void evaluateInParallel(List<WeightsKey> keys, Map<WeightsKey, List<Individual>> pending)
+			throws OperatorException {
+		ConcurrencyExecutionService service = ConcurrencyExecutionServiceProvider.INSTANCE.getService();
+		if (threadSafeSet == null) {
+			threadSafeSet = ExampleSets.createThreadSafeCopy(originalSet);
+			threadSafeThroughData = operator.getThreadSafeThroughData();
+		}
+
+		int start = 0;
+		while (start < keys.size()) {
+			int end = Math.min(start + parallelEvaluations, keys.size());
+			List<Callable<PerformanceVector>> tasks = new ArrayList<>(end - start);
+			for (int i = start; i < end; i++) {
+				final FeatureOperator copy = operator.createEvaluationCopy(threadSafeThroughData);
+				final ExampleSet clone = FeatureOperator.createCleanClone(threadSafeSet, keys.get(i).weights);
+				parallelApplyCount++;
+				tasks.add(service.prepareOperatorTask(operator.getProcess(), copy,
+						operator.getApplyCount() + parallelApplyCount, i == keys.size() - 1,
+						() -> copy.executeEvaluationProcess(clone)));
+			}
+
+			List<PerformanceVector> performances = service.executeOperatorTasks(operator, tasks);
+			for (int i = start; i < end; i++) {
+				WeightsKey key = keys.get(i);
+				assign(key, pending.get(key), performances.get(i - start));
+			}
+			start = end;
+		}
+	}
+
+	/**
+	 * Remembers the performance of the weight mask and sets a copy of it for every individual of
+	 * the group.
+	 */
+	private void assign(WeightsKey key, List<Individual> group, PerformanceVector performance)
+			throws OperatorException {
+		cache.put(key, performance);
+		for (Individual individual : group) {
+			individual.setPerformance(copy(performance));
+			operator.getProgress().step();
+		}
+	}
+
+	/**
+	 * Copies the performance so that no two individuals and no individual and the cache share a
+	 * performance vector.
+	 */
+	private static PerformanceVector copy(PerformanceVector performance) throws OperatorException {
+		try {
+			return (PerformanceVector) performance.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new OperatorException("Cannot clone performance vector: " + e.getMessage(), e);
+		}
+	}
+}
@@ -19,6 +19,7 @@
 package com.rapidminer.operator.features.selection;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -29,9 +30,11 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.OperatorChain;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorVersion;
 import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.ValueDouble;
 import com.rapidminer.operator.ValueString;
+import com.rapidminer.operator.concurrency.internal.ParallelOperatorChain;
 import com.rapidminer.operator.performance.PerformanceCriterion;
 import com.rapidminer.operator.performance.PerformanceVector;
 import com.rapidminer.operator.ports.InputPort;
@@ -44,6 +47,8 @@ import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 import com.rapidminer.parameter.conditions.EqualTypeCondition;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyExecutionServiceProvider;
+import com.rapidminer.studio.internal.Resources;
 import com.rapidminer.tools.math.AnovaCalculator;
 import com.rapidminer.tools.math.SignificanceCalculationException;
 import com.rapidminer.tools.math.SignificanceTestResult;
@@ -88,6 +93,15 @@ public class ForwardAttributeSelectionOperator extends OperatorChain {
 	public static final String PARAMETER_ALPHA = "alpha";
 	public static final String PARAMETER_ALLOWED_CONSECUTIVE_FAILS = "speculative_rounds";
 
+	/** @since 8.0 */
+	public static final String PARAMETER_ENABLE_PARALLEL_EXECUTION = "enable_parallel_execution";
+
+	/** @since 8.0 */
+	public static final String PARAMETER_MAX_PARALLEL_EVALUATIONS = "max_parallel_evaluations";
+
+	/** Up to this version, the attributes of a round are always evaluated one after another. */
+	public static final OperatorVersion VERSION_SERIAL_EVALUATION = new OperatorVersion(7, 6, 3);
+
 	public static final String[] STOPPING_BEHAVIORS = new String[] { "without increase", "without increase of at least",
 			"without significant increase" };
 
@@ -164,14 +178,26 @@ public class ForwardAttributeSelectionOperator extends OperatorChain {
 		}
 		double alpha = behavior == WITHOUT_INCREASE_SIGNIFICANT ? getParameterAsDouble(PARAMETER_ALPHA) : 0d;
 
-		// remembering attributes and removing all from example set
+		// remembering attributes
 		Attribute[] attributeArray = new Attribute[numberOfAttributes];
 		int i = 0;
-		Iterator<Attribute> iterator = attributes.iterator();
-		while (iterator.hasNext()) {
-			Attribute attribute = iterator.next();
+		for (Attribute attribute : attributes) {
 			attributeArray[i] = attribute;
 			i++;
+		}
+
+		// the copies evaluating a round in parallel start from the full example set
+		ParallelSelectionEvaluator parallelEvaluator = null;
+		if (canEvaluateInParallel()) {
+			parallelEvaluator = new ParallelSelectionEvaluator(this, exampleSet, attributeArray,
+					getMaximalParallelEvaluations(),
+					(copy, selection) -> ((ForwardAttributeSelectionOperator) copy).getPerformance(selection));
+		}
+
+		// removing all attributes from example set
+		Iterator<Attribute> iterator = attributes.iterator();
+		while (iterator.hasNext()) {
+			iterator.next();
 			iterator.remove();
 		}
 
@@ -191,31 +217,51 @@ public class ForwardAttributeSelectionOperator extends OperatorChain {
 			// performing a round
 			int bestIndex = 0;
 			PerformanceVector currentBestPerformance = null;
-			for (int current = 0; current < numberOfAttributes; current++) {
-				if (!selected[current]) {
-					// switching on
-					attributes.addRegular(attributeArray[current]);
-					currentAttributes = attributes;
-
-					// evaluate performance
-					innerExampleSetSource.deliver(exampleSet);
-
-					getSubprocess(0).execute();
-
-					PerformanceVector performance = innerPerformanceSink.getData(PerformanceVector.class);
+			if (parallelEvaluator != null) {
+				List<Integer> candidates = new ArrayList<>();
+				List<boolean[]> selections = new ArrayList<>();
+				for (int current = 0; current < numberOfAttributes; current++) {
+					if (!selected[current]) {
+						boolean[] selection = Arrays.copyOf(selected, numberOfAttributes);
+						selection[current] = true;
+						candidates.add(current);
+						selections.add(selection);
+					}
+				}
+				List<PerformanceVector> performances = parallelEvaluator.evaluate(selections);
+				for (int j = 0; j < performances.size(); j++) {
+					PerformanceVector performance = performances.get(j);
 					if (currentBestPerformance == null || performance.compareTo(currentBestPerformance) > 0) {
-						bestIndex = current;
+						bestIndex = candidates.get(j);
 						currentBestPerformance = performance;
 					}
-
-					// switching off
-					attributes.remove(attributeArray[current]);
-					currentAttributes = null;
 				}
 
 				// update operator progress
-				getProgress().setCompleted((int) (100.0 * (i * numberOfAttributes + current + 1)
-						/ (maxNumberOfAttributes * numberOfAttributes)));
+				getProgress().setCompleted((int) (100.0 * (i + 1) / maxNumberOfAttributes));
+			} else {
+				for (int current = 0; current < numberOfAttributes; current++) {
+					if (!selected[current]) {
+						// switching on
+						attributes.addRegular(attributeArray[current]);
+						currentAttributes = attributes;
+
+						// evaluate performance
+						PerformanceVector performance = getPerformance(exampleSet);
+						if (currentBestPerformance == null || performance.compareTo(currentBestPerformance) > 0) {
+							bestIndex = current;
+							currentBestPerformance = performance;
+						}
+
+						// switching off
+						attributes.remove(attributeArray[current]);
+						currentAttributes = null;
+					}
+
+					// update operator progress
+					getProgress().setCompleted((int) (100.0 * (i * numberOfAttributes + current + 1)
+							/ (maxNumberOfAttributes * numberOfAttributes)));
+				}
 			}
 			double currentFitness = currentBestPerformance.getMainCriterion().getFitness();
 			if (i != 0) {
@@ -307,6 +353,43 @@ public class ForwardAttributeSelectionOperator extends OperatorChain {
 		weightsOutput.deliver(weights);
 	}
 
+	private PerformanceVector getPerformance(ExampleSet exampleSet) throws OperatorException {
+		innerExampleSetSource.deliver(exampleSet);
+
+		getSubprocess(0).execute();
+
+		return innerPerformanceSink.getData(PerformanceVector.class);
+	}
+
+	/**
+	 * Checks whether the attributes of a round can be evaluated in parallel on copies of this
+	 * operator. This requires the concurrency execution service, parallel execution to be enabled
+	 * and no breakpoints inside the subprocess.
+	 *
+	 * @since 8.0
+	 */
+	protected boolean canEvaluateInParallel() {
+		return !getCompatibilityLevel().isAtMost(VERSION_SERIAL_EVALUATION)
+				&& ConcurrencyExecutionServiceProvider.INSTANCE.isInitialized() && ParallelOperatorChain
+						.checkParallelizability(this, getParameterAsBoolean(PARAMETER_ENABLE_PARALLEL_EXECUTION));
+	}
+
+	private int getMaximalParallelEvaluations() throws OperatorException {
+		int parallelEvaluations = getParameterAsInt(PARAMETER_MAX_PARALLEL_EVALUATIONS);
+		if (parallelEvaluations <= 0) {
+			parallelEvaluations = Resources.getConcurrencyContext(this).getParallelism();
+		}
+		return parallelEvaluations;
+	}
+
+	@Override
+	public OperatorVersion[] getIncompatibleVersionChanges() {
+		OperatorVersion[] old = super.getIncompatibleVersionChanges();
+		OperatorVersion[] versions = Arrays.copyOf(old, old.length + 1);
+		versions[old.length] = VERSION_SERIAL_EVALUATION;
+		return versions;
+	}
+
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
@@ -357,6 +440,16 @@ public class ForwardAttributeSelectionOperator extends OperatorChain {
 		type.registerDependencyCondition(new EqualTypeCondition(this, PARAMETER_STOPPING_BEHAVIOR, STOPPING_BEHAVIORS, true,
 				WITHOUT_INCREASE_SIGNIFICANT));
 		types.add(type);
+
+		types.add(new ParameterTypeBoolean(PARAMETER_ENABLE_PARALLEL_EXECUTION,
+				"This parameter enables the parallel execution of this operator. Please disable the parallel execution if you run into memory problems.",
+				true, true));
+		type = new ParameterTypeInt(PARAMETER_MAX_PARALLEL_EVALUATIONS,
+				"The maximal number of attribute selections which are evaluated at the same time. 0 uses the number of available threads.",
+				0, Integer.MAX_VALUE, 0, true);
+		type.registerDependencyCondition(
+				new BooleanParameterCondition(this, PARAMETER_ENABLE_PARALLEL_EXECUTION, false, true));
+		types.add(type);
 		return types;
 	}
 }
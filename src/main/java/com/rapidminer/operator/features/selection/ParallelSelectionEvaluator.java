@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.features.selection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.OperatorChain;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyExecutionService;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyExecutionServiceProvider;
+
+
+/**
+ * Evaluates the candidate attribute selections of a round of the
+ * {@link ForwardAttributeSelectionOperator} or the {@link BackwardAttributeEliminationOperator} on
+ * copies of the operator. The selections are evaluated in windows of a fixed size and the
+ * performances are returned in the order of the selections.
+ *
+ * @since 8.0
+ */
+final class ParallelSelectionEvaluator {
+
+	/** Runs the evaluation process of a copy of the operator on the given example set. */
+	interface Evaluation {
+
+		PerformanceVector evaluate(OperatorChain copy, ExampleSet exampleSet) throws OperatorException;
+	}
+
+	private final OperatorChain operator;
+
+	private final ExampleSet threadSafeSet;
+
+	private final Map<String, Integer> indexByName = new HashMap<>();
+
+	private final int windowSize;
+
+	private final Evaluation evaluation;
+
+	/** The number of evaluations executed on copies of the operator so far. */
+	private int parallelApplyCount;
+
+	/**
+	 * Creates a new evaluator.
+	 *
+	 * @param operator
+	 *            the operator whose subprocess computes the performances
+	 * @param exampleSet
+	 *            the example set containing all attributes
+	 * @param attributes
+	 *            the attributes the selections refer to
+	 * @param windowSize
+	 *            the maximal number of selections which are evaluated at the same time
+	 * @param evaluation
+	 *            the evaluation of a single selection
+	 */
+	ParallelSelectionEvaluator(OperatorChain operator, ExampleSet exampleSet, Attribute[] attributes, int windowSize,
+			Evaluation evaluation) {
+		this.operator = operator;
+		this.threadSafeSet = ExampleSets.createThreadSafeCopy(exampleSet);
+		for (int i = 0; i < attributes.length; i++) {
+			indexByName.put(attributes[i].getName(), i);
+		}
+		this.windowSize = Math.max(1, windowSize);
+		this.evaluation = evaluation;
+	}
+
+	/**
+	 * Evaluates the given selections.
+	 *
+	 * @param selections
+	 *            for every selection, whether the attributes are selected
+	 * @return the performances in the order of the selections
+	 * @throws OperatorException
+	 *             if the evaluation of a selection fails
+	 */
+	List<PerformanceVector> evaluate(List<boolean[]> selections) throws OperatorException {
+		ConcurrencyExecutionService service = ConcurrencyExecutionServiceProvider.INSTANCE.getService();
+		List<PerformanceVector> performances = new ArrayList<>(selections.size());
+		int start = 0;
+		while (start < selections.size()) {
+			int end = Math.min(start + windowSize, selections.size());
+			List<Callable<PerformanceVector>> tasks = new ArrayList<>(end - start);
+			for (int i = start; i < end; i++) {
+				final OperatorChain copy = (OperatorChain) operator.cloneOperator(operator.getName(), true);
+				final ExampleSet selection = createSelection(selections.get(i));
+				parallelApplyCount++;
+				tasks.add(service.prepareOperatorTask(operator.getProcess(), copy,
+						operator.getApplyCount() + parallelApplyCount, i == selections.size() - 1,
+						() -> evaluation.evaluate(copy, selection)));
+			}
+			performances.addAll(service.executeOperatorTasks(operator, tasks));
+			start = end;
+		}
+		return performances;
+	}
+
+	/** Creates a clone of the thread-safe example set which only contains the selected attributes. */
+	private ExampleSet createSelection(boolean[] selected) {
+		ExampleSet selection = (ExampleSet) threadSafeSet.clone();
+		Iterator<Attribute> iterator = selection.getAttributes().iterator();
+		while (iterator.hasNext()) {
+			Integer index = indexByName.get(iterator.next().getName());
+			if (index != null && !selected[index]) {
+				iterator.remove();
+			}
+		}
+		return selection;
+	}
+}
@@ -18,6 +18,17 @@
 */
 package com.rapidminer.operator.io;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+
+import com.rapidminer.example.AttributeRole;
+import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.Annotations;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.OperatorDescription;
@@ -25,19 +36,22 @@ import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.ProcessSetupError.Severity;
 import com.rapidminer.operator.SimpleProcessSetupError;
 import com.rapidminer.operator.UserError;
+import com.rapidminer.operator.ports.MetaDataChangeListener;
 import com.rapidminer.operator.ports.metadata.AttributeMetaData;
 import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.MetaData;
+import com.rapidminer.parameter.MetaDataProvider;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeAttributes;
+import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeRepositoryLocation;
 import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 import com.rapidminer.repository.Entry;
 import com.rapidminer.repository.IOObjectEntry;
 import com.rapidminer.repository.RepositoryException;
 import com.rapidminer.repository.RepositoryLocation;
-
-import java.util.List;
-import java.util.logging.Level;
+import com.rapidminer.repository.local.SimpleIOObjectEntry;
 
 
 /**
@@ -48,6 +62,12 @@ public class RepositorySource extends AbstractReader<IOObject> {
 
 	public static final String PARAMETER_REPOSITORY_ENTRY = "repository_entry";
 
+	/** @since 8.0 */
+	public static final String PARAMETER_LIMIT_ATTRIBUTES = "limit_attributes";
+
+	/** @since 8.0 */
+	public static final String PARAMETER_ATTRIBUTES = "attributes";
+
 	public RepositorySource(OperatorDescription description) {
 		super(description, IOObject.class);
 	}
@@ -75,6 +95,18 @@ public class RepositorySource extends AbstractReader<IOObject> {
 							amd.shrinkValueSet();
 						}
 					}
+					if (getParameterAsBoolean(PARAMETER_LIMIT_ATTRIBUTES)) {
+						Set<String> selected = getSelectedAttributeNames();
+						List<AttributeMetaData> removed = new ArrayList<>();
+						for (AttributeMetaData amd : ((ExampleSetMetaData) metaData).getAllAttributes()) {
+							if (!amd.isSpecial() && !selected.contains(amd.getName())) {
+								removed.add(amd);
+							}
+						}
+						for (AttributeMetaData amd : removed) {
+							((ExampleSetMetaData) metaData).removeAttribute(amd);
+						}
+					}
 				}
 				return metaData;
 			} catch (RepositoryException e) {
@@ -100,17 +132,60 @@ public class RepositorySource extends AbstractReader<IOObject> {
 		}
 	}
 
+	/** Returns the names of the regular attributes to retrieve if they are limited. */
+	private Set<String> getSelectedAttributeNames() throws UndefinedParameterError {
+		String attributes = getParameterAsString(PARAMETER_ATTRIBUTES);
+		if (attributes == null || attributes.isEmpty()) {
+			return new HashSet<>();
+		}
+		return new HashSet<>(Arrays.asList(attributes.split(ParameterTypeAttributes.ATTRIBUTE_SEPARATOR_REGEX)));
+	}
+
 	@Override
 	public IOObject read() throws OperatorException {
 		try {
-			final IOObject data = getRepositoryEntry().retrieveData(null);
-			data.getAnnotations().setAnnotation(Annotations.KEY_SOURCE, getRepositoryEntry().getLocation().toString());
+			IOObjectEntry entry = getRepositoryEntry();
+			final IOObject data;
+			if (getParameterAsBoolean(PARAMETER_LIMIT_ATTRIBUTES)) {
+				data = retrieveLimited(entry);
+			} else {
+				data = entry.retrieveData(null);
+			}
+			data.getAnnotations().setAnnotation(Annotations.KEY_SOURCE, entry.getLocation().toString());
 			return data;
 		} catch (RepositoryException e) {
 			throw new UserError(this, e, 312, getParameterAsString(PARAMETER_REPOSITORY_ENTRY), e.getMessage());
 		}
 	}
 
+	/**
+	 * Retrieves only the special and the selected regular attributes of an example set. Entries of
+	 * local repositories stored column by column read only these.
+	 */
+	private IOObject retrieveLimited(IOObjectEntry entry) throws RepositoryException, UndefinedParameterError {
+		Set<String> selected = getSelectedAttributeNames();
+		Predicate<AttributeRole> selection = role -> role.isSpecial() || selected.contains(role.getAttribute().getName());
+		Class<? extends IOObject> objectClass = entry.getObjectClass();
+		if (entry instanceof SimpleIOObjectEntry && objectClass != null && ExampleSet.class.isAssignableFrom(objectClass)) {
+			return ((SimpleIOObjectEntry) entry).retrieveExampleSet(selection, 0, Integer.MAX_VALUE, null);
+		}
+		IOObject data = entry.retrieveData(null);
+		if (data instanceof ExampleSet) {
+			List<AttributeRole> removed = new ArrayList<>();
+			Iterator<AttributeRole> roles = ((ExampleSet) data).getAttributes().allAttributeRoles();
+			while (roles.hasNext()) {
+				AttributeRole role = roles.next();
+				if (!selection.test(role)) {
+					removed.add(role);
+				}
+			}
+			for (AttributeRole role : removed) {
+				((ExampleSet) data).getAttributes().remove(role);
+			}
+		}
+		return data;
+	}
+
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
@@ -118,6 +193,36 @@ public class RepositorySource extends AbstractReader<IOObject> {
 				"Repository entry.", false);
 		type.setExpert(false);
 		types.add(type);
+
+		types.add(new ParameterTypeBoolean(PARAMETER_LIMIT_ATTRIBUTES,
+				"If checked, only the special and the selected regular attributes of an example set are retrieved.", false,
+				true));
+		ParameterType attributes = new ParameterTypeAttributes(PARAMETER_ATTRIBUTES,
+				"The regular attributes to retrieve.", new MetaDataProvider() {
+
+					@Override
+					public MetaData getMetaData() {
+						try {
+							return getRepositoryEntry().retrieveMetaData();
+						} catch (RepositoryException | UserError e) {
+							return null;
+						}
+					}
+
+					@Override
+					public void addMetaDataChangeListener(MetaDataChangeListener l) {
+						// the meta data of the entry does not depend on the process
+					}
+
+					@Override
+					public void removeMetaDataChangeListener(MetaDataChangeListener l) {
+						// the meta data of the entry does not depend on the process
+					}
+				}, true);
+		attributes.setExpert(true);
+		attributes.registerDependencyCondition(
+				new BooleanParameterCondition(this, PARAMETER_LIMIT_ATTRIBUTES, true, true));
+		types.add(attributes);
 		return types;
 	}
 }
@@ -18,21 +18,36 @@
  */
 package com.rapidminer.operator.learner.associations;
 
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.CompactPolynominalMapping;
+import com.rapidminer.example.utils.ExampleSetBuilder;
+import com.rapidminer.example.utils.ExampleSets;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorVersion;
 import com.rapidminer.operator.learner.associations.fpgrowth.FPGrowth;
 import com.rapidminer.operator.ports.InputPort;
 import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.operator.ports.metadata.AttributeMetaData;
+import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
+import com.rapidminer.operator.ports.metadata.GenerateNewExampleSetMDRule;
 import com.rapidminer.operator.ports.metadata.GenerateNewMDRule;
+import com.rapidminer.operator.ports.metadata.MetaData;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.conditions.EqualTypeCondition;
+import com.rapidminer.studio.internal.Resources;
+import com.rapidminer.tools.Ontology;
 
 
 /**
@@ -47,6 +62,12 @@ import com.rapidminer.parameter.conditions.EqualTypeCondition;
  * The result will be a set of frequent item sets which could be used as input for this operator.
  * </p>
  *
+ * <p>
+ * The rules are generated in parallel. If the "rule data" port is connected, the rules are also
+ * delivered as an example set which is filled while the rules are generated. If additionally the
+ * "rules" port is not connected, the rules are not kept in memory at all.
+ * </p>
+ *
  * @author Sebastian Land, Ingo Mierswa
  */
 public class AssociationRuleGenerator extends Operator {
@@ -54,6 +75,7 @@ public class AssociationRuleGenerator extends Operator {
 	private InputPort itemSetsInput = getInputPorts().createPort("item sets", FrequentItemSets.class);
 	private OutputPort rulesOutput = getOutputPorts().createPort("rules");
 	private OutputPort itemSetsOutput = getOutputPorts().createPort("item sets");
+	private OutputPort ruleDataOutput = getOutputPorts().createPort("rule data");
 
 	public static final String PARAMETER_CRITERION = "criterion";
 
@@ -74,10 +96,44 @@ public class AssociationRuleGenerator extends Operator {
 	public static final int GAIN = 4;
 	public static final int LAPLACE = 5;
 
+	/** the attributes of the rule data, named like the columns of the rule table */
+	private static final String[] RULE_DATA_ATTRIBUTES = { "Premises", "Conclusion", "Support", "Confidence", "LaPlace",
+			"Gain", "p-s", "Lift", "Conviction" };
+
+	/** the number of item sets per parallel task */
+	private static final int SETS_PER_BLOCK = 1024;
+
+	/** the number of tasks per thread which are generated before the rules are collected */
+	private static final int BLOCKS_PER_THREAD = 4;
+
+	/** the maximal set size for which rejected premises are remembered */
+	private static final int MAXIMAL_PRUNED_SET_SIZE = 24;
+
+	/**
+	 * Up to this version, every premise was evaluated. Afterwards, the subsets of rejected premises
+	 * are skipped, which only changes the rules for item set collections that are not downward
+	 * closed.
+	 */
+	public static final OperatorVersion VERSION_EVALUATE_ALL_PREMISES = new OperatorVersion(7, 6, 3);
+
 	public AssociationRuleGenerator(OperatorDescription description) {
 		super(description);
 		getTransformer().addRule(new GenerateNewMDRule(rulesOutput, AssociationRules.class));
 		getTransformer().addPassThroughRule(itemSetsInput, itemSetsOutput);
+		getTransformer().addRule(new GenerateNewExampleSetMDRule(ruleDataOutput) {
+
+			@Override
+			public MetaData modifyMetaData(ExampleSetMetaData emd) {
+				emd.addAttribute(new AttributeMetaData(RULE_DATA_ATTRIBUTES[0], Ontology.NOMINAL));
+				emd.addAttribute(new AttributeMetaData(RULE_DATA_ATTRIBUTES[1], Ontology.NOMINAL));
+				for (int i = 2; i < RULE_DATA_ATTRIBUTES.length; i++) {
+					emd.addAttribute(new AttributeMetaData(RULE_DATA_ATTRIBUTES[i], Ontology.REAL));
+				}
+				emd.attributesAreKnown();
+				emd.numberOfExamplesIsUnkown();
+				return emd;
+			}
+		});
 	}
 
 	@Override
@@ -91,58 +147,345 @@ public class AssociationRuleGenerator extends Operator {
 		int criterion = getParameterAsInt(PARAMETER_CRITERION);
 
 		FrequentItemSets sets = itemSetsInput.getData(FrequentItemSets.class);
-		AssociationRules rules = new AssociationRules();
-		HashMap<Collection<Item>, Integer> setFrequencyMap = new HashMap<>();
 		int numberOfTransactions = sets.getNumberOfTransactions();
 
-		// iterating sorted over every frequent Set, generating every possible rule and building
-		// frequency map
+		// the rules are only kept in memory if needed, the rule data is filled while generating
+		AssociationRules rules = null;
+		if (rulesOutput.isConnected() || !ruleDataOutput.isConnected()) {
+			rules = new AssociationRules();
+		}
+		ExampleSetBuilder ruleDataBuilder = null;
+		Attribute[] ruleAttributes = null;
+		if (ruleDataOutput.isConnected()) {
+			ruleAttributes = new Attribute[RULE_DATA_ATTRIBUTES.length];
+			for (int i = 0; i < ruleAttributes.length; i++) {
+				ruleAttributes[i] = AttributeFactory.createAttribute(RULE_DATA_ATTRIBUTES[i],
+						i < 2 ? Ontology.NOMINAL : Ontology.REAL);
+			}
+			// premises and conclusions are very diverse
+			ruleAttributes[0].setMapping(new CompactPolynominalMapping());
+			ruleAttributes[1].setMapping(new CompactPolynominalMapping());
+			ruleDataBuilder = ExampleSets.from(ruleAttributes);
+		}
+
+		// iterating sorted over every frequent set, generating every possible rule. The frequencies
+		// of the premises and conclusions are looked up in the index of all sets.
 		sets.sortSets();
-		int progressCounter = 0;
-		getProgress().setTotal(sets.size());
+		final List<FrequentItemSet> sortedSets = new ArrayList<>(sets.size());
 		for (FrequentItemSet set : sets) {
-			setFrequencyMap.put(set.getItems(), set.getFrequency());
-			// generating rule by splitting set in every two parts for head and body of rule
-			if (set.getItems().size() > 1) {
-				PowerSet<Item> powerSet = new PowerSet<>(set.getItems());
-				for (Collection<Item> premises : powerSet) {
-					if (!premises.isEmpty() && premises.size() < set.getItems().size()) {
-						Collection<Item> conclusion = powerSet.getComplement(premises);
-						int totalFrequency = set.getFrequency();
-						int preconditionFrequency = setFrequencyMap.getOrDefault(premises, 0);
-						int conclusionFrequency = setFrequencyMap.getOrDefault(conclusion, 0);
-
-						double value = getCriterionValue(totalFrequency, preconditionFrequency, conclusionFrequency,
-								numberOfTransactions, theta, laplaceK, criterion);
-						if (value >= minValue) {
-							AssociationRule rule = new AssociationRule(premises, conclusion,
-									getSupport(totalFrequency, numberOfTransactions));
-							rule.setConfidence(getConfidence(totalFrequency, preconditionFrequency));
-							rule.setLift(getLift(totalFrequency, preconditionFrequency, conclusionFrequency,
-									numberOfTransactions));
-							rule.setConviction(getConviction(totalFrequency, preconditionFrequency, conclusionFrequency,
-									numberOfTransactions));
-							rule.setPs(
-									getPs(totalFrequency, preconditionFrequency, conclusionFrequency, numberOfTransactions));
-							rule.setGain(getGain(theta, totalFrequency, preconditionFrequency,
-									numberOfTransactions));
-							rule.setLaplace(getLaPlace(laplaceK, totalFrequency, preconditionFrequency,
-									numberOfTransactions));
-							rules.addItemRule(rule);
+			sortedSets.add(set);
+		}
+		final ItemSetIndex index = new ItemSetIndex(sets);
+		final RuleFilter filter = new RuleFilter(criterion, minValue, numberOfTransactions, theta, laplaceK,
+				!getCompatibilityLevel().isAtMost(VERSION_EVALUATE_ALL_PREMISES));
+
+		final ConcurrencyContext context = getProcess() != null ? Resources.getConcurrencyContext(this) : null;
+		int parallelism = context == null ? 1 : context.getParallelism();
+		int setsPerWave = SETS_PER_BLOCK * BLOCKS_PER_THREAD * parallelism;
+		getProgress().setTotal(sortedSets.size());
+		for (int waveStart = 0; waveStart < sortedSets.size(); waveStart += setsPerWave) {
+			int waveEnd = Math.min(sortedSets.size(), waveStart + setsPerWave);
+			List<Callable<RuleRecords>> todo = new ArrayList<>();
+			for (int blockStart = waveStart; blockStart < waveEnd; blockStart += SETS_PER_BLOCK) {
+				final int from = blockStart;
+				final int to = Math.min(waveEnd, blockStart + SETS_PER_BLOCK);
+				todo.add(new Callable<RuleRecords>() {
+
+					@Override
+					public RuleRecords call() {
+						if (context != null) {
+							context.checkStatus();
 						}
+						return generateRules(sortedSets, from, to, index, filter);
+					}
+				});
+			}
+
+			List<RuleRecords> results;
+			if (todo.size() == 1 || parallelism <= 1) {
+				results = new ArrayList<>(todo.size());
+				for (Callable<RuleRecords> task : todo) {
+					try {
+						results.add(task.call());
+					} catch (RuntimeException e) {
+						throw e;
+					} catch (Exception e) {
+						throw new OperatorException(e.getMessage(), e);
+					}
+				}
+			} else {
+				try {
+					results = context.call(todo);
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof OperatorException) {
+						throw (OperatorException) cause;
+					} else if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					} else if (cause instanceof Error) {
+						throw (Error) cause;
+					} else {
+						throw new OperatorException(cause.getMessage(), cause);
 					}
 				}
 			}
-			if (++progressCounter % 100 == 0) {
-				getProgress().step(100);
+
+			// adding the rules in the order of the sets
+			for (RuleRecords records : results) {
+				addRules(records, sortedSets, filter, rules, ruleDataBuilder, ruleAttributes);
 			}
+			getProgress().setCompleted(waveEnd);
+		}
+
+		if (rules != null) {
+			rules.sort();
+			rulesOutput.deliver(rules);
+		}
+		if (ruleDataBuilder != null) {
+			ruleDataOutput.deliver(ruleDataBuilder.build());
 		}
-		rules.sort();
-		rulesOutput.deliver(rules);
 		itemSetsOutput.deliver(sets);
 	}
 
-	private double getCriterionValue(int totalFrequency, int preconditionFrequency, int conclusionFrequency,
+	/**
+	 * Generates the rules of the sets from <code>from</code> to <code>to</code> in the same order as
+	 * the {@link PowerSet} of the items of every set. The premises are encoded as bit masks over
+	 * the items of the set.
+	 */
+	private static RuleRecords generateRules(List<FrequentItemSet> sets, int from, int to, ItemSetIndex index,
+			RuleFilter filter) {
+		RuleRecords records = new RuleRecords();
+		for (int setIndex = from; setIndex < to; setIndex++) {
+			FrequentItemSet set = sets.get(setIndex);
+			int numberOfItems = set.getNumberOfItems();
+			if (numberOfItems < 2) {
+				continue;
+			}
+			int[] ids = new int[numberOfItems];
+			for (int i = 0; i < numberOfItems; i++) {
+				ids[i] = index.getItemId(set.getItem(i));
+			}
+			// the positions of the items ordered by id for building sorted subsets
+			int[] positions = new int[numberOfItems];
+			for (int i = 0; i < numberOfItems; i++) {
+				int position = i;
+				while (position > 0 && ids[positions[position - 1]] > ids[i]) {
+					positions[position] = positions[position - 1];
+					position--;
+				}
+				positions[position] = i;
+			}
+			int[] buffer = new int[numberOfItems];
+
+			int totalFrequency = set.getFrequency();
+			long full = (1L << numberOfItems) - 1;
+			if (filter.isMonotone() && numberOfItems <= MAXIMAL_PRUNED_SET_SIZE) {
+				// A premise can only be accepted if all its supersets are accepted since the
+				// criterion does not increase with the frequency of the premise. The supersets have
+				// larger masks and are checked first.
+				long[] accepted = new long[(int) (full >> 6) + 1];
+				int first = records.size();
+				for (long premise = full - 1; premise > 0; premise--) {
+					boolean candidate = true;
+					for (int i = 0; i < numberOfItems && candidate; i++) {
+						long superset = premise | 1L << i;
+						if (superset != premise && superset != full
+								&& (accepted[(int) (superset >>> 6)] & 1L << superset) == 0) {
+							candidate = false;
+						}
+					}
+					if (candidate) {
+						int preconditionFrequency = getFrequency(index, premise, ids, positions, buffer);
+						if (filter.accepts(totalFrequency, preconditionFrequency, 0)) {
+							accepted[(int) (premise >>> 6)] |= 1L << premise;
+							int conclusionFrequency = getFrequency(index, full & ~premise, ids, positions, buffer);
+							records.add(setIndex, premise, preconditionFrequency, conclusionFrequency);
+						}
+					}
+				}
+				records.reverse(first);
+			} else {
+				for (long premise = 1; premise < full; premise++) {
+					int preconditionFrequency = getFrequency(index, premise, ids, positions, buffer);
+					int conclusionFrequency = getFrequency(index, full & ~premise, ids, positions, buffer);
+					if (filter.accepts(totalFrequency, preconditionFrequency, conclusionFrequency)) {
+						records.add(setIndex, premise, preconditionFrequency, conclusionFrequency);
+					}
+				}
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Returns the frequency of the subset of the set's items given by the mask.
+	 */
+	private static int getFrequency(ItemSetIndex index, long mask, int[] ids, int[] positions, int[] buffer) {
+		int length = 0;
+		for (int position : positions) {
+			if ((mask & 1L << position) != 0) {
+				buffer[length++] = ids[position];
+			}
+		}
+		return index.getFrequency(buffer, length);
+	}
+
+	/**
+	 * Creates the rules and the rule data rows of the records.
+	 */
+	private static void addRules(RuleRecords records, List<FrequentItemSet> sets, RuleFilter filter,
+			AssociationRules rules, ExampleSetBuilder ruleDataBuilder, Attribute[] ruleAttributes) {
+		int numberOfTransactions = filter.numberOfTransactions;
+		double theta = filter.theta;
+		double laplaceK = filter.laplaceK;
+		for (int i = 0; i < records.size(); i++) {
+			FrequentItemSet set = sets.get(records.sets[i]);
+			long premise = records.premises[i];
+			List<Item> premises = new ArrayList<>();
+			List<Item> conclusion = new ArrayList<>();
+			for (int position = 0; position < set.getNumberOfItems(); position++) {
+				if ((premise & 1L << position) != 0) {
+					premises.add(set.getItem(position));
+				} else {
+					conclusion.add(set.getItem(position));
+				}
+			}
+			int totalFrequency = set.getFrequency();
+			int preconditionFrequency = records.preconditionFrequencies[i];
+			int conclusionFrequency = records.conclusionFrequencies[i];
+
+			double support = getSupport(totalFrequency, numberOfTransactions);
+			double confidence = getConfidence(totalFrequency, preconditionFrequency);
+			double lift = getLift(totalFrequency, preconditionFrequency, conclusionFrequency, numberOfTransactions);
+			double conviction = getConviction(totalFrequency, preconditionFrequency, conclusionFrequency,
+					numberOfTransactions);
+			double ps = getPs(totalFrequency, preconditionFrequency, conclusionFrequency, numberOfTransactions);
+			double gain = getGain(theta, totalFrequency, preconditionFrequency, numberOfTransactions);
+			double laplace = getLaPlace(laplaceK, totalFrequency, preconditionFrequency, numberOfTransactions);
+			if (rules != null) {
+				AssociationRule rule = new AssociationRule(premises, conclusion, support);
+				rule.setConfidence(confidence);
+				rule.setLift(lift);
+				rule.setConviction(conviction);
+				rule.setPs(ps);
+				rule.setGain(gain);
+				rule.setLaplace(laplace);
+				rules.addItemRule(rule);
+			}
+			if (ruleDataBuilder != null) {
+				ruleDataBuilder.addRow(new double[] { ruleAttributes[0].getMapping().mapString(toItemString(premises)),
+						ruleAttributes[1].getMapping().mapString(toItemString(conclusion)), support, confidence, laplace,
+						gain, ps, lift, conviction });
+			}
+		}
+	}
+
+	private static String toItemString(List<Item> items) {
+		StringBuilder builder = new StringBuilder();
+		for (Item item : items) {
+			if (builder.length() > 0) {
+				builder.append(", ");
+			}
+			builder.append(item.toString());
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * The rules of a block of sets encoded by the index of the set and the mask of the premise.
+	 */
+	private static class RuleRecords {
+
+		private int size;
+		private int[] sets = new int[16];
+		private long[] premises = new long[16];
+		private int[] preconditionFrequencies = new int[16];
+		private int[] conclusionFrequencies = new int[16];
+
+		private void add(int set, long premise, int preconditionFrequency, int conclusionFrequency) {
+			if (size == sets.length) {
+				int capacity = 2 * size;
+				sets = Arrays.copyOf(sets, capacity);
+				premises = Arrays.copyOf(premises, capacity);
+				preconditionFrequencies = Arrays.copyOf(preconditionFrequencies, capacity);
+				conclusionFrequencies = Arrays.copyOf(conclusionFrequencies, capacity);
+			}
+			sets[size] = set;
+			premises[size] = premise;
+			preconditionFrequencies[size] = preconditionFrequency;
+			conclusionFrequencies[size] = conclusionFrequency;
+			size++;
+		}
+
+		/** Reverses the order of the records from the given one to the end. */
+		private void reverse(int from) {
+			for (int i = from, j = size - 1; i < j; i++, j--) {
+				long premise = premises[i];
+				premises[i] = premises[j];
+				premises[j] = premise;
+				int frequency = preconditionFrequencies[i];
+				preconditionFrequencies[i] = preconditionFrequencies[j];
+				preconditionFrequencies[j] = frequency;
+				frequency = conclusionFrequencies[i];
+				conclusionFrequencies[i] = conclusionFrequencies[j];
+				conclusionFrequencies[j] = frequency;
+			}
+		}
+
+		private int size() {
+			return size;
+		}
+	}
+
+	/**
+	 * Decides whether a rule is accepted by the selected criterion.
+	 */
+	private static class RuleFilter {
+
+		private final int criterion;
+		private final double minValue;
+		private final int numberOfTransactions;
+		private final double theta;
+		private final double laplaceK;
+		private final boolean pruning;
+
+		private RuleFilter(int criterion, double minValue, int numberOfTransactions, double theta, double laplaceK,
+				boolean pruning) {
+			this.criterion = criterion;
+			this.minValue = minValue;
+			this.numberOfTransactions = numberOfTransactions;
+			this.theta = theta;
+			this.laplaceK = laplaceK;
+			this.pruning = pruning;
+		}
+
+		private boolean accepts(int totalFrequency, int preconditionFrequency, int conclusionFrequency) {
+			return getCriterionValue(totalFrequency, preconditionFrequency, conclusionFrequency, numberOfTransactions,
+					theta, laplaceK, criterion) >= minValue;
+		}
+
+		/**
+		 * Returns whether the criterion only depends on the frequency of the premise and does not
+		 * increase with it. Then all subsets of a rejected premise are rejected, too. Always
+		 * {@code false} if pruning is disabled for compatibility.
+		 */
+		private boolean isMonotone() {
+			if (!pruning) {
+				return false;
+			}
+			switch (criterion) {
+				case CONFIDENCE:
+				case LAPLACE:
+					return true;
+				case GAIN:
+					return theta >= 0;
+				default:
+					return false;
+			}
+		}
+	}
+
+	private static double getCriterionValue(int totalFrequency, int preconditionFrequency, int conclusionFrequency,
 									 int numberOfTransactions, double theta, double laplaceK, int criterion) {
 		switch (criterion) {
 			case LIFT:
@@ -162,41 +505,41 @@ public class AssociationRuleGenerator extends Operator {
 		}
 	}
 
-	private double getGain(double theta, int totalFrequency, int preconditionFrequency,
+	private static double getGain(double theta, int totalFrequency, int preconditionFrequency,
 						   int numberOfTransactions) {
 		return getSupport(totalFrequency, numberOfTransactions)
 				- theta * getSupport(preconditionFrequency, numberOfTransactions);
 	}
 
-	private double getLift(int totalFrequency, int preconditionFrequency, int conclusionFrequency,
+	private static double getLift(int totalFrequency, int preconditionFrequency, int conclusionFrequency,
 						   int numberOfTransactions) {
 		return (double) totalFrequency * (double) numberOfTransactions
 				/ ((double) preconditionFrequency * conclusionFrequency);
 	}
 
-	private double getPs(int totalFrequency, int preconditionFrequency, int conclusionFrequency, int numberOfTransactions) {
+	private static double getPs(int totalFrequency, int preconditionFrequency, int conclusionFrequency, int numberOfTransactions) {
 		return getSupport(totalFrequency, numberOfTransactions) - getSupport(preconditionFrequency, numberOfTransactions)
 				* getSupport(conclusionFrequency, numberOfTransactions);
 	}
 
-	private double getLaPlace(double k, int totalFrequency, int preconditionFrequency,
+	private static double getLaPlace(double k, int totalFrequency, int preconditionFrequency,
 							  int numberOfTransactions) {
 		return (getSupport(totalFrequency, numberOfTransactions) + 1d)
 				/ (getSupport(preconditionFrequency, numberOfTransactions) + k);
 	}
 
-	private double getConviction(int totalFrequency, int preconditionFrequency, int conclusionFrequency,
+	private static double getConviction(int totalFrequency, int preconditionFrequency, int conclusionFrequency,
 								 int numberOfTransactions) {
 		double numerator = (double) preconditionFrequency * (numberOfTransactions - conclusionFrequency);
 		double denumerator = (double) numberOfTransactions * (preconditionFrequency - totalFrequency);
 		return numerator / denumerator;
 	}
 
-	private double getConfidence(int totalFrequency, int preconditionFrequency) {
+	private static double getConfidence(int totalFrequency, int preconditionFrequency) {
 		return (double) totalFrequency / (double) preconditionFrequency;
 	}
 
-	private double getSupport(int frequency, int completeSize) {
+	private static double getSupport(int frequency, int completeSize) {
 		return (double) frequency / (double) completeSize;
 	}
 
@@ -209,6 +552,14 @@ public class AssociationRuleGenerator extends Operator {
 		}
 	}
 
+	@Override
+	public OperatorVersion[] getIncompatibleVersionChanges() {
+		OperatorVersion[] changes = super.getIncompatibleVersionChanges();
+		changes = Arrays.copyOf(changes, changes.length + 1);
+		changes[changes.length - 1] = VERSION_EVALUATE_ALL_PREMISES;
+		return changes;
+	}
+
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
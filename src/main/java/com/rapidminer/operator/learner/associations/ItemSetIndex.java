@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.associations;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Looks up the frequencies of {@link FrequentItemSet}s by their items. In contrast to a map with
+ * item collections as keys, the item sets are encoded as ascending arrays of item ids stored one
+ * after another in a single int array, and are found by an open-addressing hash table.
+ *
+ * @since 8.0
+ */
+public class ItemSetIndex {
+
+	private final Map<Item, Integer> itemIds = new HashMap<>();
+
+	/** the sorted item ids of all sets, the ids of set i are stored from starts[i] to starts[i+1] */
+	private int[] pool = new int[64];
+	private int[] starts = new int[17];
+	private int[] frequencies = new int[16];
+	private int size;
+
+	/** the open-addressing hash table storing set index + 1 and 0 for empty slots */
+	private int[] table;
+
+	/**
+	 * Creates an index of all given sets. If a set is contained several times, the frequency of the
+	 * last one is used.
+	 */
+	public ItemSetIndex(FrequentItemSets sets) {
+		table = new int[Integer.highestOneBit(Math.max(16, sets.size())) << 2];
+		int[] buffer = new int[Math.max(1, sets.getMaximumSetSize())];
+		for (FrequentItemSet set : sets) {
+			if (set.getNumberOfItems() > buffer.length) {
+				buffer = new int[set.getNumberOfItems()];
+			}
+			int length = 0;
+			for (Item item : set.getItems()) {
+				Integer id = itemIds.get(item);
+				if (id == null) {
+					id = itemIds.size();
+					itemIds.put(item, id);
+				}
+				buffer[length++] = id;
+			}
+			Arrays.sort(buffer, 0, length);
+			add(buffer, length, set.getFrequency());
+		}
+	}
+
+	/**
+	 * Returns the id of the item or -1 if it is not contained in any set.
+	 */
+	public int getItemId(Item item) {
+		Integer id = itemIds.get(item);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the frequency of the item set with the given ascending item ids or 0 if the set is
+	 * unknown.
+	 *
+	 * @param ids
+	 *            the item ids in ascending order
+	 * @param length
+	 *            the number of ids to use
+	 */
+	public int getFrequency(int[] ids, int length) {
+		int set = find(ids, length, hash(ids, length));
+		return set < 0 ? 0 : frequencies[set];
+	}
+
+	/**
+	 * Returns the number of different item sets.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void add(int[] ids, int length, int frequency) {
+		int hash = hash(ids, length);
+		int existing = find(ids, length, hash);
+		if (existing >= 0) {
+			frequencies[existing] = frequency;
+			return;
+		}
+		if (size == frequencies.length) {
+			frequencies = Arrays.copyOf(frequencies, 2 * size);
+			starts = Arrays.copyOf(starts, 2 * size + 1);
+		}
+		int start = starts[size];
+		if (start + length > pool.length) {
+			pool = Arrays.copyOf(pool, Math.max(2 * pool.length, start + length));
+		}
+		System.arraycopy(ids, 0, pool, start, length);
+		starts[size + 1] = start + length;
+		frequencies[size] = frequency;
+		size++;
+
+		if (2 * size > table.length) {
+			int[] oldTable = table;
+			table = new int[2 * oldTable.length];
+			for (int entry : oldTable) {
+				if (entry != 0) {
+					int set = entry - 1;
+					place(entry, hash(pool, starts[set], starts[set + 1]));
+				}
+			}
+		}
+		place(size, hash);
+	}
+
+	private void place(int entry, int hash) {
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		while (table[slot] != 0) {
+			slot = slot + 1 & mask;
+		}
+		table[slot] = entry;
+	}
+
+	private int find(int[] ids, int length, int hash) {
+		int mask = table.length - 1;
+		for (int slot = hash & mask;; slot = slot + 1 & mask) {
+			int entry = table[slot];
+			if (entry == 0) {
+				return -1;
+			}
+			int set = entry - 1;
+			int start = starts[set];
+			if (starts[set + 1] - start == length && equals(ids, length, start)) {
+				return set;
+			}
+		}
+	}
+
+	private boolean equals(int[] ids, int length, int start) {
+		for (int i = 0; i < length; i++) {
+			if (pool[start + i] != ids[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int hash(int[] ids, int length) {
+		return hash(ids, 0, length);
+	}
+
+	private static int hash(int[] ids, int from, int to) {
+		int hash = 1;
+		for (int i = from; i < to; i++) {
+			hash = 31 * hash + ids[i];
+		}
+		hash *= 0x9E3779B9;
+		return hash ^ hash >>> 16;
+	}
+}
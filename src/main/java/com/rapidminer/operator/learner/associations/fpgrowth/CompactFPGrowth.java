@@ -0,0 +1,363 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.associations.fpgrowth;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.learner.associations.FrequentItemSet;
+import com.rapidminer.operator.learner.associations.Item;
+
+
+/**
+ * Mines the frequent item sets of a {@link CompactFPTree} by recursively building the conditional
+ * trees of the items. The conditional trees of the items of the given tree are independent and are
+ * mined in parallel. The result is ordered as in a sequential depth-first search starting with the
+ * most frequent item, independent of the parallelism.
+ * <p>
+ * The work can be bounded by a maximal item set size and by a maximal number of item sets. For the
+ * latter, the support threshold is raised to the smallest support of the best item sets found so
+ * far, which is correct since no superset has a larger support than its subsets. The caller must
+ * cut off the result afterwards, see {@link #getMinimalSupportOfBest(List, int)}.
+ *
+ * @since 8.0
+ */
+public class CompactFPGrowth {
+
+	/** the number of tasks per available thread, a higher number balances the work better */
+	private static final int TASKS_PER_THREAD = 4;
+
+	private final Item[] items;
+	private final int minSupport;
+	private final int maxItems;
+	private final int maxNumberOfItemSets;
+
+	/** a min-heap of the largest supports found so far if the number of item sets is bounded */
+	private int[] bestSupports;
+	private int numberOfBestSupports;
+	private volatile int bestSupportThreshold;
+
+	/**
+	 * Creates a new miner.
+	 *
+	 * @param items
+	 *            the items by id
+	 * @param minSupport
+	 *            the minimal total support of the item sets
+	 * @param maxItems
+	 *            the maximal size of the item sets, non-positive for no bound
+	 * @param maxNumberOfItemSets
+	 *            the number of item sets with the highest support which are needed, non-positive
+	 *            for all item sets
+	 */
+	public CompactFPGrowth(Item[] items, int minSupport, int maxItems, int maxNumberOfItemSets) {
+		this.items = items;
+		this.minSupport = minSupport;
+		this.maxItems = maxItems;
+		this.maxNumberOfItemSets = maxNumberOfItemSets;
+		if (maxNumberOfItemSets > 0) {
+			bestSupports = new int[Math.min(maxNumberOfItemSets, 1024)];
+		}
+	}
+
+	/**
+	 * Mines the item sets of the tree, each extended by the given prefix.
+	 *
+	 * @param tree
+	 *            the tree with the same item ids as given to the constructor
+	 * @param prefix
+	 *            the ids of the items contained in all transactions of the tree, these must not be
+	 *            contained in the tree
+	 * @param context
+	 *            the context for parallel mining or <code>null</code> to mine sequentially
+	 * @return the frequent item sets without the prefix itself
+	 * @throws OperatorException
+	 *             if the mining fails or is stopped
+	 */
+	public List<FrequentItemSet> mine(final CompactFPTree tree, final int[] prefix, final ConcurrencyContext context)
+			throws OperatorException {
+		final int numberOfItems = tree.getNumberOfItems();
+		@SuppressWarnings("unchecked")
+		final List<FrequentItemSet>[] results = new List[numberOfItems];
+		int numberOfTasks = context == null ? 1
+				: Math.max(1, Math.min(numberOfItems, context.getParallelism() * TASKS_PER_THREAD));
+
+		List<Callable<Void>> todo = new ArrayList<>(numberOfTasks);
+		for (int task = 0; task < numberOfTasks; task++) {
+			final int firstItem = task;
+			final int itemStep = numberOfTasks;
+			todo.add(new Callable<Void>() {
+
+				@Override
+				public Void call() {
+					// the items of the tasks are interleaved since the work per item varies with its
+					// frequency
+					Workspace workspace = new Workspace(numberOfItems, prefix);
+					for (int item = firstItem; item < numberOfItems; item += itemStep) {
+						if (context != null) {
+							context.checkStatus();
+						}
+						List<FrequentItemSet> result = new ArrayList<>();
+						mineItem(tree, null, item, prefix.length, workspace, result);
+						results[item] = result;
+					}
+					return null;
+				}
+			});
+		}
+
+		if (context == null || todo.size() == 1 || context.getParallelism() <= 1) {
+			for (Callable<Void> task : todo) {
+				try {
+					task.call();
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new OperatorException(e.getMessage(), e);
+				}
+			}
+		} else {
+			try {
+				context.call(todo);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof OperatorException) {
+					throw (OperatorException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				} else {
+					throw new OperatorException(cause.getMessage(), cause);
+				}
+			}
+		}
+
+		List<FrequentItemSet> sets = new ArrayList<>();
+		for (List<FrequentItemSet> result : results) {
+			sets.addAll(result);
+		}
+		return sets;
+	}
+
+	/**
+	 * Records a support which is not part of the mining result but must be taken into account for
+	 * the maximal number of item sets, e.g. the support of the prefix.
+	 */
+	public void addSupport(int support) {
+		if (maxNumberOfItemSets > 0) {
+			offer(support);
+		}
+	}
+
+	/**
+	 * Returns the support of the item set at the given position if the sets would be sorted by
+	 * descending support, i.e. the minimal support of the best item sets. Returns
+	 * {@link Integer#MIN_VALUE} if there are not more item sets.
+	 */
+	public static int getMinimalSupportOfBest(List<FrequentItemSet> sets, int numberOfBest) {
+		if (numberOfBest <= 0 || sets.size() <= numberOfBest) {
+			return Integer.MIN_VALUE;
+		}
+		int[] supports = new int[sets.size()];
+		for (int i = 0; i < supports.length; i++) {
+			supports[i] = sets.get(i).getFrequency();
+		}
+		Arrays.sort(supports);
+		return supports[supports.length - numberOfBest];
+	}
+
+	private void mineItem(CompactFPTree tree, int[] itemIds, int item, int prefixLength, Workspace workspace,
+			List<FrequentItemSet> result) {
+		int support = tree.getSupport(item);
+		if (support < getThreshold()) {
+			return;
+		}
+		workspace.prefix[prefixLength] = itemIds == null ? item : itemIds[item];
+		ArrayList<Item> setItems = new ArrayList<>(prefixLength + 1);
+		for (int i = 0; i <= prefixLength; i++) {
+			setItems.add(items[workspace.prefix[i]]);
+		}
+		result.add(new FrequentItemSet(setItems, support));
+		if (maxNumberOfItemSets > 0) {
+			offer(support);
+		}
+
+		if (maxItems > 0 && prefixLength + 1 >= maxItems) {
+			return;
+		}
+		int[] conditionalItemIds = workspace.buildConditionalTree(tree, itemIds, item, getThreshold());
+		if (conditionalItemIds != null) {
+			CompactFPTree conditionalTree = workspace.conditionalTree;
+			for (int conditionalItem = 0; conditionalItem < conditionalItemIds.length; conditionalItem++) {
+				mineItem(conditionalTree, conditionalItemIds, conditionalItem, prefixLength + 1, workspace, result);
+			}
+		}
+	}
+
+	private int getThreshold() {
+		return Math.max(minSupport, bestSupportThreshold);
+	}
+
+	private synchronized void offer(int support) {
+		if (numberOfBestSupports < maxNumberOfItemSets) {
+			if (numberOfBestSupports == bestSupports.length) {
+				bestSupports = Arrays.copyOf(bestSupports,
+						(int) Math.min(maxNumberOfItemSets, 2L * bestSupports.length));
+			}
+			// sift up
+			int position = numberOfBestSupports++;
+			while (position > 0 && bestSupports[(position - 1) / 2] > support) {
+				bestSupports[position] = bestSupports[(position - 1) / 2];
+				position = (position - 1) / 2;
+			}
+			bestSupports[position] = support;
+		} else if (support > bestSupports[0]) {
+			// sift down
+			int position = 0;
+			while (true) {
+				int child = 2 * position + 1;
+				if (child >= numberOfBestSupports) {
+					break;
+				}
+				if (child + 1 < numberOfBestSupports && bestSupports[child + 1] < bestSupports[child]) {
+					child++;
+				}
+				if (bestSupports[child] >= support) {
+					break;
+				}
+				bestSupports[position] = bestSupports[child];
+				position = child;
+			}
+			bestSupports[position] = support;
+		}
+		if (numberOfBestSupports == maxNumberOfItemSets) {
+			bestSupportThreshold = bestSupports[0];
+		}
+	}
+
+	/**
+	 * The buffers of a mining task. These are reused on every level of the recursion since they are
+	 * not needed anymore once the conditional tree is built.
+	 */
+	private static class Workspace {
+
+		/** the ids of the items of the current item set */
+		private final int[] prefix;
+
+		/** the supports and later the conditional ids of the items of the conditional tree */
+		private final int[] itemBuffer;
+		private final int[] touchedItems;
+		private int[] pathBuffer;
+		private int[][] transactions = new int[16][];
+		private int[] weights = new int[16];
+
+		/** the last built conditional tree */
+		private CompactFPTree conditionalTree;
+
+		private Workspace(int numberOfItems, int[] prefix) {
+			this.prefix = Arrays.copyOf(prefix, prefix.length + numberOfItems);
+			this.itemBuffer = new int[numberOfItems];
+			this.touchedItems = new int[numberOfItems];
+			this.pathBuffer = new int[numberOfItems];
+		}
+
+		/**
+		 * Builds the tree of the prefix paths of the item's nodes containing only the items with
+		 * the given minimal support. Returns the ids of the conditional items or <code>null</code>
+		 * if there is no frequent item.
+		 */
+		private int[] buildConditionalTree(CompactFPTree tree, int[] itemIds, int item, int minSupport) {
+			// count the supports of the ancestors, these always have smaller ids
+			int numberOfTouched = 0;
+			int numberOfPaths = 0;
+			for (int node = tree.getFirstNode(item); node != CompactFPTree.NONE; node = tree.getNextNode(node)) {
+				int count = tree.getCount(node);
+				int parent = tree.getParent(node);
+				if (parent != CompactFPTree.ROOT) {
+					numberOfPaths++;
+				}
+				for (; parent != CompactFPTree.ROOT; parent = tree.getParent(parent)) {
+					int parentItem = tree.getItem(parent);
+					if (itemBuffer[parentItem] == 0) {
+						touchedItems[numberOfTouched++] = parentItem;
+					}
+					itemBuffer[parentItem] += count;
+				}
+			}
+
+			// assign conditional ids in the order of the ids
+			Arrays.sort(touchedItems, 0, numberOfTouched);
+			int numberOfConditionalItems = 0;
+			for (int i = 0; i < numberOfTouched; i++) {
+				int touchedItem = touchedItems[i];
+				if (itemBuffer[touchedItem] >= minSupport) {
+					touchedItems[numberOfConditionalItems++] = touchedItem;
+					itemBuffer[touchedItem] = numberOfConditionalItems;
+				} else {
+					itemBuffer[touchedItem] = 0;
+				}
+			}
+			if (numberOfConditionalItems == 0) {
+				return null;
+			}
+			int[] conditionalItemIds = new int[numberOfConditionalItems];
+			for (int i = 0; i < numberOfConditionalItems; i++) {
+				conditionalItemIds[i] = itemIds == null ? touchedItems[i] : itemIds[touchedItems[i]];
+			}
+
+			// collect the prefix paths restricted to the conditional items
+			if (transactions.length < numberOfPaths) {
+				transactions = new int[numberOfPaths][];
+				weights = new int[numberOfPaths];
+			}
+			int numberOfTransactions = 0;
+			for (int node = tree.getFirstNode(item); node != CompactFPTree.NONE; node = tree.getNextNode(node)) {
+				int length = 0;
+				for (int parent = tree.getParent(node); parent != CompactFPTree.ROOT; parent = tree.getParent(parent)) {
+					int conditionalItem = itemBuffer[tree.getItem(parent)];
+					if (conditionalItem > 0) {
+						pathBuffer[length++] = conditionalItem - 1;
+					}
+				}
+				if (length > 0) {
+					int[] transaction = new int[length];
+					for (int i = 0; i < length; i++) {
+						transaction[i] = pathBuffer[length - 1 - i];
+					}
+					transactions[numberOfTransactions] = transaction;
+					weights[numberOfTransactions++] = tree.getCount(node);
+				}
+			}
+			for (int i = 0; i < numberOfConditionalItems; i++) {
+				itemBuffer[touchedItems[i]] = 0;
+			}
+
+			conditionalTree = CompactFPTree.create(numberOfConditionalItems, transactions, weights,
+					numberOfTransactions);
+			Arrays.fill(transactions, 0, numberOfTransactions, null);
+			return conditionalItemIds;
+		}
+	}
+}
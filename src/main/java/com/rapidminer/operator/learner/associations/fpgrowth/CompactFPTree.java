@@ -0,0 +1,266 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.associations.fpgrowth;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * An FP-tree for {@link CompactFPGrowth} storing its nodes in parallel int arrays instead of
+ * {@link FPTreeNode} objects with child maps. Items are identified by ids from <code>0</code> to
+ * <code>numberOfItems - 1</code>, where smaller ids are the more frequent items that are closer to
+ * the root.
+ * <p>
+ * The tree is built from the lexicographically sorted transactions, so that every transaction
+ * shares a prefix with the previous one and no child lookup is necessary. As a consequence, the
+ * nodes are stored in pre-order and the children of every node are ordered by item: the first child
+ * of a node directly follows it, the others can be reached by {@link #getNextSibling(int)}. The
+ * nodes of every item are chained from {@link #getFirstNode(int)} via {@link #getNextNode(int)}.
+ *
+ * @since 8.0
+ */
+public class CompactFPTree {
+
+	/** the node index of the root */
+	public static final int ROOT = 0;
+
+	/** marks the end of sibling and node chains */
+	public static final int NONE = -1;
+
+	private static final Comparator<int[]> LEXICOGRAPHIC_ORDER = new Comparator<int[]>() {
+
+		@Override
+		public int compare(int[] transaction1, int[] transaction2) {
+			int length = Math.min(transaction1.length, transaction2.length);
+			for (int i = 0; i < length; i++) {
+				if (transaction1[i] != transaction2[i]) {
+					return transaction1[i] < transaction2[i] ? -1 : 1;
+				}
+			}
+			return Integer.compare(transaction1.length, transaction2.length);
+		}
+	};
+
+	private final int numberOfItems;
+
+	private int size;
+	private int[] items;
+	private int[] parents;
+	private int[] counts;
+	private int[] nextSiblings;
+	private int[] nextNodes;
+
+	private final int[] supports;
+	private final int[] firstNodes;
+	private final int[] lastNodes;
+
+	private CompactFPTree(int numberOfItems, int capacity) {
+		this.numberOfItems = numberOfItems;
+		this.items = new int[capacity];
+		this.parents = new int[capacity];
+		this.counts = new int[capacity];
+		this.nextSiblings = new int[capacity];
+		this.nextNodes = new int[capacity];
+		this.supports = new int[numberOfItems];
+		this.firstNodes = new int[numberOfItems];
+		this.lastNodes = new int[numberOfItems];
+		Arrays.fill(firstNodes, NONE);
+		Arrays.fill(lastNodes, NONE);
+
+		// the root
+		items[ROOT] = NONE;
+		parents[ROOT] = NONE;
+		nextSiblings[ROOT] = NONE;
+		nextNodes[ROOT] = NONE;
+		size = 1;
+	}
+
+	/**
+	 * Creates the tree for the given transactions. The item ids of every transaction must be
+	 * ascending and free of duplicates. The transactions are sorted lexicographically in place.
+	 *
+	 * @param numberOfItems
+	 *            the number of different item ids
+	 * @param transactions
+	 *            the transactions, only the first <code>numberOfTransactions</code> are used
+	 * @param weights
+	 *            the weights of the transactions or <code>null</code> to count every transaction
+	 *            once. The weights are reordered together with the transactions.
+	 * @param numberOfTransactions
+	 *            the number of transactions to use
+	 * @return the tree
+	 */
+	public static CompactFPTree create(int numberOfItems, int[][] transactions, int[] weights,
+			int numberOfTransactions) {
+		if (weights == null) {
+			Arrays.sort(transactions, 0, numberOfTransactions, LEXICOGRAPHIC_ORDER);
+		} else {
+			sortWithWeights(transactions, weights, numberOfTransactions);
+		}
+
+		int capacity = 1;
+		for (int i = 0; i < numberOfTransactions; i++) {
+			capacity += transactions[i].length;
+			if (capacity > 1 << 16) {
+				capacity = 1 << 16;
+				break;
+			}
+		}
+		CompactFPTree tree = new CompactFPTree(numberOfItems, capacity);
+
+		// the nodes of the last transaction with path[0] being the root
+		int[] path = new int[numberOfItems + 1];
+		path[0] = ROOT;
+		int pathLength = 0;
+		for (int i = 0; i < numberOfTransactions; i++) {
+			int[] transaction = transactions[i];
+			int weight = weights == null ? 1 : weights[i];
+			int common = 0;
+			while (common < pathLength && common < transaction.length
+					&& tree.items[path[common + 1]] == transaction[common]) {
+				common++;
+			}
+			for (int depth = 0; depth < common; depth++) {
+				tree.counts[path[depth + 1]] += weight;
+				tree.supports[transaction[depth]] += weight;
+			}
+			for (int depth = common; depth < transaction.length; depth++) {
+				int node = tree.addNode(transaction[depth], path[depth], weight);
+				if (depth == common && common < pathLength) {
+					// due to the order, the last node on this depth is the previous child
+					tree.nextSiblings[path[depth + 1]] = node;
+				}
+				path[depth + 1] = node;
+			}
+			pathLength = transaction.length;
+		}
+		return tree;
+	}
+
+	private static void sortWithWeights(int[][] transactions, int[] weights, int numberOfTransactions) {
+		Integer[] order = new Integer[numberOfTransactions];
+		for (int i = 0; i < numberOfTransactions; i++) {
+			order[i] = i;
+		}
+		final int[][] unsorted = Arrays.copyOf(transactions, numberOfTransactions);
+		Arrays.sort(order, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer index1, Integer index2) {
+				return LEXICOGRAPHIC_ORDER.compare(unsorted[index1], unsorted[index2]);
+			}
+		});
+		int[] unsortedWeights = Arrays.copyOf(weights, numberOfTransactions);
+		for (int i = 0; i < numberOfTransactions; i++) {
+			transactions[i] = unsorted[order[i]];
+			weights[i] = unsortedWeights[order[i]];
+		}
+	}
+
+	private int addNode(int item, int parent, int count) {
+		if (size == items.length) {
+			int capacity = size + (size >> 1) + 1;
+			items = Arrays.copyOf(items, capacity);
+			parents = Arrays.copyOf(parents, capacity);
+			counts = Arrays.copyOf(counts, capacity);
+			nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+			nextNodes = Arrays.copyOf(nextNodes, capacity);
+		}
+		int node = size++;
+		items[node] = item;
+		parents[node] = parent;
+		counts[node] = count;
+		nextSiblings[node] = NONE;
+		nextNodes[node] = NONE;
+		if (lastNodes[item] == NONE) {
+			firstNodes[item] = node;
+		} else {
+			nextNodes[lastNodes[item]] = node;
+		}
+		lastNodes[item] = node;
+		supports[item] += count;
+		return node;
+	}
+
+	/**
+	 * Returns the number of different item ids.
+	 */
+	public int getNumberOfItems() {
+		return numberOfItems;
+	}
+
+	/**
+	 * Returns the number of nodes including the root.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the summed weight of all transactions containing the item.
+	 */
+	public int getSupport(int item) {
+		return supports[item];
+	}
+
+	/**
+	 * Returns the first node of the item or {@link #NONE}.
+	 */
+	public int getFirstNode(int item) {
+		return firstNodes[item];
+	}
+
+	/**
+	 * Returns the next node representing the same item or {@link #NONE}.
+	 */
+	public int getNextNode(int node) {
+		return nextNodes[node];
+	}
+
+	public int getItem(int node) {
+		return items[node];
+	}
+
+	/**
+	 * Returns the parent of the node or {@link #NONE} for the root.
+	 */
+	public int getParent(int node) {
+		return parents[node];
+	}
+
+	public int getCount(int node) {
+		return counts[node];
+	}
+
+	/**
+	 * Returns the child with the smallest item or {@link #NONE}.
+	 */
+	public int getFirstChild(int node) {
+		int child = node + 1;
+		return child < size && parents[child] == node ? child : NONE;
+	}
+
+	/**
+	 * Returns the child of the same parent with the next larger item or {@link #NONE}.
+	 */
+	public int getNextSibling(int node) {
+		return nextSiblings[node];
+	}
+}
@@ -19,8 +19,10 @@
 package com.rapidminer.operator.learner.associations.fpgrowth;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -29,6 +31,7 @@ import java.util.Map.Entry;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.rapidminer.core.concurrency.ConcurrencyContext;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
@@ -36,6 +39,7 @@ import com.rapidminer.example.Tools;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorVersion;
 import com.rapidminer.operator.ProcessStoppedException;
 import com.rapidminer.operator.learner.associations.BooleanAttributeItem;
 import com.rapidminer.operator.learner.associations.FrequentItemSet;
@@ -51,6 +55,7 @@ import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.ParameterTypeString;
 import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.parameter.conditions.BooleanParameterCondition;
+import com.rapidminer.studio.internal.Resources;
 import com.rapidminer.tools.Ontology;
 
 
@@ -115,10 +120,22 @@ public class FPGrowth extends Operator {
 	/** The parameter name the maximum number of items. */
 	public static final String PARAMETER_MAX_ITEMS = "max_items";
 
+	/**
+	 * The parameter name for the maximal number of item sets with the highest support, these bound
+	 * the work of the search.
+	 */
+	public static final String PARAMETER_MAX_NUMBER_OF_ITEMSETS = "max_number_of_itemsets";
+
 	private static final String PARAMETER_MUST_CONTAIN = "must_contain";
 
 	private static final String PARAMETER_KEEP_EXAMPLE_SET = "keep_example_set";
 
+	/**
+	 * Up to this version, the item sets are mined sequentially on an {@link FPTree} of linked nodes
+	 * which results in a different order of the item sets.
+	 */
+	public static final OperatorVersion VERSION_LINKED_FP_TREE = new OperatorVersion(7, 6, 3);
+
 	private final InputPort exampleSetInput = getInputPorts().createPort("example set");
 
 	private final OutputPort exampleSetOutput = getOutputPorts().createPort("example set");
@@ -144,6 +161,7 @@ public class FPGrowth extends Operator {
 		int minimumNumberOfItemsets = shouldFindMinimumNumber ? getParameterAsInt(PARAMETER_MIN_NUMBER_OF_ITEMSETS) : 1;
 
 		int maxItems = getParameterAsInt(PARAMETER_MAX_ITEMS);
+		int maxNumberOfItemSets = getParameterAsInt(PARAMETER_MAX_NUMBER_OF_ITEMSETS);
 		double currentSupport = getParameterAsDouble(PARAMETER_MIN_SUPPORT);
 		String mustContainItems = getParameterAsString(PARAMETER_MUST_CONTAIN);
 
@@ -188,99 +206,247 @@ public class FPGrowth extends Operator {
 			// eliminating non frequent items
 			removeNonFrequentItems(itemMapping, currentMinTotalSupport, workingSet);
 
-			// generating FP Tree
-			FPTree tree = getFPTree(workingSet, attributes, positiveIndices, itemMapping);
-
-			// mine tree
 			sets = new FrequentItemSets(workingSet.size());
-			if (mustContainItems == null || mustContainItems.isEmpty()) {
-				mineTree(tree, sets, 0, new FrequentItemSet(), currentMinTotalSupport, maxItems, !shouldFindMinimumNumber);
+			if (getCompatibilityLevel().isAtMost(VERSION_LINKED_FP_TREE)) {
+				mineFPTree(workingSet, attributes, positiveIndices, itemMapping, sets, currentMinTotalSupport, maxItems,
+						mustContainItems, shouldFindMinimumNumber);
 			} else {
-				FrequentItemSet conditionalItems = new FrequentItemSet();
-				Pattern pattern = Pattern.compile(mustContainItems);
-				Map<Item, Header> headerTable = tree.getHeaderTable();
-				int depth = 0;
-				boolean supportOfMandatoryItemsTooLow = false;
-				for (Entry<Attribute, Item> attributeEntry : itemMapping.entrySet()) {
-					Matcher matcher = pattern.matcher(attributeEntry.getKey().getName());
-					Item targetItem = attributeEntry.getValue();
-
-					Header targetItemHeader = headerTable.get(targetItem);
-					int itemFrequency = 0;
-					if (targetItemHeader != null) {
-						itemFrequency = targetItemHeader.getFrequencies().getFrequency(depth);
-					}
+				mineCompactFPTree(workingSet, attributes, positiveIndices, itemMapping, sets, currentMinTotalSupport,
+						maxItems, maxNumberOfItemSets, mustContainItems);
+			}
+			if (maxNumberOfItemSets > 0) {
+				sets = keepBestSets(sets, maxNumberOfItemSets);
+			}
+
+			currentSupport *= 0.9;
+			retryCount++;
+
+			// trigger progress
+			if (shouldFindMinimumNumber) {
+				getProgress().step();
+			}
+		}
 
-					if (matcher.matches()) {
-						if (itemFrequency >= currentMinTotalSupport) {
-							// building conditional items
-							// run over sibling chain
-							for (FPTreeNode node : targetItemHeader.getSiblingChain()) {
-								// and propagate frequency to root
-								int frequency = node.getFrequency(depth);
-								// if frequency is positive
-								if (frequency > 0) {
-									FPTreeNode currentNode = node.getFather();
-									while (currentNode != tree) {
-										// increase node frequency
-										currentNode.increaseFrequency(depth + 1, frequency);
-										// increase item frequency in
-										// headerTable
-										headerTable.get(currentNode.getNodeItem()).getFrequencies()
-												.increaseFrequency(depth + 1, frequency);
-										// go up in tree
-										currentNode = currentNode.getFather();
-									}
-
-									// also descend into subpaths and increase
-									// frequencies (see function comment)
-									recursivelyIncreaseFrequencyOfNextDepth(headerTable, node, depth);
+		exampleSetOutput.deliver(exampleSet);
+		frequentSetsOutput.deliver(sets);
+	}
+
+	/**
+	 * Mines the frequent item sets using the {@link FPTree}. This is used for compatibility levels up
+	 * to {@link #VERSION_LINKED_FP_TREE}.
+	 */
+	private void mineFPTree(ExampleSet workingSet, Attribute[] attributes, double[] positiveIndices,
+			Map<Attribute, Item> itemMapping, FrequentItemSets sets, int currentMinTotalSupport, int maxItems,
+			String mustContainItems, boolean shouldFindMinimumNumber) throws ProcessStoppedException {
+		// generating FP Tree
+		FPTree tree = getFPTree(workingSet, attributes, positiveIndices, itemMapping);
+
+		// mine tree
+		if (mustContainItems == null || mustContainItems.isEmpty()) {
+			mineTree(tree, sets, 0, new FrequentItemSet(), currentMinTotalSupport, maxItems, !shouldFindMinimumNumber);
+		} else {
+			FrequentItemSet conditionalItems = new FrequentItemSet();
+			Pattern pattern = Pattern.compile(mustContainItems);
+			Map<Item, Header> headerTable = tree.getHeaderTable();
+			int depth = 0;
+			boolean supportOfMandatoryItemsTooLow = false;
+			for (Entry<Attribute, Item> attributeEntry : itemMapping.entrySet()) {
+				Matcher matcher = pattern.matcher(attributeEntry.getKey().getName());
+				Item targetItem = attributeEntry.getValue();
+
+				Header targetItemHeader = headerTable.get(targetItem);
+				int itemFrequency = 0;
+				if (targetItemHeader != null) {
+					itemFrequency = targetItemHeader.getFrequencies().getFrequency(depth);
+				}
+
+				if (matcher.matches()) {
+					if (itemFrequency >= currentMinTotalSupport) {
+						// building conditional items
+						// run over sibling chain
+						for (FPTreeNode node : targetItemHeader.getSiblingChain()) {
+							// and propagate frequency to root
+							int frequency = node.getFrequency(depth);
+							// if frequency is positive
+							if (frequency > 0) {
+								FPTreeNode currentNode = node.getFather();
+								while (currentNode != tree) {
+									// increase node frequency
+									currentNode.increaseFrequency(depth + 1, frequency);
+									// increase item frequency in
+									// headerTable
+									headerTable.get(currentNode.getNodeItem()).getFrequencies()
+											.increaseFrequency(depth + 1, frequency);
+									// go up in tree
+									currentNode = currentNode.getFather();
 								}
+
+								// also descend into subpaths and increase
+								// frequencies (see function comment)
+								recursivelyIncreaseFrequencyOfNextDepth(headerTable, node, depth);
 							}
-							// add item to conditional items
-							int itemSupport = targetItemHeader.getFrequencies().getFrequency(depth);
-							conditionalItems.addItem(targetItem, itemSupport);
-
-							depth++;
-						} else {
-							// at least one of the mandatory items does not have sufficient support
-							// -> break and return empty itemset list.
-							supportOfMandatoryItemsTooLow = true;
-							break;
 						}
+						// add item to conditional items
+						int itemSupport = targetItemHeader.getFrequencies().getFrequency(depth);
+						conditionalItems.addItem(targetItem, itemSupport);
+
+						depth++;
+					} else {
+						// at least one of the mandatory items does not have sufficient support
+						// -> break and return empty itemset list.
+						supportOfMandatoryItemsTooLow = true;
+						break;
 					}
 				}
+			}
 
-				// don't do anything if the mandatory items have too low support
-				if (!supportOfMandatoryItemsTooLow) {
-					if (!conditionalItems.getItems().isEmpty()) {
-						if (conditionalItems.getFrequency() >= currentMinTotalSupport) {
-							// add this conditional items to frequentSets
-							sets.addFrequentSet(conditionalItems);
-						} else {
-							supportOfMandatoryItemsTooLow = true;
-						}
+			// don't do anything if the mandatory items have too low support
+			if (!supportOfMandatoryItemsTooLow) {
+				if (!conditionalItems.getItems().isEmpty()) {
+					if (conditionalItems.getFrequency() >= currentMinTotalSupport) {
+						// add this conditional items to frequentSets
+						sets.addFrequentSet(conditionalItems);
+					} else {
+						supportOfMandatoryItemsTooLow = true;
 					}
 				}
+			}
+
+			// only mine tree if the mandatory attributes have sufficient support
+			if (!supportOfMandatoryItemsTooLow) {
+				mineTree(tree, sets, depth, conditionalItems, currentMinTotalSupport, maxItems,
+						!shouldFindMinimumNumber);
+			}
+		}
+	}
+
+	/**
+	 * Mines the frequent item sets using a {@link CompactFPTree} whose conditional trees are mined
+	 * in parallel. Items which must be contained are removed from the transactions and prepended to
+	 * every mined item set.
+	 */
+	private void mineCompactFPTree(ExampleSet workingSet, Attribute[] attributes, double[] positiveIndices,
+			Map<Attribute, Item> itemMapping, FrequentItemSets sets, int minTotalSupport, int maxItems,
+			int maxNumberOfItemSets, String mustContainItems) throws OperatorException {
+		// the ids are ordered by descending frequency like the items in the FPTree
+		final Item[] attributeItems = new Item[attributes.length];
+		List<Integer> frequentAttributes = new ArrayList<>();
+		for (int i = 0; i < attributes.length; i++) {
+			attributeItems[i] = itemMapping.get(attributes[i]);
+			if (attributeItems[i].getFrequency() >= minTotalSupport && attributeItems[i].getFrequency() > 0) {
+				frequentAttributes.add(i);
+			}
+		}
+		Collections.sort(frequentAttributes, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer attribute1, Integer attribute2) {
+				return attributeItems[attribute1].compareTo(attributeItems[attribute2]);
+			}
+		});
+		Item[] items = new Item[frequentAttributes.size()];
+		int[] attributeIds = new int[attributes.length];
+		Arrays.fill(attributeIds, -1);
+		for (int id = 0; id < items.length; id++) {
+			int attribute = frequentAttributes.get(id);
+			items[id] = attributeItems[attribute];
+			attributeIds[attribute] = id;
+		}
 
-				// only mine tree if the mandatory attributes have sufficient support
-				if (!supportOfMandatoryItemsTooLow) {
-					mineTree(tree, sets, depth, conditionalItems, currentMinTotalSupport, maxItems,
-							!shouldFindMinimumNumber);
+		// determine the items which must be contained
+		boolean[] mandatory = new boolean[items.length];
+		int numberOfMandatory = 0;
+		if (mustContainItems != null && !mustContainItems.isEmpty()) {
+			Pattern pattern = Pattern.compile(mustContainItems);
+			for (int i = 0; i < attributes.length; i++) {
+				if (pattern.matcher(attributes[i].getName()).matches()) {
+					if (attributeIds[i] < 0) {
+						// the support of the mandatory items is too low
+						return;
+					}
+					mandatory[attributeIds[i]] = true;
+					numberOfMandatory++;
 				}
 			}
+		}
 
-			currentSupport *= 0.9;
-			retryCount++;
+		// extract the transactions containing all mandatory items
+		int[][] transactions = new int[workingSet.size()][];
+		int numberOfTransactions = 0;
+		int mandatorySupport = 0;
+		int[] buffer = new int[items.length];
+		for (Example example : workingSet) {
+			int length = 0;
+			int numberOfContainedMandatory = 0;
+			for (int i = 0; i < attributes.length; i++) {
+				int id = attributeIds[i];
+				if (id >= 0 && example.getValue(attributes[i]) == positiveIndices[i]) {
+					if (mandatory[id]) {
+						numberOfContainedMandatory++;
+					} else {
+						buffer[length++] = id;
+					}
+				}
+			}
+			if (numberOfContainedMandatory == numberOfMandatory) {
+				mandatorySupport++;
+				if (length > 0) {
+					Arrays.sort(buffer, 0, length);
+					transactions[numberOfTransactions++] = Arrays.copyOf(buffer, length);
+				}
+			}
+		}
+		checkForStop();
 
-			// trigger progress
-			if (shouldFindMinimumNumber) {
-				getProgress().step();
+		int[] prefix = new int[numberOfMandatory];
+		CompactFPGrowth miner = new CompactFPGrowth(items, minTotalSupport, maxItems, maxNumberOfItemSets);
+		if (numberOfMandatory > 0) {
+			if (mandatorySupport < minTotalSupport || mandatorySupport == 0) {
+				return;
+			}
+			ArrayList<Item> mandatoryItems = new ArrayList<>(numberOfMandatory);
+			int position = 0;
+			for (int id = 0; id < items.length; id++) {
+				if (mandatory[id]) {
+					prefix[position++] = id;
+					mandatoryItems.add(items[id]);
+				}
+			}
+			sets.addFrequentSet(new FrequentItemSet(mandatoryItems, mandatorySupport));
+			miner.addSupport(mandatorySupport);
+			if (maxItems > 0 && numberOfMandatory >= maxItems) {
+				return;
 			}
 		}
 
-		exampleSetOutput.deliver(exampleSet);
-		frequentSetsOutput.deliver(sets);
+		CompactFPTree tree = CompactFPTree.create(items.length, transactions, null, numberOfTransactions);
+		transactions = null;
+		ConcurrencyContext context = getProcess() != null ? Resources.getConcurrencyContext(this) : null;
+		for (FrequentItemSet set : miner.mine(tree, prefix, context)) {
+			sets.addFrequentSet(set);
+		}
+	}
+
+	/**
+	 * Returns the given number of item sets with the highest support and all item sets with the same
+	 * support as the last of them. The order of the sets is kept.
+	 */
+	private FrequentItemSets keepBestSets(FrequentItemSets sets, int maxNumberOfItemSets) {
+		List<FrequentItemSet> allSets = new ArrayList<>(sets.size());
+		for (FrequentItemSet set : sets) {
+			allSets.add(set);
+		}
+		int minimalSupport = CompactFPGrowth.getMinimalSupportOfBest(allSets, maxNumberOfItemSets);
+		if (minimalSupport == Integer.MIN_VALUE) {
+			return sets;
+		}
+		FrequentItemSets bestSets = new FrequentItemSets(sets.getNumberOfTransactions());
+		for (FrequentItemSet set : allSets) {
+			if (set.getFrequency() >= minimalSupport) {
+				bestSets.addFrequentSet(set);
+			}
+		}
+		return bestSets;
 	}
 
 	/**
@@ -560,6 +726,11 @@ public class FPGrowth extends Operator {
 				"The minimal support necessary in order to be a frequent item (set).", 0.0d, 1.0d, 0.95d));
 		types.add(new ParameterTypeInt(PARAMETER_MAX_ITEMS,
 				"The upper bound for the length of the item sets (-1: no upper bound)", -1, Integer.MAX_VALUE, -1));
+		type = new ParameterTypeInt(PARAMETER_MAX_NUMBER_OF_ITEMSETS,
+				"If positive, only this number of item sets with the highest support is delivered together with the item sets having the same support as the last one. This also bounds the search since it raises the support threshold. 0: no upper bound",
+				0, Integer.MAX_VALUE, 0);
+		type.setExpert(true);
+		types.add(type);
 		types.add(new ParameterTypeString(PARAMETER_MUST_CONTAIN,
 				"The items any generated rule must contain as regular expression. Empty if none."));
 
@@ -568,4 +739,12 @@ public class FPGrowth extends Operator {
 		types.add(type);
 		return types;
 	}
+
+	@Override
+	public OperatorVersion[] getIncompatibleVersionChanges() {
+		OperatorVersion[] old = super.getIncompatibleVersionChanges();
+		OperatorVersion[] versions = Arrays.copyOf(old, old.length + 1);
+		versions[old.length] = VERSION_LINKED_FP_TREE;
+		return versions;
+	}
 }
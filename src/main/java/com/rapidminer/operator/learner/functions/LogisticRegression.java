@@ -18,13 +18,19 @@
 */
 package com.rapidminer.operator.learner.functions;
 
+import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
 
+import Jama.Matrix;
+
+import com.rapidminer.core.concurrency.ConcurrencyContext;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.Model;
 import com.rapidminer.operator.OperatorCapability;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorVersion;
 import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.learner.AbstractLearner;
 import com.rapidminer.operator.learner.PredictionModel;
@@ -34,12 +40,20 @@ import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.conditions.AboveOperatorVersionCondition;
+import com.rapidminer.parameter.conditions.BelowOrEqualOperatorVersionCondition;
+import com.rapidminer.parameter.conditions.EqualTypeCondition;
+import com.rapidminer.parameter.conditions.OrParameterCondition;
+import com.rapidminer.studio.internal.Resources;
 import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.math.optimization.ec.es.ESOptimization;
 
 
 /**
- * This operator determines a logistic regression model.
+ * This operator determines a logistic regression model. The coefficients are either fitted by an
+ * evolution strategy or, starting with version 8.0, by iteratively reweighted least squares or
+ * limited memory BFGS on a {@link LogisticRegressionDesignMatrix}. The latter two solvers support
+ * L1 (L-BFGS only) and L2 regularization and compute the gradients and Hessians in parallel.
  *
  * @author Ingo Mierswa, Tobias Malbrecht
  *
@@ -96,6 +110,35 @@ public class LogisticRegression extends AbstractLearner {
 	 */
 	public static final String PARAMETER_SHOW_CONVERGENCE_PLOT = "show_convergence_plot";
 
+	/** The parameter name for &quot;The method used to fit the coefficients.&quot; */
+	public static final String PARAMETER_SOLVER = "solver";
+
+	/** The parameter name for &quot;The maximal number of iterations of the solver.&quot; */
+	public static final String PARAMETER_MAX_ITERATIONS = "max_iterations";
+
+	/**
+	 * The parameter name for &quot;The solver stops if the objective improves by less than this
+	 * fraction.&quot;
+	 */
+	public static final String PARAMETER_CONVERGENCE_EPSILON = "convergence_epsilon";
+
+	/** The parameter name for &quot;The weight of the L1 regularization of the coefficients.&quot; */
+	public static final String PARAMETER_L1_REGULARIZATION = "l1_regularization";
+
+	/** The parameter name for &quot;The weight of the L2 regularization of the coefficients.&quot; */
+	public static final String PARAMETER_L2_REGULARIZATION = "l2_regularization";
+
+	public static final String[] SOLVERS = { "evolution strategy", "IRLS", "L-BFGS" };
+
+	public static final int SOLVER_EVOLUTION_STRATEGY = 0;
+
+	public static final int SOLVER_IRLS = 1;
+
+	public static final int SOLVER_LBFGS = 2;
+
+	/** Up to this version, the coefficients are always fitted by the evolution strategy. */
+	public static final OperatorVersion VERSION_EVOLUTION_STRATEGY_ONLY = new OperatorVersion(7, 6, 3);
+
 	private PerformanceVector estimatedPerformance;
 
 	public LogisticRegression(OperatorDescription description) {
@@ -104,6 +147,12 @@ public class LogisticRegression extends AbstractLearner {
 
 	@Override
 	public Model learn(ExampleSet exampleSet) throws OperatorException {
+		int solver = getCompatibilityLevel().isAtMost(VERSION_EVOLUTION_STRATEGY_ONLY) ? SOLVER_EVOLUTION_STRATEGY
+				: getParameterAsInt(PARAMETER_SOLVER);
+		if (solver != SOLVER_EVOLUTION_STRATEGY) {
+			return learnWithSolver(exampleSet, solver);
+		}
+
 		RandomGenerator random = RandomGenerator.getRandomGenerator(this);
 		LogisticRegressionOptimization optimization = new LogisticRegressionOptimization(exampleSet,
 				getParameterAsBoolean(PARAMETER_ADD_INTERCEPT), getParameterAsInt(PARAMETER_START_POPULATION_TYPE),
@@ -117,6 +166,31 @@ public class LogisticRegression extends AbstractLearner {
 		return model;
 	}
 
+	/**
+	 * Fits the coefficients with the given gradient based solver. The variances of the
+	 * coefficients are estimated from the Hessian of the unregularized log-likelihood.
+	 */
+	private Model learnWithSolver(ExampleSet exampleSet, int solverType) throws OperatorException {
+		boolean addIntercept = getParameterAsBoolean(PARAMETER_ADD_INTERCEPT);
+		ConcurrencyContext context = getProcess() != null ? Resources.getConcurrencyContext(this) : null;
+		LogisticRegressionDesignMatrix matrix = new LogisticRegressionDesignMatrix(exampleSet, addIntercept);
+		double l1 = solverType == SOLVER_LBFGS ? getParameterAsDouble(PARAMETER_L1_REGULARIZATION) : 0.0d;
+		LogisticRegressionSolver solver = new LogisticRegressionSolver(matrix, l1,
+				getParameterAsDouble(PARAMETER_L2_REGULARIZATION), getParameterAsInt(PARAMETER_MAX_ITERATIONS),
+				getParameterAsDouble(PARAMETER_CONVERGENCE_EPSILON), this, this, context);
+		double[] beta = solverType == SOLVER_IRLS ? solver.solveIRLS() : solver.solveLBFGS();
+
+		int numberOfCoefficients = matrix.getNumberOfCoefficients();
+		double[][] hessian = new double[numberOfCoefficients][numberOfCoefficients];
+		matrix.computeLoss(beta, null, hessian, context);
+		double[] variance = LogisticRegressionOptimization.estimateVariance(new Matrix(hessian), this);
+
+		double[] statistics = matrix.computeFitStatistics(beta, context);
+		estimatedPerformance = LogisticRegressionOptimization.createPerformance(numberOfCoefficients, addIntercept,
+				solver.getLogLikelihood(), statistics[0], statistics[1], statistics[2], exampleSet.size());
+		return new LogisticRegressionModel(exampleSet, beta, variance, addIntercept);
+	}
+
 	@Override
 	public boolean canEstimatePerformance() {
 		return true;
@@ -156,36 +230,82 @@ public class LogisticRegression extends AbstractLearner {
 		List<ParameterType> types = super.getParameterTypes();
 		types.add(new ParameterTypeBoolean(PARAMETER_ADD_INTERCEPT, "Determines whether to include an intercept.", true));
 
-		types.add(new ParameterTypeCategory(PARAMETER_START_POPULATION_TYPE, "The type of start population initialization.",
-				ESOptimization.POPULATION_INIT_TYPES, ESOptimization.INIT_TYPE_RANDOM));
-		types.add(new ParameterTypeInt(PARAMETER_MAX_GENERATIONS, "Stop after this many evaluations", 1, Integer.MAX_VALUE,
-				10000));
-		types.add(new ParameterTypeInt(PARAMETER_GENERATIONS_WITHOUT_IMPROVAL,
+		ParameterType type = new ParameterTypeCategory(PARAMETER_SOLVER,
+				"The method used to fit the coefficients. IRLS needs few iterations but time quadratic in the number of attributes per iteration, L-BFGS scales better with many attributes.",
+				SOLVERS, SOLVER_LBFGS, false);
+		type.registerDependencyCondition(new AboveOperatorVersionCondition(this, VERSION_EVOLUTION_STRATEGY_ONLY));
+		types.add(type);
+		type = new ParameterTypeInt(PARAMETER_MAX_ITERATIONS, "The maximal number of iterations of the solver.",
+				1, Integer.MAX_VALUE, 100);
+		type.registerDependencyCondition(new AboveOperatorVersionCondition(this, VERSION_EVOLUTION_STRATEGY_ONLY));
+		type.registerDependencyCondition(
+				new EqualTypeCondition(this, PARAMETER_SOLVER, SOLVERS, false, SOLVER_IRLS, SOLVER_LBFGS));
+		types.add(type);
+		type = new ParameterTypeDouble(PARAMETER_CONVERGENCE_EPSILON,
+				"The solver stops if the objective improves by less than this fraction.", 0.0d, Double.POSITIVE_INFINITY,
+				1.0e-8d);
+		type.registerDependencyCondition(new AboveOperatorVersionCondition(this, VERSION_EVOLUTION_STRATEGY_ONLY));
+		type.registerDependencyCondition(
+				new EqualTypeCondition(this, PARAMETER_SOLVER, SOLVERS, false, SOLVER_IRLS, SOLVER_LBFGS));
+		types.add(type);
+		type = new ParameterTypeDouble(PARAMETER_L1_REGULARIZATION,
+				"The weight of the L1 regularization of the coefficients.", 0.0d, Double.POSITIVE_INFINITY, 0.0d);
+		type.registerDependencyCondition(new AboveOperatorVersionCondition(this, VERSION_EVOLUTION_STRATEGY_ONLY));
+		type.registerDependencyCondition(new EqualTypeCondition(this, PARAMETER_SOLVER, SOLVERS, false, SOLVER_LBFGS));
+		types.add(type);
+		type = new ParameterTypeDouble(PARAMETER_L2_REGULARIZATION,
+				"The weight of the L2 regularization of the coefficients.", 0.0d, Double.POSITIVE_INFINITY, 0.0d);
+		type.registerDependencyCondition(new AboveOperatorVersionCondition(this, VERSION_EVOLUTION_STRATEGY_ONLY));
+		type.registerDependencyCondition(
+				new EqualTypeCondition(this, PARAMETER_SOLVER, SOLVERS, false, SOLVER_IRLS, SOLVER_LBFGS));
+		types.add(type);
+
+		List<ParameterType> evolutionStrategyTypes = new LinkedList<>();
+		evolutionStrategyTypes.add(new ParameterTypeCategory(PARAMETER_START_POPULATION_TYPE,
+				"The type of start population initialization.", ESOptimization.POPULATION_INIT_TYPES,
+				ESOptimization.INIT_TYPE_RANDOM));
+		evolutionStrategyTypes.add(new ParameterTypeInt(PARAMETER_MAX_GENERATIONS, "Stop after this many evaluations", 1,
+				Integer.MAX_VALUE, 10000));
+		evolutionStrategyTypes.add(new ParameterTypeInt(PARAMETER_GENERATIONS_WITHOUT_IMPROVAL,
 				"Stop after this number of generations without improvement (-1: optimize until max_iterations).", -1,
 				Integer.MAX_VALUE, 300));
-		types.add(new ParameterTypeInt(PARAMETER_POPULATION_SIZE, "The population size (-1: number of examples)", -1,
-				Integer.MAX_VALUE, 3));
-		types.add(new ParameterTypeDouble(PARAMETER_TOURNAMENT_FRACTION,
+		evolutionStrategyTypes.add(new ParameterTypeInt(PARAMETER_POPULATION_SIZE,
+				"The population size (-1: number of examples)", -1, Integer.MAX_VALUE, 3));
+		evolutionStrategyTypes.add(new ParameterTypeDouble(PARAMETER_TOURNAMENT_FRACTION,
 				"The fraction of the population used for tournament selection.", 0.0d, Double.POSITIVE_INFINITY, 0.75d));
-		types.add(new ParameterTypeBoolean(PARAMETER_KEEP_BEST,
+		evolutionStrategyTypes.add(new ParameterTypeBoolean(PARAMETER_KEEP_BEST,
 				"Indicates if the best individual should survive (elititst selection).", true));
-		types.add(new ParameterTypeCategory(PARAMETER_MUTATION_TYPE, "The type of the mutation operator.",
+		evolutionStrategyTypes.add(new ParameterTypeCategory(PARAMETER_MUTATION_TYPE, "The type of the mutation operator.",
 				ESOptimization.MUTATION_TYPES, ESOptimization.GAUSSIAN_MUTATION));
-		types.add(new ParameterTypeCategory(PARAMETER_SELECTION_TYPE, "The type of the selection operator.",
-				ESOptimization.SELECTION_TYPES, ESOptimization.TOURNAMENT_SELECTION));
-		types.add(new ParameterTypeDouble(PARAMETER_CROSSOVER_PROB, "The probability for crossovers.", 0.0d, 1.0d, 1.0d));
-
-		types.addAll(RandomGenerator.getRandomGeneratorParameters(this));
-
-		types.add(new ParameterTypeBoolean(PARAMETER_SHOW_CONVERGENCE_PLOT,
+		evolutionStrategyTypes.add(new ParameterTypeCategory(PARAMETER_SELECTION_TYPE,
+				"The type of the selection operator.", ESOptimization.SELECTION_TYPES, ESOptimization.TOURNAMENT_SELECTION));
+		evolutionStrategyTypes.add(new ParameterTypeDouble(PARAMETER_CROSSOVER_PROB, "The probability for crossovers.",
+				0.0d, 1.0d, 1.0d));
+		evolutionStrategyTypes.addAll(RandomGenerator.getRandomGeneratorParameters(this));
+		evolutionStrategyTypes.add(new ParameterTypeBoolean(PARAMETER_SHOW_CONVERGENCE_PLOT,
 				"Indicates if a dialog with a convergence plot should be drawn.", false));
+		// older processes always use the evolution strategy, independent of the solver parameter
+		for (ParameterType evolutionStrategyType : evolutionStrategyTypes) {
+			evolutionStrategyType.registerDependencyCondition(new OrParameterCondition(this, false,
+					new BelowOrEqualOperatorVersionCondition(this, VERSION_EVOLUTION_STRATEGY_ONLY),
+					new EqualTypeCondition(this, PARAMETER_SOLVER, SOLVERS, false, SOLVER_EVOLUTION_STRATEGY)));
+			types.add(evolutionStrategyType);
+		}
 
 		// deprecated parameters
-		ParameterType type = new ParameterTypeBoolean(PARAMETER_RETURN_PERFORMANCE,
+		type = new ParameterTypeBoolean(PARAMETER_RETURN_PERFORMANCE,
 				"Determines whether to return the performance.", true);
 		type.setDeprecated();
 		types.add(type);
 
 		return types;
 	}
+
+	@Override
+	public OperatorVersion[] getIncompatibleVersionChanges() {
+		OperatorVersion[] old = super.getIncompatibleVersionChanges();
+		OperatorVersion[] versions = Arrays.copyOf(old, old.length + 1);
+		versions[old.length] = VERSION_EVOLUTION_STRATEGY_ONLY;
+		return versions;
+	}
 }
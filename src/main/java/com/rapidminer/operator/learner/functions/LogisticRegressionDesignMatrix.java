@@ -0,0 +1,448 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.functions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.OperatorException;
+
+
+/**
+ * The design matrix of a logistic regression, i.e. the values of the regular attributes together
+ * with the label and the weight of every example, extracted into blocks of consecutive examples.
+ * Blocks in which most values are zero are stored as compressed sparse rows, all others as dense
+ * rows. If the intercept is added, it is the last coefficient.
+ * <p>
+ * The negative log-likelihood, its gradient and its Hessian are accumulated per group of blocks in
+ * parallel. The partial sums are added up in the order of the groups and the groups do not depend
+ * on the parallelism, so the results are the same for any number of threads. If no
+ * {@link ConcurrencyContext} is given, everything runs sequentially.
+ *
+ * @since 8.0
+ */
+public class LogisticRegressionDesignMatrix {
+
+	/** the number of examples in a block */
+	private static final int BLOCK_SIZE = 4096;
+
+	/** the number of blocks accumulated by a single task */
+	private static final int BLOCKS_PER_TASK = 16;
+
+	/** blocks with at most this fraction of non-zero values are stored sparse */
+	private static final double MAXIMAL_SPARSE_FRACTION = 0.3;
+
+	/** The values, labels and weights of a block of examples. */
+	private static final class Block {
+
+		private final int rows;
+
+		/** the dense rows or the non-zero values of the rows */
+		private final double[] values;
+
+		/** the attribute indices of the non-zero values, {@code null} for dense blocks */
+		private final int[] indices;
+
+		/** the start of every row within the non-zero values, {@code null} for dense blocks */
+		private final int[] rowStarts;
+
+		private final double[] labels;
+
+		private final double[] weights;
+
+		private Block(int rows, double[] values, int[] indices, int[] rowStarts, double[] labels, double[] weights) {
+			this.rows = rows;
+			this.values = values;
+			this.indices = indices;
+			this.rowStarts = rowStarts;
+			this.labels = labels;
+			this.weights = weights;
+		}
+	}
+
+	/** A computation on a range of blocks. */
+	private interface BlockTask<T> {
+
+		T process(int fromBlock, int toBlock) throws OperatorException;
+	}
+
+	private final Block[] blocks;
+
+	private final int size;
+
+	private final int dimensions;
+
+	private final boolean addIntercept;
+
+	/**
+	 * Extracts the values of the regular attributes, the label and the weight of all examples.
+	 *
+	 * @param exampleSet
+	 *            the training data with a binominal label
+	 * @param addIntercept
+	 *            whether an intercept is added as last coefficient
+	 */
+	public LogisticRegressionDesignMatrix(ExampleSet exampleSet, boolean addIntercept) {
+		Attribute[] regularAttributes = exampleSet.getAttributes().createRegularAttributeArray();
+		Attribute label = exampleSet.getAttributes().getLabel();
+		Attribute weight = exampleSet.getAttributes().getWeight();
+		this.size = exampleSet.size();
+		this.dimensions = regularAttributes.length;
+		this.addIntercept = addIntercept;
+		this.blocks = new Block[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+
+		double[] values = new double[Math.min(BLOCK_SIZE, size) * dimensions];
+		double[] labels = null;
+		double[] weights = null;
+		int nonZeros = 0;
+		int index = 0;
+		for (Example example : exampleSet) {
+			int row = index % BLOCK_SIZE;
+			if (row == 0) {
+				int rows = Math.min(BLOCK_SIZE, size - index);
+				labels = new double[rows];
+				weights = new double[rows];
+				nonZeros = 0;
+			}
+			int offset = row * dimensions;
+			for (Attribute attribute : regularAttributes) {
+				double value = example.getValue(attribute);
+				values[offset++] = value;
+				if (value != 0) {
+					nonZeros++;
+				}
+			}
+			labels[row] = example.getValue(label);
+			weights[row] = weight == null ? 1.0d : example.getValue(weight);
+			if (row == labels.length - 1) {
+				blocks[index / BLOCK_SIZE] = createBlock(values, nonZeros, labels, weights);
+			}
+			index++;
+		}
+	}
+
+	/** Stores the rows in the buffer sparse or dense depending on the number of non-zero values. */
+	private Block createBlock(double[] buffer, int nonZeros, double[] labels, double[] weights) {
+		int rows = labels.length;
+		if (nonZeros > MAXIMAL_SPARSE_FRACTION * rows * dimensions) {
+			return new Block(rows, Arrays.copyOf(buffer, rows * dimensions), null, null, labels, weights);
+		}
+		double[] values = new double[nonZeros];
+		int[] indices = new int[nonZeros];
+		int[] rowStarts = new int[rows + 1];
+		int position = 0;
+		for (int row = 0; row < rows; row++) {
+			rowStarts[row] = position;
+			int offset = row * dimensions;
+			for (int j = 0; j < dimensions; j++) {
+				double value = buffer[offset + j];
+				if (value != 0) {
+					values[position] = value;
+					indices[position] = j;
+					position++;
+				}
+			}
+		}
+		rowStarts[rows] = position;
+		return new Block(rows, values, indices, rowStarts, labels, weights);
+	}
+
+	/** Returns the number of examples. */
+	public int size() {
+		return size;
+	}
+
+	/** Returns the number of regular attributes. */
+	public int getDimensions() {
+		return dimensions;
+	}
+
+	/** Returns whether the intercept is the last coefficient. */
+	public boolean isInterceptAdded() {
+		return addIntercept;
+	}
+
+	/** Returns the number of coefficients including the intercept. */
+	public int getNumberOfCoefficients() {
+		return addIntercept ? dimensions + 1 : dimensions;
+	}
+
+	/**
+	 * Computes the negative log-likelihood of the given coefficients. If the arrays are given, the
+	 * gradient and the Hessian of the negative log-likelihood are computed as well.
+	 *
+	 * @param beta
+	 *            the coefficients
+	 * @param gradient
+	 *            the array for the gradient, can be {@code null}
+	 * @param hessian
+	 *            the square array for the Hessian, can be {@code null}
+	 * @param context
+	 *            the context for the parallel computation, can be {@code null}
+	 * @return the negative log-likelihood
+	 * @throws OperatorException
+	 *             if the computation is stopped
+	 */
+	public double computeLoss(final double[] beta, double[] gradient, double[][] hessian, ConcurrencyContext context)
+			throws OperatorException {
+		final int coefficients = getNumberOfCoefficients();
+		final boolean computeGradient = gradient != null;
+		final boolean computeHessian = hessian != null;
+		List<double[]> results = run(new BlockTask<double[]>() {
+
+			@Override
+			public double[] process(int fromBlock, int toBlock) {
+				// the loss, the gradient and the upper triangle of the Hessian
+				double[] partial = new double[1 + (computeGradient ? coefficients : 0)
+						+ (computeHessian ? coefficients * coefficients : 0)];
+				int hessianOffset = computeGradient ? 1 + coefficients : 1;
+				for (int b = fromBlock; b < toBlock; b++) {
+					accumulate(blocks[b], beta, partial, computeGradient, computeHessian ? hessianOffset : -1);
+				}
+				return partial;
+			}
+		}, context);
+
+		double loss = 0;
+		if (computeGradient) {
+			Arrays.fill(gradient, 0, coefficients, 0);
+		}
+		if (computeHessian) {
+			for (int j = 0; j < coefficients; j++) {
+				Arrays.fill(hessian[j], 0, coefficients, 0);
+			}
+		}
+		for (double[] partial : results) {
+			loss += partial[0];
+			if (computeGradient) {
+				for (int j = 0; j < coefficients; j++) {
+					gradient[j] += partial[1 + j];
+				}
+			}
+			if (computeHessian) {
+				int offset = computeGradient ? 1 + coefficients : 1;
+				for (int j = 0; j < coefficients; j++) {
+					double[] hessianRow = hessian[j];
+					int rowOffset = offset + j * coefficients;
+					for (int k = j; k < coefficients; k++) {
+						hessianRow[k] += partial[rowOffset + k];
+					}
+				}
+			}
+		}
+		if (computeHessian) {
+			for (int j = 0; j < coefficients; j++) {
+				for (int k = 0; k < j; k++) {
+					hessian[j][k] = hessian[k][j];
+				}
+			}
+		}
+		return loss;
+	}
+
+	/**
+	 * Adds the loss, the gradient and the upper triangle of the Hessian of the block to the partial
+	 * results. The Hessian is skipped if the offset is negative.
+	 */
+	private void accumulate(Block block, double[] beta, double[] partial, boolean computeGradient, int hessianOffset) {
+		int coefficients = getNumberOfCoefficients();
+		double intercept = addIntercept ? beta[dimensions] : 0;
+		for (int row = 0; row < block.rows; row++) {
+			double eta = computeEta(block, row, beta) + intercept;
+			double label = block.labels[row];
+			double weight = block.weights[row];
+			double probability = sigmoid(eta);
+			partial[0] += weight * (logOnePlusExp(eta) - label * eta);
+
+			if (computeGradient) {
+				double residual = weight * (probability - label);
+				if (block.indices == null) {
+					int offset = row * dimensions;
+					for (int j = 0; j < dimensions; j++) {
+						partial[1 + j] += residual * block.values[offset + j];
+					}
+				} else {
+					for (int p = block.rowStarts[row]; p < block.rowStarts[row + 1]; p++) {
+						partial[1 + block.indices[p]] += residual * block.values[p];
+					}
+				}
+				if (addIntercept) {
+					partial[1 + dimensions] += residual;
+				}
+			}
+
+			if (hessianOffset >= 0) {
+				double curvature = weight * probability * (1 - probability);
+				if (block.indices == null) {
+					int offset = row * dimensions;
+					for (int j = 0; j < dimensions; j++) {
+						double scaled = curvature * block.values[offset + j];
+						if (scaled == 0) {
+							continue;
+						}
+						int rowOffset = hessianOffset + j * coefficients;
+						for (int k = j; k < dimensions; k++) {
+							partial[rowOffset + k] += scaled * block.values[offset + k];
+						}
+						if (addIntercept) {
+							partial[rowOffset + dimensions] += scaled;
+						}
+					}
+				} else {
+					int end = block.rowStarts[row + 1];
+					for (int p = block.rowStarts[row]; p < end; p++) {
+						double scaled = curvature * block.values[p];
+						int rowOffset = hessianOffset + block.indices[p] * coefficients;
+						for (int q = p; q < end; q++) {
+							partial[rowOffset + block.indices[q]] += scaled * block.values[q];
+						}
+						if (addIntercept) {
+							partial[rowOffset + dimensions] += scaled;
+						}
+					}
+				}
+				if (addIntercept) {
+					partial[hessianOffset + dimensions * coefficients + dimensions] += curvature;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the statistics needed for the performance of the model with the given coefficients.
+	 *
+	 * @return the sum of weights, the weighted sum of the positive labels and the weighted Pearson
+	 *         goodness of fit
+	 * @throws OperatorException
+	 *             if the computation is stopped
+	 */
+	public double[] computeFitStatistics(final double[] beta, ConcurrencyContext context) throws OperatorException {
+		List<double[]> results = run(new BlockTask<double[]>() {
+
+			@Override
+			public double[] process(int fromBlock, int toBlock) {
+				double[] partial = new double[3];
+				double intercept = addIntercept ? beta[dimensions] : 0;
+				for (int b = fromBlock; b < toBlock; b++) {
+					Block block = blocks[b];
+					for (int row = 0; row < block.rows; row++) {
+						double probability = sigmoid(computeEta(block, row, beta) + intercept);
+						double label = block.labels[row];
+						double weight = block.weights[row];
+						partial[0] += weight;
+						partial[1] += weight * label;
+						partial[2] += weight * (label - probability) * (label - probability)
+								/ (probability * (1 - probability));
+					}
+				}
+				return partial;
+			}
+		}, context);
+		double[] statistics = new double[3];
+		for (double[] partial : results) {
+			for (int i = 0; i < statistics.length; i++) {
+				statistics[i] += partial[i];
+			}
+		}
+		return statistics;
+	}
+
+	/** Returns the linear predictor of the given row without the intercept. */
+	private double computeEta(Block block, int row, double[] beta) {
+		double eta = 0;
+		if (block.indices == null) {
+			int offset = row * dimensions;
+			for (int j = 0; j < dimensions; j++) {
+				eta += beta[j] * block.values[offset + j];
+			}
+		} else {
+			for (int p = block.rowStarts[row]; p < block.rowStarts[row + 1]; p++) {
+				eta += beta[block.indices[p]] * block.values[p];
+			}
+		}
+		return eta;
+	}
+
+	/** Runs the task on groups of blocks and returns the results in the order of the groups. */
+	private <T> List<T> run(final BlockTask<T> task, final ConcurrencyContext context) throws OperatorException {
+		int numberOfTasks = (blocks.length + BLOCKS_PER_TASK - 1) / BLOCKS_PER_TASK;
+		if (context == null || numberOfTasks <= 1 || context.getParallelism() <= 1) {
+			List<T> results = new ArrayList<>(numberOfTasks);
+			for (int t = 0; t < numberOfTasks; t++) {
+				if (context != null) {
+					context.checkStatus();
+				}
+				results.add(task.process(t * BLOCKS_PER_TASK, Math.min(blocks.length, (t + 1) * BLOCKS_PER_TASK)));
+			}
+			return results;
+		}
+
+		List<Callable<T>> todo = new ArrayList<>(numberOfTasks);
+		for (int t = 0; t < numberOfTasks; t++) {
+			final int fromBlock = t * BLOCKS_PER_TASK;
+			final int toBlock = Math.min(blocks.length, fromBlock + BLOCKS_PER_TASK);
+			todo.add(new Callable<T>() {
+
+				@Override
+				public T call() throws OperatorException {
+					context.checkStatus();
+					return task.process(fromBlock, toBlock);
+				}
+			});
+		}
+		try {
+			return context.call(todo);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof OperatorException) {
+				throw (OperatorException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new OperatorException(cause.getMessage(), cause);
+			}
+		}
+	}
+
+	/** Computes the logistic function in a numerically stable way. */
+	static double sigmoid(double eta) {
+		if (eta >= 0) {
+			return 1 / (1 + Math.exp(-eta));
+		}
+		double exp = Math.exp(eta);
+		return exp / (1 + exp);
+	}
+
+	/** Computes log(1 + exp(eta)) without overflow. */
+	static double logOnePlusExp(double eta) {
+		if (eta > 0) {
+			return eta + Math.log1p(Math.exp(-eta));
+		}
+		return Math.log1p(Math.exp(eta));
+	}
+}
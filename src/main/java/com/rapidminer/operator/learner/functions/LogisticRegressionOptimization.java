@@ -160,20 +160,29 @@ public class LogisticRegressionOptimization extends ESOptimization {
 				}
 			}
 		}
+		return estimateVariance(hessian, logging);
+	}
 
-		double[] variance = new double[beta.length];
+	/**
+	 * Returns the diagonal of the asymptotic variance-covariance matrix, i.e. of the inverse of the
+	 * Hessian of the log-likelihood. Since only the absolute values of the diagonal are used, the
+	 * Hessian of the negative log-likelihood can be given as well.
+	 */
+	static double[] estimateVariance(Matrix hessian, LoggingHandler logging) {
+		int n = hessian.getRowDimension();
+		double[] variance = new double[n];
 		Matrix varianceCovarianceMatrix = null;
 		try {
 			// asymptotic variance-covariance matrix is inverse of hessian matrix
 			varianceCovarianceMatrix = hessian.inverse();
 		} catch (Exception e) {
 			logging.logWarning("could not determine variance-covariance matrix, hessian is singular");
-			for (int j = 0; j < beta.length; j++) {
+			for (int j = 0; j < n; j++) {
 				variance[j] = Double.NaN;
 			}
 			return variance;
 		}
-		for (int j = 0; j < beta.length; j++) {
+		for (int j = 0; j < n; j++) {
 			// get diagonal elements
 			variance[j] = Math.abs(varianceCovarianceMatrix.get(j, j));
 		}
@@ -202,18 +211,8 @@ public class LogisticRegressionOptimization extends ESOptimization {
 
 	public PerformanceVector getPerformance() {
 		double[] beta = getBestValuesEver();
-		double numberOfSlopes = addIntercept ? beta.length - 1 : beta.length;
 		double logLikelihood = getBestFitnessEver();
-		double restrictedLogLikelihood = 0.0d;
-		double minusTwoLogLikelihood = 0.0d;
-		double modelChiSquared = 0.0d;
 		double goodnessOfFit = 0.0d;
-		double coxSnellRSquared = 0.0d;
-		double nagelkerkeRSquared = 0.0d;
-		double mcfaddenRSquared = 0.0d;
-		double AIC = 0.0d;
-		double BIC = 0.0d;
-
 		double weightSum = 0.0d;
 		double positiveSum = 0.0d;
 		Attribute[] regularAttributes = exampleSet.getAttributes().createRegularAttributeArray();
@@ -240,6 +239,40 @@ public class LogisticRegressionOptimization extends ESOptimization {
 			positiveSum += weightValue * classValue;
 			goodnessOfFit += weightValue * currentFit;
 		}
+		return createPerformance(beta.length, addIntercept, logLikelihood, weightSum, positiveSum, goodnessOfFit,
+				exampleSet.size());
+	}
+
+	/**
+	 * Creates the performance of a fitted logistic regression model.
+	 *
+	 * @param numberOfCoefficients
+	 *            the number of coefficients including the intercept
+	 * @param addIntercept
+	 *            whether the last coefficient is the intercept
+	 * @param logLikelihood
+	 *            the log-likelihood of the model
+	 * @param weightSum
+	 *            the sum of the example weights
+	 * @param positiveSum
+	 *            the weighted sum of the positive labels
+	 * @param goodnessOfFit
+	 *            the weighted Pearson goodness of fit
+	 * @param size
+	 *            the number of examples
+	 */
+	static PerformanceVector createPerformance(int numberOfCoefficients, boolean addIntercept, double logLikelihood,
+			double weightSum, double positiveSum, double goodnessOfFit, int size) {
+		double numberOfSlopes = addIntercept ? numberOfCoefficients - 1 : numberOfCoefficients;
+		double restrictedLogLikelihood = 0.0d;
+		double minusTwoLogLikelihood = 0.0d;
+		double modelChiSquared = 0.0d;
+		double coxSnellRSquared = 0.0d;
+		double nagelkerkeRSquared = 0.0d;
+		double mcfaddenRSquared = 0.0d;
+		double AIC = 0.0d;
+		double BIC = 0.0d;
+
 		double pi0 = positiveSum / weightSum;
 		if (addIntercept) {
 			restrictedLogLikelihood = weightSum * (pi0 * Math.log(pi0) + (1 - pi0) * Math.log(1 - pi0));
@@ -255,24 +288,17 @@ public class LogisticRegressionOptimization extends ESOptimization {
 		BIC = -2 * logLikelihood + Math.log(weightSum) * (numberOfSlopes + 1);
 
 		PerformanceVector estimatedPerformance = new PerformanceVector();
-		estimatedPerformance
-				.addCriterion(new EstimatedPerformance("log_likelihood", logLikelihood, exampleSet.size(), false));
+		estimatedPerformance.addCriterion(new EstimatedPerformance("log_likelihood", logLikelihood, size, false));
 		estimatedPerformance.addCriterion(new EstimatedPerformance("restricted_log_likelihood", restrictedLogLikelihood,
-				exampleSet.size(), false));
-		estimatedPerformance.addCriterion(new EstimatedPerformance("-2_log_likelihood", minusTwoLogLikelihood, exampleSet
-				.size(), true));
-		estimatedPerformance.addCriterion(new EstimatedPerformance("model_chi_squared", modelChiSquared, exampleSet.size(),
-				false));
-		estimatedPerformance.addCriterion(new EstimatedPerformance("goodness_of_fit", goodnessOfFit, exampleSet.size(),
-				false));
-		estimatedPerformance.addCriterion(new EstimatedPerformance("cox_snell_r_squared", coxSnellRSquared, exampleSet
-				.size(), false));
-		estimatedPerformance.addCriterion(new EstimatedPerformance("nagelkerke_r_squared", nagelkerkeRSquared, exampleSet
-				.size(), false));
-		estimatedPerformance.addCriterion(new EstimatedPerformance("mcfadden_r_squared", mcfaddenRSquared,
-				exampleSet.size(), false));
-		estimatedPerformance.addCriterion(new EstimatedPerformance("AIC", AIC, exampleSet.size(), true));
-		estimatedPerformance.addCriterion(new EstimatedPerformance("BIC", BIC, exampleSet.size(), true));
+				size, false));
+		estimatedPerformance.addCriterion(new EstimatedPerformance("-2_log_likelihood", minusTwoLogLikelihood, size, true));
+		estimatedPerformance.addCriterion(new EstimatedPerformance("model_chi_squared", modelChiSquared, size, false));
+		estimatedPerformance.addCriterion(new EstimatedPerformance("goodness_of_fit", goodnessOfFit, size, false));
+		estimatedPerformance.addCriterion(new EstimatedPerformance("cox_snell_r_squared", coxSnellRSquared, size, false));
+		estimatedPerformance.addCriterion(new EstimatedPerformance("nagelkerke_r_squared", nagelkerkeRSquared, size, false));
+		estimatedPerformance.addCriterion(new EstimatedPerformance("mcfadden_r_squared", mcfaddenRSquared, size, false));
+		estimatedPerformance.addCriterion(new EstimatedPerformance("AIC", AIC, size, true));
+		estimatedPerformance.addCriterion(new EstimatedPerformance("BIC", BIC, size, true));
 		estimatedPerformance.setMainCriterionName("AIC");
 		return estimatedPerformance;
 	}
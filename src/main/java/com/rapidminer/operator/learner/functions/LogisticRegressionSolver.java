@@ -0,0 +1,478 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.functions;
+
+import java.util.Arrays;
+
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.LoggingHandler;
+
+
+/**
+ * Fits the coefficients of a logistic regression on a {@link LogisticRegressionDesignMatrix} by
+ * minimizing the negative log-likelihood plus the optional regularization terms
+ * <code>l1 * |beta|_1 + l2 / 2 * |beta|_2^2</code>. The intercept is never regularized.
+ * <p>
+ * Two solvers are available: iteratively reweighted least squares, i.e. Newton-Raphson steps with
+ * the full Hessian, which converges in few iterations but needs time quadratic in the number of
+ * coefficients per example, and limited memory BFGS which only needs the gradient. The L1 term is
+ * only supported by the latter, which then follows the orthant-wise scheme of Andrew and Gao
+ * (OWL-QN).
+ *
+ * @since 8.0
+ */
+public class LogisticRegressionSolver {
+
+	/** the number of correction pairs kept by L-BFGS */
+	private static final int MEMORY = 10;
+
+	/** the sufficient decrease constant of the backtracking line search */
+	private static final double ARMIJO = 1e-4;
+
+	/** the smallest step length tried by the line searches */
+	private static final double MINIMAL_STEP = 1e-20;
+
+	/** the maximal number of times the ridge of a singular Newton system is increased */
+	private static final int MAX_RIDGE_INCREASES = 30;
+
+	private final LogisticRegressionDesignMatrix matrix;
+
+	private final double l1;
+
+	private final double l2;
+
+	private final int maxIterations;
+
+	private final double epsilon;
+
+	private final LoggingHandler logging;
+
+	private final Operator executingOperator;
+
+	private final ConcurrencyContext context;
+
+	/** the unregularized log-likelihood of the last solution */
+	private double logLikelihood = Double.NaN;
+
+	/**
+	 * Creates a new solver.
+	 *
+	 * @param matrix
+	 *            the training data
+	 * @param l1
+	 *            the weight of the L1 regularization, only used by {@link #solveLBFGS()}
+	 * @param l2
+	 *            the weight of the L2 regularization
+	 * @param maxIterations
+	 *            the maximal number of iterations
+	 * @param epsilon
+	 *            the optimization stops if the objective improves by less than this fraction
+	 * @param logging
+	 *            the handler for log messages, can be {@code null}
+	 * @param executingOperator
+	 *            the operator which is checked for stop requests, can be {@code null}
+	 * @param context
+	 *            the context for the parallel computation, can be {@code null}
+	 */
+	public LogisticRegressionSolver(LogisticRegressionDesignMatrix matrix, double l1, double l2, int maxIterations,
+			double epsilon, LoggingHandler logging, Operator executingOperator, ConcurrencyContext context) {
+		this.matrix = matrix;
+		this.l1 = l1;
+		this.l2 = l2;
+		this.maxIterations = maxIterations;
+		this.epsilon = epsilon;
+		this.logging = logging;
+		this.executingOperator = executingOperator;
+		this.context = context;
+	}
+
+	/** Returns the unregularized log-likelihood of the last solution. */
+	public double getLogLikelihood() {
+		return logLikelihood;
+	}
+
+	/**
+	 * Computes the coefficients with iteratively reweighted least squares. Every step is halved
+	 * until the objective does not increase anymore. The L1 regularization is ignored.
+	 */
+	public double[] solveIRLS() throws OperatorException {
+		int n = matrix.getNumberOfCoefficients();
+		double[] beta = new double[n];
+		double[] gradient = new double[n];
+		double[][] hessian = new double[n][n];
+		double loss = matrix.computeLoss(beta, gradient, hessian, context);
+		double objective = loss + getL2Penalty(beta);
+
+		double[] candidate = new double[n];
+		double[] candidateGradient = new double[n];
+		double[][] candidateHessian = new double[n][n];
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			checkForStop();
+			addL2Derivatives(beta, gradient, hessian);
+			double[] step = solveLinearSystem(hessian, gradient);
+
+			double stepLength = 1;
+			double candidateLoss;
+			double candidateObjective;
+			while (true) {
+				for (int j = 0; j < n; j++) {
+					candidate[j] = beta[j] - stepLength * step[j];
+				}
+				candidateLoss = matrix.computeLoss(candidate, candidateGradient, candidateHessian, context);
+				candidateObjective = candidateLoss + getL2Penalty(candidate);
+				if (candidateObjective <= objective || stepLength < MINIMAL_STEP) {
+					break;
+				}
+				stepLength /= 2;
+			}
+			if (!(candidateObjective <= objective)) {
+				break;
+			}
+
+			double improvement = objective - candidateObjective;
+			double[] swap = beta;
+			beta = candidate;
+			candidate = swap;
+			swap = gradient;
+			gradient = candidateGradient;
+			candidateGradient = swap;
+			double[][] swapHessian = hessian;
+			hessian = candidateHessian;
+			candidateHessian = swapHessian;
+			loss = candidateLoss;
+			objective = candidateObjective;
+			log("IRLS iteration " + (iteration + 1) + ": objective = " + objective);
+			if (improvement <= epsilon * Math.max(1, Math.abs(objective))) {
+				break;
+			}
+		}
+		logLikelihood = -loss;
+		return beta;
+	}
+
+	/**
+	 * Computes the coefficients with limited memory BFGS and a backtracking line search. If an L1
+	 * regularization is given, the search directions and steps are restricted to the current
+	 * orthant as described for OWL-QN.
+	 */
+	public double[] solveLBFGS() throws OperatorException {
+		int n = matrix.getNumberOfCoefficients();
+		double[] beta = new double[n];
+		double[] gradient = new double[n];
+		double loss = computeSmoothLoss(beta, gradient);
+		double objective = loss + getL1Penalty(beta);
+
+		double[][] s = new double[MEMORY][];
+		double[][] y = new double[MEMORY][];
+		double[] rho = new double[MEMORY];
+		int stored = 0;
+		int newest = -1;
+
+		double[] pseudoGradient = new double[n];
+		double[] direction = new double[n];
+		double[] candidate = new double[n];
+		double[] candidateGradient = new double[n];
+		double[] alpha = new double[MEMORY];
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			checkForStop();
+			computePseudoGradient(beta, gradient, pseudoGradient);
+			double gradientNorm = norm(pseudoGradient);
+			if (gradientNorm <= epsilon * Math.max(1, norm(beta))) {
+				break;
+			}
+
+			// two-loop recursion
+			for (int j = 0; j < n; j++) {
+				direction[j] = -pseudoGradient[j];
+			}
+			for (int m = 0; m < stored; m++) {
+				int i = (newest - m + MEMORY) % MEMORY;
+				alpha[i] = rho[i] * dot(s[i], direction);
+				axpy(-alpha[i], y[i], direction);
+			}
+			if (stored > 0) {
+				scale(dot(s[newest], y[newest]) / dot(y[newest], y[newest]), direction);
+			}
+			for (int m = stored - 1; m >= 0; m--) {
+				int i = (newest - m + MEMORY) % MEMORY;
+				double b = rho[i] * dot(y[i], direction);
+				axpy(alpha[i] - b, s[i], direction);
+			}
+			if (l1 > 0) {
+				for (int j = 0; j < n; j++) {
+					if (direction[j] * pseudoGradient[j] >= 0) {
+						direction[j] = 0;
+					}
+				}
+			}
+			double directionalDerivative = dot(direction, pseudoGradient);
+			if (!(directionalDerivative < 0)) {
+				// not a descent direction, restart with steepest descent
+				stored = 0;
+				for (int j = 0; j < n; j++) {
+					direction[j] = -pseudoGradient[j];
+				}
+				directionalDerivative = -gradientNorm * gradientNorm;
+			}
+
+			// backtracking line search within the orthant
+			double stepLength = stored == 0 ? Math.min(1, 1 / gradientNorm) : 1;
+			double candidateLoss;
+			double candidateObjective;
+			while (true) {
+				for (int j = 0; j < n; j++) {
+					double value = beta[j] + stepLength * direction[j];
+					if (l1 > 0 && isRegularized(j)) {
+						double orthant = beta[j] != 0 ? Math.signum(beta[j]) : -Math.signum(pseudoGradient[j]);
+						if (Math.signum(value) != orthant) {
+							value = 0;
+						}
+					}
+					candidate[j] = value;
+				}
+				candidateLoss = computeSmoothLoss(candidate, candidateGradient);
+				candidateObjective = candidateLoss + getL1Penalty(candidate);
+				double decrease = 0;
+				for (int j = 0; j < n; j++) {
+					decrease += pseudoGradient[j] * (candidate[j] - beta[j]);
+				}
+				if (candidateObjective <= objective + ARMIJO * decrease || stepLength < MINIMAL_STEP) {
+					break;
+				}
+				stepLength /= 2;
+			}
+			if (!(candidateObjective <= objective)) {
+				break;
+			}
+
+			// update the correction pairs
+			int next = (newest + 1) % MEMORY;
+			if (s[next] == null) {
+				s[next] = new double[n];
+				y[next] = new double[n];
+			}
+			for (int j = 0; j < n; j++) {
+				s[next][j] = candidate[j] - beta[j];
+				y[next][j] = candidateGradient[j] - gradient[j];
+			}
+			double curvature = dot(s[next], y[next]);
+			if (curvature > 0) {
+				rho[next] = 1 / curvature;
+				newest = next;
+				stored = Math.min(stored + 1, MEMORY);
+			}
+
+			double improvement = objective - candidateObjective;
+			double[] swap = beta;
+			beta = candidate;
+			candidate = swap;
+			swap = gradient;
+			gradient = candidateGradient;
+			candidateGradient = swap;
+			loss = candidateLoss;
+			objective = candidateObjective;
+			log("L-BFGS iteration " + (iteration + 1) + ": objective = " + objective);
+			if (improvement <= epsilon * Math.max(1, Math.abs(objective))) {
+				break;
+			}
+		}
+		logLikelihood = -(loss - getL2Penalty(beta));
+		return beta;
+	}
+
+	/**
+	 * Computes the negative log-likelihood plus the L2 term and its gradient.
+	 */
+	private double computeSmoothLoss(double[] beta, double[] gradient) throws OperatorException {
+		double loss = matrix.computeLoss(beta, gradient, null, context);
+		if (l2 > 0) {
+			for (int j = 0; j < matrix.getDimensions(); j++) {
+				gradient[j] += l2 * beta[j];
+			}
+		}
+		return loss + getL2Penalty(beta);
+	}
+
+	/**
+	 * Computes the pseudo-gradient of the objective, i.e. the gradient for coefficients unequal to
+	 * zero and the one-sided derivative pointing downhill for coefficients which are zero.
+	 */
+	private void computePseudoGradient(double[] beta, double[] gradient, double[] pseudoGradient) {
+		for (int j = 0; j < beta.length; j++) {
+			if (l1 <= 0 || !isRegularized(j)) {
+				pseudoGradient[j] = gradient[j];
+			} else if (beta[j] > 0) {
+				pseudoGradient[j] = gradient[j] + l1;
+			} else if (beta[j] < 0) {
+				pseudoGradient[j] = gradient[j] - l1;
+			} else if (gradient[j] + l1 < 0) {
+				pseudoGradient[j] = gradient[j] + l1;
+			} else if (gradient[j] - l1 > 0) {
+				pseudoGradient[j] = gradient[j] - l1;
+			} else {
+				pseudoGradient[j] = 0;
+			}
+		}
+	}
+
+	private void addL2Derivatives(double[] beta, double[] gradient, double[][] hessian) {
+		if (l2 > 0) {
+			for (int j = 0; j < matrix.getDimensions(); j++) {
+				gradient[j] += l2 * beta[j];
+				hessian[j][j] += l2;
+			}
+		}
+	}
+
+	private double getL2Penalty(double[] beta) {
+		if (l2 <= 0) {
+			return 0;
+		}
+		double sum = 0;
+		for (int j = 0; j < matrix.getDimensions(); j++) {
+			sum += beta[j] * beta[j];
+		}
+		return l2 / 2 * sum;
+	}
+
+	private double getL1Penalty(double[] beta) {
+		if (l1 <= 0) {
+			return 0;
+		}
+		double sum = 0;
+		for (int j = 0; j < matrix.getDimensions(); j++) {
+			sum += Math.abs(beta[j]);
+		}
+		return l1 * sum;
+	}
+
+	/** The intercept is the only coefficient which is not regularized. */
+	private boolean isRegularized(int j) {
+		return j < matrix.getDimensions();
+	}
+
+	/**
+	 * Solves the symmetric positive semi-definite system by a Cholesky decomposition. If the matrix
+	 * is singular, an increasing ridge is added to its diagonal.
+	 *
+	 * @throws OperatorException
+	 *             if the matrix is not decomposable even with the largest ridge, e.g. because it
+	 *             contains non-finite values
+	 */
+	static double[] solveLinearSystem(double[][] a, double[] b) throws OperatorException {
+		int n = b.length;
+		double maxDiagonal = 0;
+		for (int j = 0; j < n; j++) {
+			maxDiagonal = Math.max(maxDiagonal, Math.abs(a[j][j]));
+		}
+		double ridge = 0;
+		double[][] l = new double[n][n];
+		int increases = 0;
+		while (!decompose(a, ridge, l)) {
+			if (increases++ == MAX_RIDGE_INCREASES) {
+				throw new OperatorException(
+						"Cannot compute the Newton step of the logistic regression, the Hessian is not positive semi-definite or contains non-finite values.");
+			}
+			ridge = ridge == 0 ? Math.max(maxDiagonal, 1) * 1e-10 : ridge * 10;
+		}
+
+		double[] x = Arrays.copyOf(b, n);
+		for (int i = 0; i < n; i++) {
+			double sum = x[i];
+			for (int k = 0; k < i; k++) {
+				sum -= l[i][k] * x[k];
+			}
+			x[i] = sum / l[i][i];
+		}
+		for (int i = n - 1; i >= 0; i--) {
+			double sum = x[i];
+			for (int k = i + 1; k < n; k++) {
+				sum -= l[k][i] * x[k];
+			}
+			x[i] = sum / l[i][i];
+		}
+		return x;
+	}
+
+	/**
+	 * Computes the lower triangular Cholesky factor of the matrix plus the ridge on the diagonal.
+	 *
+	 * @return {@code false} if the matrix is not positive definite
+	 */
+	private static boolean decompose(double[][] a, double ridge, double[][] l) {
+		int n = a.length;
+		for (int i = 0; i < n; i++) {
+			double[] li = l[i];
+			for (int j = 0; j <= i; j++) {
+				double[] lj = l[j];
+				double sum = i == j ? a[i][i] + ridge : a[i][j];
+				for (int k = 0; k < j; k++) {
+					sum -= li[k] * lj[k];
+				}
+				if (i == j) {
+					if (!(sum > 0)) {
+						return false;
+					}
+					li[i] = Math.sqrt(sum);
+				} else {
+					li[j] = sum / lj[j];
+				}
+			}
+		}
+		return true;
+	}
+
+	private void checkForStop() throws OperatorException {
+		if (executingOperator != null) {
+			executingOperator.checkForStop();
+		}
+	}
+
+	private void log(String message) {
+		if (logging != null) {
+			logging.log(message);
+		}
+	}
+
+	private static double dot(double[] a, double[] b) {
+		double sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+	private static double norm(double[] a) {
+		return Math.sqrt(dot(a, a));
+	}
+
+	private static void axpy(double factor, double[] x, double[] y) {
+		for (int i = 0; i < x.length; i++) {
+			y[i] += factor * x[i];
+		}
+	}
+
+	private static void scale(double factor, double[] x) {
+		for (int i = 0; i < x.length; i++) {
+			x[i] *= factor;
+		}
+	}
+}
@@ -18,14 +18,17 @@
 */
 package com.rapidminer.operator.learner.functions.neuralnet;
 
+import java.util.Arrays;
 import java.util.List;
 
+import com.rapidminer.core.concurrency.ConcurrencyContext;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.Tools;
 import com.rapidminer.operator.Model;
 import com.rapidminer.operator.OperatorCapability;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorVersion;
 import com.rapidminer.operator.learner.AbstractLearner;
 import com.rapidminer.operator.learner.PredictionModel;
 import com.rapidminer.parameter.ParameterType;
@@ -34,6 +37,8 @@ import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.ParameterTypeList;
 import com.rapidminer.parameter.ParameterTypeString;
+import com.rapidminer.parameter.conditions.BooleanParameterCondition;
+import com.rapidminer.studio.internal.Resources;
 import com.rapidminer.tools.RandomGenerator;
 
 
@@ -107,6 +112,18 @@ public class ImprovedNeuralNetLearner extends AbstractLearner {
 	/** Indicates if the input data should be normalized between -1 and 1 before learning. */
 	public static final String PARAMETER_NORMALIZE = "normalize";
 
+	/** Indicates if the weights should be updated once per mini-batch of examples. */
+	public static final String PARAMETER_USE_MINI_BATCHES = "use_mini_batches";
+
+	/** The number of examples whose weight updates are averaged. */
+	public static final String PARAMETER_MINI_BATCH_SIZE = "mini_batch_size";
+
+	/**
+	 * Up to this version, the inner nodes of a diverged training were kept when the network was
+	 * trained again with a smaller learning rate.
+	 */
+	public static final OperatorVersion VERSION_KEEP_DIVERGED_NODES = new OperatorVersion(7, 6, 3);
+
 	public ImprovedNeuralNetLearner(OperatorDescription description) {
 		super(description);
 	}
@@ -127,8 +144,14 @@ public class ImprovedNeuralNetLearner extends AbstractLearner {
 		boolean normalize = getParameterAsBoolean(PARAMETER_NORMALIZE);
 		RandomGenerator randomGenerator = RandomGenerator.getRandomGenerator(this);
 
-		model.train(exampleSet, hiddenLayers, maxCycles, maxError, learningRate, momentum, decay, shuffle, normalize,
-				randomGenerator, this);
+		if (getParameterAsBoolean(PARAMETER_USE_MINI_BATCHES)) {
+			ConcurrencyContext context = getProcess() != null ? Resources.getConcurrencyContext(this) : null;
+			model.train(exampleSet, hiddenLayers, maxCycles, maxError, learningRate, momentum, decay, shuffle, normalize,
+					getParameterAsInt(PARAMETER_MINI_BATCH_SIZE), randomGenerator, this, context);
+		} else {
+			model.train(exampleSet, hiddenLayers, maxCycles, maxError, learningRate, momentum, decay, shuffle, normalize,
+					randomGenerator, this);
+		}
 		return model;
 	}
 
@@ -203,8 +226,26 @@ public class ImprovedNeuralNetLearner extends AbstractLearner {
 				"The optimization is stopped if the training error gets below this epsilon value.", 0.0d,
 				Double.POSITIVE_INFINITY, 0.00001d));
 
+		types.add(new ParameterTypeBoolean(PARAMETER_USE_MINI_BATCHES,
+				"Indicates if the weights should be updated once per mini-batch of examples instead of once per example. The examples of a mini-batch are processed in parallel.",
+				false));
+
+		type = new ParameterTypeInt(PARAMETER_MINI_BATCH_SIZE,
+				"The number of examples whose weight updates are averaged. Larger mini-batches make better use of multiple threads but may need a higher learning rate or more training cycles.",
+				1, Integer.MAX_VALUE, 64);
+		type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_USE_MINI_BATCHES, false, true));
+		types.add(type);
+
 		types.addAll(RandomGenerator.getRandomGeneratorParameters(this));
 
 		return types;
 	}
+
+	@Override
+	public OperatorVersion[] getIncompatibleVersionChanges() {
+		OperatorVersion[] old = super.getIncompatibleVersionChanges();
+		OperatorVersion[] versions = Arrays.copyOf(old, old.length + 1);
+		versions[old.length] = VERSION_KEEP_DIVERGED_NODES;
+		return versions;
+	}
 }
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+import com.rapidminer.core.concurrency.ConcurrencyContext;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
@@ -90,22 +91,9 @@ public class ImprovedNeuralNetModel extends PredictionModel {
 
 		int numberOfClasses = getNumberOfClasses(label);
 
-		// recalculate statistics for scaling
-		if (normalize) {
-			exampleSet.recalculateAllAttributeStatistics();
-		} else {
-			exampleSet.recalculateAttributeStatistics(label);
-		}
-		checkForStop(operator);
-
-		// SETUP NN
-		initInputLayer(exampleSet, normalize);
-
-		double labelMin = exampleSet.getStatistics(label, Statistics.MINIMUM);
-		double labelMax = exampleSet.getStatistics(label, Statistics.MAXIMUM);
-		initOutputLayer(label, numberOfClasses, labelMin, labelMax, randomGenerator);
-
-		initHiddenLayers(exampleSet, label, hiddenLayers, randomGenerator);
+		boolean dropPreviousNodes = operator == null
+				|| !operator.getCompatibilityLevel().isAtMost(ImprovedNeuralNetLearner.VERSION_KEEP_DIVERGED_NODES);
+		initNetwork(exampleSet, hiddenLayers, normalize, dropPreviousNodes, randomGenerator, operator);
 
 		// calculate total weight
 		Attribute weightAttribute = exampleSet.getAttributes().getWeight();
@@ -121,17 +109,7 @@ public class ImprovedNeuralNetModel extends PredictionModel {
 		// shuffle data
 		int[] exampleIndices = null;
 		if (shuffle) {
-			List<Integer> indices = new ArrayList<>(exampleSet.size());
-			for (int i = 0; i < exampleSet.size(); i++) {
-				indices.add(i);
-			}
-			Collections.shuffle(indices, randomGenerator);
-			checkForStop(operator);
-			exampleIndices = new int[indices.size()];
-			int index = 0;
-			for (int current : indices) {
-				exampleIndices[index++] = current;
-			}
+			exampleIndices = createShuffledIndices(exampleSet.size(), randomGenerator, operator);
 		}
 
 		// optimization loop
@@ -185,6 +163,98 @@ public class ImprovedNeuralNetModel extends PredictionModel {
 		}
 	}
 
+	/**
+	 * Trains the model in mini-batches with the {@link NeuralNetMiniBatchTrainer}. The network is
+	 * set up exactly as for {@link #train(ExampleSet, List, int, double, double, double, boolean,
+	 * boolean, boolean, RandomGenerator, Operator)} and the trained weights are written back into
+	 * the nodes, so the model is applied as usual.
+	 *
+	 * @param miniBatchSize
+	 *            the number of examples whose weight updates are averaged, a size of one leads to
+	 *            the online training
+	 * @param context
+	 *            the context for the parallel computation, can be <code>null</code>
+	 * @since 8.0
+	 */
+	public void train(ExampleSet exampleSet, List<String[]> hiddenLayers, int maxCycles, double maxError,
+			double learningRate, double momentum, boolean decay, boolean shuffle, boolean normalize, int miniBatchSize,
+			RandomGenerator randomGenerator, Operator operator, ConcurrencyContext context) throws OperatorException {
+		initNetwork(exampleSet, hiddenLayers, normalize, true, randomGenerator, operator);
+		NeuralNetMiniBatchTrainer trainer = new NeuralNetMiniBatchTrainer(inputNodes, innerNodes, outputNodes,
+				exampleSet);
+		checkForStop(operator);
+
+		int[] exampleIndices = null;
+		if (shuffle) {
+			exampleIndices = createShuffledIndices(exampleSet.size(), randomGenerator, operator);
+		}
+
+		boolean finite = trainer.train(exampleIndices, maxCycles, maxError, learningRate, momentum, decay,
+				Math.max(1, miniBatchSize), operator, context);
+		if (!finite) {
+			if (learningRate <= Double.MIN_VALUE) {
+				throw new OperatorException("Cannot reset network to a smaller learning rate.");
+			}
+			train(exampleSet, hiddenLayers, maxCycles, maxError, learningRate / 2, momentum, decay, shuffle, normalize,
+					miniBatchSize, randomGenerator, operator, context);
+			return;
+		}
+		trainer.writeWeights();
+	}
+
+	/**
+	 * Recalculates the statistics needed for the scaling and creates the layers of the network
+	 * with random weights.
+	 *
+	 * @param dropPreviousNodes
+	 *            if <code>false</code>, the inner nodes of a previous training are kept in the
+	 *            network as up to {@link ImprovedNeuralNetLearner#VERSION_KEEP_DIVERGED_NODES}
+	 */
+	private void initNetwork(ExampleSet exampleSet, List<String[]> hiddenLayers, boolean normalize,
+			boolean dropPreviousNodes, RandomGenerator randomGenerator, Operator operator)
+			throws ProcessStoppedException {
+		Attribute label = exampleSet.getAttributes().getLabel();
+
+		int numberOfClasses = getNumberOfClasses(label);
+
+		// recalculate statistics for scaling
+		if (normalize) {
+			exampleSet.recalculateAllAttributeStatistics();
+		} else {
+			exampleSet.recalculateAttributeStatistics(label);
+		}
+		checkForStop(operator);
+
+		// SETUP NN
+		if (dropPreviousNodes) {
+			innerNodes = new InnerNode[0];
+		}
+		initInputLayer(exampleSet, normalize);
+
+		double labelMin = exampleSet.getStatistics(label, Statistics.MINIMUM);
+		double labelMax = exampleSet.getStatistics(label, Statistics.MAXIMUM);
+		initOutputLayer(label, numberOfClasses, labelMin, labelMax, randomGenerator);
+
+		initHiddenLayers(exampleSet, label, hiddenLayers, randomGenerator);
+	}
+
+	/** Returns the indices of the examples in a random order. */
+	private int[] createShuffledIndices(int size, RandomGenerator randomGenerator, Operator operator)
+			throws ProcessStoppedException {
+		List<Integer> indices = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			indices.add(i);
+		}
+		Collections.shuffle(indices, randomGenerator);
+		checkForStop(operator);
+		int[] exampleIndices = new int[indices.size()];
+		int index = 0;
+		for (int current : indices) {
+			exampleIndices[index++] = current;
+		}
+		return exampleIndices;
+	}
+
 	@Override
 	public ExampleSet performPrediction(ExampleSet exampleSet, Attribute predictedLabel) throws OperatorException {
 		OperatorProgress progress = null;
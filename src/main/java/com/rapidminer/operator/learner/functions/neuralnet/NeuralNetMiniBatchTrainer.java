@@ -0,0 +1,522 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.functions.neuralnet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+
+
+/**
+ * Trains the weights of the nodes of an {@link ImprovedNeuralNetModel} in mini-batches. The fully
+ * connected layers of the network are represented by weight matrices and the examples by rows of
+ * normalized input values, so a mini-batch is propagated forward and backward by matrix products
+ * instead of walking the node graph for every example. The weight changes are the averaged
+ * backpropagation updates of the examples of a batch, such that a batch size of one performs the
+ * online training of the node graph.
+ * <p>
+ * The rows of a mini-batch are split into one contiguous range per available thread. Every range
+ * is propagated in blocks of a fixed number of rows and accumulates its gradient in a workspace of
+ * its own. The gradients of the ranges are added up in a fixed order, so the result only depends
+ * on the number of threads up to rounding. If no {@link ConcurrencyContext} is given, everything
+ * runs sequentially.
+ *
+ * @since 8.0
+ */
+class NeuralNetMiniBatchTrainer {
+
+	/** the number of examples in a block of the extracted data */
+	private static final int BLOCK_SIZE = 4096;
+
+	/** the number of rows propagated at once */
+	private static final int ROWS_PER_CHUNK = 64;
+
+	/** the minimal number of rows of a mini-batch for which an additional task is started */
+	private static final int MIN_ROWS_PER_TASK = 16;
+
+	/** The buffers for the rows of a chunk and the gradient accumulated by a task. */
+	private final class Workspace {
+
+		/** the values of every layer including the input layer, row by row */
+		private final double[][] values;
+
+		/** the errors of every non-input layer, row by row */
+		private final double[][] deltas;
+
+		/** the summed up weighted weight changes of every non-input layer */
+		private final double[][] gradients;
+
+		private final double[] rowWeights = new double[ROWS_PER_CHUNK];
+
+		private Workspace() {
+			values = new double[widths.length][];
+			for (int l = 0; l < widths.length; l++) {
+				values[l] = new double[ROWS_PER_CHUNK * widths[l]];
+			}
+			deltas = new double[weights.length][];
+			gradients = new double[weights.length][];
+			for (int l = 0; l < weights.length; l++) {
+				deltas[l] = new double[ROWS_PER_CHUNK * widths[l + 1]];
+				gradients[l] = new double[weights[l].length];
+			}
+		}
+	}
+
+	private final InnerNode[][] layers;
+
+	/** the index of every input of every node within the previous layer */
+	private final int[][][] inputIndices;
+
+	/** the number of nodes of every layer including the input layer */
+	private final int[] widths;
+
+	/**
+	 * the weights of every non-input layer, node by node, starting with the threshold followed by
+	 * the weights for the nodes of the previous layer
+	 */
+	private final double[][] weights;
+
+	private final double[][] weightChanges;
+
+	private final boolean[] linear;
+
+	private final int numberOfOutputs;
+
+	private final int size;
+
+	private final double[][] inputBlocks;
+
+	/** the targets of the output nodes, {@code NaN} if the error is always zero */
+	private final double[][] targetBlocks;
+
+	private final double[][] weightBlocks;
+
+	private final double totalWeight;
+
+	/** one workspace per task, at most as many as threads */
+	private final List<Workspace> workspaces = new ArrayList<>();
+
+	/**
+	 * Extracts the weights of the given network and the normalized input values and targets of the
+	 * examples.
+	 */
+	NeuralNetMiniBatchTrainer(InputNode[] inputNodes, InnerNode[] innerNodes, OutputNode[] outputNodes,
+			ExampleSet exampleSet) {
+		// the hidden layers in the order of their indices followed by the output layer
+		int numberOfHiddenLayers = 0;
+		for (InnerNode node : innerNodes) {
+			if (node.getLayerIndex() != Node.OUTPUT) {
+				numberOfHiddenLayers = Math.max(numberOfHiddenLayers, node.getLayerIndex() + 1);
+			}
+		}
+		List<List<InnerNode>> layerLists = new ArrayList<>();
+		for (int l = 0; l <= numberOfHiddenLayers; l++) {
+			layerLists.add(new ArrayList<InnerNode>());
+		}
+		for (InnerNode node : innerNodes) {
+			int layerIndex = node.getLayerIndex() == Node.OUTPUT ? numberOfHiddenLayers : node.getLayerIndex();
+			layerLists.get(layerIndex).add(node);
+		}
+
+		layers = new InnerNode[layerLists.size()][];
+		widths = new int[layers.length + 1];
+		widths[0] = inputNodes.length;
+		inputIndices = new int[layers.length][][];
+		weights = new double[layers.length][];
+		weightChanges = new double[layers.length][];
+		linear = new boolean[layers.length];
+		Node[] previousLayer = inputNodes;
+		for (int l = 0; l < layers.length; l++) {
+			layers[l] = layerLists.get(l).toArray(new InnerNode[0]);
+			widths[l + 1] = layers[l].length;
+			linear[l] = layers[l][0].getActivationFunction() instanceof LinearFunction;
+
+			Map<Node, Integer> previousIndices = new IdentityHashMap<>();
+			for (int i = 0; i < previousLayer.length; i++) {
+				previousIndices.put(previousLayer[i], i);
+			}
+			int stride = widths[l] + 1;
+			inputIndices[l] = new int[layers[l].length][];
+			weights[l] = new double[layers[l].length * stride];
+			weightChanges[l] = new double[layers[l].length * stride];
+			for (int j = 0; j < layers[l].length; j++) {
+				InnerNode node = layers[l][j];
+				Node[] inputs = node.getInputNodes();
+				inputIndices[l][j] = new int[inputs.length];
+				double[] nodeWeights = node.getWeights();
+				double[] nodeWeightChanges = node.getWeightChanges();
+				weights[l][j * stride] = nodeWeights[0];
+				weightChanges[l][j * stride] = nodeWeightChanges[0];
+				for (int i = 0; i < inputs.length; i++) {
+					int index = previousIndices.get(inputs[i]);
+					inputIndices[l][j][i] = index;
+					weights[l][j * stride + 1 + index] = nodeWeights[i + 1];
+					weightChanges[l][j * stride + 1 + index] = nodeWeightChanges[i + 1];
+				}
+			}
+			previousLayer = layers[l];
+		}
+		numberOfOutputs = outputNodes.length;
+
+		// extract the data
+		Attribute weightAttribute = exampleSet.getAttributes().getWeight();
+		size = exampleSet.size();
+		int numberOfBlocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		inputBlocks = new double[numberOfBlocks][];
+		targetBlocks = new double[numberOfBlocks][];
+		weightBlocks = new double[numberOfBlocks][];
+		double weightSum = 0;
+		int index = 0;
+		for (Example example : exampleSet) {
+			int block = index / BLOCK_SIZE;
+			int row = index % BLOCK_SIZE;
+			if (row == 0) {
+				int rows = Math.min(BLOCK_SIZE, size - index);
+				inputBlocks[block] = new double[rows * inputNodes.length];
+				targetBlocks[block] = new double[rows * numberOfOutputs];
+				weightBlocks[block] = new double[rows];
+			}
+			for (int i = 0; i < inputNodes.length; i++) {
+				inputBlocks[block][row * inputNodes.length + i] = getInputValue(inputNodes[i], example);
+			}
+			for (int o = 0; o < numberOfOutputs; o++) {
+				targetBlocks[block][row * numberOfOutputs + o] = getTarget(outputNodes[o], example);
+			}
+			double weight = weightAttribute == null ? 1.0d : example.getValue(weightAttribute);
+			weightBlocks[block][row] = weight;
+			weightSum += weight;
+			index++;
+		}
+		totalWeight = weightSum;
+	}
+
+	/** Returns the value of the input node for the example as computed by the node. */
+	private static double getInputValue(InputNode node, Example example) {
+		double value = example.getValue(node.getAttribute());
+		if (Double.isNaN(value)) {
+			return 0;
+		} else if (!node.isNormalize()) {
+			return value;
+		} else if (node.getAttributeRange() != 0) {
+			return (value - node.getAttributeBase()) / node.getAttributeRange();
+		} else {
+			return value - node.getAttributeBase();
+		}
+	}
+
+	/** Returns the value of the output layer for which the error of the output node is zero. */
+	private static double getTarget(OutputNode node, Example example) {
+		Attribute label = node.getLabel();
+		double value = example.getValue(label);
+		if (label.isNominal()) {
+			return (int) value == node.getClassIndex() ? 1.0d : 0.0d;
+		} else if (node.getLabelRange() == 0.0d) {
+			return Double.NaN;
+		} else {
+			return (value - node.getLabelBase()) / node.getLabelRange();
+		}
+	}
+
+	/**
+	 * Trains the network for the given number of cycles or until the error drops below the given
+	 * value.
+	 *
+	 * @param order
+	 *            the order in which the examples are used, {@code null} for the order of the
+	 *            example set
+	 * @param batchSize
+	 *            the number of examples whose updates are averaged
+	 * @return {@code false} if the error became infinite or not a number
+	 * @throws OperatorException
+	 *             if the training is stopped
+	 */
+	boolean train(int[] order, int maxCycles, double maxError, double learningRate, double momentum, boolean decay,
+			int batchSize, Operator operator, ConcurrencyContext context) throws OperatorException {
+		for (int cycle = 0; cycle < maxCycles; cycle++) {
+			double error = 0;
+			double rate = decay ? learningRate / (cycle + 1) : learningRate;
+			for (int start = 0; start < size; start += batchSize) {
+				if (operator != null) {
+					operator.checkForStop();
+				}
+				error += trainBatch(order, start, Math.min(size, start + batchSize), rate, momentum, context);
+			}
+			error /= totalWeight;
+
+			if (error < maxError) {
+				break;
+			}
+			if (Double.isInfinite(error) || Double.isNaN(error)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the updates for the given rows of the order and changes the weights.
+	 *
+	 * @return the weighted error of the rows before the update
+	 */
+	private double trainBatch(final int[] order, int start, int end, double rate, double momentum,
+			final ConcurrencyContext context) throws OperatorException {
+		int rows = end - start;
+		int parallelism = context == null ? 1 : context.getParallelism();
+		int numberOfTasks = Math.max(1, Math.min(parallelism, rows / MIN_ROWS_PER_TASK));
+		while (workspaces.size() < numberOfTasks) {
+			workspaces.add(new Workspace());
+		}
+
+		double[] errors = new double[numberOfTasks];
+		if (numberOfTasks == 1) {
+			errors[0] = processRange(workspaces.get(0), order, start, end);
+		} else {
+			List<Callable<Double>> todo = new ArrayList<>(numberOfTasks);
+			for (int t = 0; t < numberOfTasks; t++) {
+				final Workspace workspace = workspaces.get(t);
+				final int from = start + (int) ((long) rows * t / numberOfTasks);
+				final int to = start + (int) ((long) rows * (t + 1) / numberOfTasks);
+				todo.add(new Callable<Double>() {
+
+					@Override
+					public Double call() throws OperatorException {
+						context.checkStatus();
+						return processRange(workspace, order, from, to);
+					}
+				});
+			}
+			List<Double> results;
+			try {
+				results = context.call(todo);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof OperatorException) {
+					throw (OperatorException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				} else {
+					throw new OperatorException(cause.getMessage(), cause);
+				}
+			}
+			for (int t = 0; t < numberOfTasks; t++) {
+				errors[t] = results.get(t);
+			}
+		}
+
+		// apply the averaged updates of the batch
+		double factor = rate / (end - start);
+		for (int l = 0; l < weights.length; l++) {
+			double[] layerWeights = weights[l];
+			double[] layerChanges = weightChanges[l];
+			double[] gradient = workspaces.get(0).gradients[l];
+			for (int t = 1; t < numberOfTasks; t++) {
+				double[] partial = workspaces.get(t).gradients[l];
+				for (int k = 0; k < gradient.length; k++) {
+					gradient[k] += partial[k];
+				}
+			}
+			for (int k = 0; k < layerWeights.length; k++) {
+				double change = factor * gradient[k] + momentum * layerChanges[k];
+				layerWeights[k] += change;
+				layerChanges[k] = change;
+			}
+		}
+
+		double error = 0;
+		for (double chunkError : errors) {
+			error += chunkError;
+		}
+		return error;
+	}
+
+	/**
+	 * Propagates the rows in chunks forward and backward and stores the summed up weighted updates
+	 * in the gradients of the workspace.
+	 *
+	 * @return the weighted error of the rows
+	 */
+	private double processRange(Workspace workspace, int[] order, int from, int to) {
+		for (double[] gradient : workspace.gradients) {
+			Arrays.fill(gradient, 0);
+		}
+		double error = 0;
+		for (int chunkStart = from; chunkStart < to; chunkStart += ROWS_PER_CHUNK) {
+			error += processChunk(workspace, order, chunkStart, Math.min(to, chunkStart + ROWS_PER_CHUNK));
+		}
+		return error;
+	}
+
+	/**
+	 * Propagates the rows forward and backward and adds the weighted updates to the gradients of
+	 * the workspace.
+	 *
+	 * @return the weighted error of the rows
+	 */
+	private double processChunk(Workspace workspace, int[] order, int from, int to) {
+		int rows = to - from;
+		int inputs = widths[0];
+		double[] targets = new double[rows * numberOfOutputs];
+		for (int r = 0; r < rows; r++) {
+			int index = order == null ? from + r : order[from + r];
+			int block = index / BLOCK_SIZE;
+			int row = index % BLOCK_SIZE;
+			System.arraycopy(inputBlocks[block], row * inputs, workspace.values[0], r * inputs, inputs);
+			System.arraycopy(targetBlocks[block], row * numberOfOutputs, targets, r * numberOfOutputs, numberOfOutputs);
+			workspace.rowWeights[r] = weightBlocks[block][row];
+		}
+
+		// forward
+		for (int l = 0; l < weights.length; l++) {
+			double[] in = workspace.values[l];
+			double[] out = workspace.values[l + 1];
+			double[] layerWeights = weights[l];
+			int inWidth = widths[l];
+			int outWidth = widths[l + 1];
+			int stride = inWidth + 1;
+			for (int r = 0; r < rows; r++) {
+				int inOffset = r * inWidth;
+				for (int j = 0; j < outWidth; j++) {
+					int weightOffset = j * stride;
+					double weightedSum = layerWeights[weightOffset];
+					for (int i = 0; i < inWidth; i++) {
+						weightedSum += in[inOffset + i] * layerWeights[weightOffset + 1 + i];
+					}
+					out[r * outWidth + j] = linear[l] ? weightedSum : sigmoid(weightedSum);
+				}
+			}
+		}
+
+		// errors of the output layer
+		int last = weights.length - 1;
+		double[] outputs = workspace.values[last + 1];
+		double[] outputDeltas = workspace.deltas[last];
+		double error = 0;
+		for (int r = 0; r < rows; r++) {
+			double squaredError = 0;
+			for (int o = 0; o < numberOfOutputs; o++) {
+				int k = r * numberOfOutputs + o;
+				double outputError = Double.isNaN(targets[k]) ? 0 : targets[k] - outputs[k];
+				squaredError += outputError * outputError;
+				outputDeltas[k] = linear[last] ? outputError : outputError * outputs[k] * (1 - outputs[k]);
+			}
+			error += squaredError / numberOfOutputs * workspace.rowWeights[r];
+		}
+
+		// errors of the hidden layers
+		for (int l = last - 1; l >= 0; l--) {
+			double[] nextDeltas = workspace.deltas[l + 1];
+			double[] nextWeights = weights[l + 1];
+			double[] layerValues = workspace.values[l + 1];
+			double[] layerDeltas = workspace.deltas[l];
+			int width = widths[l + 1];
+			int nextWidth = widths[l + 2];
+			int nextStride = width + 1;
+			for (int r = 0; r < rows; r++) {
+				int offset = r * width;
+				for (int j = 0; j < width; j++) {
+					layerDeltas[offset + j] = 0;
+				}
+				for (int k = 0; k < nextWidth; k++) {
+					double nextDelta = nextDeltas[r * nextWidth + k];
+					if (nextDelta == 0) {
+						continue;
+					}
+					int weightOffset = k * nextStride + 1;
+					for (int j = 0; j < width; j++) {
+						layerDeltas[offset + j] += nextDelta * nextWeights[weightOffset + j];
+					}
+				}
+				for (int j = 0; j < width; j++) {
+					double value = layerValues[offset + j];
+					if (!linear[l]) {
+						layerDeltas[offset + j] *= value * (1 - value);
+					}
+				}
+			}
+		}
+
+		// weighted updates
+		for (int l = 0; l < weights.length; l++) {
+			double[] gradient = workspace.gradients[l];
+			double[] in = workspace.values[l];
+			double[] layerDeltas = workspace.deltas[l];
+			int inWidth = widths[l];
+			int outWidth = widths[l + 1];
+			int stride = inWidth + 1;
+			for (int r = 0; r < rows; r++) {
+				int inOffset = r * inWidth;
+				for (int j = 0; j < outWidth; j++) {
+					double delta = workspace.rowWeights[r] * layerDeltas[r * outWidth + j];
+					if (delta == 0) {
+						continue;
+					}
+					int weightOffset = j * stride;
+					gradient[weightOffset] += delta;
+					for (int i = 0; i < inWidth; i++) {
+						gradient[weightOffset + 1 + i] += delta * in[inOffset + i];
+					}
+				}
+			}
+		}
+		return error;
+	}
+
+	/** Computes the sigmoid function exactly as the {@link SigmoidFunction}. */
+	private static double sigmoid(double weightedSum) {
+		if (weightedSum < -45.0d) {
+			return 0;
+		} else if (weightedSum > 45.0d) {
+			return 1;
+		} else {
+			return 1 / (1 + Math.exp(-1 * weightedSum));
+		}
+	}
+
+	/** Writes the trained weights and the last weight changes back into the nodes. */
+	void writeWeights() {
+		for (int l = 0; l < layers.length; l++) {
+			int stride = widths[l] + 1;
+			for (int j = 0; j < layers[l].length; j++) {
+				InnerNode node = layers[l][j];
+				double[] nodeWeights = node.getWeights();
+				double[] nodeWeightChanges = node.getWeightChanges();
+				nodeWeights[0] = weights[l][j * stride];
+				nodeWeightChanges[0] = weightChanges[l][j * stride];
+				for (int i = 0; i < inputIndices[l][j].length; i++) {
+					int index = inputIndices[l][j][i];
+					nodeWeights[i + 1] = weights[l][j * stride + 1 + index];
+					nodeWeightChanges[i + 1] = weightChanges[l][j * stride + 1 + index];
+				}
+			}
+		}
+	}
+}
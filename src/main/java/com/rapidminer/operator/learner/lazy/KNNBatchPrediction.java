@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.lazy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorProgress;
+import com.rapidminer.studio.internal.Resources;
+
+
+/**
+ * Applies a k-NN query to all examples of an {@link ExampleSet}. The attribute values are read in
+ * batches, the neighbor queries of a batch are answered in parallel if a
+ * {@link ConcurrencyContext} with a parallelism greater than one is available, and the results are
+ * written back in the order of the examples. Reading and writing the example set is always done by
+ * the calling thread.
+ *
+ * @since 8.0
+ */
+final class KNNBatchPrediction {
+
+	/**
+	 * Computes the result for a single query point. Implementations must be safe to be called
+	 * concurrently.
+	 */
+	@FunctionalInterface
+	interface NeighborQuery<R> {
+
+		R query(double[] values);
+	}
+
+	/**
+	 * Writes the result of a query into the example it was computed for.
+	 */
+	@FunctionalInterface
+	interface PredictionWriter<R> {
+
+		void write(Example example, R result);
+	}
+
+	/** the number of queries handled by a single task */
+	private static final int QUERIES_PER_TASK = 256;
+
+	/** the number of tasks per thread in one batch, so that uneven queries can be balanced */
+	private static final int TASKS_PER_THREAD = 4;
+
+	private KNNBatchPrediction() {
+		// utility class
+	}
+
+	/**
+	 * Queries the neighbors for every example of the given example set and writes the results.
+	 *
+	 * @param exampleSet
+	 *            the example set to apply to
+	 * @param attributes
+	 *            the attributes in the order of the training data
+	 * @param operator
+	 *            the operator used for parallelization and progress, might be {@code null}
+	 * @param showProgress
+	 *            whether progress should be reported to the operator
+	 * @param query
+	 *            the query computing the result for a point
+	 * @param writer
+	 *            the writer setting the result
+	 */
+	static <R> void apply(ExampleSet exampleSet, List<Attribute> attributes, Operator operator, boolean showProgress,
+			NeighborQuery<R> query, PredictionWriter<R> writer) throws OperatorException {
+		OperatorProgress progress = null;
+		if (showProgress && operator != null && operator.getProgress() != null) {
+			progress = operator.getProgress();
+			progress.setTotal(exampleSet.size());
+		}
+
+		ConcurrencyContext context = operator != null ? Resources.getConcurrencyContext(operator) : null;
+		int parallelism = context != null ? context.getParallelism() : 1;
+		int batchSize = parallelism > 1 ? parallelism * TASKS_PER_THREAD * QUERIES_PER_TASK : QUERIES_PER_TASK;
+		batchSize = Math.max(1, Math.min(batchSize, exampleSet.size()));
+
+		int numberOfAttributes = attributes.size();
+		double[][] points = new double[batchSize][numberOfAttributes];
+		List<Example> examples = new ArrayList<>(batchSize);
+		Object[] results = new Object[batchSize];
+		int progressCounter = 0;
+
+		for (Example example : exampleSet) {
+			double[] values = points[examples.size()];
+			int i = 0;
+			for (Attribute attribute : attributes) {
+				values[i] = example.getValue(attribute);
+				i++;
+			}
+			examples.add(example);
+
+			if (examples.size() == batchSize) {
+				processBatch(points, examples, results, parallelism > 1 ? context : null, query, writer);
+				progressCounter += examples.size();
+				examples.clear();
+				if (progress != null) {
+					progress.setCompleted(progressCounter);
+				} else if (operator != null) {
+					operator.checkForStop();
+				}
+			}
+		}
+		if (!examples.isEmpty()) {
+			processBatch(points, examples, results, parallelism > 1 ? context : null, query, writer);
+			progressCounter += examples.size();
+			if (progress != null) {
+				progress.setCompleted(progressCounter);
+			}
+		}
+	}
+
+	/**
+	 * Computes the results for the first {@code examples.size()} points, in parallel if a context is
+	 * given and there is more than one task, and writes them into the examples.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <R> void processBatch(final double[][] points, List<Example> examples, final Object[] results,
+			ConcurrencyContext context, final NeighborQuery<R> query, PredictionWriter<R> writer) throws OperatorException {
+		int size = examples.size();
+		if (context != null && size > QUERIES_PER_TASK) {
+			List<Callable<Void>> tasks = new ArrayList<>(size / QUERIES_PER_TASK + 1);
+			for (int start = 0; start < size; start += QUERIES_PER_TASK) {
+				final int from = start;
+				final int to = Math.min(size, start + QUERIES_PER_TASK);
+				tasks.add(new Callable<Void>() {
+
+					@Override
+					public Void call() {
+						for (int i = from; i < to; i++) {
+							results[i] = query.query(points[i]);
+						}
+						return null;
+					}
+				});
+			}
+			try {
+				context.call(tasks);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof OperatorException) {
+					throw (OperatorException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				} else {
+					throw new OperatorException(cause.getMessage(), cause);
+				}
+			}
+		} else {
+			for (int i = 0; i < size; i++) {
+				results[i] = query.query(points[i]);
+			}
+		}
+
+		for (int i = 0; i < size; i++) {
+			writer.write(examples.get(i), (R) results[i]);
+			results[i] = null;
+		}
+	}
+}
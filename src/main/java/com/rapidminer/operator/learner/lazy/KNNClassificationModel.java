@@ -28,7 +28,6 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.set.ExampleSetUtilities;
 import com.rapidminer.example.set.ExampleSetUtilities.SetsCompareOption;
 import com.rapidminer.operator.OperatorException;
-import com.rapidminer.operator.OperatorProgress;
 import com.rapidminer.operator.learner.UpdateablePredictionModel;
 import com.rapidminer.tools.Tools;
 import com.rapidminer.tools.container.Tupel;
@@ -45,8 +44,6 @@ public class KNNClassificationModel extends UpdateablePredictionModel {
 
 	private static final long serialVersionUID = -6292869962412072573L;
 
-	private static final int OPERATOR_PROGRESS_STEPS = 1000;
-
 	private int k;
 
 	private int size;
@@ -82,82 +79,71 @@ public class KNNClassificationModel extends UpdateablePredictionModel {
 			sampleAttributes.add(attributes.get(attributeName));
 		}
 
-		OperatorProgress progress = null;
-		if (getShowProgress() && getOperator() != null && getOperator().getProgress() != null) {
-			progress = getOperator().getProgress();
-			progress.setTotal(exampleSet.size());
-		}
-		int progressCounter = 0;
-
-		double[] values = new double[sampleAttributes.size()];
-		for (Example example : exampleSet) {
-			// reading values
-			int i = 0;
-			for (Attribute attribute : sampleAttributes) {
-				values[i] = example.getValue(attribute);
-				i++;
-			}
+		final int numberOfClasses = predictedLabel.getMapping().size();
+		KNNBatchPrediction.apply(exampleSet, sampleAttributes, getOperator(), getShowProgress(),
+				values -> countLabels(values, numberOfClasses), (example, counter) -> {
+					// finding most frequent class
+					int mostFrequentIndex = Integer.MIN_VALUE;
+					double mostFrequentFrequency = Double.NEGATIVE_INFINITY;
+					for (int index = 0; index < counter.length; index++) {
+						if (mostFrequentFrequency < counter[index]) {
+							mostFrequentFrequency = counter[index];
+							mostFrequentIndex = index;
+						}
+					}
+					// setting prediction
+					if (mostFrequentIndex == Integer.MIN_VALUE) {
+						example.setValue(predictedLabel, Double.NaN);
+					} else {
+						example.setValue(predictedLabel, mostFrequentIndex);
+					}
+
+					// setting confidence
+					for (int index = 0; index < counter.length; index++) {
+						example.setConfidence(predictedLabel.getMapping().mapIndex(index), counter[index]);
+					}
+				});
+		return exampleSet;
+	}
 
-			// counting frequency of labels
-			double[] counter = new double[predictedLabel.getMapping().size()];
-			double totalDistance = 0;
-			if (!weightByDistance || k == 1) {
-				// finding next k neighbours
-				Collection<Integer> neighbourLabels = samples.getNearestValues(k, values);
-				// distance is 1 for complete neighbourhood
-				totalDistance = k;
-
-				// counting frequency of labels
-				for (int index : neighbourLabels) {
-					counter[index] += 1 / totalDistance;
-				}
-			} else {
-				// finding next k neighbours and their distances
-				Collection<Tupel<Double, Integer>> neighbours = samples.getNearestValueDistances(k, values);
-				for (Tupel<Double, Integer> tupel : neighbours) {
-					totalDistance += tupel.getFirst();
-				}
+	/**
+	 * Counts the (weighted) frequencies of the labels of the k nearest neighbors of the given point.
+	 * Only reads the samples, so it can be called concurrently.
+	 */
+	private double[] countLabels(double[] values, int numberOfClasses) {
+		double[] counter = new double[numberOfClasses];
+		double totalDistance = 0;
+		if (!weightByDistance || k == 1) {
+			// finding next k neighbours
+			Collection<Integer> neighbourLabels = samples.getNearestValues(k, values);
+			// distance is 1 for complete neighbourhood
+			totalDistance = k;
 
-				double totalSimilarity = 0.0d;
-				if (totalDistance == 0) {
-					totalDistance = 1;
-					totalSimilarity = k;
-				} else {
-					totalSimilarity = Math.max(k - 1, 1);
-				}
-
-				// counting frequency of labels
-				for (Tupel<Double, Integer> tupel : neighbours) {
-					counter[tupel.getSecond()] += (1d - tupel.getFirst() / totalDistance) / totalSimilarity;
-				}
+			// counting frequency of labels
+			for (int index : neighbourLabels) {
+				counter[index] += 1 / totalDistance;
 			}
-			// finding most frequent class
-			int mostFrequentIndex = Integer.MIN_VALUE;
-			double mostFrequentFrequency = Double.NEGATIVE_INFINITY;
-			for (int index = 0; index < counter.length; index++) {
-				if (mostFrequentFrequency < counter[index]) {
-					mostFrequentFrequency = counter[index];
-					mostFrequentIndex = index;
-				}
-			}
-			// setting prediction
-			if (mostFrequentIndex == Integer.MIN_VALUE) {
-				example.setValue(predictedLabel, Double.NaN);
-			} else {
-				example.setValue(predictedLabel, mostFrequentIndex);
+		} else {
+			// finding next k neighbours and their distances
+			Collection<Tupel<Double, Integer>> neighbours = samples.getNearestValueDistances(k, values);
+			for (Tupel<Double, Integer> tupel : neighbours) {
+				totalDistance += tupel.getFirst();
 			}
 
-			// setting confidence
-			for (int index = 0; index < counter.length; index++) {
-				example.setConfidence(predictedLabel.getMapping().mapIndex(index), counter[index]);
+			double totalSimilarity = 0.0d;
+			if (totalDistance == 0) {
+				totalDistance = 1;
+				totalSimilarity = k;
+			} else {
+				totalSimilarity = Math.max(k - 1, 1);
 			}
 
-			// trigger progress
-			if (progress != null && ++progressCounter % OPERATOR_PROGRESS_STEPS == 0) {
-				progress.setCompleted(progressCounter);
+			// counting frequency of labels
+			for (Tupel<Double, Integer> tupel : neighbours) {
+				counter[tupel.getSecond()] += (1d - tupel.getFirst() / totalDistance) / totalSimilarity;
 			}
 		}
-		return exampleSet;
+		return counter;
 	}
 
 	@Override
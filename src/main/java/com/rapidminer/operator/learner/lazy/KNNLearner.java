@@ -26,20 +26,31 @@ import com.rapidminer.operator.Model;
 import com.rapidminer.operator.OperatorCapability;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorVersion;
+import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.annotation.ResourceConsumptionEstimator;
 import com.rapidminer.operator.learner.AbstractLearner;
 import com.rapidminer.operator.learner.PredictionModel;
 import com.rapidminer.operator.ports.metadata.DistanceMeasurePrecondition;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.OperatorResourceConsumptionHandler;
+import com.rapidminer.tools.math.container.BallTree;
 import com.rapidminer.tools.math.container.GeometricDataCollection;
+import com.rapidminer.tools.math.container.KDTree;
 import com.rapidminer.tools.math.container.LinearList;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasureHelper;
 import com.rapidminer.tools.math.similarity.DistanceMeasures;
+import com.rapidminer.tools.math.similarity.numerical.ChebychevNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 
@@ -57,6 +68,28 @@ public class KNNLearner extends AbstractLearner {
 	/** The parameter name for &quot;Indicates if the votes should be weighted by similarity.&quot; */
 	public static final String PARAMETER_WEIGHTED_VOTE = "weighted_vote";
 
+	/** The parameter name for &quot;The index used to find the nearest neighbors.&quot; */
+	public static final String PARAMETER_INDEX_TYPE = "index_type";
+
+	public static final String[] INDEX_TYPES = { "automatic", "linear_search", "kd_tree", "ball_tree" };
+
+	public static final int INDEX_TYPE_AUTOMATIC = 0;
+
+	public static final int INDEX_TYPE_LINEAR = 1;
+
+	public static final int INDEX_TYPE_KD_TREE = 2;
+
+	public static final int INDEX_TYPE_BALL_TREE = 3;
+
+	/** Up to this version, the linear search was used for all data. */
+	public static final OperatorVersion VERSION_LINEAR_SEARCH_ONLY = new OperatorVersion(7, 6, 3);
+
+	/** Beyond this number of dimensions, the kd-tree cannot prune enough to beat the linear search. */
+	private static final int MAX_KD_TREE_DIMENSIONS = 16;
+
+	/** Below this number of examples, building a kd-tree does not pay off. */
+	private static final int MIN_KD_TREE_EXAMPLES = 1000;
+
 	private DistanceMeasureHelper measureHelper = new DistanceMeasureHelper(this);
 
 	public KNNLearner(OperatorDescription description) {
@@ -69,48 +102,107 @@ public class KNNLearner extends AbstractLearner {
 	public Model learn(ExampleSet exampleSet) throws OperatorException {
 		DistanceMeasure measure = measureHelper.getInitializedMeasure(exampleSet);
 		Attribute label = exampleSet.getAttributes().getLabel();
-		if (label.isNominal()) {
-			// classification
-			GeometricDataCollection<Integer> samples = new LinearList<Integer>(measure);
+		Attributes attributes = exampleSet.getAttributes();
 
-			Attributes attributes = exampleSet.getAttributes();
+		int valuesSize = attributes.size();
+		List<double[]> points = new ArrayList<>(exampleSet.size());
+		List<Double> labelValues = new ArrayList<>(exampleSet.size());
+		boolean missingValues = false;
+		for (Example example : exampleSet) {
+			double[] values = new double[valuesSize];
+			int i = 0;
+			for (Attribute attribute : attributes) {
+				values[i] = example.getValue(attribute);
+				missingValues |= Double.isNaN(values[i]);
+				i++;
+			}
+			points.add(values);
+			labelValues.add(example.getValue(label));
+			checkForStop();
+		}
 
-			int valuesSize = attributes.size();
-			for (Example example : exampleSet) {
-				double[] values = new double[valuesSize];
-				int i = 0;
-				for (Attribute attribute : attributes) {
-					values[i] = example.getValue(attribute);
-					i++;
-				}
-				int labelValue = (int) example.getValue(label);
-				samples.add(values, labelValue);
-				checkForStop();
+		int indexType = getIndexType(measure, valuesSize, points.size(), missingValues);
+		if (label.isNominal()) {
+			// classification
+			List<Integer> labelIndices = new ArrayList<>(labelValues.size());
+			for (double labelValue : labelValues) {
+				labelIndices.add((int) labelValue);
 			}
+			GeometricDataCollection<Integer> samples = createSamples(indexType, measure, valuesSize, points,
+					labelIndices);
 			return new KNNClassificationModel(exampleSet, samples, getParameterAsInt(PARAMETER_K),
 					getParameterAsBoolean(PARAMETER_WEIGHTED_VOTE));
 		} else {
 			// regression
-			GeometricDataCollection<Double> samples = new LinearList<Double>(measure);
-			Attributes attributes = exampleSet.getAttributes();
-
-			int valuesSize = attributes.size();
-			for (Example example : exampleSet) {
-				double[] values = new double[valuesSize];
-				int i = 0;
-				for (Attribute attribute : attributes) {
-					values[i] = example.getValue(attribute);
-					i++;
-				}
-				double labelValue = example.getValue(label);
-				samples.add(values, labelValue);
-				checkForStop();
-			}
+			GeometricDataCollection<Double> samples = createSamples(indexType, measure, valuesSize, points, labelValues);
 			return new KNNRegressionModel(exampleSet, samples, getParameterAsInt(PARAMETER_K),
 					getParameterAsBoolean(PARAMETER_WEIGHTED_VOTE));
 		}
 	}
 
+	/**
+	 * Resolves the index type to use. The tree indices prune the search using the triangle
+	 * inequality and the distance along single dimensions, so they are only used for measures
+	 * fulfilling both and for data without missing values. The automatic selection prefers the
+	 * kd-tree for low dimensional data with at least 2^dimensions examples and uses the linear search
+	 * otherwise, since the kd-tree degenerates to a linear search in high dimensions.
+	 */
+	private int getIndexType(DistanceMeasure measure, int dimensions, int size, boolean missingValues)
+			throws OperatorException {
+		int indexType = getParameterAsInt(PARAMETER_INDEX_TYPE);
+		boolean suitableMeasure = measure instanceof EuclideanDistance || measure instanceof ManhattanDistance
+				|| measure instanceof ChebychevNumericalDistance;
+		switch (indexType) {
+			case INDEX_TYPE_AUTOMATIC:
+				if (suitableMeasure && !missingValues && dimensions > 0 && dimensions <= MAX_KD_TREE_DIMENSIONS
+						&& size >= MIN_KD_TREE_EXAMPLES && size >= 1 << dimensions
+						&& getCompatibilityLevel().isAbove(VERSION_LINEAR_SEARCH_ONLY)) {
+					return INDEX_TYPE_KD_TREE;
+				}
+				return INDEX_TYPE_LINEAR;
+			case INDEX_TYPE_KD_TREE:
+			case INDEX_TYPE_BALL_TREE:
+				if (!suitableMeasure) {
+					throw new UserError(this, 207, INDEX_TYPES[indexType], PARAMETER_INDEX_TYPE,
+							"only the Euclidean, Manhattan and Chebychev distance are supported");
+				}
+				if (missingValues) {
+					getLogger().warning(
+							"The training data contains missing values, using linear search instead of " + INDEX_TYPES[indexType]);
+					return INDEX_TYPE_LINEAR;
+				}
+				return indexType;
+			default:
+				return INDEX_TYPE_LINEAR;
+		}
+	}
+
+	/**
+	 * Creates the {@link GeometricDataCollection} of the given type containing the given points.
+	 */
+	private <T extends Serializable> GeometricDataCollection<T> createSamples(int indexType, DistanceMeasure measure,
+			int dimensions, List<double[]> points, List<T> values) throws OperatorException {
+		switch (indexType) {
+			case INDEX_TYPE_KD_TREE:
+				KDTree<T> tree = new KDTree<>(dimensions, measure);
+				tree.addAll(points, values);
+				return tree;
+			case INDEX_TYPE_BALL_TREE:
+				BallTree<T> ballTree = new BallTree<>(measure);
+				for (int i = 0; i < points.size(); i++) {
+					ballTree.add(points.get(i), values.get(i));
+					checkForStop();
+				}
+				return ballTree;
+			default:
+				LinearList<T> list = new LinearList<>(measure);
+				for (int i = 0; i < points.size(); i++) {
+					list.add(points.get(i), values.get(i));
+				}
+				return list;
+		}
+	}
+
 	@Override
 	public Class<? extends PredictionModel> getModelClass() {
 		// TODO: Needs to unify models in order to return common class
@@ -157,9 +249,22 @@ public class KNNLearner extends AbstractLearner {
 				"Indicates if the votes should be weighted by similarity.", false, false));
 
 		types.addAll(DistanceMeasures.getParameterTypes(this));
+
+		types.add(new ParameterTypeCategory(PARAMETER_INDEX_TYPE,
+				"The index used to find the nearest neighbors. The trees can only be used for the Euclidean, Manhattan and Chebychev distance. "
+						+ "Automatic uses a kd-tree for low dimensional data and the linear search otherwise.",
+				INDEX_TYPES, INDEX_TYPE_AUTOMATIC, true));
 		return types;
 	}
 
+	@Override
+	public OperatorVersion[] getIncompatibleVersionChanges() {
+		OperatorVersion[] changes = super.getIncompatibleVersionChanges();
+		changes = Arrays.copyOf(changes, changes.length + 1);
+		changes[changes.length - 1] = VERSION_LINEAR_SEARCH_ONLY;
+		return changes;
+	}
+
 	@Override
 	public ResourceConsumptionEstimator getResourceConsumptionEstimator() {
 		return OperatorResourceConsumptionHandler.getResourceConsumptionEstimator(getExampleSetInputPort(),
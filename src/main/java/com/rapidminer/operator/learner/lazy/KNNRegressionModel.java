@@ -28,7 +28,6 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.set.ExampleSetUtilities;
 import com.rapidminer.example.set.ExampleSetUtilities.SetsCompareOption;
 import com.rapidminer.operator.OperatorException;
-import com.rapidminer.operator.OperatorProgress;
 import com.rapidminer.operator.learner.UpdateablePredictionModel;
 import com.rapidminer.tools.Tools;
 import com.rapidminer.tools.container.Tupel;
@@ -45,8 +44,6 @@ public class KNNRegressionModel extends UpdateablePredictionModel {
 
 	private static final long serialVersionUID = -6292869962412072573L;
 
-	private static final int OPERATOR_PROGRESS_STEPS = 1000;
-
 	private int k;
 
 	private int size;
@@ -82,65 +79,49 @@ public class KNNRegressionModel extends UpdateablePredictionModel {
 			sampleAttributes.add(attributes.get(attributeName));
 		}
 
-		// initialize progress
-		OperatorProgress progress = null;
-		if (getShowProgress() && getOperator() != null && getOperator().getProgress() != null) {
-			progress = getOperator().getProgress();
-			progress.setTotal(exampleSet.size());
-		}
-		int progressCounter = 0;
-
-		double[] values = new double[sampleAttributes.size()];
-		for (Example example : exampleSet) {
-			// reading values
-			int i = 0;
-			for (Attribute attribute : sampleAttributes) {
-				values[i] = example.getValue(attribute);
-				i++;
-			}
+		KNNBatchPrediction.apply(exampleSet, sampleAttributes, getOperator(), getShowProgress(), this::predict,
+				(example, result) -> example.setValue(predictedLabel, result));
+		return exampleSet;
+	}
 
-			double result = 0;
-			if (!weightByDistance) {
-				// finding next k neighbours
-				Collection<Double> neighbourLabels = samples.getNearestValues(k, values);
+	/**
+	 * Computes the (weighted) mean of the labels of the k nearest neighbors of the given point. Only
+	 * reads the samples, so it can be called concurrently.
+	 */
+	private Double predict(double[] values) {
+		double result = 0;
+		if (!weightByDistance) {
+			// finding next k neighbours
+			Collection<Double> neighbourLabels = samples.getNearestValues(k, values);
+
+			// building mean
+			for (double label : neighbourLabels) {
+				result += label;
+			}
+			result /= k;
+		} else {
+			// finding next k neighbours and their distances
+			Collection<Tupel<Double, Double>> neighbourTupels = samples.getNearestValueDistances(k, values);
+			// finding total distance
+			double totalDistance = 0;
+			for (Tupel<Double, Double> tupel : neighbourTupels) {
+				totalDistance += tupel.getFirst();
+			}
 
-				// building mean
-				for (double label : neighbourLabels) {
-					result += label;
-				}
-				result /= k;
+			double totalSimilarity = 0.0d;
+			if (totalDistance == 0) {
+				totalDistance = 1;
+				totalSimilarity = k;
 			} else {
-				// finding next k neighbours and their distances
-				Collection<Tupel<Double, Double>> neighbourTupels = samples.getNearestValueDistances(k, values);
-				// finding total distance
-				double totalDistance = 0;
-				for (Tupel<Double, Double> tupel : neighbourTupels) {
-					totalDistance += tupel.getFirst();
-				}
-
-				double totalSimilarity = 0.0d;
-				if (totalDistance == 0) {
-					totalDistance = 1;
-					totalSimilarity = k;
-				} else {
-					totalSimilarity = Math.max(k - 1, 1);
-				}
-
-				// building weighted mean
-				for (Tupel<Double, Double> tupel : neighbourTupels) {
-					result += tupel.getSecond() * (1d - tupel.getFirst() / totalDistance) / totalSimilarity;
-				}
+				totalSimilarity = Math.max(k - 1, 1);
 			}
-			// setting prediction
-			example.setValue(predictedLabel, result);
 
-			// trigger progress
-			if (progress != null && ++progressCounter % OPERATOR_PROGRESS_STEPS == 0) {
-				progress.setCompleted(progressCounter);
+			// building weighted mean
+			for (Tupel<Double, Double> tupel : neighbourTupels) {
+				result += tupel.getSecond() * (1d - tupel.getFirst() / totalDistance) / totalSimilarity;
 			}
 		}
-
-		return exampleSet;
+		return result;
 	}
 
 	@Override
@@ -77,6 +77,9 @@ public abstract class AbstractParallelTreeBuilder {
 
 	final protected boolean parallelAllowed;
 
+	/** the maximal number of bins for histogram based splits, 0 for exact splits */
+	protected int numberOfHistogramBins = 0;
+
 	/**
 	 * Initializes the fields.
 	 *
@@ -126,8 +129,15 @@ public abstract class AbstractParallelTreeBuilder {
 		exampleSet = preprocessExampleSet(exampleSet);
 
 		columnTable = new ColumnExampleTable(exampleSet, operator, parallelAllowed);
-		benefitCalculator = new BenefitCalculator(columnTable, criterion, operator);
-		selectionCreator = new SelectionCreator(columnTable);
+		if (useHistograms()) {
+			ColumnHistogramBinning binning = columnTable.getHistogramBinning(numberOfHistogramBins,
+					parallelAllowed ? operator : null);
+			benefitCalculator = new HistogramBenefitCalculator(columnTable, criterion, operator, binning);
+			selectionCreator = new HistogramSelectionCreator(columnTable, binning);
+		} else {
+			benefitCalculator = new BenefitCalculator(columnTable, criterion, operator);
+			selectionCreator = new SelectionCreator(columnTable);
+		}
 
 		Map<Integer, int[]> allSelectedExamples = createExampleStartSelection();
 		int[] selectedExamples = SelectionCreator.getArbitraryValue(allSelectedExamples);
@@ -155,6 +165,37 @@ public abstract class AbstractParallelTreeBuilder {
 		return root;
 	}
 
+	/**
+	 * Sets the maximal number of bins for histogram based splits. With histograms the numerical
+	 * attributes are binned once and only the bin boundaries are considered as split points. This
+	 * avoids sorting the examples for every numerical attribute and is much faster for large
+	 * example sets. Histograms are only used for nominal labels and criteria that support incremental
+	 * calculation, otherwise all possible splits are checked.
+	 *
+	 * @param numberOfBins
+	 *            the maximal number of bins, between 2 and
+	 *            {@link ColumnHistogramBinning#MAXIMAL_NUMBER_OF_BINS}, or 0 to check all possible
+	 *            splits
+	 * @since 8.0
+	 */
+	public void setNumberOfHistogramBins(int numberOfBins) {
+		if (numberOfBins != 0 && (numberOfBins < 2 || numberOfBins > ColumnHistogramBinning.MAXIMAL_NUMBER_OF_BINS)) {
+			throw new IllegalArgumentException("numberOfBins must be 0 or between 2 and "
+					+ ColumnHistogramBinning.MAXIMAL_NUMBER_OF_BINS);
+		}
+		this.numberOfHistogramBins = numberOfBins;
+	}
+
+	/**
+	 * Checks whether histogram based splits should be used for the current column table.
+	 *
+	 * @return {@code true} if histograms are activated and can be used for the label and criterion
+	 */
+	protected boolean useHistograms() {
+		return numberOfHistogramBins > 0 && columnTable.getLabel().isNominal()
+				&& criterion.supportsIncrementalCalculation() && columnTable.getNumberOfRegularNumericalAttributes() > 0;
+	}
+
 	/**
 	 * Hook for preprocessing the example set before building the {@link ColumnExampleTable}.
 	 *
@@ -106,6 +106,12 @@ public abstract class AbstractParallelTreeLearner extends AbstractLearner {
 
 	public static final String PARAMETER_NUMBER_OF_PREPRUNING_ALTERNATIVES = "number_of_prepruning_alternatives";
 
+	/** @since 8.0 */
+	public static final String PARAMETER_USE_HISTOGRAMS = "use_histograms";
+
+	/** @since 8.0 */
+	public static final String PARAMETER_NUMBER_OF_BINS = "number_of_bins";
+
 	public static final String[] CRITERIA_NAMES = { "gain_ratio", "information_gain", "gini_index", "accuracy",
 	"least_square" };
 
@@ -277,6 +283,9 @@ public abstract class AbstractParallelTreeLearner extends AbstractLearner {
 
 		// create tree builder
 		AbstractParallelTreeBuilder builder = getTreeBuilder(exampleSet);
+		if (getParameterAsBoolean(PARAMETER_USE_HISTOGRAMS)) {
+			builder.setNumberOfHistogramBins(getParameterAsInt(PARAMETER_NUMBER_OF_BINS));
+		}
 		// learn tree
 		Tree root = builder.learnTree(exampleSet);
 
@@ -425,6 +434,17 @@ public abstract class AbstractParallelTreeLearner extends AbstractLearner {
 		type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_PRE_PRUNING, false, true));
 		types.add(type);
 
+		type = new ParameterTypeBoolean(PARAMETER_USE_HISTOGRAMS,
+				"Bins numerical attributes and only considers the bin boundaries as splits. "
+						+ "Much faster for large data, only used for nominal labels and not for least_square.",
+				false);
+		types.add(type);
+
+		type = new ParameterTypeInt(PARAMETER_NUMBER_OF_BINS, "The maximal number of bins per numerical attribute.", 2,
+				ColumnHistogramBinning.MAXIMAL_NUMBER_OF_BINS, 256);
+		type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_USE_HISTOGRAMS, false, true));
+		types.add(type);
+
 		return types;
 	}
 }
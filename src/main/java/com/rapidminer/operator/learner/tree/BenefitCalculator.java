@@ -65,7 +65,7 @@ public class BenefitCalculator {
 	 * This method calculates the benefit of the given attribute. This implementation utilizes the
 	 * defined {@link Criterion}.
 	 */
-	private ParallelBenefit calculateBenefit(Map<Integer, int[]> allSelectedExamples, int attributeNumber) {
+	protected ParallelBenefit calculateBenefit(Map<Integer, int[]> allSelectedExamples, int attributeNumber) {
 		if (columnTable.representsNominalAttribute(attributeNumber)) {
 			return new ParallelBenefit(criterion.getNominalBenefit(columnTable,
 					SelectionCreator.getArbitraryValue(allSelectedExamples), attributeNumber), attributeNumber);
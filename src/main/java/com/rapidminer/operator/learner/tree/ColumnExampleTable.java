@@ -108,6 +108,9 @@ public class ColumnExampleTable {
 	 */
 	private double[][] numericalColumnTable;
 
+	/** the binning of the numerical columns, created on demand */
+	private ColumnHistogramBinning histogramBinning;
+
 	/**
 	 * The nominal column table is initialized with the values of the regular nominal attributes,
 	 * the numerical column table with the ones of the regular numeric attributes. The values of the
@@ -403,4 +406,25 @@ public class ColumnExampleTable {
 		return numberOfRegularNumericalAttributes;
 	}
 
+	/**
+	 * Returns the binning of the numerical columns for histogram based splits. The binning is
+	 * created on the first call and reused afterwards as long as the number of bins does not change.
+	 *
+	 * @param maximalNumberOfBins
+	 *            the maximal number of bins for the non-missing values
+	 * @param operator
+	 *            the operator used for binning in parallel, can be {@code null}
+	 * @return the binning
+	 * @throws OperatorException
+	 *             if the binning is stopped
+	 * @since 8.0
+	 */
+	public synchronized ColumnHistogramBinning getHistogramBinning(int maximalNumberOfBins, Operator operator)
+			throws OperatorException {
+		if (histogramBinning == null || histogramBinning.getMaximalNumberOfBins() != maximalNumberOfBins) {
+			histogramBinning = new ColumnHistogramBinning(this, maximalNumberOfBins, operator);
+		}
+		return histogramBinning;
+	}
+
 }
@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.studio.internal.Resources;
+
+
+/**
+ * Bins the numerical attributes of a {@link ColumnExampleTable} for histogram based split finding.
+ * Every numerical column is mapped to a column of bin indices. If a column has at most the given
+ * number of different values, every value gets its own bin. Otherwise the bin boundaries are
+ * quantiles of the column values. Missing values are stored in an extra bin after all other bins.
+ * <p>
+ * The boundary between two bins is the mean of the largest value of the lower and the smallest value
+ * of the upper bin. A value is in bin {@code b} if and only if it is greater than the boundary
+ * {@code b-1} and smaller or equal to the boundary {@code b}, so a split at a boundary divides the
+ * examples exactly as the bins do.
+ *
+ * @since 8.0
+ */
+public class ColumnHistogramBinning {
+
+	/** The maximal number of bins, one bin index is needed for missing values. */
+	public static final int MAXIMAL_NUMBER_OF_BINS = Short.MAX_VALUE;
+
+	private final int numberOfRegularNominalAttributes;
+
+	private final int maximalNumberOfBins;
+
+	/** the bin indices, one column per numerical attribute */
+	private final short[][] binColumns;
+
+	/** the upper boundaries of all bins except for the last, one array per numerical attribute */
+	private final double[][] boundaries;
+
+	/**
+	 * Bins all numerical attributes of the column table, in parallel if an operator is given.
+	 *
+	 * @param columnTable
+	 *            the table to bin
+	 * @param maximalNumberOfBins
+	 *            the maximal number of bins for the non-missing values
+	 * @param operator
+	 *            the operator used for parallel binning, can be {@code null}
+	 * @throws OperatorException
+	 *             if the binning is stopped
+	 */
+	public ColumnHistogramBinning(final ColumnExampleTable columnTable, final int maximalNumberOfBins, Operator operator)
+			throws OperatorException {
+		if (maximalNumberOfBins < 2 || maximalNumberOfBins > MAXIMAL_NUMBER_OF_BINS) {
+			throw new IllegalArgumentException("maximalNumberOfBins must be between 2 and " + MAXIMAL_NUMBER_OF_BINS);
+		}
+		this.numberOfRegularNominalAttributes = columnTable.getNumberOfRegularNominalAttributes();
+		this.maximalNumberOfBins = maximalNumberOfBins;
+		int numberOfColumns = columnTable.getNumberOfRegularNumericalAttributes();
+		binColumns = new short[numberOfColumns][];
+		boundaries = new double[numberOfColumns][];
+
+		if (operator == null || numberOfColumns < 2 || Resources.getConcurrencyContext(operator).getParallelism() < 2) {
+			for (int i = 0; i < numberOfColumns; i++) {
+				bin(columnTable.getNumericalAttributeColumn(numberOfRegularNominalAttributes + i), i);
+			}
+			return;
+		}
+
+		List<Callable<Void>> tasks = new ArrayList<>(numberOfColumns);
+		for (int i = 0; i < numberOfColumns; i++) {
+			final int column = i;
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() {
+					bin(columnTable.getNumericalAttributeColumn(numberOfRegularNominalAttributes + column), column);
+					return null;
+				}
+
+			});
+		}
+		try {
+			Resources.getConcurrencyContext(operator).call(tasks);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new OperatorException(cause.getMessage(), cause);
+			}
+		}
+	}
+
+	/**
+	 * Calculates the bin boundaries of the values and the bin column.
+	 */
+	private void bin(double[] values, int column) {
+		double[] sorted = new double[values.length];
+		int length = 0;
+		for (double value : values) {
+			if (!Double.isNaN(value)) {
+				sorted[length++] = value;
+			}
+		}
+		Arrays.sort(sorted, 0, length);
+
+		double[] columnBoundaries = new double[maximalNumberOfBins - 1];
+		int numberOfBoundaries = 0;
+		if (length > 0 && countDifferentValues(sorted, length) <= maximalNumberOfBins) {
+			// one bin per value
+			for (int i = 1; i < length; i++) {
+				if (sorted[i] != sorted[i - 1]) {
+					columnBoundaries[numberOfBoundaries++] = (sorted[i - 1] + sorted[i]) / 2.0d;
+				}
+			}
+		} else if (length > 0) {
+			// quantiles, equal values are never divided
+			int lastPosition = 0;
+			for (int bin = 1; bin < maximalNumberOfBins; bin++) {
+				// the position of the first value of the next bin
+				int position = Math.max((int) ((long) bin * length / maximalNumberOfBins), lastPosition + 1);
+				while (position < length && sorted[position] == sorted[position - 1]) {
+					position++;
+				}
+				if (position >= length) {
+					break;
+				}
+				columnBoundaries[numberOfBoundaries++] = (sorted[position - 1] + sorted[position]) / 2.0d;
+				lastPosition = position;
+			}
+		}
+		columnBoundaries = Arrays.copyOf(columnBoundaries, numberOfBoundaries);
+
+		short missingBin = (short) (numberOfBoundaries + 1);
+		short[] bins = new short[values.length];
+		for (int row = 0; row < values.length; row++) {
+			double value = values[row];
+			if (Double.isNaN(value)) {
+				bins[row] = missingBin;
+			} else {
+				bins[row] = (short) findBin(columnBoundaries, value);
+			}
+		}
+		boundaries[column] = columnBoundaries;
+		binColumns[column] = bins;
+	}
+
+	private static int countDifferentValues(double[] sorted, int length) {
+		int count = 1;
+		for (int i = 1; i < length; i++) {
+			if (sorted[i] != sorted[i - 1]) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the index of the first boundary that is greater or equal to the value, or the number
+	 *         of boundaries if there is none
+	 */
+	private static int findBin(double[] boundaries, double value) {
+		int low = 0;
+		int high = boundaries.length;
+		while (low < high) {
+			int middle = low + high >>> 1;
+			if (boundaries[middle] < value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @param attributeNumber
+	 *            a number that represents a numerical attribute
+	 * @return the bin indices of the attribute values
+	 */
+	public short[] getBinColumn(int attributeNumber) {
+		return binColumns[attributeNumber - numberOfRegularNominalAttributes];
+	}
+
+	/**
+	 * @param attributeNumber
+	 *            a number that represents a numerical attribute
+	 * @return the number of bins including the bin for missing values, which is the last one
+	 */
+	public int getNumberOfBins(int attributeNumber) {
+		return boundaries[attributeNumber - numberOfRegularNominalAttributes].length + 2;
+	}
+
+	/**
+	 * @param attributeNumber
+	 *            a number that represents a numerical attribute
+	 * @param bin
+	 *            a bin that is not the last bin for non-missing values
+	 * @return the value separating the bin from the next one
+	 */
+	public double getUpperBoundary(int attributeNumber, int bin) {
+		return boundaries[attributeNumber - numberOfRegularNominalAttributes][bin];
+	}
+
+	/**
+	 * @param attributeNumber
+	 *            a number that represents a numerical attribute
+	 * @param boundary
+	 *            a value returned by {@link #getUpperBoundary(int, int)}
+	 * @return the bin whose upper boundary is the given value
+	 */
+	public int getBinOfUpperBoundary(int attributeNumber, double boundary) {
+		return findBin(boundaries[attributeNumber - numberOfRegularNominalAttributes], boundary);
+	}
+
+	/**
+	 * @return the maximal number of bins for non-missing values
+	 */
+	public int getMaximalNumberOfBins() {
+		return maximalNumberOfBins;
+	}
+
+}
@@ -18,17 +18,24 @@
 */
 package com.rapidminer.operator.learner.tree;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.set.ExampleSetUtilities;
+import com.rapidminer.example.table.NominalMapping;
 import com.rapidminer.operator.Model;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorProgress;
 import com.rapidminer.operator.learner.SimplePredictionModel;
 import com.rapidminer.operator.learner.meta.ConfidenceVoteModel;
 import com.rapidminer.operator.learner.meta.MetaModel;
 import com.rapidminer.operator.learner.meta.SimpleVoteModel;
+import com.rapidminer.tools.RandomGenerator;
 
 
 /**
@@ -57,9 +64,17 @@ public class ConfigurableRandomForestModel extends SimplePredictionModel impleme
 
 	private static final long serialVersionUID = 1L;
 
+	private static final int OPERATOR_PROGRESS_STEPS = 1000;
+
 	/** The wrapped voting meta model. */
 	private final SimplePredictionModel model;
 
+	/** all trees flattened into one structure, created on first apply */
+	private transient volatile FlattenedTrees flattenedTrees;
+
+	/** set if the trees cannot be flattened */
+	private transient volatile boolean notFlattenable;
+
 	public ConfigurableRandomForestModel(ExampleSet exampleSet, List<? extends TreePredictionModel> models,
 			VotingStrategy strategy) {
 		super(exampleSet, ExampleSetUtilities.SetsCompareOption.EQUAL,
@@ -93,6 +108,164 @@ public class ConfigurableRandomForestModel extends SimplePredictionModel impleme
 		return model.predict(example);
 	}
 
+	/**
+	 * Scores all trees on the flattened representation in batches of rows, large example sets are
+	 * scored in parallel. The votes are combined in example order afterwards so that ties are broken
+	 * exactly as by {@link SimpleVoteModel} and {@link ConfidenceVoteModel}. Falls back to
+	 * {@link #predict(Example)} for every example if the trees cannot be flattened.
+	 */
+	@Override
+	public ExampleSet performPrediction(ExampleSet exampleSet, Attribute predictedLabel) throws OperatorException {
+		final FlattenedTrees trees = getFlattenedTrees();
+		if (trees == null) {
+			return super.performPrediction(exampleSet, predictedLabel);
+		}
+		NominalMapping mapping = getLabel().getMapping();
+		Attribute[] columns = trees.getColumns(exampleSet);
+		Attribute[] confidenceAttributes = FlattenedTrees.getConfidenceAttributes(exampleSet, mapping);
+		if (columns == null || confidenceAttributes == null) {
+			return super.performPrediction(exampleSet, predictedLabel);
+		}
+
+		final int numberOfClasses = mapping.size();
+		final int numberOfTrees = trees.getNumberOfTrees();
+		final boolean majorityVote = model instanceof SimpleVoteModel;
+		final int[] votes = majorityVote ? new int[exampleSet.size() * numberOfClasses] : null;
+		final double[] confidenceSums = majorityVote ? null : new double[exampleSet.size() * numberOfClasses];
+		FlattenedTrees.score(exampleSet, columns, getOperator(), new FlattenedTrees.BatchScorer() {
+
+			@Override
+			public void score(double[][] buffer, int offset, int length) throws OperatorException {
+				for (int i = 0; i < length; i++) {
+					int base = (offset + i) * numberOfClasses;
+					for (int tree = 0; tree < numberOfTrees; tree++) {
+						int node = trees.findNode(tree, buffer, i);
+						if (majorityVote) {
+							int prediction = trees.getPrediction(node);
+							if (prediction >= 0 && prediction < numberOfClasses) {
+								votes[base + prediction]++;
+							}
+						} else {
+							double[] confidences = trees.getConfidences(node);
+							for (int c = 0; c < numberOfClasses; c++) {
+								if (Double.isNaN(confidences[c])) {
+									throw new OperatorException("Child model failed to compute confidence value.");
+								}
+								confidenceSums[base + c] += confidences[c];
+							}
+						}
+					}
+				}
+			}
+		});
+
+		// the order in which the vote models visit the classes determines the tie breaking
+		int[] classOrder = new int[numberOfClasses];
+		if (majorityVote) {
+			int i = 0;
+			for (String value : mapping.getValues()) {
+				classOrder[i++] = mapping.getIndex(value);
+			}
+		} else {
+			Map<String, Double> classConfidenceSums = new HashMap<>();
+			for (String value : mapping.getValues()) {
+				classConfidenceSums.put(value, 0d);
+			}
+			int i = 0;
+			for (String value : classConfidenceSums.keySet()) {
+				classOrder[i++] = mapping.getIndex(value);
+			}
+		}
+
+		OperatorProgress progress = null;
+		if (getShowProgress() && getOperator() != null && getOperator().getProgress() != null) {
+			progress = getOperator().getProgress();
+			progress.setTotal(exampleSet.size());
+		}
+		// the vote models add a new best class twice, so one more slot than classes is needed
+		int[] bestClasses = new int[numberOfClasses + 1];
+		int row = 0;
+		for (Example example : exampleSet) {
+			int base = row++ * numberOfClasses;
+			int numberOfBestClasses = 0;
+			if (majorityVote) {
+				int bestClassesVotes = -1;
+				for (int currentClass : classOrder) {
+					int currentVotes = votes[base + currentClass];
+					if (currentVotes > 0) {
+						if (currentVotes > bestClassesVotes) {
+							numberOfBestClasses = 0;
+							bestClasses[numberOfBestClasses++] = currentClass;
+							bestClassesVotes = currentVotes;
+						}
+						if (currentVotes == bestClassesVotes) {
+							bestClasses[numberOfBestClasses++] = currentClass;
+						}
+					}
+					example.setValue(confidenceAttributes[currentClass], (double) currentVotes / numberOfTrees);
+				}
+			} else {
+				double maxConfidence = -1;
+				for (int currentClass : classOrder) {
+					double confidence = confidenceSums[base + currentClass] / numberOfTrees;
+					if (confidence > maxConfidence) {
+						maxConfidence = confidence;
+						numberOfBestClasses = 0;
+					}
+					if (confidence == maxConfidence) {
+						bestClasses[numberOfBestClasses++] = currentClass;
+					}
+					example.setValue(confidenceAttributes[currentClass], confidence);
+				}
+			}
+
+			int bestClassIndex = 0;
+			if (numberOfBestClasses != 1) {
+				bestClassIndex = RandomGenerator.getGlobalRandomGenerator().nextInt(numberOfBestClasses);
+			}
+			example.setValue(predictedLabel, bestClasses[bestClassIndex]);
+			if (progress != null && row % OPERATOR_PROGRESS_STEPS == 0) {
+				progress.setCompleted(row);
+			}
+		}
+		return exampleSet;
+	}
+
+	/**
+	 * Returns the flattened trees, flattening them on first call.
+	 *
+	 * @return the flattened trees or {@code null} if the forest cannot be flattened
+	 */
+	private FlattenedTrees getFlattenedTrees() {
+		if (flattenedTrees == null && !notFlattenable) {
+			if (!getLabel().isNominal()) {
+				notFlattenable = true;
+				return null;
+			}
+			FlattenedTrees flattened = null;
+			List<? extends Model> models = getModels();
+			List<Tree> roots = new ArrayList<>(models.size());
+			NominalMapping mapping = getLabel().getMapping();
+			for (Model treeModel : models) {
+				// the votes are combined by index, so all trees must use the same label mapping
+				if (!(treeModel instanceof TreeModel) || !((TreeModel) treeModel).getLabel().getMapping().getValues()
+						.equals(mapping.getValues())) {
+					roots = null;
+					break;
+				}
+				roots.add(((TreeModel) treeModel).getRoot());
+			}
+			if (roots != null && !roots.isEmpty()) {
+				flattened = FlattenedTrees.compile(roots, mapping);
+			}
+			if (flattened == null) {
+				notFlattenable = true;
+			}
+			flattenedTrees = flattened;
+		}
+		return flattenedTrees;
+	}
+
 	@Override
 	public String toString() {
 		return model.toString();
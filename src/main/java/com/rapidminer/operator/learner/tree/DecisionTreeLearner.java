@@ -21,14 +21,21 @@ package com.rapidminer.operator.learner.tree;
 import java.util.LinkedList;
 import java.util.List;
 
+import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.Statistics;
+import com.rapidminer.operator.Model;
 import com.rapidminer.operator.OperatorCapability;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.UserError;
+import com.rapidminer.operator.learner.tree.criterions.AbstractColumnCriterion;
+import com.rapidminer.operator.learner.tree.criterions.ColumnCriterion;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 
 
 /**
@@ -66,6 +73,21 @@ public class DecisionTreeLearner extends AbstractTreeLearner {
 
 	public static final String PARAMETER_NUMBER_OF_PREPRUNING_ALTERNATIVES = "number_of_prepruning_alternatives";
 
+	/**
+	 * The parameter name for &quot;Bins numerical attributes and only considers the bin boundaries
+	 * as splits.&quot;
+	 *
+	 * @since 8.0
+	 */
+	public static final String PARAMETER_USE_HISTOGRAMS = AbstractParallelTreeLearner.PARAMETER_USE_HISTOGRAMS;
+
+	/**
+	 * The parameter name for &quot;The maximal number of bins per numerical attribute.&quot;
+	 *
+	 * @since 8.0
+	 */
+	public static final String PARAMETER_NUMBER_OF_BINS = AbstractParallelTreeLearner.PARAMETER_NUMBER_OF_BINS;
+
 	public DecisionTreeLearner(OperatorDescription description) {
 		super(description);
 	}
@@ -109,6 +131,91 @@ public class DecisionTreeLearner extends AbstractTreeLearner {
 		}
 	}
 
+	/**
+	 * Learns the tree on a {@link ColumnExampleTable} with histogram based splits if
+	 * {@link #PARAMETER_USE_HISTOGRAMS} is activated and the label is nominal. Otherwise the tree is
+	 * learned by the {@link TreeBuilder} as before.
+	 */
+	@Override
+	public Model learn(ExampleSet exampleSet) throws OperatorException {
+		if (getParameterAsBoolean(PARAMETER_USE_HISTOGRAMS) && exampleSet.getAttributes().getLabel().isNominal()) {
+			return learnWithHistograms(exampleSet);
+		}
+		return super.learn(exampleSet);
+	}
+
+	private Model learnWithHistograms(ExampleSet eSet) throws OperatorException {
+		ExampleSet exampleSet = (ExampleSet) eSet.clone();
+
+		// check if the label attribute contains any missing values
+		Attribute labelAtt = exampleSet.getAttributes().getLabel();
+		exampleSet.recalculateAttributeStatistics(labelAtt);
+		if (exampleSet.getStatistics(labelAtt, Statistics.UNKNOWN) > 0) {
+			throw new UserError(this, 162, labelAtt.getName());
+		}
+
+		AbstractParallelTreeBuilder builder = new NonParallelTreeBuilder(this, createColumnCriterion(),
+				getColumnTerminationCriteria(exampleSet), getColumnPruner(), getAttributePreprocessing(),
+				!getParameterAsBoolean(PARAMETER_NO_PRE_PRUNING),
+				getParameterAsInt(PARAMETER_NUMBER_OF_PREPRUNING_ALTERNATIVES),
+				getParameterAsInt(PARAMETER_MINIMAL_SIZE_FOR_SPLIT), getParameterAsInt(PARAMETER_MINIMAL_LEAF_SIZE));
+		builder.setNumberOfHistogramBins(getParameterAsInt(PARAMETER_NUMBER_OF_BINS));
+		return new TreeModel(exampleSet, builder.learnTree(exampleSet));
+	}
+
+	/**
+	 * Returns the column based counterpart of the criterion selected by the parameters.
+	 *
+	 * @since 8.0
+	 */
+	protected ColumnCriterion createColumnCriterion() throws OperatorException {
+		boolean prePruning = !getParameterAsBoolean(PARAMETER_NO_PRE_PRUNING);
+		return AbstractColumnCriterion.createColumnCriterion(this,
+				prePruning ? getParameterAsDouble(PARAMETER_MINIMAL_GAIN) : 0);
+	}
+
+	/**
+	 * Returns the column based counterparts of the {@link #getTerminationCriteria(ExampleSet)}.
+	 *
+	 * @since 8.0
+	 */
+	protected List<ColumnTerminator> getColumnTerminationCriteria(ExampleSet exampleSet) throws OperatorException {
+		List<ColumnTerminator> result = new LinkedList<>();
+		result.add(new ColumnSingleLabelTermination());
+		result.add(new ColumnNoAttributeLeftTermination());
+		result.add(new ColumnEmptyTermination());
+		int maxDepth = getParameterAsInt(PARAMETER_MAXIMAL_DEPTH);
+		if (maxDepth <= 0) {
+			maxDepth = exampleSet.size();
+		}
+		result.add(new ColumnMaxDepthTermination(maxDepth));
+		return result;
+	}
+
+	/**
+	 * Returns the pruner for trees built on a {@link ColumnExampleTable} or {@code null} if pruning
+	 * is disabled.
+	 *
+	 * @since 8.0
+	 */
+	protected Pruner getColumnPruner() throws OperatorException {
+		if (!getParameterAsBoolean(PARAMETER_NO_PRUNING)) {
+			return new TreebasedPessimisticPruner(getParameterAsDouble(PARAMETER_CONFIDENCE), null);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * The counterpart of {@link #getSplitPreprocessing()} for trees built on a
+	 * {@link ColumnExampleTable}. The default implementation returns {@code null}.
+	 *
+	 * @since 8.0
+	 */
+	protected AttributePreprocessing getAttributePreprocessing() throws OperatorException {
+		return null;
+	}
+
 	@Override
 	protected TreeBuilder getTreeBuilder(ExampleSet exampleSet) throws OperatorException {
 		return new TreeBuilder(createCriterion(getParameterAsDouble(PARAMETER_MINIMAL_GAIN)),
@@ -137,6 +244,19 @@ public class DecisionTreeLearner extends AbstractTreeLearner {
 		types.add(new ParameterTypeBoolean(PARAMETER_NO_PRUNING, "Disables the pruning and delivers an unpruned tree.",
 				false));
 
+		type = new ParameterTypeBoolean(PARAMETER_USE_HISTOGRAMS,
+				"Bins numerical attributes and only considers the bin boundaries as splits. "
+						+ "Much faster for large data, only used for nominal labels.",
+				false);
+		type.setExpert(true);
+		types.add(type);
+
+		type = new ParameterTypeInt(PARAMETER_NUMBER_OF_BINS, "The maximal number of bins per numerical attribute.", 2,
+				ColumnHistogramBinning.MAXIMAL_NUMBER_OF_BINS, 256);
+		type.registerDependencyCondition(new BooleanParameterCondition(this, PARAMETER_USE_HISTOGRAMS, false, true));
+		type.setExpert(true);
+		types.add(type);
+
 		return types;
 	}
 }
@@ -0,0 +1,458 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.tree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.NominalMapping;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.studio.internal.Resources;
+import com.rapidminer.tools.Tools;
+
+
+/**
+ * Flattened, array based representation of one or several nominal {@link Tree}s used for scoring.
+ * The nodes of all trees are stored in pre-order in parallel arrays, the outgoing edges of a node
+ * are stored consecutively together with the split attribute column, the split type, the split
+ * value and the index of the child node. Every node additionally stores the label index and the
+ * confidences that are returned if no outgoing edge matches, i.e. for leaves the values of the leaf
+ * and for inner nodes the majority of the subtree.
+ * <p>
+ * Scoring works on batches of rows: the values of the split attributes are copied column-wise into
+ * a buffer once per batch and all trees are evaluated on this buffer. Large example sets are split
+ * into row blocks that are scored in parallel.
+ * <p>
+ * Only the split conditions {@link LessEqualsSplitCondition}, {@link GreaterSplitCondition},
+ * {@link NominalSplitCondition} and {@link NumericalMissingSplitCondition} are supported, trees
+ * containing other conditions cannot be flattened.
+ *
+ * @since 8.0
+ */
+final class FlattenedTrees {
+
+	/**
+	 * Callback for scoring a batch of rows.
+	 */
+	interface BatchScorer {
+
+		/**
+		 * Scores the rows {@code offset} to {@code offset + length - 1} of the example set.
+		 *
+		 * @param columns
+		 *            the values of the split attributes, the value of the i-th row of the batch is
+		 *            stored at {@code columns[column][i]}
+		 * @param offset
+		 *            the index of the first row of the batch in the example set
+		 * @param length
+		 *            the number of rows in the batch
+		 * @throws OperatorException
+		 *             if the scoring fails
+		 */
+		void score(double[][] columns, int offset, int length) throws OperatorException;
+	}
+
+	/** Number of rows copied into the column buffer at once. */
+	private static final int BATCH_SIZE = 1024;
+
+	/** Minimum number of examples for parallel scoring. */
+	private static final int THRESHOLD_PARALLEL = 10_000;
+
+	private static final byte SPLIT_LESS_EQUALS = 0;
+	private static final byte SPLIT_GREATER = 1;
+	private static final byte SPLIT_EQUALS = 2;
+	private static final byte SPLIT_MISSING = 3;
+
+	/** the names of the split attributes, the position is the column index */
+	private final String[] columnNames;
+
+	/** the index of the root node of every tree */
+	private final int[] roots;
+
+	private final int[] predictions;
+	private final double[][] confidences;
+	private final int[] edgeStart;
+	private final int[] edgeEnd;
+
+	private final byte[] edgeTypes;
+	private final int[] edgeColumns;
+	private final double[] edgeValues;
+	private final int[] edgeChildren;
+
+	private FlattenedTrees(String[] columnNames, int[] roots, int numberOfNodes, int numberOfEdges) {
+		this.columnNames = columnNames;
+		this.roots = roots;
+		this.predictions = new int[numberOfNodes];
+		this.confidences = new double[numberOfNodes][];
+		this.edgeStart = new int[numberOfNodes];
+		this.edgeEnd = new int[numberOfNodes];
+		this.edgeTypes = new byte[numberOfEdges];
+		this.edgeColumns = new int[numberOfEdges];
+		this.edgeValues = new double[numberOfEdges];
+		this.edgeChildren = new int[numberOfEdges];
+	}
+
+	/**
+	 * Flattens the given trees.
+	 *
+	 * @param trees
+	 *            the root nodes of the trees
+	 * @param labelMapping
+	 *            the mapping of the label the trees were trained on
+	 * @return the flattened trees or {@code null} if any of the trees contains a split condition that
+	 *         is not supported
+	 */
+	static FlattenedTrees compile(List<Tree> trees, NominalMapping labelMapping) {
+		Map<String, Integer> columns = new LinkedHashMap<>();
+		int numberOfNodes = 0;
+		int numberOfEdges = 0;
+		for (Tree tree : trees) {
+			int[] counts = count(tree, columns);
+			if (counts == null) {
+				return null;
+			}
+			numberOfNodes += counts[0];
+			numberOfEdges += counts[1];
+		}
+
+		FlattenedTrees flattened = new FlattenedTrees(columns.keySet().toArray(new String[columns.size()]),
+				new int[trees.size()], numberOfNodes, numberOfEdges);
+		int[] next = new int[2];
+		int i = 0;
+		for (Tree tree : trees) {
+			flattened.roots[i++] = flattened.add(tree, columns, labelMapping, next);
+		}
+		return flattened;
+	}
+
+	/**
+	 * Counts the nodes and edges of the tree and registers the split attributes in the columns map.
+	 *
+	 * @return the number of nodes and edges or {@code null} if a split condition is not supported
+	 */
+	private static int[] count(Tree node, Map<String, Integer> columns) {
+		int[] counts = { 1, 0 };
+		Iterator<Edge> childIterator = node.childIterator();
+		while (childIterator.hasNext()) {
+			Edge edge = childIterator.next();
+			if (getSplitType(edge.getCondition()) < 0) {
+				return null;
+			}
+			String attributeName = edge.getCondition().getAttributeName();
+			if (!columns.containsKey(attributeName)) {
+				columns.put(attributeName, columns.size());
+			}
+			int[] childCounts = count(edge.getChild(), columns);
+			if (childCounts == null) {
+				return null;
+			}
+			counts[0] += childCounts[0];
+			counts[1] += childCounts[1] + 1;
+		}
+		return counts;
+	}
+
+	/**
+	 * Adds the node and its subtree in pre-order.
+	 *
+	 * @param next
+	 *            the next free node and edge index
+	 * @return the index of the added node
+	 */
+	private int add(Tree node, Map<String, Integer> columns, NominalMapping labelMapping, int[] next) {
+		int index = next[0]++;
+		List<Edge> edges = new ArrayList<>();
+		Iterator<Edge> childIterator = node.childIterator();
+		while (childIterator.hasNext()) {
+			edges.add(childIterator.next());
+		}
+
+		int[] counts = new int[labelMapping.size()];
+		int sum = 0;
+		if (node.isLeaf()) {
+			for (Entry<String, Integer> entry : node.getCounterMap().entrySet()) {
+				int count = entry.getValue();
+				counts[labelMapping.getIndex(entry.getKey())] = count;
+				sum += count;
+			}
+			predictions[index] = labelMapping.getIndex(node.getLabel());
+		} else {
+			// nothing known from training --> use majority class in this node
+			String majorityClass = null;
+			int majorityCounter = -1;
+			for (Entry<String, Integer> entry : node.getSubtreeCounterMap().entrySet()) {
+				int count = entry.getValue();
+				counts[labelMapping.getIndex(entry.getKey())] = count;
+				sum += count;
+				if (count > majorityCounter) {
+					majorityCounter = count;
+					majorityClass = entry.getKey();
+				}
+			}
+			predictions[index] = majorityClass != null ? labelMapping.getIndex(majorityClass) : 0;
+		}
+		double[] nodeConfidences = new double[counts.length];
+		for (int i = 0; i < counts.length; i++) {
+			nodeConfidences[i] = (double) counts[i] / sum;
+		}
+		confidences[index] = nodeConfidences;
+
+		// reserve the edges first so that the edges of a node are consecutive
+		int firstEdge = next[1];
+		next[1] += edges.size();
+		edgeStart[index] = firstEdge;
+		edgeEnd[index] = next[1];
+		int edgeIndex = firstEdge;
+		for (Edge edge : edges) {
+			SplitCondition condition = edge.getCondition();
+			edgeTypes[edgeIndex] = getSplitType(condition);
+			edgeColumns[edgeIndex] = columns.get(condition.getAttributeName());
+			edgeValues[edgeIndex] = getSplitValue(condition);
+			edgeChildren[edgeIndex] = add(edge.getChild(), columns, labelMapping, next);
+			edgeIndex++;
+		}
+		return index;
+	}
+
+	/**
+	 * @return the split type constant or {@code -1} if the condition is not supported
+	 */
+	private static byte getSplitType(SplitCondition condition) {
+		if (condition instanceof LessEqualsSplitCondition) {
+			return SPLIT_LESS_EQUALS;
+		} else if (condition instanceof GreaterSplitCondition) {
+			return SPLIT_GREATER;
+		} else if (condition instanceof NominalSplitCondition) {
+			return SPLIT_EQUALS;
+		} else if (condition instanceof NumericalMissingSplitCondition) {
+			return SPLIT_MISSING;
+		} else {
+			return -1;
+		}
+	}
+
+	private static double getSplitValue(SplitCondition condition) {
+		if (condition instanceof LessEqualsSplitCondition) {
+			return ((LessEqualsSplitCondition) condition).getValue();
+		} else if (condition instanceof GreaterSplitCondition) {
+			return ((GreaterSplitCondition) condition).getValue();
+		} else if (condition instanceof NominalSplitCondition) {
+			return ((NominalSplitCondition) condition).getValue();
+		} else {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * @return the number of flattened trees
+	 */
+	int getNumberOfTrees() {
+		return roots.length;
+	}
+
+	/**
+	 * Finds the node of the given tree that determines the prediction for the given row of the
+	 * column buffer. Like {@link TreeModel}, the first edge whose condition is fulfilled is followed
+	 * until a leaf is reached or no condition is fulfilled.
+	 *
+	 * @param tree
+	 *            the index of the tree
+	 * @param columns
+	 *            the column buffer as passed to the {@link BatchScorer}
+	 * @param row
+	 *            the row in the column buffer
+	 * @return the node index
+	 */
+	int findNode(int tree, double[][] columns, int row) {
+		int node = roots[tree];
+		search: while (true) {
+			for (int edge = edgeStart[node]; edge < edgeEnd[node]; edge++) {
+				if (test(edgeTypes[edge], columns[edgeColumns[edge]][row], edgeValues[edge])) {
+					node = edgeChildren[edge];
+					continue search;
+				}
+			}
+			return node;
+		}
+	}
+
+	private static boolean test(byte type, double value, double splitValue) {
+		switch (type) {
+			case SPLIT_LESS_EQUALS:
+				return value <= splitValue;
+			case SPLIT_GREATER:
+				return value > splitValue;
+			case SPLIT_EQUALS:
+				return Tools.isEqual(value, splitValue);
+			default:
+				return Double.isNaN(value);
+		}
+	}
+
+	/**
+	 * @return the index of the predicted label value of the node
+	 */
+	int getPrediction(int node) {
+		return predictions[node];
+	}
+
+	/**
+	 * @return the confidences of the node indexed by the label value index, must not be modified
+	 */
+	double[] getConfidences(int node) {
+		return confidences[node];
+	}
+
+	/**
+	 * Looks up the split attributes in the given example set.
+	 *
+	 * @return the attributes in column order or {@code null} if one of them does not exist
+	 */
+	Attribute[] getColumns(ExampleSet exampleSet) {
+		Attributes attributes = exampleSet.getAttributes();
+		Attribute[] columns = new Attribute[columnNames.length];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = attributes.get(columnNames[i]);
+			if (columns[i] == null) {
+				return null;
+			}
+		}
+		return columns;
+	}
+
+	/**
+	 * Returns the confidence attributes of the example set for every label value index.
+	 *
+	 * @return the confidence attributes or {@code null} if one of them does not exist
+	 */
+	static Attribute[] getConfidenceAttributes(ExampleSet exampleSet, NominalMapping labelMapping) {
+		Attributes attributes = exampleSet.getAttributes();
+		Attribute[] confidenceAttributes = new Attribute[labelMapping.size()];
+		for (int i = 0; i < confidenceAttributes.length; i++) {
+			confidenceAttributes[i] = attributes.getSpecial(Attributes.CONFIDENCE_NAME + "_" + labelMapping.mapIndex(i));
+			if (confidenceAttributes[i] == null) {
+				return null;
+			}
+		}
+		return confidenceAttributes;
+	}
+
+	/**
+	 * Passes all rows of the example set in batches to the scorer. If an operator is given and the
+	 * example set is large enough, blocks of rows are scored in parallel. Batches of different blocks
+	 * may be passed to the scorer concurrently, so it must only write to the rows of the batch.
+	 *
+	 * @param exampleSet
+	 *            the example set to score
+	 * @param columns
+	 *            the split attributes as returned by {@link #getColumns(ExampleSet)}
+	 * @param operator
+	 *            the operator used for the concurrency context, can be {@code null}
+	 * @param scorer
+	 *            the scorer
+	 * @throws OperatorException
+	 *             if the scorer fails or the process is stopped
+	 */
+	static void score(final ExampleSet exampleSet, final Attribute[] columns, Operator operator, final BatchScorer scorer)
+			throws OperatorException {
+		int numberOfExamples = exampleSet.size();
+		final ConcurrencyContext context = operator != null ? Resources.getConcurrencyContext(operator) : null;
+		if (context == null || numberOfExamples < THRESHOLD_PARALLEL || context.getParallelism() <= 1) {
+			scoreRows(exampleSet, columns, 0, numberOfExamples, scorer, context);
+			return;
+		}
+
+		int numberOfThreads = context.getParallelism();
+		int blocksize = numberOfExamples / numberOfThreads;
+		int rest = numberOfExamples % numberOfThreads;
+
+		List<Callable<Void>> todo = new ArrayList<>(numberOfThreads);
+		int start = 0;
+		int end = 0;
+		while (end < numberOfExamples) {
+			start = end;
+			end += blocksize;
+			if (rest > 0) {
+				end++;
+				rest--;
+			}
+			final int startRow = start;
+			final int endRow = end;
+			todo.add(new Callable<Void>() {
+
+				@Override
+				public Void call() throws OperatorException {
+					scoreRows(exampleSet, columns, startRow, endRow, scorer, context);
+					return null;
+				}
+
+			});
+		}
+
+		try {
+			context.call(todo);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof OperatorException) {
+				throw (OperatorException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new OperatorException(cause.getMessage(), cause);
+			}
+		}
+	}
+
+	/**
+	 * Copies the rows from start (inclusive) to end (exclusive) batch-wise into a column buffer and
+	 * passes the batches to the scorer.
+	 */
+	private static void scoreRows(ExampleSet exampleSet, Attribute[] columns, int start, int end, BatchScorer scorer,
+			ConcurrencyContext context) throws OperatorException {
+		double[][] buffer = new double[columns.length][Math.min(BATCH_SIZE, end - start)];
+		for (int offset = start; offset < end; offset += BATCH_SIZE) {
+			if (context != null) {
+				context.checkStatus();
+			}
+			int length = Math.min(BATCH_SIZE, end - offset);
+			for (int i = 0; i < length; i++) {
+				Example example = exampleSet.getExample(offset + i);
+				for (int column = 0; column < columns.length; column++) {
+					buffer[column][i] = example.getValue(columns[column]);
+				}
+			}
+			scorer.score(buffer, offset, length);
+		}
+	}
+
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.tree;
+
+import java.util.Map;
+
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.learner.tree.criterions.ColumnCriterion;
+import com.rapidminer.operator.learner.tree.criterions.WeightDistribution;
+
+
+/**
+ * Calculates the benefits of numerical attributes from label histograms over the bins of a
+ * {@link ColumnHistogramBinning} instead of from sorted example selections. Only the bin
+ * boundaries are considered as split points. The histogram of a node is the sum of the weights of
+ * its examples per bin and label. It is either calculated from the selected examples or, for the
+ * largest child of a node, by subtracting the histograms of its siblings from the histogram of the
+ * parent.
+ * <p>
+ * The node selections must be {@link HistogramSelection}s, the label must be nominal and the
+ * criterion must support incremental calculation.
+ *
+ * @since 8.0
+ */
+public class HistogramBenefitCalculator extends BenefitCalculator {
+
+	private final ColumnExampleTable columnTable;
+
+	private final ColumnCriterion criterion;
+
+	private final ColumnHistogramBinning binning;
+
+	private final int numberOfLabels;
+
+	public HistogramBenefitCalculator(ColumnExampleTable columnTable, ColumnCriterion criterion, Operator operator,
+			ColumnHistogramBinning binning) {
+		super(columnTable, criterion, operator);
+		if (!criterion.supportsIncrementalCalculation()) {
+			throw new IllegalArgumentException("criterion must support incremental calculation");
+		}
+		this.columnTable = columnTable;
+		this.criterion = criterion;
+		this.binning = binning;
+		this.numberOfLabels = columnTable.getLabel().getMapping().size();
+	}
+
+	@Override
+	protected ParallelBenefit calculateBenefit(Map<Integer, int[]> allSelectedExamples, int attributeNumber) {
+		if (columnTable.representsNominalAttribute(attributeNumber)
+				|| !(allSelectedExamples instanceof HistogramSelection)) {
+			return super.calculateBenefit(allSelectedExamples, attributeNumber);
+		}
+		double[] histogram = getHistogram((HistogramSelection) allSelectedExamples, attributeNumber);
+		return getBestSplitBenefit(histogram, attributeNumber);
+	}
+
+	/**
+	 * Returns the histogram of the numerical attribute at the node. The histogram is calculated by
+	 * subtraction if the node is the largest child and the histogram of the parent is known.
+	 * Otherwise it is calculated from the selected examples.
+	 */
+	private double[] getHistogram(HistogramSelection selection, int attributeNumber) {
+		int index = attributeNumber - columnTable.getNumberOfRegularNominalAttributes();
+		double[] histogram = selection.getHistogram(index);
+		if (histogram != null) {
+			return histogram;
+		}
+		HistogramSelection[] siblings = selection.getSiblings();
+		double[] parentHistogram = selection.getParentHistogram(index);
+		if (parentHistogram != null && siblings != null && isLargest(selection, siblings)) {
+			histogram = parentHistogram.clone();
+			for (HistogramSelection sibling : siblings) {
+				if (sibling != selection) {
+					double[] siblingHistogram = getHistogram(sibling, attributeNumber);
+					for (int i = 0; i < histogram.length; i++) {
+						// avoid negative weights caused by rounding
+						histogram[i] = Math.max(0, histogram[i] - siblingHistogram[i]);
+					}
+				}
+			}
+		} else {
+			histogram = calculateHistogram(selection.getSelectedExamples(), attributeNumber);
+		}
+		selection.storeHistogram(index, histogram);
+		return histogram;
+	}
+
+	/**
+	 * Checks if the selection is the largest of the siblings, the first one is taken in case of ties.
+	 */
+	private static boolean isLargest(HistogramSelection selection, HistogramSelection[] siblings) {
+		int size = selection.getSelectedExamples().length;
+		boolean before = true;
+		for (HistogramSelection sibling : siblings) {
+			if (sibling == selection) {
+				before = false;
+			} else {
+				int siblingSize = sibling.getSelectedExamples().length;
+				if (siblingSize > size || before && siblingSize == size) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sums up the label weights of the selected examples per bin. The weight of label {@code l} in
+	 * bin {@code b} is stored at position {@code b * numberOfLabels + l}.
+	 */
+	private double[] calculateHistogram(int[] selectedExamples, int attributeNumber) {
+		double[] histogram = new double[binning.getNumberOfBins(attributeNumber) * numberOfLabels];
+		short[] bins = binning.getBinColumn(attributeNumber);
+		int[] labelColumn = columnTable.getLabelColumn();
+		double[] weightColumn = columnTable.getWeightColumn();
+		if (weightColumn == null) {
+			for (int row : selectedExamples) {
+				histogram[bins[row] * numberOfLabels + labelColumn[row]]++;
+			}
+		} else {
+			for (int row : selectedExamples) {
+				histogram[bins[row] * numberOfLabels + labelColumn[row]] += weightColumn[row];
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * Calculates the best split at a bin boundary by moving the bins one after another from the
+	 * right to the left side of the {@link WeightDistribution}. Only boundaries with examples on
+	 * both sides are considered.
+	 *
+	 * @return the best benefit or {@code null} if there is no possible split
+	 */
+	private ParallelBenefit getBestSplitBenefit(double[] histogram, int attributeNumber) {
+		int missingBin = binning.getNumberOfBins(attributeNumber) - 1;
+		double[] totalLabelWeights = new double[numberOfLabels];
+		double[] missingsLabelWeights = new double[numberOfLabels];
+		double[] binWeights = new double[missingBin];
+		int lastBin = -1;
+		for (int bin = 0; bin < missingBin; bin++) {
+			for (int label = 0; label < numberOfLabels; label++) {
+				double weight = histogram[bin * numberOfLabels + label];
+				totalLabelWeights[label] += weight;
+				binWeights[bin] += weight;
+			}
+			if (binWeights[bin] > 0) {
+				lastBin = bin;
+			}
+		}
+		for (int label = 0; label < numberOfLabels; label++) {
+			double weight = histogram[missingBin * numberOfLabels + label];
+			totalLabelWeights[label] += weight;
+			missingsLabelWeights[label] = weight;
+		}
+
+		WeightDistribution distribution = new WeightDistribution(totalLabelWeights, missingsLabelWeights);
+		double bestSplitBenefit = Double.NEGATIVE_INFINITY;
+		int bestBin = -1;
+		for (int bin = 0; bin < lastBin; bin++) {
+			if (binWeights[bin] > 0) {
+				for (int label = 0; label < numberOfLabels; label++) {
+					double weight = histogram[bin * numberOfLabels + label];
+					if (weight > 0) {
+						distribution.increment(label, weight);
+					}
+				}
+				double benefit = criterion.getIncrementalBenefit(distribution);
+				if (benefit > bestSplitBenefit) {
+					bestSplitBenefit = benefit;
+					bestBin = bin;
+				}
+			}
+		}
+
+		if (bestBin < 0) {
+			return null;
+		} else {
+			return new ParallelBenefit(bestSplitBenefit, attributeNumber, binning.getUpperBoundary(attributeNumber,
+					bestBin));
+		}
+	}
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.tree;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * The example selection of a node when building a tree with histograms. In contrast to the
+ * selections created by {@link SelectionCreator#getStartSelection()}, the selected examples are not
+ * sorted and there is only one selection stored at the key {@code 0}.
+ * <p>
+ * Additionally, the label histograms of the numerical attributes at the node are stored (see
+ * {@link HistogramBenefitCalculator}). The histograms of the parent node and the selections of the
+ * sibling nodes are kept so that the histograms of the largest child can be calculated by
+ * subtracting the histograms of its siblings from the histograms of the parent.
+ *
+ * @since 8.0
+ */
+public class HistogramSelection extends HashMap<Integer, int[]> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient AtomicReferenceArray<double[]> histograms;
+
+	private transient volatile AtomicReferenceArray<double[]> parentHistograms;
+
+	private transient volatile HistogramSelection[] siblings;
+
+	private final boolean keepHistograms;
+
+	/**
+	 * Creates a new selection.
+	 *
+	 * @param selectedExamples
+	 *            the selected examples
+	 * @param numberOfNumericalAttributes
+	 *            the number of numerical attributes in the column table
+	 * @param keepHistograms
+	 *            whether the histograms should be stored for the calculation of the child
+	 *            histograms
+	 */
+	HistogramSelection(int[] selectedExamples, int numberOfNumericalAttributes, boolean keepHistograms) {
+		super(2);
+		put(0, selectedExamples);
+		this.histograms = new AtomicReferenceArray<>(numberOfNumericalAttributes);
+		this.keepHistograms = keepHistograms;
+	}
+
+	/**
+	 * @return the selected examples
+	 */
+	int[] getSelectedExamples() {
+		return get(0);
+	}
+
+	/**
+	 * Sets the family of this node, i.e. the histograms of the parent and all children of the
+	 * parent including this node.
+	 */
+	void setFamily(AtomicReferenceArray<double[]> parentHistograms, HistogramSelection[] siblings) {
+		this.parentHistograms = parentHistograms;
+		this.siblings = siblings;
+	}
+
+	/**
+	 * Removes the references to the parent and the siblings. Called when the node is split since
+	 * from then on only the histograms of this node are needed.
+	 */
+	void clearFamily() {
+		this.parentHistograms = null;
+		this.siblings = null;
+	}
+
+	/**
+	 * @return the histograms of this node or {@code null} if they are not kept
+	 */
+	AtomicReferenceArray<double[]> getHistograms() {
+		return keepHistograms ? histograms : null;
+	}
+
+	/**
+	 * Returns the stored histogram of the numerical attribute with the given index.
+	 *
+	 * @return the histogram or {@code null} if it was not calculated yet
+	 */
+	double[] getHistogram(int numericalIndex) {
+		return histograms.get(numericalIndex);
+	}
+
+	/**
+	 * Stores the histogram if the histograms are kept or if a sibling might need it.
+	 */
+	void storeHistogram(int numericalIndex, double[] histogram) {
+		if (keepHistograms || siblings != null) {
+			histograms.compareAndSet(numericalIndex, null, histogram);
+		}
+	}
+
+	/**
+	 * @return the histogram of the parent or {@code null} if it is not known
+	 */
+	double[] getParentHistogram(int numericalIndex) {
+		AtomicReferenceArray<double[]> parent = parentHistograms;
+		return parent == null ? null : parent.get(numericalIndex);
+	}
+
+	/**
+	 * @return the children of the parent including this node or {@code null} if they are not known
+	 */
+	HistogramSelection[] getSiblings() {
+		return siblings;
+	}
+
+}
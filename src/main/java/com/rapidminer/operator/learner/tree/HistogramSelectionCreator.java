@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.rapidminer.operator.Operator;
+
+
+/**
+ * Creates and splits the {@link HistogramSelection}s used for building a tree with a
+ * {@link HistogramBenefitCalculator}. No sorted selections are needed, so the start selection is
+ * created without sorting and every split divides one selection instead of one per numerical
+ * attribute. Numerical attributes are split at the bins of the {@link ColumnHistogramBinning}.
+ *
+ * @since 8.0
+ */
+public class HistogramSelectionCreator extends SelectionCreator {
+
+	private final ColumnExampleTable columnTable;
+
+	private final ColumnHistogramBinning binning;
+
+	/**
+	 * the minimal selection size for which histograms are kept to calculate the children histograms
+	 * by subtraction, smaller histograms are cheaper to calculate directly
+	 */
+	private final int minimalSizeForKeepingHistograms;
+
+	public HistogramSelectionCreator(ColumnExampleTable columnTable, ColumnHistogramBinning binning) {
+		super(columnTable);
+		this.columnTable = columnTable;
+		this.binning = binning;
+		this.minimalSizeForKeepingHistograms = (binning.getMaximalNumberOfBins() + 1)
+				* columnTable.getLabel().getMapping().size();
+	}
+
+	/**
+	 * Creates a selection containing all examples.
+	 *
+	 * @return a {@link HistogramSelection}
+	 */
+	@Override
+	public Map<Integer, int[]> getStartSelection() {
+		return createSelection(createFullArray(columnTable.getNumberOfExamples()));
+	}
+
+	/**
+	 * Creates a selection containing all examples. Since no sorting is necessary, this is the same
+	 * as {@link #getStartSelection()}.
+	 *
+	 * @return a {@link HistogramSelection}
+	 */
+	@Override
+	public Map<Integer, int[]> getStartSelectionParallel(Operator operator) {
+		return getStartSelection();
+	}
+
+	/**
+	 * Creates a {@link HistogramSelection} for the given examples.
+	 *
+	 * @param selectedExamples
+	 *            the selected example rows, may contain duplicates
+	 * @return the selection
+	 */
+	public HistogramSelection createSelection(int[] selectedExamples) {
+		return new HistogramSelection(selectedExamples, columnTable.getNumberOfRegularNumericalAttributes(),
+				selectedExamples.length >= minimalSizeForKeepingHistograms);
+	}
+
+	@Override
+	public Collection<Map<Integer, int[]>> getSplits(Map<Integer, int[]> allSelectedExamples, int bestAttribute,
+			double bestSplitValue) {
+		if (!(allSelectedExamples instanceof HistogramSelection)) {
+			return super.getSplits(allSelectedExamples, bestAttribute, bestSplitValue);
+		}
+		HistogramSelection parent = (HistogramSelection) allSelectedExamples;
+		// the histograms of the parent are complete, the family is no longer needed
+		parent.clearFamily();
+
+		List<int[]> parts;
+		if (columnTable.representsNominalAttribute(bestAttribute)) {
+			parts = splitNominal(parent.getSelectedExamples(), bestAttribute);
+		} else {
+			parts = splitNumerical(parent.getSelectedExamples(), bestAttribute, bestSplitValue);
+		}
+
+		HistogramSelection[] children = new HistogramSelection[parts.size()];
+		for (int i = 0; i < children.length; i++) {
+			children[i] = createSelection(parts.get(i));
+		}
+		AtomicReferenceArray<double[]> parentHistograms = parent.getHistograms();
+		if (parentHistograms != null) {
+			for (HistogramSelection child : children) {
+				child.setFamily(parentHistograms, children);
+			}
+		}
+		return new ArrayList<Map<Integer, int[]>>(Arrays.asList(children));
+	}
+
+	/**
+	 * Splits the selected examples by the bin of the attribute value.
+	 *
+	 * @return the examples with values smaller or equal to the split value, greater than the split
+	 *         value and, if there are any, the examples with missing values
+	 */
+	private List<int[]> splitNumerical(int[] selectedExamples, int attributeNumber, double splitValue) {
+		short[] bins = binning.getBinColumn(attributeNumber);
+		int splitBin = binning.getBinOfUpperBoundary(attributeNumber, splitValue);
+		int missingBin = binning.getNumberOfBins(attributeNumber) - 1;
+
+		int[] smaller = new int[selectedExamples.length];
+		int[] bigger = new int[selectedExamples.length];
+		int[] missings = new int[selectedExamples.length];
+		int smallerPosition = 0;
+		int biggerPosition = 0;
+		int missingsPosition = 0;
+		for (int row : selectedExamples) {
+			int bin = bins[row];
+			if (bin == missingBin) {
+				missings[missingsPosition++] = row;
+			} else if (bin <= splitBin) {
+				smaller[smallerPosition++] = row;
+			} else {
+				bigger[biggerPosition++] = row;
+			}
+		}
+
+		List<int[]> parts = new ArrayList<>(3);
+		parts.add(Arrays.copyOf(smaller, smallerPosition));
+		parts.add(Arrays.copyOf(bigger, biggerPosition));
+		if (missingsPosition > 0) {
+			parts.add(Arrays.copyOf(missings, missingsPosition));
+		}
+		return parts;
+	}
+
+	/**
+	 * Splits the selected examples by the attribute value.
+	 *
+	 * @return the non-empty groups of examples ordered by the value index, missing values last
+	 */
+	private List<int[]> splitNominal(int[] selectedExamples, int attributeNumber) {
+		byte[] column = columnTable.getNominalAttributeColumn(attributeNumber);
+		// missing values are represented by the mapping size
+		int[] counts = new int[columnTable.getNominalAttribute(attributeNumber).getMapping().size() + 1];
+		for (int row : selectedExamples) {
+			counts[column[row]]++;
+		}
+		int[][] groups = new int[counts.length][];
+		for (int value = 0; value < counts.length; value++) {
+			if (counts[value] > 0) {
+				groups[value] = new int[counts[value]];
+			}
+		}
+		int[] positions = new int[counts.length];
+		for (int row : selectedExamples) {
+			int value = column[row];
+			groups[value][positions[value]++] = row;
+		}
+
+		List<int[]> parts = new ArrayList<>();
+		for (int[] group : groups) {
+			if (group != null) {
+				parts.add(group);
+			}
+		}
+		return parts;
+	}
+
+}
@@ -58,6 +58,13 @@ public class NominalSplitCondition extends AbstractSplitCondition {
 		return "=";
 	}
 
+	/**
+	 * @return the index of the split value in the mapping of the training attribute
+	 */
+	public double getValue() {
+		return value;
+	}
+
 	@Override
 	public String getValueString() {
 		return this.valueString;
@@ -78,10 +78,16 @@ public class NonParallelBootstrappingTreeBuilder extends NonParallelTreeBuilder
 		columnTable = sharedColumnTable;
 		if (randomSplits) {
 			benefitCalculator = new RandomBenefitCalculator(columnTable, criterion, operator, randomBenefitSeed);
+			selectionCreator = new SelectionCreator(columnTable);
+		} else if (useHistograms()) {
+			// the binning is shared with the other trees using the table
+			ColumnHistogramBinning binning = columnTable.getHistogramBinning(numberOfHistogramBins, null);
+			benefitCalculator = new HistogramBenefitCalculator(columnTable, criterion, operator, binning);
+			selectionCreator = new HistogramSelectionCreator(columnTable, binning);
 		} else {
 			benefitCalculator = new BenefitCalculator(columnTable, criterion, operator);
+			selectionCreator = new SelectionCreator(columnTable);
 		}
-		selectionCreator = new SelectionCreator(columnTable);
 
 		Map<Integer, int[]> allSelectedExamples = createExampleStartSelection();
 		int[] selectedExamples = SelectionCreator.getArbitraryValue(allSelectedExamples);
@@ -115,6 +121,10 @@ public class NonParallelBootstrappingTreeBuilder extends NonParallelTreeBuilder
 	 */
 	@Override
 	protected Map<Integer, int[]> createExampleStartSelection() {
+		if (selectionCreator instanceof HistogramSelectionCreator) {
+			return ((HistogramSelectionCreator) selectionCreator)
+					.createSelection(createFullRandomArray(columnTable.getNumberOfExamples()));
+		}
 		Map<Integer, int[]> selection = new HashMap<>();
 		if (columnTable.getNumberOfRegularNumericalAttributes() == 0) {
 			selection.put(0, createFullRandomArray(columnTable.getNumberOfExamples()));
@@ -18,8 +18,13 @@
 */
 package com.rapidminer.operator.learner.tree;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.Model;
@@ -27,18 +32,20 @@ import com.rapidminer.operator.OperatorCapability;
 import com.rapidminer.operator.OperatorCreationException;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorVersion;
 import com.rapidminer.operator.learner.PredictionModel;
 import com.rapidminer.operator.learner.tree.ConfigurableRandomForestModel.VotingStrategy;
 import com.rapidminer.operator.preprocessing.sampling.BootstrappingOperator;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.studio.internal.Resources;
 import com.rapidminer.tools.OperatorService;
 import com.rapidminer.tools.RandomGenerator;
 
 
 /**
  * This operators learns a random forest. The resulting forest model contains several single random
- * tree models.
+ * tree models. The trees are learned in parallel on bootstrap samples of a shared column table.
  *
  * @author Ingo Mierswa, Sebastian Land
  *
@@ -50,6 +57,12 @@ public class RandomForestLearner extends RandomTreeLearner {
 	/** The parameter name for the number of trees. */
 	public static final String PARAMETER_NUMBER_OF_TREES = "number_of_trees";
 
+	/**
+	 * Up to this version, the trees were learned one after another on materialized bootstrap
+	 * samples.
+	 */
+	public static final OperatorVersion VERSION_SEQUENTIAL_BOOTSTRAPPING = new OperatorVersion(7, 6, 3);
+
 	public RandomForestLearner(OperatorDescription description) {
 		super(description);
 	}
@@ -61,6 +74,83 @@ public class RandomForestLearner extends RandomTreeLearner {
 
 	@Override
 	public Model learn(ExampleSet exampleSet) throws OperatorException {
+		if (getCompatibilityLevel().isAtMost(VERSION_SEQUENTIAL_BOOTSTRAPPING)) {
+			return learnSequentially(exampleSet);
+		}
+
+		// the column table is created once and shared by all trees, the bootstrapping is done by
+		// sampling row indices of this table
+		final ExampleSet trainingSet = (ExampleSet) exampleSet.clone();
+		ColumnExampleTable columnTable = new ColumnExampleTable(trainingSet, this, true);
+
+		// the seeds of all trees are drawn up front so that the forest does not depend on the order
+		// in which the trees are built
+		RandomGenerator random = RandomGenerator.getRandomGenerator(this);
+		int numberOfTrees = getParameterAsInt(PARAMETER_NUMBER_OF_TREES);
+		List<Callable<TreeModel>> tasks = new ArrayList<>(numberOfTrees);
+		for (int i = 0; i < numberOfTrees; i++) {
+			final AbstractParallelTreeBuilder builder = createBootstrappingTreeBuilder(trainingSet, columnTable,
+					random.nextInt());
+			tasks.add(new Callable<TreeModel>() {
+
+				@Override
+				public TreeModel call() throws OperatorException {
+					TreeModel model = new TreeModel(trainingSet, builder.learnTree(trainingSet));
+					model.setSource(getName());
+					return model;
+				}
+			});
+		}
+
+		List<TreeModel> baseModels;
+		try {
+			baseModels = Resources.getConcurrencyContext(this).call(tasks);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof OperatorException) {
+				throw (OperatorException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new OperatorException(cause.getMessage(), cause);
+			}
+		}
+
+		// create and return model
+		return new ConfigurableRandomForestModel(exampleSet, baseModels, VotingStrategy.MAJORITY_VOTE);
+	}
+
+	/**
+	 * Creates a tree builder for a single tree of the forest that works on the shared column table.
+	 * The parameters of this operator are translated to the corresponding column based criterion,
+	 * termination criteria and pruner.
+	 */
+	private AbstractParallelTreeBuilder createBootstrappingTreeBuilder(ExampleSet exampleSet,
+			ColumnExampleTable columnTable, int seed) throws OperatorException {
+		Random seedProvider = new Random(seed);
+		AttributePreprocessing preprocessing = new RandomAttributeSubsetPreprocessing(
+				getParameterAsBoolean(PARAMETER_USE_HEURISTIC_SUBSET_RATION), getParameterAsDouble(PARAMETER_SUBSET_RATIO),
+				new Random(seedProvider.nextInt()));
+
+		AbstractParallelTreeBuilder builder = new NonParallelBootstrappingTreeBuilder(this, createColumnCriterion(),
+				getColumnTerminationCriteria(exampleSet), getColumnPruner(), preprocessing,
+				!getParameterAsBoolean(PARAMETER_NO_PRE_PRUNING),
+				getParameterAsInt(PARAMETER_NUMBER_OF_PREPRUNING_ALTERNATIVES),
+				getParameterAsInt(PARAMETER_MINIMAL_SIZE_FOR_SPLIT), getParameterAsInt(PARAMETER_MINIMAL_LEAF_SIZE),
+				seedProvider, columnTable, false);
+		if (getParameterAsBoolean(PARAMETER_USE_HISTOGRAMS)) {
+			builder.setNumberOfHistogramBins(getParameterAsInt(PARAMETER_NUMBER_OF_BINS));
+		}
+		return builder;
+	}
+
+	/**
+	 * Learns the trees one after another on bootstrapped copies of the example set as done up to
+	 * version {@link #VERSION_SEQUENTIAL_BOOTSTRAPPING}.
+	 */
+	private Model learnSequentially(ExampleSet exampleSet) throws OperatorException {
 		BootstrappingOperator bootstrapping = null;
 		try {
 			bootstrapping = OperatorService.createOperator(BootstrappingOperator.class);
@@ -112,6 +202,14 @@ public class RandomForestLearner extends RandomTreeLearner {
 		return false;
 	}
 
+	@Override
+	public OperatorVersion[] getIncompatibleVersionChanges() {
+		OperatorVersion[] changes = super.getIncompatibleVersionChanges();
+		changes = Arrays.copyOf(changes, changes.length + 1);
+		changes[changes.length - 1] = VERSION_SEQUENTIAL_BOOTSTRAPPING;
+		return changes;
+	}
+
 	@Override
 	public List<ParameterType> getParameterTypes() {
 
@@ -19,8 +19,10 @@
 package com.rapidminer.operator.learner.tree;
 
 import java.util.List;
+import java.util.Random;
 
 import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeDouble;
@@ -67,6 +69,16 @@ public class RandomTreeLearner extends DecisionTreeLearner {
 		return preprocessing;
 	}
 
+	/** Returns a random attribute subset selection for the histogram based trees. */
+	@Override
+	protected AttributePreprocessing getAttributePreprocessing() throws OperatorException {
+		Random random = RandomGenerator.getRandomGenerator(
+				getParameterAsBoolean(RandomGenerator.PARAMETER_USE_LOCAL_RANDOM_SEED),
+				getParameterAsInt(RandomGenerator.PARAMETER_LOCAL_RANDOM_SEED));
+		return new RandomAttributeSubsetPreprocessing(getParameterAsBoolean(PARAMETER_USE_HEURISTIC_SUBSET_RATION),
+				getParameterAsDouble(PARAMETER_SUBSET_RATIO), random);
+	}
+
 	@Override
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
@@ -18,12 +18,16 @@
  */
 package com.rapidminer.operator.learner.tree;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map.Entry;
 
+import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.NominalMapping;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorProgress;
 
 
 /**
@@ -35,8 +39,16 @@ public class TreeModel extends TreePredictionModel {
 
 	private static final long serialVersionUID = 4368631725370998591L;
 
+	private static final int OPERATOR_PROGRESS_STEPS = 1000;
+
 	private Tree root;
 
+	/** the flattened tree used for scoring, created on first apply */
+	private transient volatile FlattenedTrees flattenedTree;
+
+	/** set if the tree cannot be flattened */
+	private transient volatile boolean notFlattenable;
+
 	public TreeModel(ExampleSet exampleSet, Tree root) {
 		super(exampleSet);
 		if (root.isNumerical()) {
@@ -55,6 +67,68 @@ public class TreeModel extends TreePredictionModel {
 		return predict(example, root);
 	}
 
+	/**
+	 * Scores the example set on the flattened tree in batches of rows, large example sets are scored
+	 * in parallel. Falls back to {@link #predict(Example)} for every example if the tree cannot be
+	 * flattened.
+	 */
+	@Override
+	public ExampleSet performPrediction(ExampleSet exampleSet, Attribute predictedLabel) throws OperatorException {
+		final FlattenedTrees tree = getFlattenedTree();
+		NominalMapping mapping = getLabel().getMapping();
+		Attribute[] columns = tree != null ? tree.getColumns(exampleSet) : null;
+		Attribute[] confidenceAttributes = FlattenedTrees.getConfidenceAttributes(exampleSet, mapping);
+		if (columns == null || confidenceAttributes == null) {
+			return super.performPrediction(exampleSet, predictedLabel);
+		}
+
+		final int[] nodes = new int[exampleSet.size()];
+		FlattenedTrees.score(exampleSet, columns, getOperator(), new FlattenedTrees.BatchScorer() {
+
+			@Override
+			public void score(double[][] buffer, int offset, int length) {
+				for (int i = 0; i < length; i++) {
+					nodes[offset + i] = tree.findNode(0, buffer, i);
+				}
+			}
+		});
+
+		OperatorProgress progress = null;
+		if (getShowProgress() && getOperator() != null && getOperator().getProgress() != null) {
+			progress = getOperator().getProgress();
+			progress.setTotal(exampleSet.size());
+		}
+		int row = 0;
+		for (Example example : exampleSet) {
+			int node = nodes[row++];
+			double[] confidences = tree.getConfidences(node);
+			for (int i = 0; i < confidences.length; i++) {
+				example.setValue(confidenceAttributes[i], confidences[i]);
+			}
+			example.setValue(predictedLabel, tree.getPrediction(node));
+			if (progress != null && row % OPERATOR_PROGRESS_STEPS == 0) {
+				progress.setCompleted(row);
+			}
+		}
+		return exampleSet;
+	}
+
+	/**
+	 * Returns the flattened tree, flattening it on first call.
+	 *
+	 * @return the flattened tree or {@code null} if the tree contains unsupported split conditions
+	 */
+	FlattenedTrees getFlattenedTree() {
+		if (flattenedTree == null && !notFlattenable) {
+			FlattenedTrees flattened = FlattenedTrees.compile(Collections.singletonList(root), getLabel().getMapping());
+			if (flattened == null) {
+				notFlattenable = true;
+			}
+			flattenedTree = flattened;
+		}
+		return flattenedTree;
+	}
+
 	private double predict(Example example, Tree node) {
 		if (node.isLeaf()) {
 			int[] counts = new int[getLabel().getMapping().size()];
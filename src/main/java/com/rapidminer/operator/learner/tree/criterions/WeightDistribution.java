@@ -67,6 +67,36 @@ public class WeightDistribution {
 	 */
 	public WeightDistribution(ColumnExampleTable columnTable, int[] selection, int attributeNumber) {
 		calculateLabelWeights(columnTable, selection, attributeNumber);
+		initialize();
+	}
+
+	/**
+	 * Initializes the counting arrays with the start distribution given by the total label weights
+	 * and the label weights of the examples with missing attribute values. Missing values are assumed
+	 * to exist if the missing label weights are not all zero.
+	 *
+	 * @param totalLabelWeights
+	 *            the weighted occurrences of each label value including missing attribute values
+	 * @param missingsLabelWeights
+	 *            the weighted occurrences of each label value for missing attribute values
+	 * @since 8.0
+	 */
+	public WeightDistribution(double[] totalLabelWeights, double[] missingsLabelWeights) {
+		this.totalLabelWeights = totalLabelWeights;
+		this.missingsLabelWeights = missingsLabelWeights;
+		for (double weight : missingsLabelWeights) {
+			if (weight > 0) {
+				hasMissings = true;
+				break;
+			}
+		}
+		initialize();
+	}
+
+	/**
+	 * Initializes the left, right and missing weights from the total and missing label weights.
+	 */
+	private void initialize() {
 		leftLabelWeights = new double[totalLabelWeights.length];
 		leftWeight = 0;
 		totalWeight = getTotalWeight(totalLabelWeights);
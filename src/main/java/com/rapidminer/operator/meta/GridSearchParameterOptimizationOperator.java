@@ -18,16 +18,34 @@
 */
 package com.rapidminer.operator.meta;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorVersion;
 import com.rapidminer.operator.UserError;
+import com.rapidminer.operator.concurrency.internal.ParallelOperatorChain;
 import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.operator.ports.PortPairExtender.PortPair;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.conditions.BooleanParameterCondition;
 import com.rapidminer.parameter.value.ParameterValueRange;
 import com.rapidminer.parameter.value.ParameterValues;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyExecutionService;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyExecutionServiceProvider;
+import com.rapidminer.studio.internal.Resources;
 
 
 /**
@@ -62,10 +80,69 @@ import com.rapidminer.parameter.value.ParameterValues;
  * especially useful for plotting purposes.
  * </p>
  *
+ * <p>
+ * If parallel execution is enabled, several parameter combinations are evaluated at the same time
+ * on copies of the optimization process. At most <var>max_parallel_evaluations</var> combinations
+ * are evaluated at once and the results are handled in the order of the grid, so the optimal
+ * parameter set is the same as for the serial execution.
+ * </p>
+ *
  * @author Simon Fischer, Helge Homburg, Ingo Mierswa, Tobias Malbrecht 15:35:49 ingomierswa Exp $
  */
 public class GridSearchParameterOptimizationOperator extends ParameterOptimizationOperator {
 
+	/** The parameter name for &quot;This parameter enables the parallel execution of this operator.&quot; */
+	public static final String PARAMETER_ENABLE_PARALLEL_EXECUTION = "enable_parallel_execution";
+
+	/** Up to this version, the parameter combinations are always evaluated one after another. */
+	public static final OperatorVersion VERSION_SERIAL_EVALUATION = new OperatorVersion(7, 6, 3);
+
+	/**
+	 * The parameter name for &quot;The maximal number of parameter combinations which are evaluated
+	 * at the same time.&quot;
+	 */
+	public static final String PARAMETER_MAX_PARALLEL_EVALUATIONS = "max_parallel_evaluations";
+
+	/**
+	 * Handles the evaluation of a single parameter combination during
+	 * {@link GridSearchParameterOptimizationOperator#evaluateCombinationsInParallel(EvaluationHandler)}
+	 * .
+	 *
+	 * @since 8.0
+	 */
+	@FunctionalInterface
+	protected interface EvaluationHandler {
+
+		/**
+		 * Called for every parameter combination in the order of the grid.
+		 *
+		 * @param valueIndices
+		 *            the indices of the parameter values of this combination
+		 * @param performance
+		 *            the performance of the combination, might be {@code null} if errors are
+		 *            ignored
+		 * @param results
+		 *            the data at the inner result sinks, in the order of the ports
+		 * @throws OperatorException
+		 *             if the handling fails
+		 */
+		void evaluated(int[] valueIndices, PerformanceVector performance, List<IOObject> results)
+				throws OperatorException;
+	}
+
+	/** The performance and the inner results of a single parameter combination. */
+	private static class Evaluation {
+
+		private final PerformanceVector performance;
+
+		private final List<IOObject> results;
+
+		private Evaluation(PerformanceVector performance, List<IOObject> results) {
+			this.performance = performance;
+			this.results = results;
+		}
+	}
+
 	protected Operator[] operators;
 
 	protected String[] parameters;
@@ -155,6 +232,124 @@ public class GridSearchParameterOptimizationOperator extends ParameterOptimizati
 		}
 	}
 
+	/**
+	 * Checks whether the parameter combinations can be evaluated in parallel via
+	 * {@link #evaluateCombinationsInParallel(EvaluationHandler)}. This requires the concurrency
+	 * execution service, parallel execution to be enabled, no breakpoints inside the subprocess
+	 * and a compatibility level above {@link #VERSION_SERIAL_EVALUATION}.
+	 *
+	 * @since 8.0
+	 */
+	protected boolean canEvaluateInParallel() {
+		return !getCompatibilityLevel().isAtMost(VERSION_SERIAL_EVALUATION)
+				&& ConcurrencyExecutionServiceProvider.INSTANCE.isInitialized() && ParallelOperatorChain
+				.checkParallelizability(this, getParameterAsBoolean(PARAMETER_ENABLE_PARALLEL_EXECUTION));
+	}
+
+	/**
+	 * Evaluates all parameter combinations on copies of this operator. Each copy gets its own
+	 * copy of a thread-safe version of the input data. The combinations are evaluated in windows
+	 * of at most {@link #PARAMETER_MAX_PARALLEL_EVALUATIONS} combinations and the handler is called
+	 * for every combination in the order of the grid. {@link #getParametersToOptimize()} must have
+	 * been called before.
+	 *
+	 * @param handler
+	 *            the handler for the evaluated combinations
+	 * @throws OperatorException
+	 *             if the evaluation of a combination fails
+	 * @since 8.0
+	 */
+	protected void evaluateCombinationsInParallel(EvaluationHandler handler) throws OperatorException {
+		ConcurrencyExecutionService service = ConcurrencyExecutionServiceProvider.INSTANCE.getService();
+		int windowSize = getParameterAsInt(PARAMETER_MAX_PARALLEL_EVALUATIONS);
+		if (windowSize <= 0) {
+			windowSize = Resources.getConcurrencyContext(this).getParallelism();
+		}
+
+		// all copies share the thread-safe version of the input
+		List<IOObject> threadSafeInput = new ArrayList<>();
+		for (PortPair pair : getInputExtender().getManagedPairs()) {
+			IOObject data = pair.getInputPort().getAnyDataOrNull();
+			if (data instanceof ExampleSet) {
+				data = ExampleSets.createThreadSafeCopy((ExampleSet) data);
+			}
+			threadSafeInput.add(data);
+		}
+
+		int[] valueIndices = new int[currentIndex.length];
+		int evaluated = 0;
+		boolean remaining = true;
+		while (remaining) {
+			List<int[]> window = new ArrayList<>(windowSize);
+			List<Callable<Evaluation>> tasks = new ArrayList<>(windowSize);
+			while (remaining && window.size() < windowSize) {
+				final GridSearchParameterOptimizationOperator copy = createEvaluationCopy(valueIndices, threadSafeInput);
+				window.add(valueIndices.clone());
+				remaining = nextCombination(valueIndices);
+				tasks.add(service.prepareOperatorTask(getProcess(), copy, getApplyCount() + evaluated + window.size(),
+						!remaining, () -> new Evaluation(copy.getPerformanceVector(), copy.getInnerResultsByPort())));
+			}
+
+			List<Evaluation> evaluations = service.executeOperatorTasks(this, tasks);
+			for (int i = 0; i < evaluations.size(); i++) {
+				Evaluation evaluation = evaluations.get(i);
+				handler.evaluated(window.get(i), evaluation.performance, evaluation.results);
+				evaluated++;
+				inApplyLoop();
+				getProgress().setCompleted(evaluated);
+			}
+		}
+	}
+
+	/**
+	 * Creates a copy of this operator whose inner operators use the given parameter combination and
+	 * whose input ports contain copies of the given data.
+	 */
+	GridSearchParameterOptimizationOperator createEvaluationCopy(int[] valueIndices, List<IOObject> input) {
+		GridSearchParameterOptimizationOperator copy = (GridSearchParameterOptimizationOperator) cloneOperator(getName(),
+				true);
+		Map<String, Operator> innerOperators = new HashMap<>();
+		for (Operator operator : copy.getAllInnerOperators()) {
+			innerOperators.put(operator.getName(), operator);
+		}
+		for (int j = 0; j < operators.length; j++) {
+			Operator operator = operators[j] == this ? copy : innerOperators.get(operators[j].getName());
+			operator.getParameters().setParameter(parameters[j], values[j][valueIndices[j]]);
+		}
+		List<PortPair> pairs = copy.getInputExtender().getManagedPairs();
+		for (int i = 0; i < pairs.size() && i < input.size(); i++) {
+			IOObject data = input.get(i);
+			pairs.get(i).getInputPort().receive(data != null ? data.copy() : null);
+		}
+		return copy;
+	}
+
+	/** Returns the data at the inner result sinks, including {@code null} for empty ports. */
+	private List<IOObject> getInnerResultsByPort() {
+		List<IOObject> results = new ArrayList<>();
+		for (PortPair pair : getInnerSinkExtender().getManagedPairs()) {
+			results.add(pair.getInputPort().getAnyDataOrNull());
+		}
+		return results;
+	}
+
+	/**
+	 * Advances the given value indices to the next parameter combination in the order of the grid.
+	 *
+	 * @return {@code false} if there is no further combination
+	 */
+	private boolean nextCombination(int[] valueIndices) {
+		int k = 0;
+		while (!(++valueIndices[k] < values[k].length)) {
+			valueIndices[k] = 0;
+			k++;
+			if (k >= valueIndices.length) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public void doWork() throws OperatorException {
 
@@ -171,8 +366,27 @@ public class GridSearchParameterOptimizationOperator extends ParameterOptimizati
 			throw new UserError(this, 922);
 		}
 
-		int counter = 1;
 		best = null;
+		if (canEvaluateInParallel()) {
+			evaluateCombinationsInParallel((valueIndices, performance, results) -> {
+				if (performance != null && (best == null || performance.compareTo(best.getPerformance()) > 0)) {
+					String[] bestValues = new String[parameters.length];
+					for (int j = 0; j < parameters.length; j++) {
+						bestValues[j] = values[j][valueIndices[j]];
+					}
+					best = new ParameterSet(operators, parameters, bestValues, performance);
+					List<PortPair> pairs = getInnerSinkExtender().getManagedPairs();
+					for (int i = 0; i < pairs.size(); i++) {
+						pairs.get(i).getOutputPort().deliver(results.get(i));
+					}
+				}
+			});
+			deliver(best);
+			getProgress().complete();
+			return;
+		}
+
+		int counter = 1;
 		while (true) {
 			getLogger().fine("Using parameter set " + counter + " / " + numberOfCombinations + ":");
 			PerformanceVector performance = computeCurrentPerformance();
@@ -210,4 +424,27 @@ public class GridSearchParameterOptimizationOperator extends ParameterOptimizati
 		deliver(best);
 		getProgress().complete();
 	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeBoolean(PARAMETER_ENABLE_PARALLEL_EXECUTION,
+				"This parameter enables the parallel execution of this operator. Please disable the parallel execution if you run into memory problems.",
+				true, true));
+		ParameterType type = new ParameterTypeInt(PARAMETER_MAX_PARALLEL_EVALUATIONS,
+				"The maximal number of parameter combinations which are evaluated at the same time. 0 uses the number of available threads.",
+				0, Integer.MAX_VALUE, 0, true);
+		type.registerDependencyCondition(
+				new BooleanParameterCondition(this, PARAMETER_ENABLE_PARALLEL_EXECUTION, false, true));
+		types.add(type);
+		return types;
+	}
+
+	@Override
+	public OperatorVersion[] getIncompatibleVersionChanges() {
+		OperatorVersion[] old = super.getIncompatibleVersionChanges();
+		OperatorVersion[] versions = Arrays.copyOf(old, old.length + 1);
+		versions[old.length] = VERSION_SERIAL_EVALUATION;
+		return versions;
+	}
 }
@@ -126,6 +126,15 @@ public abstract class ParameterIteratingOperatorChain extends OperatorChain impl
 
 	protected abstract PortPairExtender makeInnerSinkExtender();
 
+	/**
+	 * Returns the extender of the input ports whose data is passed to the inner sources.
+	 *
+	 * @since 8.0
+	 */
+	protected PortPairExtender getInputExtender() {
+		return inputExtender;
+	}
+
 	protected PortPairExtender getInnerSinkExtender() {
 		return innerSinkExtender;
 	}
@@ -117,49 +117,65 @@ public class QuadraticParameterOptimizationOperator extends GridSearchParameterO
 
 		// init operator progress (+ 1 for work after loop)
 		getProgress().setTotal(allParameters.length + 1);
-		while (true) {
-			getLogger().fine("Using parameter set");
-			// set all parameter values
-			for (int j = 0; j < operators.length; j++) {
-				operators[j].getParameters().setParameter(parameters[j], values[j][currentIndex[j]]);
-				getLogger().fine(operators[j] + "." + parameters[j] + " = " + values[j][currentIndex[j]]);
-			}
+		if (canEvaluateInParallel()) {
+			int[] counter = new int[1];
+			evaluateCombinationsInParallel((valueIndices, performance, results) -> {
+				String[] currentValues = new String[parameters.length];
+				for (int j = 0; j < parameters.length; j++) {
+					currentValues[j] = values[j][valueIndices[j]];
+				}
+				allParameters[counter[0]] = new ParameterSet(operators, parameters, currentValues, performance);
+				if (best == null || performance.compareTo(best.getPerformance()) > 0) {
+					best = allParameters[counter[0]];
+					System.arraycopy(valueIndices, 0, bestIndex, 0, numberOfParameters);
+				}
+				counter[0]++;
+			});
+		} else {
+			while (true) {
+				getLogger().fine("Using parameter set");
+				// set all parameter values
+				for (int j = 0; j < operators.length; j++) {
+					operators[j].getParameters().setParameter(parameters[j], values[j][currentIndex[j]]);
+					getLogger().fine(operators[j] + "." + parameters[j] + " = " + values[j][currentIndex[j]]);
+				}
 
-			PerformanceVector performance = getPerformanceVector();
+				PerformanceVector performance = getPerformanceVector();
 
-			String[] currentValues = new String[parameters.length];
-			for (int j = 0; j < parameters.length; j++) {
-				currentValues[j] = values[j][currentIndex[j]];
-			}
-			allParameters[paramIndex] = new ParameterSet(operators, parameters, currentValues, performance);
+				String[] currentValues = new String[parameters.length];
+				for (int j = 0; j < parameters.length; j++) {
+					currentValues[j] = values[j][currentIndex[j]];
+				}
+				allParameters[paramIndex] = new ParameterSet(operators, parameters, currentValues, performance);
 
-			if (best == null || performance.compareTo(best.getPerformance()) > 0) {
-				best = allParameters[paramIndex];
-				// bestIndex = currentIndex;
-				for (int j = 0; j < numberOfParameters; j++) {
-					bestIndex[j] = currentIndex[j];
+				if (best == null || performance.compareTo(best.getPerformance()) > 0) {
+					best = allParameters[paramIndex];
+					// bestIndex = currentIndex;
+					for (int j = 0; j < numberOfParameters; j++) {
+						bestIndex[j] = currentIndex[j];
+					}
 				}
-			}
 
-			getProgress().step();
+				getProgress().step();
 
-			// next parameter values
-			int k = 0;
-			boolean ok = true;
-			while (!(++currentIndex[k] < values[k].length)) {
-				currentIndex[k] = 0;
-				k++;
-				if (k >= currentIndex.length) {
-					ok = false;
+				// next parameter values
+				int k = 0;
+				boolean ok = true;
+				while (!(++currentIndex[k] < values[k].length)) {
+					currentIndex[k] = 0;
+					k++;
+					if (k >= currentIndex.length) {
+						ok = false;
+						break;
+					}
+				}
+				if (!ok) {
 					break;
 				}
-			}
-			if (!ok) {
-				break;
-			}
 
-			paramIndex++;
+				paramIndex++;
 
+			}
 		}
 
 		// start quadratic optimization
@@ -36,8 +36,10 @@ import com.rapidminer.example.AttributeTypeException;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.CompactPolynominalMapping;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.PolynominalAttribute;
 import com.rapidminer.example.utils.ExampleSetBuilder;
 import com.rapidminer.example.utils.ExampleSets;
 import com.rapidminer.operator.Operator;
@@ -125,6 +127,8 @@ public class DataResultSetTranslator {
 		int numberOfAttributes = attributeColumns.length;
 
 		Attribute[] attributes = new Attribute[numberOfAttributes];
+		boolean compactMappings = Boolean
+				.parseBoolean(ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_SYSTEM_COMPACT_NOMINAL_MAPPINGS));
 		for (int i = 0; i < attributes.length; i++) {
 			int attributeValueType = configuration.getColumnMetaData(attributeColumns[i]).getAttributeValueType();
 			if (attributeValueType == Ontology.ATTRIBUTE_VALUE) {
@@ -132,6 +136,9 @@ public class DataResultSetTranslator {
 			}
 			attributes[i] = AttributeFactory.createAttribute(
 					configuration.getColumnMetaData(attributeColumns[i]).getOriginalAttributeName(), attributeValueType);
+			if (compactMappings && attributes[i] instanceof PolynominalAttribute) {
+				attributes[i].setMapping(new CompactPolynominalMapping());
+			}
 		}
 
 		// check whether all columns are accessible
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.preprocessing;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.UserError;
+import com.rapidminer.operator.tools.ExampleSetToMappedFile;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeDirectory;
+
+
+/**
+ * Writes the data to a file and delivers an example set which reads its values from this file
+ * when they are accessed, see {@link ExampleSetToMappedFile}. Only the accessed parts of the file
+ * are held in memory, so that following operators can process example sets larger than the
+ * available memory. Changed values are kept in memory, the file is never modified.
+ * <p>
+ * The file is created in the given directory or in the temporary directory of the system and is
+ * deleted when RapidMiner exits.
+ *
+ * @since 8.0
+ */
+public class MaterializeDataOnDisk extends AbstractDataProcessing {
+
+	public static final String PARAMETER_DIRECTORY = "directory";
+
+	public MaterializeDataOnDisk(OperatorDescription description) {
+		super(description);
+	}
+
+	@Override
+	public ExampleSet apply(ExampleSet exampleSet) throws OperatorException {
+		File directory = isParameterSet(PARAMETER_DIRECTORY) ? getParameterAsFile(PARAMETER_DIRECTORY) : null;
+		if (directory != null && !directory.isDirectory()) {
+			throw new UserError(this, 324, directory);
+		}
+		File file = null;
+		try {
+			file = File.createTempFile("rm_mapped_", ".bin", directory);
+			file.deleteOnExit();
+			ExampleSetToMappedFile mappedFile = new ExampleSetToMappedFile();
+			mappedFile.write(exampleSet, file);
+			return mappedFile.read(file);
+		} catch (IOException e) {
+			throw new UserError(this, e, 303, file != null ? file : directory, e.getMessage());
+		}
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeDirectory(PARAMETER_DIRECTORY,
+				"The directory of the file holding the data. If not set, the temporary directory of the system is used.",
+				true));
+		return types;
+	}
+}
@@ -29,6 +29,7 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.SimpleAttributes;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.BinominalMapping;
+import com.rapidminer.example.table.CompactPolynominalMapping;
 import com.rapidminer.example.table.NominalMapping;
 import com.rapidminer.example.table.PolynominalMapping;
 import com.rapidminer.example.table.ViewAttribute;
@@ -51,7 +52,9 @@ public class RemoveUnusedNominalValuesModel extends PreprocessingModel {
 
 		public MappingTranslation(NominalMapping originalMapping) {
 			this.originalMapping = originalMapping;
-			if (originalMapping instanceof PolynominalMapping) {
+			if (originalMapping instanceof CompactPolynominalMapping) {
+				this.newMapping = new CompactPolynominalMapping();
+			} else if (originalMapping instanceof PolynominalMapping) {
 				this.newMapping = new PolynominalMapping();
 			} else {
 				this.newMapping = new BinominalMapping();
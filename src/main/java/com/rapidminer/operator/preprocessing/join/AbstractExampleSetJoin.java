@@ -66,6 +66,12 @@ public abstract class AbstractExampleSetJoin extends Operator {
 
 	public static final OperatorVersion VERSION_SWAPPED_INPUT_PORTS = new OperatorVersion(5, 1, 8);
 
+	/**
+	 * Up to this version, rows without a left example and with a missing nominal key value get the
+	 * first value of the mapping of the right key attribute as key value.
+	 */
+	public static final OperatorVersion VERSION_MISSING_KEY_FIRST_MAPPING_VALUE = new OperatorVersion(7, 6, 3);
+
 	protected static final String LEFT_EXAMPLE_SET_INPUT = "left";
 	protected static final String RIGHT_EXAMPLE_SET_INPUT = "right";
 
@@ -427,7 +433,7 @@ public abstract class AbstractExampleSetJoin extends Operator {
 
 	@Override
 	public OperatorVersion[] getIncompatibleVersionChanges() {
-		return new OperatorVersion[] { VERSION_SWAPPED_INPUT_PORTS };
+		return new OperatorVersion[] { VERSION_SWAPPED_INPUT_PORTS, VERSION_MISSING_KEY_FIRST_MAPPING_VALUE };
 	}
 
 	@Override
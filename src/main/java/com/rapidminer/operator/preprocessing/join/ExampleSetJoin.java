@@ -20,11 +20,9 @@ package com.rapidminer.operator.preprocessing.join;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import com.rapidminer.example.Attribute;
@@ -32,12 +30,12 @@ import com.rapidminer.example.AttributeRole;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.utils.ExampleSetBuilder;
 import com.rapidminer.example.utils.ExampleSets;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.ProcessSetupError.Severity;
-import com.rapidminer.operator.ProcessStoppedException;
 import com.rapidminer.operator.SimpleProcessSetupError;
 import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.annotation.ResourceConsumptionEstimator;
@@ -77,6 +75,11 @@ import com.rapidminer.tools.container.Pair;
  */
 public class ExampleSetJoin extends AbstractExampleSetJoin {
 
+	/**
+	 * @deprecated since 8.0, the join works on primitive key arrays and does not use this wrapper
+	 *             anymore
+	 */
+	@Deprecated
 	public static class DoubleArrayWrapper {
 
 		public DoubleArrayWrapper(double[] data) {
@@ -110,6 +113,7 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 	public static final String PARAMETER_USE_ID = "use_id_attribute_as_key";
 	public static final String PARAMETER_KEEP_BOTH_JOIN_ATTRIBUTES = "keep_both_join_attributes";
 	public static final String PARAMETER_FILL_LEFT_ID = "";
+	public static final String PARAMETER_JOIN_ALGORITHM = "join_algorithm";
 
 	public static final String[] JOIN_TYPES = { "inner", "left", "right", "outer" };
 
@@ -121,6 +125,18 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 
 	public static final int JOIN_TYPE_OUTER = 3;
 
+	public static final String[] JOIN_ALGORITHMS = { "automatic", "hash_join", "sort_merge_join" };
+
+	/**
+	 * Uses the sort merge join if a sample of both example sets is sorted, otherwise the hash join.
+	 */
+	public static final int JOIN_ALGORITHM_AUTOMATIC = 0;
+
+	public static final int JOIN_ALGORITHM_HASH = 1;
+
+	/** Requires both example sets to be sorted ascending by the key attributes. */
+	public static final int JOIN_ALGORITHM_SORT_MERGE = 2;
+
 	public ExampleSetJoin(OperatorDescription description) {
 		super(description);
 
@@ -201,34 +217,27 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 	protected ExampleSetBuilder joinData(ExampleSet leftExampleSet, ExampleSet rightExampleSet,
 			List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList) throws OperatorException {
 		int joinType = getParameterAsInt(PARAMETER_JOIN_TYPE);
-		leftExampleSet.remapIds();
-		rightExampleSet.remapIds();
 
 		// the attributes that are used in the left and the right table as key attributes:
-
 		Pair<Attribute[], Attribute[]> keyAttributes = getKeyAttributes(leftExampleSet, rightExampleSet);
 
-		switch (joinType) {
-			case JOIN_TYPE_INNER:
-				getProgress().setTotal(leftExampleSet.size());
-				return performInnerJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList,
-						keyAttributes);
-			case JOIN_TYPE_LEFT:
-				getProgress().setTotal(leftExampleSet.size());
-				return performLeftJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList,
-						keyAttributes, null);
-			case JOIN_TYPE_RIGHT:
-				getProgress().setTotal(rightExampleSet.size());
-				return performRightJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList,
-						keyAttributes);
-			case JOIN_TYPE_OUTER:
-				getProgress().setTotal(leftExampleSet.size() + rightExampleSet.size());
-				return performOuterJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList,
-						keyAttributes);
-			default:
-				assert false;	// illegal join type
-				return null;
+		// when joining on ids, the mappings of the id attributes are not extended
+		boolean useId = getParameterAsBoolean(PARAMETER_USE_ID);
+		int joinAlgorithm = getParameterAsInt(PARAMETER_JOIN_ALGORITHM);
+		JoinedRows rows = null;
+		if (joinAlgorithm == JOIN_ALGORITHM_SORT_MERGE || joinAlgorithm == JOIN_ALGORITHM_AUTOMATIC
+				&& SortMergeJoin.isSampleSorted(leftExampleSet, keyAttributes.getFirst())
+				&& SortMergeJoin.isSampleSorted(rightExampleSet, keyAttributes.getSecond())) {
+			// returns null in automatic mode if the example sets turn out not to be sorted
+			rows = new SortMergeJoin(this, joinType, !useId, joinAlgorithm == JOIN_ALGORITHM_SORT_MERGE)
+					.join(leftExampleSet, rightExampleSet, keyAttributes.getFirst(), keyAttributes.getSecond());
+		}
+		if (rows == null) {
+			rows = new PartitionedHashJoin(this, joinType, !useId).join(leftExampleSet, rightExampleSet,
+					keyAttributes.getFirst(), keyAttributes.getSecond());
 		}
+		return createJoinedData(leftExampleSet, rightExampleSet, rows, originalAttributeSources, unionAttributeList,
+				keyAttributes);
 	}
 
 	/**
@@ -303,422 +312,88 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 	}
 
 	/**
-	 * Performs an inner join, i.e. the result table contains all examples from the source example
-	 * sets whose key attributes match.
-	 *
+	 * Creates the joined example set from the given rows. Combined rows contain all attributes
+	 * present in originalAttributeSources from both examples. For rows without a left or right
+	 * example, the respective attributes are missing. Exception: if a row has only a right example
+	 * and only one of the key attributes is kept, the value of the corresponding right key attribute
+	 * is used for the left key attribute.
 	 */
-	private ExampleSetBuilder performInnerJoin(ExampleSet leftExampleSet, ExampleSet rightExampleSet,
+	private ExampleSetBuilder createJoinedData(ExampleSet leftExampleSet, ExampleSet rightExampleSet, JoinedRows rows,
 			List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList,
-			Pair<Attribute[], Attribute[]> keyAttributes) throws ProcessStoppedException {
-		ExampleSetBuilder builder = ExampleSets.from(unionAttributeList);
-
-		Attribute[] leftKeyAttributes = null;
-		Attribute[] rightKeyAttributes = null;
-		Map<DoubleArrayWrapper, List<Example>> rightKeyMapping = null;
-		boolean useId = getParameterAsBoolean(PARAMETER_USE_ID);
-
-		if (!useId) {
-			// create key mapping for right example set
-			leftKeyAttributes = keyAttributes.getFirst();
-			rightKeyAttributes = keyAttributes.getSecond();
-			rightKeyMapping = createKeyMapping(rightExampleSet, rightKeyAttributes, leftKeyAttributes);
-		}
-
-		int progressCounter = 0;
-		// iterate over all example from left table and search for matching examples in right table:
-		for (Example leftExample : leftExampleSet) {
-
-			List<Example> matchingRightExamples = getMatchingExamples(leftExampleSet, rightExampleSet, leftKeyAttributes,
-					rightKeyMapping, useId, leftExample);
-
-			if (matchingRightExamples != null) {
-				for (Example rightExample : matchingRightExamples) {
-					addCombinedOccurence(originalAttributeSources, unionAttributeList, builder, leftExample, rightExample);
-				}
-			}
-
-			// trigger operator progress every 100 examples
-			++progressCounter;
-			if (progressCounter % 100 == 0) {
-				getProgress().step(100);
-				progressCounter = 0;
-			}
-		}
-		return builder;
-	}
-
-	/**
-	 * Performs a left join.
-	 *
-	 */
-	private ExampleSetBuilder performLeftJoin(ExampleSet leftExampleSet, ExampleSet rightExampleSet,
-			List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList,
-			Pair<Attribute[], Attribute[]> keyAttributes, Set<DoubleArrayWrapper> matchedExamplesInRightTable)
-			throws ProcessStoppedException {
-		ExampleSetBuilder builder = ExampleSets.from(unionAttributeList);
-
-		Attribute[] leftKeyAttributes = null;
-		Attribute[] rightKeyAttributes = null;
-		Map<DoubleArrayWrapper, List<Example>> rightKeyMapping = null;
-		boolean useId = getParameterAsBoolean(PARAMETER_USE_ID);
-
-		leftKeyAttributes = keyAttributes.getFirst();
-		rightKeyAttributes = keyAttributes.getSecond();
-		if (!useId) {
-			// create key mapping for right example set
-			rightKeyMapping = createKeyMapping(rightExampleSet, rightKeyAttributes, leftKeyAttributes);
-		}
-
-		int progressCounter = 0;
-		// iterate over all example from left table and search for matching examples in right table:
-		for (Example leftExample : leftExampleSet) {
-			List<Example> matchingRightExamples = getMatchingExamples(leftExampleSet, rightExampleSet, leftKeyAttributes,
-					rightKeyMapping, useId, leftExample);
-
-			if (matchingRightExamples != null) {
-				// add combination of left example and all matching right examples
-				for (Example rightExample : matchingRightExamples) {
-					addCombinedOccurence(originalAttributeSources, unionAttributeList, builder, leftExample, rightExample);
-					if (matchedExamplesInRightTable != null) {
-						matchedExamplesInRightTable
-								.add(new DoubleArrayWrapper(getKeyValues(rightExample, rightKeyAttributes)));
-					}
-				}
-			} else { // no rows with this key in right table
-				// insert this row with null values for the right table
-				addLeftOnlyOccurence(originalAttributeSources, unionAttributeList, builder, leftExample);
-			}
-			// trigger operator progress every 100 examples
-			++progressCounter;
-			if (progressCounter % 100 == 0) {
-				getProgress().step(100);
-				progressCounter = 0;
-			}
-		}
-		return builder;
-	}
-
-	/**
-	 * Performs a right join.
-	 *
-	 */
-	private ExampleSetBuilder performRightJoin(ExampleSet leftExampleSet, ExampleSet rightExampleSet,
-			List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList,
-			Pair<Attribute[], Attribute[]> keyAttributes) throws ProcessStoppedException {
-		ExampleSetBuilder builder = ExampleSets.from(unionAttributeList);
-
-		Attribute[] leftKeyAttributes = null;
-		Attribute[] rightKeyAttributes = null;
-		Map<DoubleArrayWrapper, List<Example>> leftKeyMapping = null;
-		boolean useId = getParameterAsBoolean(PARAMETER_USE_ID);
-
-		Attribute leftIdAttribute = null;
-		Attribute rightIdAttribute = null;
-		if (useId) {
-			// needed for getting the right id when adding examples which occur only in right table
-			leftIdAttribute = leftExampleSet.getAttributes().getId();
-			rightIdAttribute = rightExampleSet.getAttributes().getId();
-			leftKeyAttributes = new Attribute[] { leftIdAttribute };
-			rightKeyAttributes = new Attribute[] { rightIdAttribute };
-		} else {
-			// create key mapping for right example set
-			leftKeyAttributes = keyAttributes.getFirst();
-			rightKeyAttributes = keyAttributes.getSecond();
-			leftKeyMapping = createKeyMapping(leftExampleSet, leftKeyAttributes, rightKeyAttributes);
-		}
-
+			Pair<Attribute[], Attribute[]> keyAttributes) throws OperatorException {
 		boolean keepBoth = getParameterAsBoolean(PARAMETER_KEEP_BOTH_JOIN_ATTRIBUTES);
 		boolean removeDoubleAttributes = getParameterAsBoolean(PARAMETER_REMOVE_DOUBLE_ATTRIBUTES);
-
-		int progressCounter = 0;
-		// iterate over all example from left table and search for matching examples in right table:
-		for (Example rightExample : rightExampleSet) {
-			List<Example> matchingLeftExamples = getMatchingExamples(rightExampleSet, leftExampleSet, rightKeyAttributes,
-					leftKeyMapping, useId, rightExample);
-
-			if (matchingLeftExamples != null) {
-				// add combination of left example and all matching right examples
-				for (Example leftExample : matchingLeftExamples) {
-					addCombinedOccurence(originalAttributeSources, unionAttributeList, builder, leftExample, rightExample);
-				}
-			} else {
-				addRightOnlyOccurence(originalAttributeSources, unionAttributeList, builder, rightExample, leftKeyAttributes,
-						rightKeyAttributes, keepBoth, removeDoubleAttributes);
-			}
-			// trigger operator progress every 100 examples
-			++progressCounter;
-			if (progressCounter % 100 == 0) {
-				getProgress().step(100);
-				progressCounter = 0;
-			}
-		}
-		return builder;
-	}
-
-	/**
-	 * Performs an outer join (not to be confused with a full outer join).
-	 *
-	 */
-	private ExampleSetBuilder performOuterJoin(ExampleSet leftExampleSet, ExampleSet rightExampleSet,
-			List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList,
-			Pair<Attribute[], Attribute[]> keyAttributes) throws ProcessStoppedException {
-		ExampleSetBuilder builder;
-
+		boolean missingKeyFirstMappingValue = getCompatibilityLevel().isAtMost(VERSION_MISSING_KEY_FIRST_MAPPING_VALUE);
 		Attribute[] leftKeyAttributes = keyAttributes.getFirst();
 		Attribute[] rightKeyAttributes = keyAttributes.getSecond();
 
-		// perform left join (an outer join is the union of a left join and a right join on the same
-		// tables)
-		Set<DoubleArrayWrapper> mappedRightExamples = new HashSet<>();
-		builder = performLeftJoin(leftExampleSet, rightExampleSet, originalAttributeSources, unionAttributeList,
-				keyAttributes, mappedRightExamples);
+		// resolve the examples once instead of for every value
+		DataRow[] leftDataRows = getDataRows(leftExampleSet);
+		DataRow[] rightDataRows = getDataRows(rightExampleSet);
 
-		boolean keepBoth = getParameterAsBoolean(PARAMETER_KEEP_BOTH_JOIN_ATTRIBUTES);
-		boolean removeDoubleAttributes = getParameterAsBoolean(PARAMETER_REMOVE_DOUBLE_ATTRIBUTES);
-		int progressCounter = 0;
-		for (Example rightExample : rightExampleSet) {
-			// perform right join, but add example only if it has not been matched during left join
-			// above
-			if (!mappedRightExamples.contains(new DoubleArrayWrapper(getKeyValues(rightExample, rightKeyAttributes)))) {
-				addRightOnlyOccurence(originalAttributeSources, unionAttributeList, builder, rightExample, leftKeyAttributes,
-						rightKeyAttributes, keepBoth, removeDoubleAttributes);
-			}
-			// trigger operator progress every 100 examples
-			++progressCounter;
-			if (progressCounter % 100 == 0) {
-				getProgress().step(100);
-				progressCounter = 0;
-			}
-		}
-		return builder;
-	}
-
-	/**
-	 * Creates an example which consists of the combination of leftExample an rightExample. Only
-	 * those attributes are added, which are present in originalAttributeSources. The newly
-	 * constructed example is added to unionTable.
-	 */
-	private void addCombinedOccurence(List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList,
-			ExampleSetBuilder builder, Example leftExample, Example rightExample) {
-		double[] unionDataRow = new double[unionAttributeList.size()];
-		int attributeIndex = 0;
-		for (AttributeSource attributeSource : originalAttributeSources) {
-			if (attributeSource.getSource() == AttributeSource.FIRST_SOURCE) {
-				unionDataRow[attributeIndex] = leftExample.getValue(attributeSource.getAttribute());
-			} else if (attributeSource.getSource() == AttributeSource.SECOND_SOURCE) {
-				unionDataRow[attributeIndex] = rightExample.getValue(attributeSource.getAttribute());
-			}
-			attributeIndex++;
-		}
-		builder.addRow(unionDataRow);
-	}
-
-	/**
-	 * Creates an example and adds it to unionTable. The example contains all attributes from
-	 * leftExample, which are also in originalAttributeSources, and NaN for all attributes which
-	 * should normally be taken from a right example.
-	 */
-	private void addLeftOnlyOccurence(List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList,
-			ExampleSetBuilder builder, Example leftExample) {
-		double[] unionDataRow = new double[unionAttributeList.size()];
-		int attributeIndex = 0;
+		ExampleSetBuilder builder = ExampleSets.from(unionAttributeList).withBlankSize(rows.size());
+		Iterator<Attribute> unionAttributes = unionAttributeList.iterator();
 		for (AttributeSource attributeSource : originalAttributeSources) {
+			Attribute unionAttribute = unionAttributes.next();
+			Attribute attribute = attributeSource.getAttribute();
 			if (attributeSource.getSource() == AttributeSource.FIRST_SOURCE) {
-				unionDataRow[attributeIndex] = leftExample.getValue(attributeSource.getAttribute());
-			} else if (attributeSource.getSource() == AttributeSource.SECOND_SOURCE) {
-				unionDataRow[attributeIndex] = Double.NaN;
-			}
-			attributeIndex++;
-		}
-		builder.addRow(unionDataRow);
-	}
-
-	/**
-	 * Creates an example and adds it to unionTable. The example contains all attributes from
-	 * rightExample, which are also in originalAttributeSources, and NaN for all attributes which
-	 * should normally be taken from a left example. Exception: if key attributes would be taken
-	 * from left example and only one id attribute is kept, instead of NaN the value of the
-	 * corresponding attribute in rightExample is taken.
-	 */
-	private void addRightOnlyOccurence(List<AttributeSource> originalAttributeSources, List<Attribute> unionAttributeList,
-			ExampleSetBuilder builder, Example rightExample, Attribute[] leftKeyAttributes, Attribute[] rightKeyAttributes,
-			boolean keepBoth, boolean removeDoubleAttributes) {
-		double[] unionDataRow = new double[unionAttributeList.size()];
-		int attributeIndex = 0;
-		for (AttributeSource attributeSource : originalAttributeSources) {
-			if (attributeSource.getSource() == AttributeSource.FIRST_SOURCE) {
-				// since keys attributes are always taken from left example set, ID value must be
-				// fetched
-				// from right example set explicitly
-
-				// find key id
-				int id = -1;
+				// since keys attributes are always taken from left example set, the key values of rows
+				// without left example must be fetched from right example set explicitly
+				Attribute rightKeyAttribute = null;
 				for (int i = 0; i < leftKeyAttributes.length; ++i) {
-					if (attributeSource.getAttribute() == leftKeyAttributes[i]) {
-						id = i;
+					if (attribute == leftKeyAttributes[i]) {
+						boolean sameName = leftKeyAttributes[i].getName().equals(rightKeyAttributes[i].getName());
+						if (!keepBoth || (removeDoubleAttributes && sameName)) {
+							rightKeyAttribute = rightKeyAttributes[i];
+						}
 						break;
 					}
 				}
-
-				// now use correct key attribute
-				if (id >= 0) {
-					boolean sameName = leftKeyAttributes[id].getName().equals(rightKeyAttributes[id].getName());
-					if (keepBoth && !(removeDoubleAttributes && sameName)) {
-						unionDataRow[attributeIndex] = Double.NaN;
-					} else {
-						if (leftKeyAttributes[id].isNominal()) {
-							// consider different mapping in left and right attribute
-							Attribute rightAttribute = rightKeyAttributes[id];
-							Attribute leftAttribute = leftKeyAttributes[id];
-							int rightIndex = (int) rightExample.getValue(rightAttribute);
-							String valueAsString = rightAttribute.getMapping().mapIndex(rightIndex);
-							int leftIndex = leftAttribute.getMapping().mapString(valueAsString);
-							unionDataRow[attributeIndex] = leftIndex;
-						} else {
-							unionDataRow[attributeIndex] = rightExample.getValue(rightKeyAttributes[id]);
-						}
+				final Attribute rightAttribute = rightKeyAttribute;
+				builder.withColumnFiller(unionAttribute, row -> {
+					int leftRow = rows.getLeftRow(row);
+					if (leftRow != JoinedRows.NONE) {
+						return leftDataRows[leftRow].get(attribute);
 					}
-				} else {
-					unionDataRow[attributeIndex] = Double.NaN;
-				}
-			} else if (attributeSource.getSource() == AttributeSource.SECOND_SOURCE) {
-				unionDataRow[attributeIndex] = rightExample.getValue(attributeSource.getAttribute());
-			}
-			attributeIndex++;
-		}
-		builder.addRow(unionDataRow);
-	}
-
-	/**
-	 * Maps all values of the keyAttributes which occur in exampleSet to a list of matching
-	 * examples.
-	 *
-	 * @param exampleSet
-	 *            The example set for whose key attributes the mapping is created
-	 * @param keyAttributes
-	 *            the attributes which resemble the key attributes
-	 * @param matchKeyAttributes
-	 *            if not null, the values of nominal keyAttributes are mapped to match the mapping
-	 *            of these attributes prior to adding them to the map
-	 * @return
-	 */
-	private Map<DoubleArrayWrapper, List<Example>> createKeyMapping(ExampleSet exampleSet, Attribute[] keyAttributes,
-			Attribute[] matchKeyAttributes) {
-		Map<DoubleArrayWrapper, List<Example>> keyMapping = new HashMap<>();
-
-		assert keyAttributes.length == matchKeyAttributes.length;
-
-		// create mapping from nominal values of keyAttributes to matchKeyAttributes
-		Map<Attribute, Map<Double, Double>> valueMapping = null;
-		if (matchKeyAttributes != null) {
-			valueMapping = new HashMap<>();
-			for (int attributeNumber = 0; attributeNumber < keyAttributes.length; ++attributeNumber) {
-				if (keyAttributes[attributeNumber].isNominal()) {
-					Map<Double, Double> valueMap = new HashMap<>();
-					// TODO: iterate over getMappint().values() rather than relying on the
-					// assumption that values appear in increasing order
-					for (int valueNumber = 0; valueNumber < keyAttributes[attributeNumber].getMapping()
-							.size(); ++valueNumber) {
-						String valueString = keyAttributes[attributeNumber].getMapping().mapIndex(valueNumber);
-						valueMap.put((double) valueNumber,
-								(double) matchKeyAttributes[attributeNumber].getMapping().mapString(valueString));
+					int rightRow = rows.getRightRow(row);
+					if (rightAttribute == null || rightRow == JoinedRows.NONE) {
+						return Double.NaN;
 					}
-					valueMapping.put(keyAttributes[attributeNumber], valueMap);
-				}
-			}
-		}
-
-		double[] keyValues;
-
-		for (Example example : exampleSet) {
-			boolean continueIteration = false;
-			// fetch key values from example
-			keyValues = getKeyValues(example, keyAttributes);
-			if (valueMapping != null) {
-				// remap keyValues to match values of other attributes:
-				for (int i = 0; i < keyValues.length; ++i) {
-					if (Double.isNaN(keyValues[i])) {
-						continueIteration = true;
-						break;
+					double value = rightDataRows[rightRow].get(rightAttribute);
+					if (attribute.isNominal() && Double.isNaN(value) && missingKeyFirstMappingValue
+							&& rightAttribute.getMapping().size() > 0) {
+						// old processes used the first value of the mapping for missing values
+						value = 0;
 					}
-					if (keyAttributes[i].isNominal()) {
-						keyValues[i] = valueMapping.get(keyAttributes[i]).get(keyValues[i]);
+					if (attribute.isNominal() && !Double.isNaN(value)) {
+						// consider different mapping in left and right attribute
+						return attribute.getMapping().mapString(rightAttribute.getMapping().mapIndex((int) value));
 					}
-				}
-				if (continueIteration) {
-					continue;
-				}
-
-			}
-
-			// check if this key is in keyMapping. If not, add:
-			List<Example> keyExamples = keyMapping.get(new DoubleArrayWrapper(keyValues));
-			if (keyExamples != null) {
-				// add current example:
-				keyExamples.add(example);
-			} else {
-				// create set and add to keyMapping:
-				keyExamples = new LinkedList<>();
-				keyExamples.add(example);
-				keyMapping.put(new DoubleArrayWrapper(keyValues), keyExamples);
-			}
-		}
-		;
-		return keyMapping;
-	}
-
-	/**
-	 * Gets examples from secondExampleSet which match the values of the keyAttributes from
-	 * firstExample. If PARAMETER_USE_ID_FOR_JOIN is true, the standard id-mapping of example sets
-	 * is used. If not, secondKeyMapping is used (@see createKeyMapping())
-	 *
-	 */
-	private List<Example> getMatchingExamples(ExampleSet firstExampleSet, ExampleSet secondExampleSet,
-			Attribute[] firstKeyAttributes, Map<DoubleArrayWrapper, List<Example>> secondKeyMapping, boolean useId,
-			Example referenceExample) {
-		// find right examples matching current left example:
-		List<Example> matchingExamples = null;
-		if (useId) {
-			// use existent id mapping of right example set
-			Attribute firstIdAttribute = firstExampleSet.getAttributes().getId();
-			Attribute secondIdAttribute = secondExampleSet.getAttributes().getId();
-			double firstIdValue = referenceExample.getValue(firstIdAttribute);
-			// firstIdValue is NaN if the first value in the id column is a missing value
-			if (Double.isNaN(firstIdValue)) {
-				return null;
-			}
-			int[] matchingExampleIndices = null;
-			if (firstIdAttribute.isNominal()) {
-				matchingExampleIndices = secondExampleSet.getExampleIndicesFromId(
-						secondIdAttribute.getMapping().getIndex(firstIdAttribute.getMapping().mapIndex((int) firstIdValue)));
-			} else {
-				matchingExampleIndices = secondExampleSet.getExampleIndicesFromId(firstIdValue);
-			}
-			if (matchingExampleIndices != null) {
-				matchingExamples = new LinkedList<>();
-				for (int secondExampleIndex : matchingExampleIndices) {
-					Example matchingExample = secondExampleSet.getExample(secondExampleIndex);
-					matchingExamples.add(matchingExample);
-				}
+					return value;
+				});
+			} else if (attributeSource.getSource() == AttributeSource.SECOND_SOURCE) {
+				builder.withColumnFiller(unionAttribute, row -> {
+					int rightRow = rows.getRightRow(row);
+					if (rightRow == JoinedRows.NONE) {
+						return Double.NaN;
+					}
+					return rightDataRows[rightRow].get(attribute);
+				});
 			}
-		} else {
-			// use previously created mapping
-			double[] leftKeyValues = getKeyValues(referenceExample, firstKeyAttributes);
-			matchingExamples = secondKeyMapping.get(new DoubleArrayWrapper(leftKeyValues));
 		}
-		return matchingExamples;
+		return builder;
 	}
 
 	/**
-	 * Returns an array of doubles, which contains the values of the keyAttributes of example.
+	 * Returns the data rows of the examples of the given example set in the order of the examples.
 	 */
-	private double[] getKeyValues(Example example, Attribute[] keyAttributes) {
-		int numKeys = keyAttributes.length;
-		double[] keyValues = new double[numKeys];
-		for (int i = 0; i < numKeys; ++i) {
-			keyValues[i] = example.getValue(keyAttributes[i]);
+	private static DataRow[] getDataRows(ExampleSet exampleSet) {
+		DataRow[] dataRows = new DataRow[exampleSet.size()];
+		int i = 0;
+		for (Example example : exampleSet) {
+			dataRows[i++] = example.getDataRow();
 		}
-		return keyValues;
+		return dataRows;
 	}
 
 	/**
@@ -796,6 +471,10 @@ public class ExampleSetJoin extends AbstractExampleSetJoin {
 				false, true);
 		types.add(keepBoth);
 
+		types.add(new ParameterTypeCategory(PARAMETER_JOIN_ALGORITHM,
+				"Specifies how matching examples are found. The sort merge join needs less memory but requires both example sets to be sorted ascending by the key attributes. The automatic mode uses it if a sample of both example sets is sorted.",
+				JOIN_ALGORITHMS, JOIN_ALGORITHM_AUTOMATIC, true));
+
 		return types;
 	}
 
@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.preprocessing.join;
+
+/**
+ * The rows of a join result given by the indices of the combined examples of the left and the
+ * right example set. An index of {@code -1} means that the row has no partner in that example set.
+ *
+ * @since 8.0
+ */
+final class JoinedRows {
+
+	/** index marking that a row has no example from the respective example set */
+	static final int NONE = -1;
+
+	private final int[] leftRows;
+
+	private final int[] rightRows;
+
+	JoinedRows(int[] leftRows, int[] rightRows) {
+		this.leftRows = leftRows;
+		this.rightRows = rightRows;
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	int size() {
+		return leftRows.length;
+	}
+
+	/**
+	 * @return the index of the left example of the given row or {@link #NONE}
+	 */
+	int getLeftRow(int row) {
+		return leftRows[row];
+	}
+
+	/**
+	 * @return the index of the right example of the given row or {@link #NONE}
+	 */
+	int getRightRow(int row) {
+		return rightRows[row];
+	}
+}
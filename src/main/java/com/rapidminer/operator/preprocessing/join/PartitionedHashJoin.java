@@ -0,0 +1,408 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.preprocessing.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.NominalMapping;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.UserError;
+import com.rapidminer.studio.internal.Resources;
+
+
+/**
+ * Matches the examples of two example sets by the values of their key attributes. The keys of
+ * both sides are read into primitive arrays, both sides are partitioned by the hash of their keys
+ * and the partitions are joined in parallel: a hash table is built from the build side rows of a
+ * partition and probed with the probe side rows of the same partition.
+ * <p>
+ * The right example set is the build side except for the right join, where the left example set
+ * is. The result contains the rows in the order of the probe side, matches of the same probe row
+ * are in the order of the build side. Rows without matches are added directly after the last
+ * matched row of the probe side (left, right and outer join) or at the end (build side rows for the
+ * outer join).
+ * <p>
+ * Rows with a missing value in one of the key attributes never match. The values of nominal key
+ * attributes of the build side are translated into the mapping of the probe side.
+ *
+ * @since 8.0
+ */
+final class PartitionedHashJoin {
+
+	/** below this number of rows on both sides, the join is done in a single partition */
+	private static final int MIN_ROWS_FOR_PARTITIONING = 100_000;
+
+	/** the number of partitions per thread, to balance partitions of different size */
+	private static final int PARTITIONS_PER_THREAD = 4;
+
+	private static final int PROGRESS_STEPS = 1000;
+
+	/** the keys of the examples of one side of the join */
+	private static final class Keys {
+
+		/** the key values of all rows, {@code numberOfKeys} entries per row */
+		private final long[] values;
+
+		private final int[] hashes;
+
+		/** whether the row has a key, i.e. no missing values in the key attributes */
+		private final boolean[] valid;
+
+		private final int numberOfKeys;
+
+		private Keys(int size, int numberOfKeys) {
+			this.values = new long[size * numberOfKeys];
+			this.hashes = new int[size];
+			this.valid = new boolean[size];
+			this.numberOfKeys = numberOfKeys;
+		}
+
+		private int size() {
+			return hashes.length;
+		}
+
+		private boolean equalKeys(int row, Keys other, int otherRow) {
+			if (hashes[row] != other.hashes[otherRow]) {
+				return false;
+			}
+			int offset = row * numberOfKeys;
+			int otherOffset = otherRow * numberOfKeys;
+			for (int i = 0; i < numberOfKeys; i++) {
+				if (values[offset + i] != other.values[otherOffset + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private final Operator operator;
+
+	private final int joinType;
+
+	private final boolean addMissingNominalValues;
+
+	/**
+	 * Creates a new join.
+	 *
+	 * @param operator
+	 *            the operator used for progress and parallelization
+	 * @param joinType
+	 *            one of the join types of {@link ExampleSetJoin}
+	 * @param addMissingNominalValues
+	 *            whether values of nominal build side keys not contained in the mapping of the probe
+	 *            side are added to that mapping. If not, examples with those keys cannot match.
+	 */
+	PartitionedHashJoin(Operator operator, int joinType, boolean addMissingNominalValues) {
+		this.operator = operator;
+		this.joinType = joinType;
+		this.addMissingNominalValues = addMissingNominalValues;
+	}
+
+	/**
+	 * Joins the example sets using the given key attributes.
+	 *
+	 * @param leftExampleSet
+	 *            the left example set
+	 * @param rightExampleSet
+	 *            the right example set
+	 * @param leftKeyAttributes
+	 *            the key attributes of the left example set
+	 * @param rightKeyAttributes
+	 *            the key attributes of the right example set, in the same order as the left ones
+	 * @return the joined rows
+	 */
+	JoinedRows join(ExampleSet leftExampleSet, ExampleSet rightExampleSet, Attribute[] leftKeyAttributes,
+			Attribute[] rightKeyAttributes) throws OperatorException {
+		boolean probeLeft = joinType != ExampleSetJoin.JOIN_TYPE_RIGHT;
+		ExampleSet probeSet = probeLeft ? leftExampleSet : rightExampleSet;
+		ExampleSet buildSet = probeLeft ? rightExampleSet : leftExampleSet;
+		Attribute[] probeKeyAttributes = probeLeft ? leftKeyAttributes : rightKeyAttributes;
+		Attribute[] buildKeyAttributes = probeLeft ? rightKeyAttributes : leftKeyAttributes;
+
+		operator.getProgress().setTotal(probeSet.size() + buildSet.size());
+		Keys buildKeys = readKeys(buildSet, buildKeyAttributes, probeKeyAttributes);
+		Keys probeKeys = readKeys(probeSet, probeKeyAttributes, null);
+
+		// partitioning by the upper bits of the hashes, the tables of the partitions use the lower
+		ConcurrencyContext context = Resources.getConcurrencyContext(operator);
+		int partitionBits = 0;
+		if (context.getParallelism() > 1
+				&& Math.max(probeSet.size(), buildSet.size()) >= MIN_ROWS_FOR_PARTITIONING) {
+			partitionBits = 32 - Integer.numberOfLeadingZeros(context.getParallelism() * PARTITIONS_PER_THREAD - 1);
+		}
+		final int numberOfPartitions = 1 << partitionBits;
+		final int[] buildStarts = new int[numberOfPartitions + 1];
+		final int[] buildOrder = partition(buildKeys, partitionBits, buildStarts);
+		final int[] probeStarts = new int[numberOfPartitions + 1];
+		final int[] probeOrder = partition(probeKeys, partitionBits, probeStarts);
+
+		final int[] matchOffsets = new int[probeKeys.size()];
+		final int[] matchCounts = new int[probeKeys.size()];
+		final boolean[] buildMatched = new boolean[buildKeys.size()];
+		final int[][] partitionMatches = new int[numberOfPartitions][];
+
+		List<Callable<Void>> tasks = new ArrayList<>(numberOfPartitions);
+		for (int partition = 0; partition < numberOfPartitions; partition++) {
+			final int p = partition;
+			tasks.add(() -> {
+				partitionMatches[p] = joinPartition(buildKeys, buildOrder, buildStarts[p], buildStarts[p + 1], probeKeys,
+						probeOrder, probeStarts[p], probeStarts[p + 1], matchOffsets, matchCounts, buildMatched);
+				return null;
+			});
+		}
+		if (tasks.size() > 1) {
+			try {
+				context.call(tasks);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				} else {
+					throw new OperatorException(cause.getMessage(), cause);
+				}
+			}
+		} else {
+			partitionMatches[0] = joinPartition(buildKeys, buildOrder, 0, buildOrder.length, probeKeys, probeOrder, 0,
+					probeOrder.length, matchOffsets, matchCounts, buildMatched);
+		}
+		operator.checkForStop();
+
+		return collectRows(probeKeys, buildKeys, partitionBits, partitionMatches, matchOffsets, matchCounts,
+				buildMatched, probeLeft);
+	}
+
+	/**
+	 * Reads the key values of all examples. If match attributes are given, the values of nominal
+	 * key attributes are translated into the mapping of the corresponding match attribute.
+	 */
+	private Keys readKeys(ExampleSet exampleSet, Attribute[] keyAttributes, Attribute[] matchAttributes)
+			throws OperatorException {
+		int numberOfKeys = keyAttributes.length;
+		int[][] translations = new int[numberOfKeys][];
+		if (matchAttributes != null) {
+			for (int i = 0; i < numberOfKeys; i++) {
+				if (keyAttributes[i].isNominal()) {
+					NominalMapping mapping = keyAttributes[i].getMapping();
+					NominalMapping matchMapping = matchAttributes[i].getMapping();
+					translations[i] = new int[mapping.size()];
+					for (int index = 0; index < mapping.size(); index++) {
+						String value = mapping.mapIndex(index);
+						translations[i][index] = addMissingNominalValues ? matchMapping.mapString(value)
+								: matchMapping.getIndex(value);
+					}
+				}
+			}
+		}
+
+		Keys keys = new Keys(exampleSet.size(), numberOfKeys);
+		int row = 0;
+		for (Example example : exampleSet) {
+			int offset = row * numberOfKeys;
+			int hash = 1;
+			boolean valid = true;
+			for (int i = 0; i < numberOfKeys; i++) {
+				double value = example.getValue(keyAttributes[i]);
+				if (Double.isNaN(value)) {
+					valid = false;
+					break;
+				}
+				long key;
+				if (translations[i] != null) {
+					key = translations[i][(int) value];
+					if (key < 0) {
+						valid = false;
+						break;
+					}
+				} else if (keyAttributes[i].isNominal()) {
+					key = (long) value;
+				} else {
+					key = Double.doubleToLongBits(value);
+				}
+				keys.values[offset + i] = key;
+				hash = 31 * hash + (int) (key ^ key >>> 32);
+			}
+			keys.valid[row] = valid;
+			keys.hashes[row] = mix(hash);
+			row++;
+			if (row % PROGRESS_STEPS == 0) {
+				operator.getProgress().step(PROGRESS_STEPS);
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Sorts the rows with valid keys by their partition, keeping the order of the rows within a
+	 * partition.
+	 *
+	 * @param starts
+	 *            array of size number of partitions plus one, filled with the start of each partition
+	 *            in the returned order
+	 * @return the rows ordered by partition
+	 */
+	private static int[] partition(Keys keys, int partitionBits, int[] starts) {
+		int size = keys.size();
+		for (int row = 0; row < size; row++) {
+			if (keys.valid[row]) {
+				starts[partitionOf(keys.hashes[row], partitionBits) + 1]++;
+			}
+		}
+		for (int p = 1; p < starts.length; p++) {
+			starts[p] += starts[p - 1];
+		}
+		int[] order = new int[starts[starts.length - 1]];
+		int[] positions = Arrays.copyOf(starts, starts.length - 1);
+		for (int row = 0; row < size; row++) {
+			if (keys.valid[row]) {
+				order[positions[partitionOf(keys.hashes[row], partitionBits)]++] = row;
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Joins the rows of one partition. Stores for every probe row the offset and the number of its
+	 * matches in the returned array of build rows and marks the matched build rows.
+	 */
+	private static int[] joinPartition(Keys buildKeys, int[] buildOrder, int buildFrom, int buildTo, Keys probeKeys,
+			int[] probeOrder, int probeFrom, int probeTo, int[] matchOffsets, int[] matchCounts, boolean[] buildMatched) {
+		int buildSize = buildTo - buildFrom;
+		int tableSize = Math.max(2, Integer.highestOneBit(Math.max(1, buildSize) * 2 - 1) << 1);
+		int mask = tableSize - 1;
+
+		// the table contains the first position of each distinct key, the positions with the same
+		// key are linked in ascending order by inserting them backwards
+		int[] heads = new int[tableSize];
+		Arrays.fill(heads, -1);
+		int[] next = new int[buildSize];
+		for (int position = buildSize - 1; position >= 0; position--) {
+			int row = buildOrder[buildFrom + position];
+			int slot = buildKeys.hashes[row] & mask;
+			while (heads[slot] >= 0 && !buildKeys.equalKeys(buildOrder[buildFrom + heads[slot]], buildKeys, row)) {
+				slot = (slot + 1) & mask;
+			}
+			next[position] = heads[slot];
+			heads[slot] = position;
+		}
+
+		int[] matches = new int[Math.max(16, probeTo - probeFrom)];
+		int numberOfMatches = 0;
+		for (int i = probeFrom; i < probeTo; i++) {
+			int row = probeOrder[i];
+			int slot = probeKeys.hashes[row] & mask;
+			while (heads[slot] >= 0 && !buildKeys.equalKeys(buildOrder[buildFrom + heads[slot]], probeKeys, row)) {
+				slot = (slot + 1) & mask;
+			}
+			matchOffsets[row] = numberOfMatches;
+			for (int position = heads[slot]; position >= 0; position = next[position]) {
+				if (numberOfMatches == matches.length) {
+					matches = Arrays.copyOf(matches, matches.length * 2);
+				}
+				int buildRow = buildOrder[buildFrom + position];
+				matches[numberOfMatches++] = buildRow;
+				buildMatched[buildRow] = true;
+			}
+			matchCounts[row] = numberOfMatches - matchOffsets[row];
+		}
+		return matches;
+	}
+
+	/**
+	 * Collects the joined rows in the order of the probe side.
+	 */
+	private JoinedRows collectRows(Keys probeKeys, Keys buildKeys, int partitionBits, int[][] partitionMatches,
+			int[] matchOffsets, int[] matchCounts, boolean[] buildMatched, boolean probeLeft) throws OperatorException {
+		boolean keepUnmatchedProbe = joinType != ExampleSetJoin.JOIN_TYPE_INNER;
+		boolean keepUnmatchedBuild = joinType == ExampleSetJoin.JOIN_TYPE_OUTER;
+
+		long size = 0;
+		for (int row = 0; row < probeKeys.size(); row++) {
+			size += matchCounts[row] > 0 ? matchCounts[row] : keepUnmatchedProbe ? 1 : 0;
+		}
+		if (keepUnmatchedBuild) {
+			for (int row = 0; row < buildKeys.size(); row++) {
+				if (!buildMatched[row]) {
+					size++;
+				}
+			}
+		}
+		if (size > Integer.MAX_VALUE) {
+			throw new UserError(operator, "join.result_too_large", size);
+		}
+
+		int[] probeRows = new int[(int) size];
+		int[] buildRows = new int[(int) size];
+		int current = 0;
+		for (int row = 0; row < probeKeys.size(); row++) {
+			int count = matchCounts[row];
+			if (count > 0) {
+				int[] matches = partitionMatches[partitionOf(probeKeys.hashes[row], partitionBits)];
+				int offset = matchOffsets[row];
+				for (int i = 0; i < count; i++) {
+					probeRows[current] = row;
+					buildRows[current] = matches[offset + i];
+					current++;
+				}
+			} else if (keepUnmatchedProbe) {
+				probeRows[current] = row;
+				buildRows[current] = JoinedRows.NONE;
+				current++;
+			}
+		}
+		if (keepUnmatchedBuild) {
+			for (int row = 0; row < buildKeys.size(); row++) {
+				if (!buildMatched[row]) {
+					probeRows[current] = JoinedRows.NONE;
+					buildRows[current] = row;
+					current++;
+				}
+			}
+		}
+		return probeLeft ? new JoinedRows(probeRows, buildRows) : new JoinedRows(buildRows, probeRows);
+	}
+
+	private static int partitionOf(int hash, int partitionBits) {
+		return partitionBits == 0 ? 0 : hash >>> (32 - partitionBits);
+	}
+
+	/**
+	 * Finalizes the hash so that both its upper bits used for partitioning and its lower bits used
+	 * for the tables are well distributed.
+	 */
+	private static int mix(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		hash ^= hash >>> 16;
+		return hash;
+	}
+}
@@ -0,0 +1,405 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.preprocessing.join;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.NominalMapping;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.UserError;
+
+
+/**
+ * Matches the examples of two example sets which are both sorted ascending by their key attributes
+ * by merging them. Both example sets are read sequentially, only the rows of the current run of
+ * equal keys on the build side are kept. Nominal keys are compared by their values, numerical and
+ * date keys by {@link Double#compare(double, double)}, so the order is the one created by the
+ * Sort operator. Rows with a missing value in a key attribute never match and are ignored for the
+ * sort order.
+ * <p>
+ * The result is exactly the one of the {@link PartitionedHashJoin}: the right example set is the
+ * build side except for the right join, the rows are in the order of the probe side, and for the
+ * outer join the build side rows without match are appended in a second merge pass.
+ * <p>
+ * Whether the example sets are sorted is checked while merging. If not, the join either fails
+ * with a {@link UserError} or returns {@code null}, so that another join can be used. Since example
+ * sets carry no sort order, {@link #isSampleSorted(ExampleSet, Attribute[])} can be used to
+ * cheaply rule out unsorted example sets before merging.
+ *
+ * @since 8.0
+ */
+final class SortMergeJoin {
+
+	private static final int PROGRESS_STEPS = 1000;
+
+	/** the maximal number of examples checked by {@link #isSampleSorted(ExampleSet, Attribute[])} */
+	private static final int SORT_CHECK_SAMPLE_SIZE = 1000;
+
+	/**
+	 * Reads the keys of an example set one example after another and checks that they are
+	 * ascending.
+	 */
+	private static final class KeyCursor {
+
+		private final Iterator<Example> iterator;
+		private final Attribute[] attributes;
+		private final boolean[] nominal;
+
+		private int index = -1;
+		private boolean hasCurrent;
+		private boolean valid;
+		private final double[] values;
+		private final String[] strings;
+
+		private boolean sorted = true;
+		private boolean hasPrevious;
+		private final double[] previousValues;
+		private final String[] previousStrings;
+
+		private KeyCursor(ExampleSet exampleSet, Attribute[] attributes) {
+			this.iterator = exampleSet.iterator();
+			this.attributes = attributes;
+			this.nominal = new boolean[attributes.length];
+			for (int i = 0; i < attributes.length; i++) {
+				nominal[i] = attributes[i].isNominal();
+			}
+			this.values = new double[attributes.length];
+			this.strings = new String[attributes.length];
+			this.previousValues = new double[attributes.length];
+			this.previousStrings = new String[attributes.length];
+			next();
+		}
+
+		/**
+		 * Moves to the next example. Returns {@code false} if there is none or the keys are not
+		 * sorted.
+		 */
+		private boolean next() {
+			if (valid) {
+				System.arraycopy(values, 0, previousValues, 0, values.length);
+				System.arraycopy(strings, 0, previousStrings, 0, strings.length);
+				hasPrevious = true;
+			}
+			hasCurrent = iterator.hasNext();
+			if (!hasCurrent) {
+				valid = false;
+				return false;
+			}
+			Example example = iterator.next();
+			index++;
+			valid = true;
+			for (int i = 0; i < attributes.length; i++) {
+				double value = example.getValue(attributes[i]);
+				if (Double.isNaN(value)) {
+					valid = false;
+					break;
+				}
+				values[i] = value;
+				strings[i] = nominal[i] ? attributes[i].getMapping().mapIndex((int) value) : null;
+			}
+			if (valid && hasPrevious && compare(previousValues, previousStrings, values, strings, nominal) > 0) {
+				sorted = false;
+				hasCurrent = false;
+			}
+			return hasCurrent;
+		}
+	}
+
+	/** A growing list of joined rows. */
+	private static final class RowCollector {
+
+		private int[] leftRows = new int[16];
+		private int[] rightRows = new int[16];
+		private int size;
+
+		private void add(int leftRow, int rightRow) {
+			if (size == leftRows.length) {
+				leftRows = Arrays.copyOf(leftRows, size * 2);
+				rightRows = Arrays.copyOf(rightRows, size * 2);
+			}
+			leftRows[size] = leftRow;
+			rightRows[size] = rightRow;
+			size++;
+		}
+
+		private JoinedRows toJoinedRows() {
+			return new JoinedRows(Arrays.copyOf(leftRows, size), Arrays.copyOf(rightRows, size));
+		}
+	}
+
+	private final Operator operator;
+
+	private final int joinType;
+
+	private final boolean addMissingNominalValues;
+
+	private final boolean failIfUnsorted;
+
+	private int progressCounter;
+
+	/**
+	 * Creates a new join.
+	 *
+	 * @param operator
+	 *            the operator used for progress and errors
+	 * @param joinType
+	 *            one of the join types of {@link ExampleSetJoin}
+	 * @param addMissingNominalValues
+	 *            whether values of nominal build side keys not contained in the mapping of the probe
+	 *            side are added to that mapping, see {@link PartitionedHashJoin}
+	 * @param failIfUnsorted
+	 *            whether to throw a {@link UserError} if an example set is not sorted instead of
+	 *            returning {@code null}
+	 */
+	SortMergeJoin(Operator operator, int joinType, boolean addMissingNominalValues, boolean failIfUnsorted) {
+		this.operator = operator;
+		this.joinType = joinType;
+		this.addMissingNominalValues = addMissingNominalValues;
+		this.failIfUnsorted = failIfUnsorted;
+	}
+
+	/**
+	 * Joins the example sets using the given key attributes.
+	 *
+	 * @param leftExampleSet
+	 *            the left example set
+	 * @param rightExampleSet
+	 *            the right example set
+	 * @param leftKeyAttributes
+	 *            the key attributes of the left example set
+	 * @param rightKeyAttributes
+	 *            the key attributes of the right example set, in the same order as the left ones
+	 * @return the joined rows or {@code null} if an example set is not sorted and the join should
+	 *         not fail in this case
+	 */
+	JoinedRows join(ExampleSet leftExampleSet, ExampleSet rightExampleSet, Attribute[] leftKeyAttributes,
+			Attribute[] rightKeyAttributes) throws OperatorException {
+		boolean probeLeft = joinType != ExampleSetJoin.JOIN_TYPE_RIGHT;
+		ExampleSet probeSet = probeLeft ? leftExampleSet : rightExampleSet;
+		ExampleSet buildSet = probeLeft ? rightExampleSet : leftExampleSet;
+		Attribute[] probeKeyAttributes = probeLeft ? leftKeyAttributes : rightKeyAttributes;
+		Attribute[] buildKeyAttributes = probeLeft ? rightKeyAttributes : leftKeyAttributes;
+
+		if (addMissingNominalValues) {
+			// extend the mappings like the hash join, so that the results are the same
+			for (int i = 0; i < buildKeyAttributes.length; i++) {
+				if (buildKeyAttributes[i].isNominal()) {
+					NominalMapping mapping = buildKeyAttributes[i].getMapping();
+					NominalMapping probeMapping = probeKeyAttributes[i].getMapping();
+					for (int index = 0; index < mapping.size(); index++) {
+						probeMapping.mapString(mapping.mapIndex(index));
+					}
+				}
+			}
+		}
+
+		boolean keepUnmatchedProbe = joinType != ExampleSetJoin.JOIN_TYPE_INNER;
+		boolean keepUnmatchedBuild = joinType == ExampleSetJoin.JOIN_TYPE_OUTER;
+		operator.getProgress().setTotal(keepUnmatchedBuild ? 2 * (probeSet.size() + buildSet.size())
+				: probeSet.size() + buildSet.size());
+		progressCounter = 0;
+
+		RowCollector rows = new RowCollector();
+		KeyCursor probe = new KeyCursor(probeSet, probeKeyAttributes);
+		KeyCursor build = new KeyCursor(buildSet, buildKeyAttributes);
+		boolean[] nominal = probe.nominal;
+		int[] run = new int[16];
+		double[] runValues = new double[probeKeyAttributes.length];
+		String[] runStrings = new String[probeKeyAttributes.length];
+
+		while (probe.hasCurrent) {
+			if (!probe.valid) {
+				if (keepUnmatchedProbe) {
+					add(rows, probe.index, JoinedRows.NONE, probeLeft);
+				}
+				advance(probe);
+				continue;
+			}
+			// skip smaller build keys
+			while (build.hasCurrent && (!build.valid || compare(build, probe, nominal) < 0)) {
+				advance(build);
+			}
+			if (!build.hasCurrent || compare(build, probe, nominal) != 0) {
+				if (keepUnmatchedProbe) {
+					add(rows, probe.index, JoinedRows.NONE, probeLeft);
+				}
+				advance(probe);
+				continue;
+			}
+
+			// collect the run of equal build keys
+			System.arraycopy(build.values, 0, runValues, 0, runValues.length);
+			System.arraycopy(build.strings, 0, runStrings, 0, runStrings.length);
+			int runLength = 0;
+			while (build.hasCurrent
+					&& (!build.valid || compare(build.values, build.strings, runValues, runStrings, nominal) == 0)) {
+				if (build.valid) {
+					if (runLength == run.length) {
+						run = Arrays.copyOf(run, runLength * 2);
+					}
+					run[runLength++] = build.index;
+				}
+				advance(build);
+			}
+
+			// combine all probe rows with this key with the run
+			while (probe.hasCurrent
+					&& (!probe.valid || compare(probe.values, probe.strings, runValues, runStrings, nominal) == 0)) {
+				if (probe.valid) {
+					for (int i = 0; i < runLength; i++) {
+						add(rows, probe.index, run[i], probeLeft);
+					}
+				} else if (keepUnmatchedProbe) {
+					add(rows, probe.index, JoinedRows.NONE, probeLeft);
+				}
+				advance(probe);
+			}
+		}
+		// the rest of the build side is not needed, but must be checked for smaller keys
+		while (build.hasCurrent) {
+			advance(build);
+		}
+		if (!checkSorted(probe, probeLeft) || !checkSorted(build, !probeLeft)) {
+			return null;
+		}
+
+		if (keepUnmatchedBuild) {
+			// second pass finding the build rows without a matching probe row
+			probe = new KeyCursor(probeSet, probeKeyAttributes);
+			build = new KeyCursor(buildSet, buildKeyAttributes);
+			while (build.hasCurrent) {
+				if (build.valid) {
+					while (probe.hasCurrent && (!probe.valid || compare(probe, build, nominal) < 0)) {
+						advance(probe);
+					}
+				}
+				if (!build.valid || !probe.hasCurrent || compare(probe, build, nominal) != 0) {
+					add(rows, JoinedRows.NONE, build.index, probeLeft);
+				}
+				advance(build);
+			}
+		}
+		return rows.toJoinedRows();
+	}
+
+	/**
+	 * Checks whether evenly spaced examples of the given example set, including the first and the
+	 * last one, are sorted ascending by the given key attributes. Examples with missing key values
+	 * are ignored. Only a bounded number of examples is read, so an unsorted example set is detected
+	 * without merging, while a positive result still has to be confirmed by the merge.
+	 *
+	 * @param exampleSet
+	 *            the example set to check
+	 * @param keyAttributes
+	 *            the key attributes
+	 * @return {@code false} if the example set is not sorted
+	 */
+	static boolean isSampleSorted(ExampleSet exampleSet, Attribute[] keyAttributes) {
+		int size = exampleSet.size();
+		int samples = Math.min(size, SORT_CHECK_SAMPLE_SIZE);
+		boolean[] nominal = new boolean[keyAttributes.length];
+		for (int i = 0; i < keyAttributes.length; i++) {
+			nominal[i] = keyAttributes[i].isNominal();
+		}
+		double[] values = new double[keyAttributes.length];
+		String[] strings = new String[keyAttributes.length];
+		double[] previousValues = new double[keyAttributes.length];
+		String[] previousStrings = new String[keyAttributes.length];
+		boolean hasPrevious = false;
+		for (int sample = 0; sample < samples; sample++) {
+			int index = samples == 1 ? 0 : (int) ((long) sample * (size - 1) / (samples - 1));
+			Example example = exampleSet.getExample(index);
+			boolean valid = true;
+			for (int i = 0; i < keyAttributes.length; i++) {
+				double value = example.getValue(keyAttributes[i]);
+				if (Double.isNaN(value)) {
+					valid = false;
+					break;
+				}
+				values[i] = value;
+				strings[i] = nominal[i] ? keyAttributes[i].getMapping().mapIndex((int) value) : null;
+			}
+			if (!valid) {
+				continue;
+			}
+			if (hasPrevious && compare(previousValues, previousStrings, values, strings, nominal) > 0) {
+				return false;
+			}
+			System.arraycopy(values, 0, previousValues, 0, values.length);
+			System.arraycopy(strings, 0, previousStrings, 0, strings.length);
+			hasPrevious = true;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the cursor stopped because the example set is not sorted.
+	 *
+	 * @return {@code true} if the example set is sorted so far, {@code false} if it is not and the
+	 *         join should not fail
+	 */
+	private boolean checkSorted(KeyCursor cursor, boolean left) throws UserError {
+		if (cursor.sorted) {
+			return true;
+		} else if (failIfUnsorted) {
+			throw new UserError(operator, "join.not_sorted", left ? "left" : "right");
+		} else {
+			return false;
+		}
+	}
+
+	private void advance(KeyCursor cursor) throws OperatorException {
+		cursor.next();
+		if (++progressCounter % PROGRESS_STEPS == 0) {
+			operator.getProgress().step(PROGRESS_STEPS);
+		}
+	}
+
+	private static void add(RowCollector rows, int probeRow, int buildRow, boolean probeLeft) {
+		if (probeLeft) {
+			rows.add(probeRow, buildRow);
+		} else {
+			rows.add(buildRow, probeRow);
+		}
+	}
+
+	private static int compare(KeyCursor cursor, KeyCursor other, boolean[] nominal) {
+		return compare(cursor.values, cursor.strings, other.values, other.strings, nominal);
+	}
+
+	/**
+	 * Compares two keys lexicographically, nominal values by their strings and all other values as
+	 * numbers.
+	 */
+	private static int compare(double[] values, String[] strings, double[] otherValues, String[] otherStrings,
+			boolean[] nominal) {
+		for (int i = 0; i < nominal.length; i++) {
+			int result = nominal[i] ? strings[i].compareTo(otherStrings[i]) : Double.compare(values[i], otherValues[i]);
+			if (result != 0) {
+				return result;
+			}
+		}
+		return 0;
+	}
+}
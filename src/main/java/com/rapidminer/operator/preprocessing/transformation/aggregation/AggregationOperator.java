@@ -399,52 +399,6 @@ public class AggregationOperator extends AbstractDataProcessing {
 		}
 
 		Attribute weightAttribute = exampleSet.getAttributes().getWeight();
-		boolean useWeights = weightAttribute != null;
-
-		// running over exampleSet and aggregate data of each example
-		AggregationTreeNode rootNode = new AggregationTreeNode();
-		LeafAggregationTreeNode leafNode = null;
-		if (groupAttributes.length == 0) {
-			// if no grouping, we will directly insert into leaf node
-			leafNode = new LeafAggregationTreeNode(aggregationFunctions);
-		}
-		getProgress().setTotal(exampleSet.size());
-		int progressCounter = 0;
-		for (Example example : exampleSet) {
-			if (groupAttributes.length > 0) {
-				AggregationTreeNode currentNode = rootNode;
-				// now traversing aggregation tree for m-1 group attributes
-				for (int i = 0; i < groupAttributes.length - 1; i++) {
-					Attribute currentAttribute = groupAttributes[i];
-					if (currentAttribute.isNominal()) {
-						currentNode = currentNode.getOrCreateChild(example.getValueAsString(currentAttribute));
-					} else {
-						currentNode = currentNode.getOrCreateChild(example.getValue(currentAttribute));
-					}
-				}
-
-				// now we have to get the leaf node containing the aggregators
-				Attribute currentAttribute = groupAttributes[groupAttributes.length - 1];
-				if (currentAttribute.isNominal()) {
-					leafNode = currentNode.getOrCreateLeaf(example.getValueAsString(currentAttribute), aggregationFunctions);
-				} else {
-					leafNode = currentNode.getOrCreateLeaf(example.getValue(currentAttribute), aggregationFunctions);
-				}
-			}
-			// now count current example
-			if (!useWeights) {
-				leafNode.count(example);
-			} else {
-				leafNode.count(example, example.getValue(weightAttribute));
-			}
-
-			// Trigger operator progress
-			if (++progressCounter % 100 == 0) {
-				getProgress().setCompleted(progressCounter);
-			}
-		}
-
-		// now derive new example set from aggregated values
 		boolean isCountingAllCombinations = getParameterAsBoolean(PARAMETER_ALL_COMBINATIONS);
 
 		// building new attributes from grouping attributes and aggregation functions
@@ -460,8 +414,6 @@ public class AggregationOperator extends AbstractDataProcessing {
 
 		// creating example set
 		ExampleSetBuilder builder = ExampleSets.from(newAttributes);
-		DataRowFactory factory = new DataRowFactory(DataRowFactory.TYPE_DOUBLE_ARRAY, '.');
-		double[] dataOfUpperLevels = new double[groupAttributes.length];
 
 		// prepare empty lists
 		ArrayList<List<Aggregator>> allAggregators = new ArrayList<>();
@@ -471,14 +423,17 @@ public class AggregationOperator extends AbstractDataProcessing {
 
 		ArrayList<double[]> allGroupCombinations = new ArrayList<>();
 
-		if (groupAttributes.length > 0) {
-			// going through all possible groups recursively
-			parseTree(rootNode, groupAttributes, dataOfUpperLevels, 0, allGroupCombinations, allAggregators, factory,
-					newAttributes, isCountingAllCombinations, aggregationFunctions);
+		// grouping by hashing packed group keys if possible, the tree is needed for all combinations
+		HashAggregation hashAggregation = null;
+		if (groupAttributes.length > 0 && !isCountingAllCombinations) {
+			hashAggregation = HashAggregation.create(this, exampleSet, groupAttributes);
+		}
+		if (hashAggregation != null) {
+			hashAggregation.aggregate(exampleSet, aggregationFunctions, weightAttribute);
+			hashAggregation.collectGroups(newAttributes, allGroupCombinations, allAggregators);
 		} else {
-			// just enter values from single leaf node
-			parseLeaf(leafNode, dataOfUpperLevels, allGroupCombinations, allAggregators, factory, newAttributes,
-					aggregationFunctions);
+			aggregateInTree(exampleSet, groupAttributes, aggregationFunctions, weightAttribute, newAttributes,
+					isCountingAllCombinations, allGroupCombinations, allAggregators);
 		}
 
 		// apply post-processing
@@ -557,6 +512,74 @@ public class AggregationOperator extends AbstractDataProcessing {
 		return resultSet;
 	}
 
+	/**
+	 * Groups the examples by the nested maps of {@link AggregationTreeNode}s and collects the group
+	 * values and aggregators of all groups.
+	 */
+	void aggregateInTree(ExampleSet exampleSet, Attribute[] groupAttributes,
+			List<AggregationFunction> aggregationFunctions, Attribute weightAttribute, Attribute[] newAttributes,
+			boolean isCountingAllCombinations, List<double[]> allGroupCombinations, List<List<Aggregator>> allAggregators)
+			throws OperatorException {
+		boolean useWeights = weightAttribute != null;
+
+		// running over exampleSet and aggregate data of each example
+		AggregationTreeNode rootNode = new AggregationTreeNode();
+		LeafAggregationTreeNode leafNode = null;
+		if (groupAttributes.length == 0) {
+			// if no grouping, we will directly insert into leaf node
+			leafNode = new LeafAggregationTreeNode(aggregationFunctions);
+		}
+		getProgress().setTotal(exampleSet.size());
+		int progressCounter = 0;
+		for (Example example : exampleSet) {
+			if (groupAttributes.length > 0) {
+				AggregationTreeNode currentNode = rootNode;
+				// now traversing aggregation tree for m-1 group attributes
+				for (int i = 0; i < groupAttributes.length - 1; i++) {
+					Attribute currentAttribute = groupAttributes[i];
+					if (currentAttribute.isNominal()) {
+						currentNode = currentNode.getOrCreateChild(example.getValueAsString(currentAttribute));
+					} else {
+						currentNode = currentNode.getOrCreateChild(example.getValue(currentAttribute));
+					}
+				}
+
+				// now we have to get the leaf node containing the aggregators
+				Attribute currentAttribute = groupAttributes[groupAttributes.length - 1];
+				if (currentAttribute.isNominal()) {
+					leafNode = currentNode.getOrCreateLeaf(example.getValueAsString(currentAttribute), aggregationFunctions);
+				} else {
+					leafNode = currentNode.getOrCreateLeaf(example.getValue(currentAttribute), aggregationFunctions);
+				}
+			}
+			// now count current example
+			if (!useWeights) {
+				leafNode.count(example);
+			} else {
+				leafNode.count(example, example.getValue(weightAttribute));
+			}
+
+			// Trigger operator progress
+			if (++progressCounter % 100 == 0) {
+				getProgress().setCompleted(progressCounter);
+			}
+		}
+
+		// now derive group combinations from aggregated values
+		DataRowFactory factory = new DataRowFactory(DataRowFactory.TYPE_DOUBLE_ARRAY, '.');
+		double[] dataOfUpperLevels = new double[groupAttributes.length];
+
+		if (groupAttributes.length > 0) {
+			// going through all possible groups recursively
+			parseTree(rootNode, groupAttributes, dataOfUpperLevels, 0, allGroupCombinations, allAggregators, factory,
+					newAttributes, isCountingAllCombinations, aggregationFunctions);
+		} else {
+			// just enter values from single leaf node
+			parseLeaf(leafNode, dataOfUpperLevels, allGroupCombinations, allAggregators, factory, newAttributes,
+					aggregationFunctions);
+		}
+	}
+
 	private void parseLeaf(LeafAggregationTreeNode node, double[] dataOfUpperLevels, List<double[]> allGroupCombinations,
 			List<List<Aggregator>> allAggregators, DataRowFactory factory, Attribute[] newAttributes,
 			List<AggregationFunction> aggregationFunctions) {
@@ -0,0 +1,299 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.NominalMapping;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.preprocessing.transformation.aggregation.AggregationOperator.LeafAggregationTreeNode;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.container.LongIndexMap;
+
+
+/**
+ * Groups the examples of an {@link ExampleSet} by the values of the group attributes using a hash
+ * table instead of the nested maps of the {@link AggregationOperator.AggregationTreeNode}s.
+ * <p>
+ * Every group value is encoded as a small integer code: nominal values use their mapping index,
+ * numerical and date values are numbered by a dictionary built in a first pass over the data. The
+ * codes of all group attributes are packed into a single long key, which is mapped onto a dense
+ * group index by a {@link LongIndexMap}. The groups are sorted only once at the end, resulting in
+ * the same order as the tree: lexicographic by the group attributes, nominal values compared by
+ * their string and numerical values by {@link Double#compare(double, double)}.
+ * <p>
+ * The packed keys must fit into 63 bits, otherwise {@link #create} returns {@code null} and the
+ * tree has to be used.
+ *
+ * @since 8.0
+ */
+final class HashAggregation {
+
+	private static final int MAX_KEY_BITS = 63;
+
+	private static final int PROGRESS_STEPS = 100;
+
+	private final Operator operator;
+
+	private final Attribute[] groupAttributes;
+
+	/** the dictionaries of the numerical group attributes, {@code null} for nominal ones */
+	private final LongIndexMap[] dictionaries;
+
+	/** the code of missing values for nominal group attributes */
+	private final int[] missingCodes;
+
+	/** the number of codes for each group attribute */
+	private final int[] cardinalities;
+
+	private final int[] shifts;
+
+	private final long[] masks;
+
+	/** maps the packed group keys onto the indices of the group nodes */
+	private final LongIndexMap groups = new LongIndexMap();
+
+	private final List<LeafAggregationTreeNode> groupNodes = new ArrayList<>();
+
+	private HashAggregation(Operator operator, Attribute[] groupAttributes, LongIndexMap[] dictionaries,
+			int[] missingCodes, int[] cardinalities, int[] bits) {
+		this.operator = operator;
+		this.groupAttributes = groupAttributes;
+		this.dictionaries = dictionaries;
+		this.missingCodes = missingCodes;
+		this.cardinalities = cardinalities;
+		this.shifts = new int[groupAttributes.length];
+		this.masks = new long[groupAttributes.length];
+		// the first attribute gets the most significant bits, so that packed keys sort like tuples
+		int shift = 0;
+		for (int i = groupAttributes.length - 1; i >= 0; i--) {
+			shifts[i] = shift;
+			masks[i] = (1L << bits[i]) - 1;
+			shift += bits[i];
+		}
+	}
+
+	/**
+	 * Creates the encoding for the given group attributes. If there are numerical group attributes,
+	 * their dictionaries are built by a pass over the example set.
+	 *
+	 * @return the aggregation or {@code null} if a group attribute has an unsupported type or the
+	 *         packed keys would not fit into a long
+	 */
+	static HashAggregation create(Operator operator, ExampleSet exampleSet, Attribute[] groupAttributes)
+			throws OperatorException {
+		int numberOfAttributes = groupAttributes.length;
+		LongIndexMap[] dictionaries = new LongIndexMap[numberOfAttributes];
+		int[] missingCodes = new int[numberOfAttributes];
+		boolean numericalGroups = false;
+		for (int i = 0; i < numberOfAttributes; i++) {
+			Attribute attribute = groupAttributes[i];
+			if (attribute.isNominal()) {
+				// missing values are grouped by their string representation like all nominal values
+				NominalMapping mapping = attribute.getMapping();
+				int index = mapping.getIndex(Attribute.MISSING_NOMINAL_VALUE);
+				missingCodes[i] = index >= 0 ? index : mapping.size();
+			} else if (attribute.isNumerical()
+					|| Ontology.ATTRIBUTE_VALUE_TYPE.isA(attribute.getValueType(), Ontology.DATE_TIME)) {
+				dictionaries[i] = new LongIndexMap();
+				numericalGroups = true;
+			} else {
+				return null;
+			}
+		}
+
+		if (numericalGroups) {
+			int counter = 0;
+			for (Example example : exampleSet) {
+				for (int i = 0; i < numberOfAttributes; i++) {
+					if (dictionaries[i] != null) {
+						dictionaries[i].getOrAdd(Double.doubleToLongBits(example.getValue(groupAttributes[i])));
+					}
+				}
+				if (++counter % PROGRESS_STEPS == 0) {
+					operator.checkForStop();
+				}
+			}
+		}
+
+		int[] cardinalities = new int[numberOfAttributes];
+		int[] bits = new int[numberOfAttributes];
+		int totalBits = 0;
+		for (int i = 0; i < numberOfAttributes; i++) {
+			if (dictionaries[i] != null) {
+				cardinalities[i] = dictionaries[i].size();
+			} else {
+				cardinalities[i] = groupAttributes[i].getMapping().size() + 1;
+			}
+			bits[i] = cardinalities[i] <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(cardinalities[i] - 1);
+			totalBits += bits[i];
+		}
+		if (totalBits > MAX_KEY_BITS) {
+			return null;
+		}
+		return new HashAggregation(operator, groupAttributes, dictionaries, missingCodes, cardinalities, bits);
+	}
+
+	/**
+	 * Counts all examples of the example set into the aggregators of their group.
+	 *
+	 * @param exampleSet
+	 *            the example set to aggregate
+	 * @param aggregationFunctions
+	 *            the functions creating the aggregators of new groups
+	 * @param weightAttribute
+	 *            the weight attribute or {@code null}
+	 */
+	void aggregate(ExampleSet exampleSet, List<AggregationFunction> aggregationFunctions, Attribute weightAttribute)
+			throws OperatorException {
+		operator.getProgress().setTotal(exampleSet.size());
+		int progressCounter = 0;
+		for (Example example : exampleSet) {
+			long key = 0;
+			for (int i = 0; i < groupAttributes.length; i++) {
+				key |= (long) getCode(example.getValue(groupAttributes[i]), i) << shifts[i];
+			}
+			int group = groups.getOrAdd(key);
+			LeafAggregationTreeNode groupNode;
+			if (group == groupNodes.size()) {
+				groupNode = new LeafAggregationTreeNode(aggregationFunctions);
+				groupNodes.add(groupNode);
+			} else {
+				groupNode = groupNodes.get(group);
+			}
+
+			if (weightAttribute == null) {
+				groupNode.count(example);
+			} else {
+				groupNode.count(example, example.getValue(weightAttribute));
+			}
+
+			if (++progressCounter % PROGRESS_STEPS == 0) {
+				operator.getProgress().setCompleted(progressCounter);
+			}
+		}
+	}
+
+	/**
+	 * Adds the values of the group attributes and the aggregators of all groups in sorted order.
+	 *
+	 * @param newAttributes
+	 *            the attributes of the result, starting with the group attributes
+	 * @param allGroupCombinations
+	 *            the list the values of the group attributes are added to
+	 * @param allAggregators
+	 *            the lists the aggregators are added to, one for each aggregation function
+	 */
+	void collectGroups(Attribute[] newAttributes, List<double[]> allGroupCombinations,
+			List<List<Aggregator>> allAggregators) {
+		int numberOfAttributes = groupAttributes.length;
+		String[][] nominalValues = new String[numberOfAttributes][];
+		int[][] ranks = new int[numberOfAttributes][];
+		int[][] codesByRank = new int[numberOfAttributes][];
+		for (int i = 0; i < numberOfAttributes; i++) {
+			Comparator<Integer> comparator;
+			if (dictionaries[i] == null) {
+				nominalValues[i] = getNominalValues(i);
+				final String[] values = nominalValues[i];
+				comparator = (code1, code2) -> values[code1].compareTo(values[code2]);
+			} else {
+				final LongIndexMap dictionary = dictionaries[i];
+				comparator = (code1, code2) -> Double.compare(Double.longBitsToDouble(dictionary.getKey(code1)),
+						Double.longBitsToDouble(dictionary.getKey(code2)));
+			}
+			Integer[] codes = new Integer[cardinalities[i]];
+			for (int code = 0; code < codes.length; code++) {
+				codes[code] = code;
+			}
+			Arrays.sort(codes, comparator);
+			ranks[i] = new int[codes.length];
+			codesByRank[i] = new int[codes.length];
+			for (int rank = 0; rank < codes.length; rank++) {
+				ranks[i][codes[rank]] = rank;
+				codesByRank[i][rank] = codes[rank];
+			}
+		}
+
+		// replacing the codes by their ranks gives keys in the order of the groups
+		long[] rankKeys = new long[groups.size()];
+		for (int group = 0; group < rankKeys.length; group++) {
+			long key = groups.getKey(group);
+			long rankKey = 0;
+			for (int i = 0; i < numberOfAttributes; i++) {
+				int code = (int) (key >>> shifts[i] & masks[i]);
+				rankKey |= (long) ranks[i][code] << shifts[i];
+			}
+			rankKeys[group] = rankKey;
+		}
+		Arrays.sort(rankKeys);
+
+		for (long rankKey : rankKeys) {
+			double[] groupValues = new double[numberOfAttributes];
+			long key = 0;
+			for (int i = 0; i < numberOfAttributes; i++) {
+				int code = codesByRank[i][(int) (rankKey >>> shifts[i] & masks[i])];
+				key |= (long) code << shifts[i];
+				if (dictionaries[i] == null) {
+					groupValues[i] = newAttributes[i].getMapping().mapString(nominalValues[i][code]);
+				} else {
+					groupValues[i] = Double.longBitsToDouble(dictionaries[i].getKey(code));
+				}
+			}
+			allGroupCombinations.add(groupValues);
+
+			int i = 0;
+			for (Aggregator aggregator : groupNodes.get(groups.get(key)).getAggregators()) {
+				allAggregators.get(i).add(aggregator);
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * Returns the string for each code of the nominal group attribute with the given index.
+	 */
+	private String[] getNominalValues(int attributeIndex) {
+		NominalMapping mapping = groupAttributes[attributeIndex].getMapping();
+		String[] values = new String[cardinalities[attributeIndex]];
+		for (int code = 0; code < values.length; code++) {
+			values[code] = code < mapping.size() ? mapping.mapIndex(code) : Attribute.MISSING_NOMINAL_VALUE;
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the code of the given value of the group attribute with the given index.
+	 */
+	private int getCode(double value, int attributeIndex) {
+		if (dictionaries[attributeIndex] != null) {
+			return dictionaries[attributeIndex].get(Double.doubleToLongBits(value));
+		} else if (Double.isNaN(value)) {
+			return missingCodes[attributeIndex];
+		} else {
+			return (int) value;
+		}
+	}
+}
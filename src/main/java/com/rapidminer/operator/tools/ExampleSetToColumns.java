@@ -0,0 +1,470 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.tools;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.AttributeRole;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.utils.ExampleSetBuilder;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.tools.ExampleSetToStream.ColumnType;
+import com.rapidminer.operator.tools.ExampleSetToStream.Header;
+
+
+/**
+ * Writes and reads example sets to and from streams column by column. In contrast to
+ * {@link ExampleSetToStream}, the examples are split into row groups and each column of a row group
+ * is compressed separately. An index of all chunks at the end of the stream allows to read only some
+ * of the attributes and examples from a file, see
+ * {@link #read(FileChannel, Predicate, int, int)}.
+ * <p>
+ * The format is
+ * <ul>
+ * <li>the format version (int)</li>
+ * <li>the header as written by {@link ExampleSetToStream#writeHeader}, containing the nominal
+ * mappings which serve as dictionaries for the nominal columns</li>
+ * <li>one {@link ColumnType} ordinal per attribute (byte)</li>
+ * <li>the number of examples and the number of examples per row group (int)</li>
+ * <li>for each row group and each attribute, the length of the compressed chunk (int) and the chunk
+ * itself, compressed by a {@link Deflater}. Nominal values are stored as indices with the minimal
+ * number of bytes and -1 for missings, all other values as doubles.</li>
+ * <li>the index: for each row group and each attribute, the offset of the chunk relative to the
+ * start of the format version (long)</li>
+ * <li>the offset of the index (long)</li>
+ * </ul>
+ * Sparse example sets are written dense.
+ *
+ * @since 8.0
+ */
+public class ExampleSetToColumns {
+
+	/** Initial version, used since RapidMiner 8.0. */
+	public static final int VERSION_1 = 1;
+
+	public static final int CURRENT_VERSION = VERSION_1;
+
+	/** The number of values of a row group over all attributes the row group size aims at. */
+	private static final int VALUES_PER_ROW_GROUP = 1 << 20;
+
+	private static final int MIN_ROWS_PER_GROUP = 1 << 10;
+
+	private static final int MAX_ROWS_PER_GROUP = 1 << 16;
+
+	/** Counts the written bytes to build the chunk index. */
+	private static final class CountingOutputStream extends FilterOutputStream {
+
+		private long count;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+
+	/** Writes the example set to the stream. */
+	public void write(ExampleSet exampleSet, OutputStream outputStream) throws IOException {
+		CountingOutputStream counter = new CountingOutputStream(outputStream);
+		DataOutputStream out = new DataOutputStream(counter);
+		out.writeInt(CURRENT_VERSION);
+
+		List<AttributeRole> allRoles = new ArrayList<>();
+		Iterator<AttributeRole> r = exampleSet.getAttributes().allAttributeRoles();
+		while (r.hasNext()) {
+			allRoles.add(r.next());
+		}
+		ExampleSetToStream headerWriter = new ExampleSetToStream(ExampleSetToStream.CURRENT_VERSION);
+		headerWriter.writeHeader(exampleSet.getAnnotations(), allRoles, out, false);
+		ColumnType[] columnTypes = convertToColumnTypes(headerWriter, allRoles);
+		for (ColumnType columnType : columnTypes) {
+			out.writeByte(columnType.ordinal());
+		}
+
+		int size = exampleSet.size();
+		int rowsPerGroup = getRowsPerGroup(allRoles.size());
+		out.writeInt(size);
+		out.writeInt(rowsPerGroup);
+
+		Attribute[] attributes = new Attribute[allRoles.size()];
+		for (int i = 0; i < attributes.length; i++) {
+			attributes[i] = allRoles.get(i).getAttribute();
+		}
+		int numberOfGroups = getNumberOfGroups(size, rowsPerGroup);
+		long[] offsets = new long[numberOfGroups * attributes.length];
+		double[][] values = new double[attributes.length][Math.min(size, rowsPerGroup)];
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		byte[] compressed = new byte[64];
+		try {
+			Iterator<Example> examples = exampleSet.iterator();
+			for (int group = 0; group < numberOfGroups; group++) {
+				int rows = Math.min(rowsPerGroup, size - group * rowsPerGroup);
+				for (int row = 0; row < rows; row++) {
+					Example example = examples.next();
+					for (int i = 0; i < attributes.length; i++) {
+						values[i][row] = example.getValue(attributes[i]);
+					}
+				}
+				for (int i = 0; i < attributes.length; i++) {
+					byte[] raw = encode(values[i], rows, columnTypes[i]);
+					deflater.reset();
+					deflater.setInput(raw);
+					deflater.finish();
+					int length = 0;
+					while (!deflater.finished()) {
+						if (length == compressed.length) {
+							compressed = Arrays.copyOf(compressed, compressed.length * 2);
+						}
+						length += deflater.deflate(compressed, length, compressed.length - length);
+					}
+					out.flush();
+					offsets[group * attributes.length + i] = counter.count;
+					out.writeInt(length);
+					out.write(compressed, 0, length);
+				}
+			}
+		} finally {
+			deflater.end();
+		}
+
+		out.flush();
+		long indexOffset = counter.count;
+		for (long offset : offsets) {
+			out.writeLong(offset);
+		}
+		out.writeLong(indexOffset);
+		out.flush();
+	}
+
+	/** Reads a complete example set as written by {@link #write(ExampleSet, OutputStream)}. */
+	public ExampleSet read(InputStream inputStream) throws IOException {
+		DataInputStream in = new DataInputStream(inputStream);
+		checkVersion(in.readInt());
+		ExampleSetToStream headerReader = new ExampleSetToStream(ExampleSetToStream.CURRENT_VERSION);
+		Header header = headerReader.readHeader(in);
+		List<AttributeRole> allRoles = header.getAllRoles();
+		ColumnType[] columnTypes = readColumnTypes(in, allRoles.size());
+		int size = in.readInt();
+		int rowsPerGroup = in.readInt();
+
+		double[][] columns = new double[allRoles.size()][size];
+		Inflater inflater = new Inflater();
+		try {
+			byte[] compressed = new byte[64];
+			for (int group = 0; group < getNumberOfGroups(size, rowsPerGroup); group++) {
+				int start = group * rowsPerGroup;
+				int rows = Math.min(rowsPerGroup, size - start);
+				for (int i = 0; i < columns.length; i++) {
+					int length = in.readInt();
+					if (compressed.length < length) {
+						compressed = new byte[length];
+					}
+					in.readFully(compressed, 0, length);
+					decode(inflater, compressed, length, columnTypes[i], rows, columns[i], start);
+				}
+			}
+		} finally {
+			inflater.end();
+		}
+		return createExampleSet(header, allRoles, columns, size);
+	}
+
+	/**
+	 * Reads some of the attributes and examples of an example set as written by
+	 * {@link #write(ExampleSet, OutputStream)}. Only the chunks containing these are read and
+	 * decompressed.
+	 *
+	 * @param channel
+	 *            the channel to read from, positioned at the start of the written data
+	 * @param selection
+	 *            decides which attributes to read, {@code null} to read all of them
+	 * @param fromRow
+	 *            the first example to read
+	 * @param toRow
+	 *            the index after the last example to read, is reduced to the number of examples if
+	 *            larger
+	 * @return the example set containing the selected attributes and examples
+	 */
+	public ExampleSet read(FileChannel channel, Predicate<AttributeRole> selection, int fromRow, int toRow)
+			throws IOException {
+		long start = channel.position();
+		// the buffering stream reads ahead, all chunks are read at absolute positions afterwards
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+		checkVersion(in.readInt());
+		ExampleSetToStream headerReader = new ExampleSetToStream(ExampleSetToStream.CURRENT_VERSION);
+		Header header = headerReader.readHeader(in);
+		List<AttributeRole> allRoles = header.getAllRoles();
+		ColumnType[] columnTypes = readColumnTypes(in, allRoles.size());
+		int size = in.readInt();
+		int rowsPerGroup = in.readInt();
+
+		fromRow = Math.max(0, fromRow);
+		toRow = Math.min(size, toRow);
+		int selectedSize = Math.max(0, toRow - fromRow);
+		List<AttributeRole> selectedRoles = new ArrayList<>();
+		List<Integer> selectedIndices = new ArrayList<>();
+		for (int i = 0; i < allRoles.size(); i++) {
+			if (selection == null || selection.test(allRoles.get(i))) {
+				selectedRoles.add(allRoles.get(i));
+				selectedIndices.add(i);
+			}
+		}
+		double[][] columns = new double[selectedRoles.size()][selectedSize];
+		if (selectedSize == 0 || columns.length == 0) {
+			return createExampleSet(header, selectedRoles, columns, selectedSize);
+		}
+
+		// read the index
+		int numberOfGroups = getNumberOfGroups(size, rowsPerGroup);
+		ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+		readFully(channel, buffer, channel.size() - Long.BYTES);
+		long indexOffset = buffer.getLong(0);
+		buffer = ByteBuffer.allocate(numberOfGroups * allRoles.size() * Long.BYTES);
+		readFully(channel, buffer, start + indexOffset);
+		buffer.flip();
+		long[] offsets = new long[numberOfGroups * allRoles.size()];
+		buffer.asLongBuffer().get(offsets);
+
+		Inflater inflater = new Inflater();
+		try {
+			ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+			ByteBuffer chunkBuffer = ByteBuffer.allocate(64);
+			double[] groupValues = new double[Math.min(rowsPerGroup, size)];
+			int firstGroup = fromRow / rowsPerGroup;
+			int lastGroup = (toRow - 1) / rowsPerGroup;
+			for (int group = firstGroup; group <= lastGroup; group++) {
+				int groupStart = group * rowsPerGroup;
+				int rows = Math.min(rowsPerGroup, size - groupStart);
+				int from = Math.max(fromRow, groupStart);
+				int to = Math.min(toRow, groupStart + rows);
+				for (int j = 0; j < columns.length; j++) {
+					int i = selectedIndices.get(j);
+					long offset = start + offsets[group * allRoles.size() + i];
+					lengthBuffer.clear();
+					readFully(channel, lengthBuffer, offset);
+					int length = lengthBuffer.getInt(0);
+					if (chunkBuffer.capacity() < length) {
+						chunkBuffer = ByteBuffer.allocate(length);
+					}
+					chunkBuffer.clear();
+					chunkBuffer.limit(length);
+					readFully(channel, chunkBuffer, offset + Integer.BYTES);
+					decode(inflater, chunkBuffer.array(), length, columnTypes[i], rows, groupValues, 0);
+					System.arraycopy(groupValues, from - groupStart, columns[j], from - fromRow, to - from);
+				}
+			}
+		} finally {
+			inflater.end();
+		}
+		return createExampleSet(header, selectedRoles, columns, selectedSize);
+	}
+
+	/**
+	 * Nominal columns are stored with the smallest possible number of bytes, all others as doubles
+	 * to keep them exact.
+	 */
+	private static ColumnType[] convertToColumnTypes(ExampleSetToStream headerWriter, List<AttributeRole> allRoles) {
+		ColumnType[] columnTypes = headerWriter.convertToColumnTypes(allRoles);
+		for (int i = 0; i < columnTypes.length; i++) {
+			if (columnTypes[i] == ColumnType.INTEGER) {
+				columnTypes[i] = ColumnType.DOUBLE;
+			}
+		}
+		return columnTypes;
+	}
+
+	private static ColumnType[] readColumnTypes(DataInputStream in, int numberOfAttributes) throws IOException {
+		ColumnType[] columnTypes = new ColumnType[numberOfAttributes];
+		for (int i = 0; i < columnTypes.length; i++) {
+			int ordinal = in.readByte();
+			if (ordinal < 0 || ordinal >= ColumnType.values().length) {
+				throw new IOException("Illegal column type: " + ordinal);
+			}
+			columnTypes[i] = ColumnType.values()[ordinal];
+		}
+		return columnTypes;
+	}
+
+	private static void checkVersion(int version) throws IOException {
+		if (version < VERSION_1 || version > CURRENT_VERSION) {
+			throw new IOException("Unknown columnar example set version: " + version);
+		}
+	}
+
+	private static int getRowsPerGroup(int numberOfAttributes) {
+		int rows = VALUES_PER_ROW_GROUP / Math.max(1, numberOfAttributes);
+		return Math.max(MIN_ROWS_PER_GROUP, Math.min(MAX_ROWS_PER_GROUP, rows));
+	}
+
+	private static int getNumberOfGroups(int size, int rowsPerGroup) {
+		return (size + rowsPerGroup - 1) / rowsPerGroup;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+			position += read;
+		}
+	}
+
+	private static byte[] encode(double[] values, int rows, ColumnType columnType) {
+		ByteBuffer buffer;
+		switch (columnType) {
+			case NOMINAL_BYTE:
+				buffer = ByteBuffer.allocate(rows);
+				for (int row = 0; row < rows; row++) {
+					buffer.put(Double.isNaN(values[row]) ? -1 : (byte) values[row]);
+				}
+				break;
+			case NOMINAL_SHORT:
+				buffer = ByteBuffer.allocate(rows * Short.BYTES);
+				for (int row = 0; row < rows; row++) {
+					buffer.putShort(Double.isNaN(values[row]) ? -1 : (short) values[row]);
+				}
+				break;
+			case NOMINAL_INTEGER:
+				buffer = ByteBuffer.allocate(rows * Integer.BYTES);
+				for (int row = 0; row < rows; row++) {
+					buffer.putInt(Double.isNaN(values[row]) ? -1 : (int) values[row]);
+				}
+				break;
+			case DOUBLE:
+				buffer = ByteBuffer.allocate(rows * Double.BYTES);
+				for (int row = 0; row < rows; row++) {
+					buffer.putDouble(values[row]);
+				}
+				break;
+			default:
+				// cannot happen
+				throw new RuntimeException("Illegal type: " + columnType);
+		}
+		return buffer.array();
+	}
+
+	private static void decode(Inflater inflater, byte[] compressed, int length, ColumnType columnType, int rows,
+			double[] target, int offset) throws IOException {
+		int width;
+		switch (columnType) {
+			case NOMINAL_BYTE:
+				width = Byte.BYTES;
+				break;
+			case NOMINAL_SHORT:
+				width = Short.BYTES;
+				break;
+			case NOMINAL_INTEGER:
+				width = Integer.BYTES;
+				break;
+			case DOUBLE:
+				width = Double.BYTES;
+				break;
+			default:
+				throw new IOException("Illegal column type: " + columnType);
+		}
+		byte[] raw = new byte[rows * width];
+		inflater.reset();
+		inflater.setInput(compressed, 0, length);
+		try {
+			int inflated = 0;
+			while (inflated < raw.length) {
+				int count = inflater.inflate(raw, inflated, raw.length - inflated);
+				if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+					throw new IOException("Corrupt column chunk.");
+				}
+				inflated += count;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt column chunk: " + e.getMessage(), e);
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(raw);
+		for (int row = 0; row < rows; row++) {
+			double value;
+			switch (columnType) {
+				case NOMINAL_BYTE:
+					byte b = buffer.get();
+					value = b == -1 ? Double.NaN : b;
+					break;
+				case NOMINAL_SHORT:
+					short s = buffer.getShort();
+					value = s == -1 ? Double.NaN : s;
+					break;
+				case NOMINAL_INTEGER:
+					int i = buffer.getInt();
+					value = i == -1 ? Double.NaN : i;
+					break;
+				default:
+					value = buffer.getDouble();
+			}
+			target[offset + row] = value;
+		}
+	}
+
+	private static ExampleSet createExampleSet(Header header, List<AttributeRole> roles, double[][] columns, int size) {
+		List<Attribute> attributes = new ArrayList<>(roles.size());
+		for (AttributeRole role : roles) {
+			attributes.add(role.getAttribute());
+		}
+		ExampleSetBuilder builder = ExampleSets.from(attributes).withBlankSize(size);
+		for (int i = 0; i < columns.length; i++) {
+			double[] column = columns[i];
+			builder.withColumnFiller(attributes.get(i), row -> column[row]);
+		}
+		ExampleSet exampleSet = builder.build();
+		for (AttributeRole role : roles) {
+			if (role.isSpecial()) {
+				Attribute attribute = exampleSet.getAttributes().get(role.getAttribute().getName());
+				exampleSet.getAttributes().getRole(attribute).setSpecial(role.getSpecialName());
+			}
+		}
+		exampleSet.getAnnotations().putAll(header.getAnnotations());
+		return exampleSet;
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.tools;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.AttributeRole;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.internal.MappedExampleTable;
+import com.rapidminer.operator.tools.ExampleSetToStream.Header;
+
+
+/**
+ * Writes example sets to files which can be used as example tables without reading them into the
+ * heap, see {@link MappedExampleTable}. This allows to process example sets larger than the
+ * available memory.
+ * <p>
+ * The format is
+ * <ul>
+ * <li>the position of the first value (long)</li>
+ * <li>the format version (int)</li>
+ * <li>the header as written by {@link ExampleSetToStream#writeHeader}</li>
+ * <li>the number of examples (int)</li>
+ * <li>starting at the position of the first value, for each attribute the values of all examples as
+ * little-endian doubles</li>
+ * </ul>
+ *
+ * @since 8.0
+ */
+public class ExampleSetToMappedFile {
+
+	/** Initial version, used since RapidMiner 8.0. */
+	public static final int VERSION_1 = 1;
+
+	public static final int CURRENT_VERSION = VERSION_1;
+
+	/** The number of values written at once over all attributes. */
+	private static final int VALUES_PER_BLOCK = 1 << 20;
+
+	/** Writes the example set to the file, replacing its content. */
+	public void write(ExampleSet exampleSet, File file) throws IOException {
+		List<AttributeRole> allRoles = new ArrayList<>();
+		Iterator<AttributeRole> r = exampleSet.getAttributes().allAttributeRoles();
+		while (r.hasNext()) {
+			allRoles.add(r.next());
+		}
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		DataOutputStream headerOut = new DataOutputStream(headerBytes);
+		headerOut.writeInt(CURRENT_VERSION);
+		new ExampleSetToStream(ExampleSetToStream.CURRENT_VERSION).writeHeader(exampleSet.getAnnotations(), allRoles,
+				headerOut, false);
+		int size = exampleSet.size();
+		headerOut.writeInt(size);
+		headerOut.flush();
+		// align the values to their size
+		long dataOffset = (Long.BYTES + headerBytes.size() + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+
+		Attribute[] attributes = new Attribute[allRoles.size()];
+		for (int i = 0; i < attributes.length; i++) {
+			attributes[i] = allRoles.get(i).getAttribute();
+		}
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer start = ByteBuffer.allocate(Long.BYTES);
+			start.putLong(dataOffset).flip();
+			writeFully(channel, start, 0);
+			writeFully(channel, ByteBuffer.wrap(headerBytes.toByteArray()), Long.BYTES);
+
+			// write blocks of rows, the values of each attribute go to their own region
+			int rowsPerBlock = Math.max(1, VALUES_PER_BLOCK / Math.max(1, attributes.length));
+			ByteBuffer[] buffers = new ByteBuffer[attributes.length];
+			for (int i = 0; i < attributes.length; i++) {
+				buffers[i] = ByteBuffer.allocate(Math.min(size, rowsPerBlock) * Double.BYTES)
+						.order(ByteOrder.LITTLE_ENDIAN);
+			}
+			Iterator<Example> examples = exampleSet.iterator();
+			for (int blockStart = 0; blockStart < size; blockStart += rowsPerBlock) {
+				int rows = Math.min(rowsPerBlock, size - blockStart);
+				for (ByteBuffer buffer : buffers) {
+					buffer.clear();
+				}
+				for (int row = 0; row < rows; row++) {
+					Example example = examples.next();
+					for (int i = 0; i < attributes.length; i++) {
+						buffers[i].putDouble(example.getValue(attributes[i]));
+					}
+				}
+				for (int i = 0; i < attributes.length; i++) {
+					buffers[i].flip();
+					writeFully(channel, buffers[i], getColumnOffset(dataOffset, size, i) + (long) blockStart * Double.BYTES);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates an example set backed by the file written by {@link #write(ExampleSet, File)}. The
+	 * values are read when they are accessed, changes are not written to the file. The file must
+	 * neither be modified nor deleted while the example set is in use.
+	 */
+	public ExampleSet read(File file) throws IOException {
+		long dataOffset;
+		Header header;
+		int size;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			dataOffset = in.readLong();
+			int version = in.readInt();
+			if (version < VERSION_1 || version > CURRENT_VERSION) {
+				throw new IOException("Unknown mapped example set version: " + version);
+			}
+			header = new ExampleSetToStream(ExampleSetToStream.CURRENT_VERSION).readHeader(in);
+			size = in.readInt();
+			long expectedLength = getColumnOffset(dataOffset, size, header.getAllRoles().size());
+			if (channel.size() < expectedLength) {
+				throw new IOException("File '" + file + "' is truncated.");
+			}
+		}
+
+		List<AttributeRole> allRoles = header.getAllRoles();
+		List<Attribute> attributes = new ArrayList<>(allRoles.size());
+		Map<Attribute, String> specialAttributes = new LinkedHashMap<>();
+		long[] columnOffsets = new long[allRoles.size()];
+		for (int i = 0; i < allRoles.size(); i++) {
+			AttributeRole role = allRoles.get(i);
+			attributes.add(role.getAttribute());
+			if (role.isSpecial()) {
+				specialAttributes.put(role.getAttribute(), role.getSpecialName());
+			}
+			columnOffsets[i] = getColumnOffset(dataOffset, size, i);
+		}
+		MappedExampleTable table = new MappedExampleTable(attributes, file, columnOffsets, size);
+		ExampleSet exampleSet = table.createExampleSet(specialAttributes);
+		exampleSet.getAnnotations().putAll(header.getAnnotations());
+		return exampleSet;
+	}
+
+	private static long getColumnOffset(long dataOffset, int size, int column) {
+		return dataOffset + (long) column * size * Double.BYTES;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+}
@@ -115,7 +115,13 @@ public enum SerializationType {
 
 	STREAMED_EXAMPLE_SET_DENSE_2(new StreamedExampleSetBodySerializer(ExampleSetToStream.VERSION_2)),
 
-	STREAMED_EXAMPLE_SET_DENSE_3(new StreamedExampleSetBodySerializer(ExampleSetToStream.VERSION_3));
+	STREAMED_EXAMPLE_SET_DENSE_3(new StreamedExampleSetBodySerializer(ExampleSetToStream.VERSION_3)),
+
+	/**
+	 * Column-wise compressed example sets which can be read partially, see
+	 * {@link ExampleSetToColumns}. Not readable before RapidMiner 8.0.
+	 */
+	COLUMNAR_EXAMPLE_SET(new ColumnarExampleSetBodySerializer());
 
 	public static SerializationType STREAMED_EXAMPLE_SET_DENSE_CURRENT_VERSION = STREAMED_EXAMPLE_SET_DENSE_3;
 
@@ -83,14 +83,26 @@ public abstract class AbstractBootstrappingValidation extends ValidationChain {
 
 		// start bootstrapping loop
 		RandomGenerator random = RandomGenerator.getRandomGenerator(this);
-		for (iteration = 0; iteration < number; iteration++) {
-			int[] mapping = createMapping(inputSet, (int) Math.round(inputSet.size() * sampleRatio), random);
-			MappedExampleSet trainingSet = new MappedExampleSet(inputSet, mapping, true);
-			learn(trainingSet);
-
-			MappedExampleSet inverseExampleSet = new MappedExampleSet(inputSet, mapping, false);
-			evaluate(inverseExampleSet);
-			inApplyLoop();
+		if (canExecuteIterationsInParallel()) {
+			// the mappings are created in the order of the iterations, so the samples are the same
+			ExampleSet threadSafeSet = getDataCopy(inputSet, true);
+			int size = (int) Math.round(threadSafeSet.size() * sampleRatio);
+			executeIterationsInParallel(number, sample -> {
+				int[] mapping = createMapping(threadSafeSet, size, random);
+				return new ExampleSet[] { new MappedExampleSet(threadSafeSet, mapping, true),
+						new MappedExampleSet(threadSafeSet, mapping, false) };
+			});
+			iteration = number;
+		} else {
+			for (iteration = 0; iteration < number; iteration++) {
+				int[] mapping = createMapping(inputSet, (int) Math.round(inputSet.size() * sampleRatio), random);
+				MappedExampleSet trainingSet = new MappedExampleSet(inputSet, mapping, true);
+				learn(trainingSet);
+
+				MappedExampleSet inverseExampleSet = new MappedExampleSet(inputSet, mapping, false);
+				evaluate(inverseExampleSet);
+				inApplyLoop();
+			}
 		}
 		// end loop
 	}
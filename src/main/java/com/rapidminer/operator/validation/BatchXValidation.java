@@ -108,6 +108,12 @@ public class BatchXValidation extends ValidationChain {
 		if (batchAttribute == null) {
 			throw new UserError(this, 113, Attributes.BATCH_NAME);
 		}
+		// the batches of a parallel execution work on views of a thread-safe copy
+		boolean parallel = canExecuteIterationsInParallel();
+		if (parallel) {
+			inputSet = getDataCopy(inputSet, true);
+			batchAttribute = inputSet.getAttributes().getSpecial(Attributes.BATCH_NAME);
+		}
 		SplittedExampleSet splittedES = SplittedExampleSet.splitByAttribute(inputSet, batchAttribute);
 
 		// start crossvalidation
@@ -118,14 +124,25 @@ public class BatchXValidation extends ValidationChain {
 		}
 		getProgress().setCheckForStop(false);
 
-		for (iteration = 0; iteration < splittedES.getNumberOfSubsets(); iteration++) {
-			splittedES.selectAllSubsetsBut(iteration);
-			learn(splittedES);
+		if (parallel && splittedES.getNumberOfSubsets() > 1) {
+			executeIterationsInParallel(splittedES.getNumberOfSubsets(), batch -> {
+				SplittedExampleSet trainingSet = new SplittedExampleSet(splittedES);
+				trainingSet.selectAllSubsetsBut(batch);
+				SplittedExampleSet testSet = new SplittedExampleSet(splittedES);
+				testSet.selectSingleSubset(batch);
+				return new ExampleSet[] { trainingSet, testSet };
+			});
+			iteration = splittedES.getNumberOfSubsets();
+		} else {
+			for (iteration = 0; iteration < splittedES.getNumberOfSubsets(); iteration++) {
+				splittedES.selectAllSubsetsBut(iteration);
+				learn(splittedES);
 
-			splittedES.selectSingleSubset(iteration);
-			evaluate(splittedES);
-			inApplyLoop();
-			getProgress().step();
+				splittedES.selectSingleSubset(iteration);
+				evaluate(splittedES);
+				inApplyLoop();
+				getProgress().step();
+			}
 		}
 	}
 
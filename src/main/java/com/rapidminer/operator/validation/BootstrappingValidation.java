@@ -108,20 +108,35 @@ public class BootstrappingValidation extends ValidationChain {
 		}
 		getProgress().setCheckForStop(false);
 
-		for (iteration = 0; iteration < number; iteration++) {
-			int[] mapping = null;
-			if (useWeights && inputSet.getAttributes().getWeight() != null) {
-				mapping = MappedExampleSet.createWeightedBootstrappingMapping(inputSet, size, random);
-			} else {
-				mapping = MappedExampleSet.createBootstrappingMapping(inputSet, size, random);
+		if (canExecuteIterationsInParallel()) {
+			// the mappings are created in the order of the iterations, so the samples are the same
+			ExampleSet threadSafeSet = getDataCopy(inputSet, true);
+			executeIterationsInParallel(number, sample -> {
+				int[] mapping = createMapping(threadSafeSet, size, useWeights, random);
+				return new ExampleSet[] { new MappedExampleSet(threadSafeSet, mapping, true),
+						new MappedExampleSet(threadSafeSet, mapping, false) };
+			});
+			iteration = number;
+		} else {
+			for (iteration = 0; iteration < number; iteration++) {
+				int[] mapping = createMapping(inputSet, size, useWeights, random);
+				MappedExampleSet trainingSet = new MappedExampleSet(inputSet, mapping, true);
+				learn(trainingSet);
+
+				MappedExampleSet inverseExampleSet = new MappedExampleSet(inputSet, mapping, false);
+				evaluate(inverseExampleSet);
+				inApplyLoop();
+				getProgress().step();
 			}
-			MappedExampleSet trainingSet = new MappedExampleSet(inputSet, mapping, true);
-			learn(trainingSet);
+		}
+	}
 
-			MappedExampleSet inverseExampleSet = new MappedExampleSet(inputSet, mapping, false);
-			evaluate(inverseExampleSet);
-			inApplyLoop();
-			getProgress().step();
+	private int[] createMapping(ExampleSet exampleSet, int size, boolean useWeights, RandomGenerator random)
+			throws OperatorException {
+		if (useWeights && exampleSet.getAttributes().getWeight() != null) {
+			return MappedExampleSet.createWeightedBootstrappingMapping(exampleSet, size, random);
+		} else {
+			return MappedExampleSet.createBootstrappingMapping(exampleSet, size, random);
 		}
 	}
 
@@ -138,7 +138,17 @@ public class Tools {
 	 * the second or later iteration) builds the average. Null inputs are ignored.
 	 */
 	public static void buildAverages(InputPort inputPort, OutputPort outputPort) throws OperatorException {
-		AverageVector performance = inputPort.getDataOrNull(AverageVector.class);
+		buildAverages(inputPort.getDataOrNull(AverageVector.class), outputPort);
+	}
+
+	/**
+	 * Copies the given {@link AverageVector} to the output port if the port does not contain data
+	 * yet, otherwise the average of the given vector and the vector at the port is build. A
+	 * {@code null} vector is ignored.
+	 *
+	 * @since 8.0
+	 */
+	public static void buildAverages(AverageVector performance, OutputPort outputPort) throws OperatorException {
 		if (performance == null) {
 			return;
 		}
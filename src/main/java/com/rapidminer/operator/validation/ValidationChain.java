@@ -18,16 +18,20 @@
 */
 package com.rapidminer.operator.validation;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Model;
-import com.rapidminer.operator.OperatorChain;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorVersion;
 import com.rapidminer.operator.ValueDouble;
+import com.rapidminer.operator.concurrency.internal.ParallelOperatorChain;
 import com.rapidminer.operator.learner.CapabilityProvider;
 import com.rapidminer.operator.learner.PredictionModel;
 import com.rapidminer.operator.performance.PerformanceCriterion;
@@ -48,6 +52,9 @@ import com.rapidminer.operator.ports.metadata.SubprocessTransformRule;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyExecutionService;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyExecutionServiceProvider;
+import com.rapidminer.studio.internal.Resources;
 import com.rapidminer.tools.math.AverageVector;
 
 
@@ -57,10 +64,35 @@ import com.rapidminer.tools.math.AverageVector;
  * {@link Model} and an operator or operator chain that can apply this model and returns a
  * {@link PerformanceVector}. Hence the second inner operator usually is an operator chain
  * containing a model applier and a performance evaluator.
+ * <p>
+ * Subclasses performing several independent iterations can execute them in parallel on copies of
+ * this operator via {@link #executeIterationsInParallel(int, IterationSplitter)}.
  *
  * @author Ingo Mierswa, Simon Fischer
  */
-public abstract class ValidationChain extends OperatorChain implements CapabilityProvider {
+public abstract class ValidationChain extends ParallelOperatorChain implements CapabilityProvider {
+
+	/**
+	 * Creates the training and the test set of a single validation iteration for the parallel
+	 * execution.
+	 *
+	 * @since 8.0
+	 */
+	@FunctionalInterface
+	protected interface IterationSplitter {
+
+		/**
+		 * Creates the example sets for the given iteration. The sets are used by a single thread
+		 * only but must not share any mutable state with the sets of other iterations.
+		 *
+		 * @param iteration
+		 *            the number of the iteration
+		 * @return an array containing the training set and the test set
+		 * @throws OperatorException
+		 *             if the sets cannot be created
+		 */
+		ExampleSet[] createSets(int iteration) throws OperatorException;
+	}
 
 	/**
 	 * The parameter name for &quot;Indicates if a model of the complete data set should be
@@ -68,6 +100,9 @@ public abstract class ValidationChain extends OperatorChain implements Capabilit
 	 */
 	public static final String PARAMETER_CREATE_COMPLETE_MODEL = "create_complete_model";
 
+	/** Up to this version, the iterations are always executed one after another. */
+	public static final OperatorVersion VERSION_SERIAL_ITERATIONS = new OperatorVersion(7, 6, 3);
+
 	// input
 	protected final InputPort trainingSetInput = getInputPorts().createPort("training", ExampleSet.class);
 
@@ -307,6 +342,78 @@ public abstract class ValidationChain extends OperatorChain implements Capabilit
 		}
 	}
 
+	/**
+	 * Checks whether iterations can be executed in parallel via
+	 * {@link #executeIterationsInParallel(int, IterationSplitter)}. This requires the concurrency
+	 * execution service, parallel execution to be enabled, no breakpoints inside the subprocesses
+	 * and a compatibility level above {@link #VERSION_SERIAL_ITERATIONS}.
+	 *
+	 * @since 8.0
+	 */
+	protected boolean canExecuteIterationsInParallel() {
+		return !getCompatibilityLevel().isAtMost(VERSION_SERIAL_ITERATIONS)
+				&& ConcurrencyExecutionServiceProvider.INSTANCE.isInitialized() && checkParallelizability();
+	}
+
+	/**
+	 * Executes the given number of iterations in parallel. Each iteration learns and evaluates on
+	 * its own copy of this operator. The splitter is called in this thread in the order of the
+	 * iterations. The averagable results of the iterations are averaged in the order of the
+	 * iterations, so the results are the same as for {@link #learn(ExampleSet)} and
+	 * {@link #evaluate(ExampleSet)} being called one iteration after another. At most as many
+	 * iterations as the parallelism of the concurrency context are prepared at once, since every
+	 * iteration holds its own operator copy and example sets.
+	 *
+	 * @param numberOfIterations
+	 *            the number of iterations
+	 * @param splitter
+	 *            creates the training and test set for each iteration
+	 * @throws OperatorException
+	 *             if one of the iterations fails
+	 * @since 8.0
+	 */
+	protected final void executeIterationsInParallel(int numberOfIterations, IterationSplitter splitter)
+			throws OperatorException {
+		ConcurrencyExecutionService service = ConcurrencyExecutionServiceProvider.INSTANCE.getService();
+		int batchSize = Math.max(1, Resources.getConcurrencyContext(this).getParallelism());
+		for (int batchStart = 0; batchStart < numberOfIterations; batchStart += batchSize) {
+			int batchEnd = Math.min(batchStart + batchSize, numberOfIterations);
+			List<Callable<List<AverageVector>>> tasks = new ArrayList<>(batchEnd - batchStart);
+			for (int iteration = batchStart; iteration < batchEnd; iteration++) {
+				final ExampleSet[] sets = splitter.createSets(iteration);
+				final ValidationChain copy = (ValidationChain) cloneOperator(getName(), true);
+				tasks.add(service.prepareOperatorTask(getProcess(), copy, getApplyCount() + iteration + 1,
+						iteration == numberOfIterations - 1, () -> copy.performIteration(sets[0], sets[1])));
+			}
+
+			List<List<AverageVector>> results = service.executeOperatorTasks(this, tasks);
+
+			// average in the order of the iterations
+			for (List<AverageVector> averages : results) {
+				int index = 0;
+				for (PortPairExtender.PortPair pair : applyProcessPerformancePortExtender.getManagedPairs()) {
+					Tools.buildAverages(averages.get(index++), pair.getOutputPort());
+				}
+				inApplyLoop();
+				getProgress().step();
+			}
+		}
+	}
+
+	/**
+	 * Learns and evaluates a single iteration on this (copied) operator and returns the averagable
+	 * results for all averagable ports. The list may contain {@code null} for unconnected ports.
+	 */
+	private List<AverageVector> performIteration(ExampleSet trainingSet, ExampleSet testSet) throws OperatorException {
+		learn(trainingSet);
+		evaluate(testSet);
+		List<AverageVector> averages = new ArrayList<>();
+		for (PortPairExtender.PortPair pair : applyProcessPerformancePortExtender.getManagedPairs()) {
+			averages.add(pair.getOutputPort().getDataOrNull(AverageVector.class));
+		}
+		return averages;
+	}
+
 	/** Applies the learner (= first encapsulated inner operator). for building the final model. */
 	protected void learnFinalModel(ExampleSet trainingSet) throws OperatorException {
 		learn(trainingSet);
@@ -355,4 +462,12 @@ public abstract class ValidationChain extends OperatorChain implements Capabilit
 		types.add(type);
 		return types;
 	}
+
+	@Override
+	public OperatorVersion[] getIncompatibleVersionChanges() {
+		OperatorVersion[] old = super.getIncompatibleVersionChanges();
+		OperatorVersion[] versions = Arrays.copyOf(old, old.length + 1);
+		versions[old.length] = VERSION_SERIAL_ITERATIONS;
+		return versions;
+	}
 }
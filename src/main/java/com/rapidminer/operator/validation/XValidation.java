@@ -152,9 +152,13 @@ public class XValidation extends ValidationChain {
 		}
 		getLogger().fine("Starting " + number + "-fold cross validation");
 
+		// the folds of a parallel execution work on views of a thread-safe copy
+		boolean parallel = number > 1 && canExecuteIterationsInParallel();
+		ExampleSet baseSet = parallel ? getDataCopy(inputSet, true) : inputSet;
+
 		// Split training / test set
 		int samplingType = getParameterAsInt(PARAMETER_SAMPLING_TYPE);
-		SplittedExampleSet splittedES = new SplittedExampleSet(inputSet, number, samplingType,
+		SplittedExampleSet splittedES = new SplittedExampleSet(baseSet, number, samplingType,
 				getParameterAsBoolean(RandomGenerator.PARAMETER_USE_LOCAL_RANDOM_SEED),
 				getParameterAsInt(RandomGenerator.PARAMETER_LOCAL_RANDOM_SEED),
 				getCompatibilityLevel().isAtMost(SplittedExampleSet.VERSION_SAMPLING_CHANGED));
@@ -167,11 +171,26 @@ public class XValidation extends ValidationChain {
 		}
 		getProgress().setCheckForStop(false);
 
-		for (iteration = 0; iteration < number; iteration++) {
-			performIteration(splittedES, iteration);
+		if (parallel) {
+			executeIterationsInParallel(number, fold -> {
+				SplittedExampleSet trainingSet = new SplittedExampleSet(splittedES);
+				trainingSet.selectAllSubsetsBut(fold);
+				SplittedExampleSet testSet = new SplittedExampleSet(splittedES);
+				testSet.selectSingleSubset(fold);
+				return new ExampleSet[] { trainingSet, testSet };
+			});
+			iteration = number;
+		} else {
+			for (iteration = 0; iteration < number; iteration++) {
+				performIteration(splittedES, iteration);
+			}
 		}
 	}
 
+	/**
+	 * The iterations are only executed in parallel if this method is not overridden, since the
+	 * parallel iterations do not run through it.
+	 */
 	protected void performIteration(SplittedExampleSet splittedES, int iteration)
 			throws OperatorException, ProcessStoppedException {
 		splittedES.selectAllSubsetsBut(iteration);
@@ -184,6 +203,28 @@ public class XValidation extends ValidationChain {
 		getProgress().step();
 	}
 
+	/**
+	 * Subclasses which override {@link #performIteration(SplittedExampleSet, int)} are executed
+	 * sequentially.
+	 */
+	@Override
+	protected boolean canExecuteIterationsInParallel() {
+		return !overridesPerformIteration() && super.canExecuteIterationsInParallel();
+	}
+
+	/** Checks whether a subclass overrides {@link #performIteration(SplittedExampleSet, int)}. */
+	private boolean overridesPerformIteration() {
+		for (Class<?> clazz = getClass(); clazz != XValidation.class; clazz = clazz.getSuperclass()) {
+			try {
+				clazz.getDeclaredMethod("performIteration", SplittedExampleSet.class, int.class);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// check the super class
+			}
+		}
+		return false;
+	}
+
 	@Override
 	protected MDInteger getTestSetSize(MDInteger originalSize) throws UndefinedParameterError {
 		if (getParameterAsBoolean(PARAMETER_LEAVE_ONE_OUT)) {
@@ -236,7 +277,7 @@ public class XValidation extends ValidationChain {
 
 	@Override
 	public OperatorVersion[] getIncompatibleVersionChanges() {
-		return new OperatorVersion[] { SplittedExampleSet.VERSION_SAMPLING_CHANGED };
+		return new OperatorVersion[] { SplittedExampleSet.VERSION_SAMPLING_CHANGED, VERSION_SERIAL_ITERATIONS };
 	}
 
 	@Override
@@ -65,4 +65,17 @@ public class ParameterTypeAttributes extends ParameterTypeAttribute {
 		this(key, description, inPort, optional);
 		setExpert(expert);
 	}
+
+	/**
+	 * Creates a parameter type offering the attributes of the meta data of the given provider. This
+	 * is meant for operators which do not receive the example set at an input port, e.g. because
+	 * they read it.
+	 *
+	 * @since 8.0
+	 */
+	@SuppressWarnings("deprecation")
+	public ParameterTypeAttributes(final String key, String description, MetaDataProvider metaDataProvider,
+			boolean optional) {
+		super(key, description, metaDataProvider, optional, Ontology.ATTRIBUTE_VALUE);
+	}
 }
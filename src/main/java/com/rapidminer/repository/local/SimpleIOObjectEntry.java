@@ -27,25 +27,41 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.lang.ref.WeakReference;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
 
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.AttributeRole;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.MappedExampleSet;
+import com.rapidminer.example.table.SparseDataRow;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.ports.metadata.AttributeMetaData;
 import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.MetaData;
+import com.rapidminer.operator.tools.ExampleSetToColumns;
 import com.rapidminer.operator.tools.ExampleSetToStream;
 import com.rapidminer.operator.tools.IOObjectSerializer;
 import com.rapidminer.operator.tools.RMObjectInputStream;
+import com.rapidminer.operator.tools.SerializationType;
 import com.rapidminer.repository.Folder;
 import com.rapidminer.repository.IOObjectEntry;
 import com.rapidminer.repository.RepositoryException;
+import com.rapidminer.tools.ParameterService;
 import com.rapidminer.tools.ProgressListener;
 import com.rapidminer.tools.plugin.Plugin;
 
 
 /**
  * Stores IOObject in a file. Either as IOO serialized files using {@link ExampleSetToStream} where
- * appropriate.
+ * appropriate, or column by column using {@link ExampleSetToColumns} if enabled by
+ * {@link RapidMiner#PROPERTY_RAPIDMINER_SYSTEM_COLUMNAR_EXAMPLE_SET_STORAGE}.
  *
  * @author Simon Fischer
  */
@@ -90,6 +106,83 @@ public class SimpleIOObjectEntry extends SimpleDataEntry implements IOObjectEntr
 		}
 	}
 
+	/**
+	 * Retrieves some of the attributes and examples of a stored example set. If the example set was
+	 * stored column by column, only the selected data is read. Otherwise, the whole example set is
+	 * read and reduced afterwards.
+	 *
+	 * @param selection
+	 *            decides which attributes to retrieve, {@code null} to retrieve all of them
+	 * @param fromRow
+	 *            the first example to retrieve
+	 * @param toRow
+	 *            the index after the last example to retrieve, {@link Integer#MAX_VALUE} to
+	 *            retrieve all following examples
+	 * @param l
+	 *            the progress listener, can be {@code null}
+	 * @return the example set
+	 * @throws RepositoryException
+	 *             if the entry does not contain an example set or cannot be read
+	 * @since 8.0
+	 */
+	public ExampleSet retrieveExampleSet(Predicate<AttributeRole> selection, int fromRow, int toRow, ProgressListener l)
+			throws RepositoryException {
+		if (l != null) {
+			l.setTotal(100);
+			l.setCompleted(10);
+		}
+		File dataFile = getDataFile();
+		if (!dataFile.exists()) {
+			throw new RepositoryException("File '" + dataFile + " does not exist'.");
+		}
+		Object data;
+		try (FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+			// reads the header without buffering, so that the channel is positioned at the body
+			SerializationType type = IOObjectSerializer.getInstance().deserializeHeader(Channels.newInputStream(channel));
+			if (type == SerializationType.COLUMNAR_EXAMPLE_SET) {
+				return new ExampleSetToColumns().read(channel, selection, fromRow, toRow);
+			}
+			data = type.getBodySerializer().deserialize(new BufferedInputStream(Channels.newInputStream(channel)));
+		} catch (Exception e) {
+			throw new RepositoryException("Cannot load data from '" + dataFile + "': " + e, e);
+		} finally {
+			if (l != null) {
+				l.complete();
+			}
+		}
+		if (!(data instanceof ExampleSet)) {
+			throw new RepositoryException("Entry '" + getLocation() + "' does not contain an example set.");
+		}
+		return select((ExampleSet) data, selection, fromRow, toRow);
+	}
+
+	/** Reduces a completely read example set to the selected attributes and examples. */
+	private static ExampleSet select(ExampleSet exampleSet, Predicate<AttributeRole> selection, int fromRow, int toRow) {
+		if (selection != null) {
+			List<AttributeRole> removed = new ArrayList<>();
+			Iterator<AttributeRole> roles = exampleSet.getAttributes().allAttributeRoles();
+			while (roles.hasNext()) {
+				AttributeRole role = roles.next();
+				if (!selection.test(role)) {
+					removed.add(role);
+				}
+			}
+			for (AttributeRole role : removed) {
+				exampleSet.getAttributes().remove(role);
+			}
+		}
+		fromRow = Math.max(0, fromRow);
+		toRow = Math.min(exampleSet.size(), toRow);
+		if (fromRow == 0 && toRow == exampleSet.size()) {
+			return exampleSet;
+		}
+		int[] mapping = new int[Math.max(0, toRow - fromRow)];
+		for (int i = 0; i < mapping.length; i++) {
+			mapping[i] = fromRow + i;
+		}
+		return new MappedExampleSet(exampleSet, mapping);
+	}
+
 	@Override
 	public MetaData retrieveMetaData() throws RepositoryException {
 		if (metaData != null) {
@@ -131,7 +224,11 @@ public class SimpleIOObjectEntry extends SimpleDataEntry implements IOObjectEntr
 		MetaData md = MetaData.forIOObject(data);
 		// Serialize Non-ExampleSets as IOO
 		try (FileOutputStream fos = new FileOutputStream(getDataFile()); OutputStream out = new BufferedOutputStream(fos)) {
-			IOObjectSerializer.getInstance().serialize(out, data);
+			if (isColumnarStorage(data)) {
+				IOObjectSerializer.getInstance().serialize(out, data, SerializationType.COLUMNAR_EXAMPLE_SET);
+			} else {
+				IOObjectSerializer.getInstance().serialize(out, data);
+			}
 			if (l != null) {
 				l.setCompleted(75);
 			}
@@ -157,6 +254,19 @@ public class SimpleIOObjectEntry extends SimpleDataEntry implements IOObjectEntr
 		putProperty(PROPERTY_IOOBJECT_CLASS, data.getClass().getName());
 	}
 
+	/**
+	 * Checks whether the data should be stored column by column. Sparse example sets are kept in the
+	 * streamed format since the columnar one is dense.
+	 */
+	private static boolean isColumnarStorage(IOObject data) {
+		if (!(data instanceof ExampleSet) || !Boolean.parseBoolean(
+				ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_SYSTEM_COLUMNAR_EXAMPLE_SET_STORAGE))) {
+			return false;
+		}
+		ExampleSet exampleSet = (ExampleSet) data;
+		return exampleSet.size() == 0 || !(exampleSet.getExample(0).getDataRow() instanceof SparseDataRow);
+	}
+
 	@Override
 	public String getType() {
 		return IOObjectEntry.TYPE_NAME;
@@ -0,0 +1,336 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.studio.concurrency.internal;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.rapidminer.Process;
+
+
+/**
+ * Schedules the tasks of all {@link StudioConcurrencyContext}s onto their {@link ForkJoinPool}. The
+ * scheduler never hands more tasks to the pool than the pool's parallelism and distributes these
+ * slots fairly between the processes: a free slot goes to the process with the fewest running tasks
+ * relative to its priority, on ties to the process whose next task has been waiting longest. No
+ * process gets more slots than its parallelism quota.
+ * <p>
+ * Only tasks submitted from outside the pool are scheduled. Tasks submitted from within a pool
+ * thread already run in a slot of their process and are handed to the pool directly, since waiting
+ * for a slot could dead-lock.
+ * <p>
+ * For every process, the scheduler records the queue depth and the latencies of its tasks, see
+ * {@link QueueMetrics}.
+ *
+ * @since 8.0
+ */
+public final class ProcessTaskScheduler {
+
+	/** The priority of processes unless specified otherwise. */
+	public static final int DEFAULT_PRIORITY = 1;
+
+	private static final double NANOS_PER_MILLI = 1_000_000d;
+
+	/**
+	 * The tasks of a single {@link StudioConcurrencyContext}, i.e. of a single process. All fields
+	 * are guarded by the scheduler.
+	 */
+	static final class TaskQueue {
+
+		private final StudioConcurrencyContext context;
+		private final Process process;
+		private final ArrayDeque<ScheduledTask<?>> pending = new ArrayDeque<>();
+		private boolean active;
+		private int priority = DEFAULT_PRIORITY;
+		private int quota;
+		private int running;
+		private long started;
+		private long completed;
+		private long totalWaitNanos;
+		private long maximalWaitNanos;
+		private long totalExecutionNanos;
+
+		TaskQueue(StudioConcurrencyContext context, Process process) {
+			this.context = context;
+			this.process = process;
+		}
+	}
+
+	/**
+	 * A snapshot of the scheduling state and the task latencies of a process.
+	 */
+	public static final class QueueMetrics {
+
+		private final Process process;
+		private final int priority;
+		private final int queueDepth;
+		private final int runningTasks;
+		private final long completedTasks;
+		private final double averageWaitMillis;
+		private final double maximalWaitMillis;
+		private final double averageExecutionMillis;
+
+		private QueueMetrics(TaskQueue queue) {
+			this.process = queue.process;
+			this.priority = queue.priority;
+			this.queueDepth = queue.pending.size();
+			this.runningTasks = queue.running;
+			this.completedTasks = queue.completed;
+			this.averageWaitMillis = queue.started > 0 ? queue.totalWaitNanos / NANOS_PER_MILLI / queue.started : 0;
+			this.maximalWaitMillis = queue.maximalWaitNanos / NANOS_PER_MILLI;
+			this.averageExecutionMillis = queue.completed > 0
+					? queue.totalExecutionNanos / NANOS_PER_MILLI / queue.completed : 0;
+		}
+
+		/** @return the process the tasks belong to */
+		public Process getProcess() {
+			return process;
+		}
+
+		/** @return the priority of the process */
+		public int getPriority() {
+			return priority;
+		}
+
+		/** @return the number of tasks waiting for a slot */
+		public int getQueueDepth() {
+			return queueDepth;
+		}
+
+		/** @return the number of tasks currently running in the pool */
+		public int getRunningTasks() {
+			return runningTasks;
+		}
+
+		/** @return the number of finished tasks */
+		public long getCompletedTasks() {
+			return completedTasks;
+		}
+
+		/** @return the average time the started tasks waited for a slot in milliseconds */
+		public double getAverageWaitMillis() {
+			return averageWaitMillis;
+		}
+
+		/** @return the longest time a task waited for a slot in milliseconds */
+		public double getMaximalWaitMillis() {
+			return maximalWaitMillis;
+		}
+
+		/** @return the average execution time of the finished tasks in milliseconds */
+		public double getAverageExecutionMillis() {
+			return averageExecutionMillis;
+		}
+
+		@Override
+		public String toString() {
+			return "priority: " + priority + ", queued: " + queueDepth + ", running: " + runningTasks + ", completed: " + completedTasks
+					+ ", average wait: " + averageWaitMillis + "ms, maximal wait: " + maximalWaitMillis
+					+ "ms, average execution: " + averageExecutionMillis + "ms";
+		}
+	}
+
+	/**
+	 * A task waiting for or running in a slot.
+	 */
+	private static final class ScheduledTask<T> extends FutureTask<T> {
+
+		private final TaskQueue queue;
+		private final long submissionTime;
+		private long startTime;
+
+		private ScheduledTask(Callable<T> callable, TaskQueue queue, long submissionTime) {
+			super(callable);
+			this.queue = queue;
+			this.submissionTime = submissionTime;
+		}
+
+		private void reject(RejectedExecutionException e) {
+			setException(e);
+		}
+	}
+
+	/** the queues with waiting or running tasks */
+	private final List<TaskQueue> activeQueues = new ArrayList<>();
+
+	/** the number of tasks of all queues currently running */
+	private int running;
+
+	ProcessTaskScheduler() {}
+
+	/**
+	 * Queues the callables for the given queue and returns their futures in the same order.
+	 *
+	 * @param quota
+	 *            the maximal number of slots of the queue, {@code 0} for the parallelism of the pool
+	 */
+	<T> List<Future<T>> submit(TaskQueue queue, int quota, List<Callable<T>> callables) {
+		List<Future<T>> futures = new ArrayList<>(callables.size());
+		long now = System.nanoTime();
+		synchronized (this) {
+			queue.quota = Math.max(0, quota);
+			for (Callable<T> callable : callables) {
+				ScheduledTask<T> task = new ScheduledTask<>(callable, queue, now);
+				queue.pending.add(task);
+				futures.add(task);
+			}
+			if (!queue.active) {
+				queue.active = true;
+				activeQueues.add(queue);
+			}
+			dispatch();
+		}
+		return futures;
+	}
+
+	/**
+	 * Sets the priority of the queue, larger values give more slots.
+	 */
+	synchronized void setPriority(TaskQueue queue, int priority) {
+		queue.priority = Math.max(1, priority);
+		dispatch();
+	}
+
+	synchronized int getPriority(TaskQueue queue) {
+		return queue.priority;
+	}
+
+	/**
+	 * @return the metrics of the given queue
+	 */
+	synchronized QueueMetrics getMetrics(TaskQueue queue) {
+		return new QueueMetrics(queue);
+	}
+
+	/**
+	 * @return the metrics of all processes with waiting or running tasks
+	 */
+	public synchronized List<QueueMetrics> getActiveMetrics() {
+		List<QueueMetrics> metrics = new ArrayList<>(activeQueues.size());
+		for (TaskQueue queue : activeQueues) {
+			metrics.add(new QueueMetrics(queue));
+		}
+		return metrics;
+	}
+
+	/**
+	 * Hands waiting tasks to their pools as long as there are free slots.
+	 */
+	private void dispatch() {
+		while (true) {
+			TaskQueue next = null;
+			ForkJoinPool nextPool = null;
+			for (TaskQueue queue : activeQueues) {
+				if (queue.pending.isEmpty()) {
+					continue;
+				}
+				ForkJoinPool pool = queue.context.getForkJoinPool();
+				int parallelism = pool.getParallelism();
+				int quota = queue.quota > 0 ? Math.min(queue.quota, parallelism) : parallelism;
+				if (running >= parallelism || queue.running >= quota) {
+					continue;
+				}
+				if (next == null || isPreferred(queue, next)) {
+					next = queue;
+					nextPool = pool;
+				}
+			}
+			if (next == null) {
+				return;
+			}
+
+			final ScheduledTask<?> task = next.pending.poll();
+			task.startTime = System.nanoTime();
+			long wait = task.startTime - task.submissionTime;
+			next.started++;
+			next.totalWaitNanos += wait;
+			next.maximalWaitNanos = Math.max(next.maximalWaitNanos, wait);
+			next.running++;
+			running++;
+			try {
+				execute(nextPool, new Runnable() {
+
+					@Override
+					public void run() {
+						try {
+							task.run();
+						} finally {
+							finished(task);
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				task.reject(e);
+				release(task);
+			}
+		}
+	}
+
+	private static void execute(final ForkJoinPool pool, final Runnable runnable) {
+		AccessController.doPrivileged(new PrivilegedAction<Void>() {
+
+			@Override
+			public Void run() {
+				pool.execute(runnable);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Releases the slot of the finished task and hands it to the next waiting task.
+	 */
+	private synchronized void finished(ScheduledTask<?> task) {
+		release(task);
+		dispatch();
+	}
+
+	private void release(ScheduledTask<?> task) {
+		TaskQueue queue = task.queue;
+		queue.running--;
+		running--;
+		queue.completed++;
+		queue.totalExecutionNanos += System.nanoTime() - task.startTime;
+		if (queue.running == 0 && queue.pending.isEmpty()) {
+			queue.active = false;
+			activeQueues.remove(queue);
+		}
+	}
+
+	/**
+	 * Checks whether the first queue should get the next slot before the second one.
+	 */
+	private static boolean isPreferred(TaskQueue first, TaskQueue second) {
+		long firstShare = (long) first.running * second.priority;
+		long secondShare = (long) second.running * first.priority;
+		if (firstShare != secondShare) {
+			return firstShare < secondShare;
+		}
+		return first.pending.peek().submissionTime - second.pending.peek().submissionTime < 0;
+	}
+
+}
@@ -46,6 +46,10 @@ import com.rapidminer.tools.LogService;
 /**
  * Simple {@link ConcurrencyContext} to be used with a single {@link Process}.
  * <p>
+ * All contexts share a JVM-wide {@link ForkJoinPool}. Tasks submitted from outside the pool are
+ * queued by the {@link ProcessTaskScheduler}, which shares the pool fairly between the processes
+ * according to their priority and parallelism quota.
+ * <p>
  * The context does not implement the submission methods for {@link ForkJoinTask}s.
  *
  * @author Gisa Schaefer, Michael Knopf
@@ -68,10 +72,17 @@ public class StudioConcurrencyContext implements ConcurrencyContext {
 	/** The fork join pool all task are submitted to. */
 	private static ForkJoinPool pool = null;
 
+	/** The scheduler sharing the pool between the processes. */
+	private static final ProcessTaskScheduler SCHEDULER = new ProcessTaskScheduler();
+
 	/** The corresponding process. */
 	private final Process process;
 
+	/** The tasks of the process waiting for or running in the pool. */
+	private final ProcessTaskScheduler.TaskQueue taskQueue;
 
+	/** The parallelism quota of the process, a negative value if the setting is used. */
+	private volatile int parallelismQuota = -1;
 
 	/**
 	 * Creates a new {@link ConcurrencyContext} for the given {@link Process}.
@@ -87,6 +98,80 @@ public class StudioConcurrencyContext implements ConcurrencyContext {
 			throw new IllegalArgumentException("process must not be null");
 		}
 		this.process = process;
+		this.taskQueue = new ProcessTaskScheduler.TaskQueue(this, process);
+	}
+
+	/**
+	 * @return the scheduler sharing the pool between the processes, e.g. to query their metrics
+	 * @since 8.0
+	 */
+	public static ProcessTaskScheduler getScheduler() {
+		return SCHEDULER;
+	}
+
+	/**
+	 * Sets the priority of the process. When processes compete for the pool, every process gets a
+	 * share of the threads proportional to its priority.
+	 *
+	 * @param priority
+	 *            the priority, at least {@code 1}
+	 * @since 8.0
+	 */
+	public void setPriority(int priority) {
+		if (priority < 1) {
+			throw new IllegalArgumentException("priority must be positive");
+		}
+		SCHEDULER.setPriority(taskQueue, priority);
+	}
+
+	/**
+	 * @return the priority of the process
+	 * @since 8.0
+	 */
+	public int getPriority() {
+		return SCHEDULER.getPriority(taskQueue);
+	}
+
+	/**
+	 * Sets the maximal number of threads of the pool the process can use at the same time.
+	 *
+	 * @param quota
+	 *            the quota, {@code 0} for no restriction or a negative value to use the setting
+	 *            {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS_PER_PROCESS}
+	 * @since 8.0
+	 */
+	public void setParallelismQuota(int quota) {
+		this.parallelismQuota = quota;
+	}
+
+	/**
+	 * @return the maximal number of threads the process can use at the same time, {@code 0} if not
+	 *         restricted
+	 * @since 8.0
+	 */
+	public int getParallelismQuota() {
+		int quota = parallelismQuota;
+		if (quota >= 0) {
+			return quota;
+		}
+		String value = ParameterServiceRegistry.INSTANCE
+				.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS_PER_PROCESS);
+		if (value != null) {
+			try {
+				return Math.max(0, Integer.parseInt(value));
+			} catch (NumberFormatException e) {
+				// ignore and use no restriction
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the queue depth and task latencies of the process
+	 * @since 8.0
+	 */
+	public ProcessTaskScheduler.QueueMetrics getSchedulingMetrics() {
+		return SCHEDULER.getMetrics(taskQueue);
 	}
 
 	@Override
@@ -140,20 +225,10 @@ public class StudioConcurrencyContext implements ConcurrencyContext {
 		}
 
 		// handle submissions from inside and outside the pool differently
-		Thread currentThread = Thread.currentThread();
-		if (currentThread instanceof ForkJoinWorkerThread
-				&& ((ForkJoinWorkerThread) currentThread).getPool() == getForkJoinPool()) {
+		if (isPoolThread()) {
 			return RecursiveWrapper.call(callables);
 		} else {
-			final List<Future<T>> futures = new ArrayList<>(callables.size());
-			AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
-
-				for (Callable<T> callable : callables) {
-					futures.add(getForkJoinPool().submit(callable));
-				}
-				return null;
-			});
-			return collectResults(futures);
+			return collectResults(SCHEDULER.submit(taskQueue, getParallelismQuota(), callables));
 		}
 	}
 
@@ -175,6 +250,11 @@ public class StudioConcurrencyContext implements ConcurrencyContext {
 			}
 		}
 
+		// tasks from outside the pool wait for a slot of the process
+		if (!isPoolThread()) {
+			return SCHEDULER.submit(taskQueue, getParallelismQuota(), callables);
+		}
+
 		// submit callables without further checks
 		final List<Future<T>> futures = new ArrayList<>(callables.size());
 		AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
@@ -241,11 +321,23 @@ public class StudioConcurrencyContext implements ConcurrencyContext {
 
 	@Override
 	public int getParallelism() {
+		int parallelism;
 		if (pool != null) {
-			return getForkJoinPool().getParallelism();
+			parallelism = getForkJoinPool().getParallelism();
 		} else {
-			return getDesiredParallelismLevel();
+			parallelism = getDesiredParallelismLevel();
 		}
+		int quota = getParallelismQuota();
+		return quota > 0 ? Math.min(quota, parallelism) : parallelism;
+	}
+
+	/**
+	 * @return whether the current thread is a worker of the pool
+	 */
+	private boolean isPoolThread() {
+		Thread currentThread = Thread.currentThread();
+		return currentThread instanceof ForkJoinWorkerThread
+				&& ((ForkJoinWorkerThread) currentThread).getPool() == getForkJoinPool();
 	}
 
 	@Override
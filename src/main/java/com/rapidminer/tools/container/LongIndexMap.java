@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.tools.container;
+
+import java.util.Arrays;
+
+
+/**
+ * Assigns consecutive indices to primitive long keys in the order in which the keys are added.
+ * The keys are kept in an open addressing hash table with linear probing, so neither the keys nor
+ * the indices are boxed. This allows to use it as a dictionary mapping arbitrary long keys (e.g.
+ * the bits of double values or packed group keys) onto dense indices of arrays or lists.
+ *
+ * @since 8.0
+ */
+public class LongIndexMap {
+
+	/** the index returned for keys not contained in this map */
+	public static final int NOT_FOUND = -1;
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** the keys by their index */
+	private long[] keys;
+
+	/** the hash table containing the indices of the keys or {@link #NOT_FOUND} for free slots */
+	private int[] table;
+
+	private int mask;
+
+	private int size;
+
+	public LongIndexMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new map which can take the given number of keys without resizing.
+	 *
+	 * @param expectedSize
+	 *            the expected number of keys
+	 */
+	public LongIndexMap(int expectedSize) {
+		int capacity = Math.max(DEFAULT_CAPACITY, expectedSize);
+		keys = new long[capacity];
+		// keep the load factor of the table at most one half
+		int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+		table = new int[tableSize];
+		Arrays.fill(table, NOT_FOUND);
+		mask = tableSize - 1;
+	}
+
+	/**
+	 * Returns the index of the given key or {@link #NOT_FOUND} if the key was never added.
+	 */
+	public int get(long key) {
+		int slot = hash(key) & mask;
+		while (true) {
+			int index = table[slot];
+			if (index == NOT_FOUND || keys[index] == key) {
+				return index;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Returns the index of the given key. If the key is not contained yet, it is added and gets the
+	 * next free index, which is the former {@link #size()} of this map.
+	 */
+	public int getOrAdd(long key) {
+		int slot = hash(key) & mask;
+		while (true) {
+			int index = table[slot];
+			if (index == NOT_FOUND) {
+				break;
+			} else if (keys[index] == key) {
+				return index;
+			}
+			slot = (slot + 1) & mask;
+		}
+		int index = size;
+		if (index == keys.length) {
+			keys = Arrays.copyOf(keys, keys.length * 2);
+		}
+		keys[index] = key;
+		table[slot] = index;
+		size++;
+		if (size * 2 > table.length) {
+			rehash(table.length * 2);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the key with the given index.
+	 *
+	 * @throws ArrayIndexOutOfBoundsException
+	 *             if the index is not smaller than {@link #size()}
+	 */
+	public long getKey(int index) {
+		if (index >= size) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+		return keys[index];
+	}
+
+	/**
+	 * Returns a copy of all keys ordered by their index.
+	 */
+	public long[] getKeys() {
+		return Arrays.copyOf(keys, size);
+	}
+
+	/**
+	 * @return the number of keys in this map
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void rehash(int tableSize) {
+		table = new int[tableSize];
+		Arrays.fill(table, NOT_FOUND);
+		mask = tableSize - 1;
+		for (int index = 0; index < size; index++) {
+			int slot = hash(keys[index]) & mask;
+			while (table[slot] != NOT_FOUND) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = index;
+		}
+	}
+
+	/**
+	 * Spreads the bits of the key, so that keys differing only in the upper bits or by a multiple of
+	 * the table size do not collide.
+	 */
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ h >>> 32);
+	}
+}
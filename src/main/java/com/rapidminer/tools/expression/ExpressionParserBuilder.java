@@ -49,6 +49,7 @@ public class ExpressionParserBuilder {
 
 	private Process process;
 	private boolean compatibleWithOldParser;
+	private boolean compile;
 
 	private List<Function> functions = new LinkedList<>();
 
@@ -84,7 +85,7 @@ public class ExpressionParserBuilder {
 
 		ExpressionContext context = new SimpleExpressionContext(functions, scopeResolvers, dynamicsResolvers,
 				constantResolvers);
-		AntlrParser parser = new AntlrParser(context);
+		AntlrParser parser = new AntlrParser(context, compile);
 
 		if (!compatibleWithOldParser) {
 			// set parser for eval function
@@ -188,4 +189,19 @@ public class ExpressionParserBuilder {
 		return this;
 	}
 
+	/**
+	 * Sets whether the numerical parts of expressions should be compiled into method handles
+	 * instead of being interpreted. Compiled expressions yield the same results but are faster if
+	 * they are evaluated many times, e.g. for every example of an example set.
+	 *
+	 * @param compile
+	 *            whether to compile the parsed expressions
+	 * @return the builder
+	 * @since 8.0
+	 */
+	public ExpressionParserBuilder withCompilation(boolean compile) {
+		this.compile = compile;
+		return this;
+	}
+
 }
@@ -18,10 +18,16 @@
 */
 package com.rapidminer.tools.expression.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
+import com.rapidminer.RapidMiner;
+import com.rapidminer.core.concurrency.ConcurrencyContext;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.AttributeRole;
 import com.rapidminer.example.Example;
@@ -34,7 +40,9 @@ import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.ports.metadata.AttributeMetaData;
 import com.rapidminer.operator.ports.metadata.ExampleSetMetaData;
 import com.rapidminer.operator.ports.metadata.SetRelation;
+import com.rapidminer.studio.internal.Resources;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParameterService;
 import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.expression.ExampleResolver;
 import com.rapidminer.tools.expression.Expression;
@@ -44,6 +52,9 @@ import com.rapidminer.tools.expression.ExpressionParserBuilder;
 import com.rapidminer.tools.expression.ExpressionRegistry;
 import com.rapidminer.tools.expression.ExpressionType;
 import com.rapidminer.tools.expression.MacroResolver;
+import com.rapidminer.tools.expression.internal.antlr.AntlrParser;
+import com.rapidminer.tools.expression.internal.antlr.BatchEvaluator;
+import com.rapidminer.tools.expression.internal.antlr.ExampleSetExpression;
 
 
 /**
@@ -56,6 +67,27 @@ import com.rapidminer.tools.expression.MacroResolver;
  */
 public final class ExpressionParserUtils {
 
+	/** the minimal number of examples for a parallel computation of the attribute values */
+	private static final int THRESHOLD_PARALLEL = 20_000;
+
+	/** the number of examples after which the evaluation checks for stop */
+	private static final int CHECK_FOR_STOP_INTERVAL = 1_000;
+
+	/** the number of examples evaluated at once by a {@link BatchEvaluator} */
+	private static final int BATCH_SIZE = 1_024;
+
+	/**
+	 * Evaluation of the expression for a range of rows.
+	 */
+	private interface RowRangeEvaluation {
+
+		/**
+		 * Evaluates the expression for the rows from start (inclusive) to end (exclusive).
+		 */
+		void evaluate(int start, int end) throws ProcessStoppedException, ExpressionException;
+
+	}
+
 	private ExpressionParserUtils() {
 		throw new UnsupportedOperationException("Static utility class");
 	}
@@ -132,7 +164,10 @@ public final class ExpressionParserUtils {
 	 * {@link Ontology#REAL} for reals, {@link Ontology#DATE_TIME} for Dates, and
 	 * {@link Ontology#BINOMINAL} with values &quot;true&quot; and &quot;false&quot; for booleans.
 	 * If the executing operator is defined, there will be a check for stop before the calculation
-	 * of each example.
+	 * of each example. Furthermore, the values for large example sets are then computed in
+	 * parallel blocks of examples unless the expression depends on the order of evaluation.
+	 * Numerical expressions consisting of attributes, constants and functions with double arguments
+	 * are evaluated column by column in batches of examples, see {@link BatchEvaluator}.
 	 *
 	 * @param exampleSet
 	 *            the example set to which the generated attribute is added
@@ -158,7 +193,8 @@ public final class ExpressionParserUtils {
 			ExampleResolver resolver, Operator executingOperator) throws ProcessStoppedException, ExpressionException {
 
 		// parse the expression
-		Expression parsedExpression = parser.parse(expression);
+		Expression parsedExpression = parser instanceof AntlrParser
+				? ((AntlrParser) parser).parseForExampleSet(expression) : parser.parse(expression);
 
 		Attribute newAttribute = null;
 		// if != null this needs to be overridden
@@ -196,34 +232,43 @@ public final class ExpressionParserUtils {
 		exampleSet.getAttributes().addRegular(newAttribute);
 
 		// create attribute of correct type and all values
-		for (Example example : exampleSet) {
-			if (executingOperator != null) {
-				executingOperator.checkForStop();
-			}
+		BatchEvaluator batchEvaluator = parsedExpression instanceof ExampleSetExpression
+				? ((ExampleSetExpression) parsedExpression).getBatchEvaluator() : null;
+		boolean parallel = isParallelEvaluation(exampleSet, parsedExpression, executingOperator);
+		if (batchEvaluator != null) {
+			evaluateBatches(exampleSet, newAttribute, batchEvaluator, executingOperator, parallel);
+		} else if (parallel) {
+			evaluateParallel(exampleSet, newAttribute, parsedExpression, resolver, executingOperator);
+		} else {
+			for (Example example : exampleSet) {
+				if (executingOperator != null) {
+					executingOperator.checkForStop();
+				}
 
-			// bind example to resolver
-			resolver.bind(example);
-
-			// calculate result
-			try {
-				switch (resultType) {
-					case DOUBLE:
-					case INTEGER:
-						example.setValue(newAttribute, parsedExpression.evaluateNumerical());
-						break;
-					case DATE:
-						Date date = parsedExpression.evaluateDate();
-						example.setValue(newAttribute, date == null ? Double.NaN : date.getTime());
-						break;
-					default:
-						example.setValue(newAttribute, parsedExpression.evaluateNominal());
-						break;
+				// bind example to resolver
+				resolver.bind(example);
+
+				// calculate result
+				try {
+					switch (resultType) {
+						case DOUBLE:
+						case INTEGER:
+							example.setValue(newAttribute, parsedExpression.evaluateNumerical());
+							break;
+						case DATE:
+							Date date = parsedExpression.evaluateDate();
+							example.setValue(newAttribute, date == null ? Double.NaN : date.getTime());
+							break;
+						default:
+							example.setValue(newAttribute, parsedExpression.evaluateNominal());
+							break;
+					}
+				} finally {
+					// avoid memory leaks
+					resolver.unbind();
 				}
-			} finally {
-				// avoid memory leaks
-				resolver.unbind();
-			}
 
+			}
 		}
 
 		// remove existing attribute (if necessary)
@@ -244,6 +289,169 @@ public final class ExpressionParserUtils {
 		return newAttribute;
 	}
 
+	/**
+	 * Checks whether the values of the new attribute should be computed in parallel. This is the
+	 * case for large example sets if an operator is available for the concurrency context and the
+	 * results of the expression do not depend on the order of the examples.
+	 */
+	private static boolean isParallelEvaluation(ExampleSet exampleSet, Expression parsedExpression,
+			Operator executingOperator) {
+		return executingOperator != null && exampleSet.size() >= THRESHOLD_PARALLEL
+				&& parsedExpression instanceof ExampleSetExpression
+				&& ((ExampleSetExpression) parsedExpression).isParallelizable()
+				&& Resources.getConcurrencyContext(executingOperator).getParallelism() > 1;
+	}
+
+	/**
+	 * Computes the values of the new attribute with the batch evaluator. The examples are
+	 * evaluated in batches of {@link #BATCH_SIZE} consecutive examples, in parallel blocks of
+	 * batches if requested. Afterwards the column is written into the new attribute.
+	 */
+	private static void evaluateBatches(final ExampleSet exampleSet, Attribute newAttribute,
+			final BatchEvaluator batchEvaluator, final Operator executingOperator, boolean parallel)
+			throws ProcessStoppedException, ExpressionException {
+		final double[] values = new double[exampleSet.size()];
+		evaluateRowRanges(exampleSet.size(), parallel ? Resources.getConcurrencyContext(executingOperator) : null,
+				new RowRangeEvaluation() {
+
+					@Override
+					public void evaluate(int start, int end) throws ProcessStoppedException, ExpressionException {
+						Example[] examples = new Example[Math.min(BATCH_SIZE, end - start)];
+						double[] batchValues = new double[examples.length];
+						long[] missing = BatchEvaluator.createBitmap(examples.length);
+						for (int batchStart = start; batchStart < end; batchStart += BATCH_SIZE) {
+							if (executingOperator != null) {
+								executingOperator.checkForStop();
+							}
+							int length = Math.min(BATCH_SIZE, end - batchStart);
+							for (int i = 0; i < length; i++) {
+								examples[i] = exampleSet.getExample(batchStart + i);
+							}
+							batchEvaluator.evaluate(examples, length, batchValues, missing);
+							for (int i = 0; i < length; i++) {
+								values[batchStart + i] = BatchEvaluator.isMissing(missing, i) ? Double.NaN
+										: batchValues[i];
+							}
+						}
+					}
+				});
+
+		int row = 0;
+		for (Example example : exampleSet) {
+			example.setValue(newAttribute, values[row++]);
+		}
+	}
+
+	/**
+	 * Evaluates all rows, split into one consecutive block of rows per thread of the concurrency
+	 * context if it is not {@code null}.
+	 */
+	private static void evaluateRowRanges(int size, ConcurrencyContext context, final RowRangeEvaluation evaluation)
+			throws ProcessStoppedException, ExpressionException {
+		if (context == null) {
+			evaluation.evaluate(0, size);
+			return;
+		}
+		int numberOfBlocks = context.getParallelism();
+		int blocksize = size / numberOfBlocks;
+		int rest = size % numberOfBlocks;
+		List<Callable<Void>> tasks = new ArrayList<>(numberOfBlocks);
+		int end = 0;
+		while (end < size) {
+			final int startRow = end;
+			end += blocksize;
+			if (rest > 0) {
+				end++;
+				rest--;
+			}
+			final int endRow = end;
+			tasks.add(new Callable<Void>() {
+
+				@Override
+				public Void call() throws ProcessStoppedException, ExpressionException {
+					evaluation.evaluate(startRow, endRow);
+					return null;
+				}
+
+			});
+		}
+
+		try {
+			context.call(tasks);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof ProcessStoppedException) {
+				throw (ProcessStoppedException) cause;
+			} else if (cause instanceof ExpressionException) {
+				throw (ExpressionException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new ExpressionException(cause.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Computes the values of the new attribute column by column: the example set is split into
+	 * consecutive blocks of rows which are evaluated in parallel into a single result column.
+	 * Afterwards the column is written into the new attribute in example order, so that nominal
+	 * values are mapped in the same order as in the sequential evaluation.
+	 */
+	private static void evaluateParallel(final ExampleSet exampleSet, Attribute newAttribute,
+			final Expression parsedExpression, final ExampleResolver resolver, final Operator executingOperator)
+			throws ProcessStoppedException, ExpressionException {
+		final ExpressionType resultType = parsedExpression.getExpressionType();
+		final boolean numerical = resultType == ExpressionType.DOUBLE || resultType == ExpressionType.INTEGER
+				|| resultType == ExpressionType.DATE;
+		int size = exampleSet.size();
+		final double[] values = numerical ? new double[size] : null;
+		final String[] nominalValues = numerical ? null : new String[size];
+
+		evaluateRowRanges(size, Resources.getConcurrencyContext(executingOperator), new RowRangeEvaluation() {
+
+			@Override
+			public void evaluate(int startRow, int endRow) throws ProcessStoppedException, ExpressionException {
+				for (int row = startRow; row < endRow; row++) {
+					if ((row - startRow) % CHECK_FOR_STOP_INTERVAL == 0) {
+						executingOperator.checkForStop();
+					}
+					resolver.bind(exampleSet.getExample(row));
+					try {
+						switch (resultType) {
+							case DOUBLE:
+							case INTEGER:
+								values[row] = parsedExpression.evaluateNumerical();
+								break;
+							case DATE:
+								Date date = parsedExpression.evaluateDate();
+								values[row] = date == null ? Double.NaN : date.getTime();
+								break;
+							default:
+								nominalValues[row] = parsedExpression.evaluateNominal();
+								break;
+						}
+					} finally {
+						// avoid memory leaks
+						resolver.unbind();
+					}
+				}
+			}
+		});
+
+		int row = 0;
+		for (Example example : exampleSet) {
+			if (numerical) {
+				example.setValue(newAttribute, values[row]);
+			} else {
+				example.setValue(newAttribute, nominalValues[row]);
+			}
+			row++;
+		}
+	}
+
 	/**
 	 * Adds the {@link ExpressionParserBuilder#OLD_EXPRESSION_PARSER_FUNCTIONS} operator version as
 	 * incompatible version change by increasing the array size by one and adding the
@@ -278,6 +486,12 @@ public final class ExpressionParserUtils {
 		// decide which functions should be available
 		builder.withCompatibility(op.getCompatibilityLevel());
 
+		// compiling only pays off if the expression is evaluated for many examples
+		if (exampleResolver != null) {
+			builder.withCompilation(Boolean.parseBoolean(
+					ParameterService.getParameterValue(RapidMiner.PROPERTY_RAPIDMINER_SYSTEM_COMPILE_EXPRESSIONS)));
+		}
+
 		if (op.getProcess() != null) {
 			builder.withProcess(op.getProcess());
 			builder.withScope(new MacroResolver(op.getProcess().getMacroHandler(), op));
@@ -18,6 +18,9 @@
 */
 package com.rapidminer.tools.expression.internal.antlr;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.antlr.v4.runtime.ANTLRInputStream;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTree;
@@ -29,8 +32,12 @@ import com.rapidminer.tools.expression.ExpressionEvaluator;
 import com.rapidminer.tools.expression.ExpressionException;
 import com.rapidminer.tools.expression.ExpressionParser;
 import com.rapidminer.tools.expression.ExpressionParsingException;
+import com.rapidminer.tools.expression.Function;
 import com.rapidminer.tools.expression.internal.antlr.FunctionExpressionLexer;
 import com.rapidminer.tools.expression.internal.antlr.FunctionExpressionParser;
+import com.rapidminer.tools.expression.internal.antlr.FunctionExpressionParser.FunctionContext;
+import com.rapidminer.tools.expression.internal.function.eval.Evaluation;
+import com.rapidminer.tools.expression.internal.function.statistical.Random;
 
 
 /**
@@ -41,8 +48,16 @@ import com.rapidminer.tools.expression.internal.antlr.FunctionExpressionParser;
  */
 public class AntlrParser implements ExpressionParser {
 
+	/** the maximal number of compiled expressions that are cached by a parser */
+	private static final int MAX_CACHED_EXPRESSIONS = 1000;
+
 	private ExpressionContext lookup;
 
+	private final boolean compile;
+
+	/** the compiled evaluators by expression text, only used if {@link #compile} is set */
+	private final Map<String, ExpressionEvaluator> compiledCache;
+
 	/**
 	 * Creates a Parser that parses using antlr.
 	 *
@@ -50,7 +65,32 @@ public class AntlrParser implements ExpressionParser {
 	 *            the {@link ExpressionContext} for looking up functions, variables and macros
 	 */
 	public AntlrParser(ExpressionContext lookup) {
+		this(lookup, false);
+	}
+
+	/**
+	 * Creates a Parser that parses using antlr and optionally compiles the numerical parts of the
+	 * expressions into method handles. Compiled subexpressions, e.g. of the eval function, are
+	 * cached by their text until the next call of {@link #parse(String)}.
+	 *
+	 * @param lookUp
+	 *            the {@link ExpressionContext} for looking up functions, variables and macros
+	 * @param compile
+	 *            whether expressions should be compiled
+	 * @since 8.0
+	 */
+	public AntlrParser(ExpressionContext lookup, boolean compile) {
 		this.lookup = lookup;
+		this.compile = compile;
+		this.compiledCache = compile ? new LinkedHashMap<String, ExpressionEvaluator>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ExpressionEvaluator> eldest) {
+				return size() > MAX_CACHED_EXPRESSIONS;
+			}
+		} : null;
 	}
 
 	/**
@@ -110,6 +150,7 @@ public class AntlrParser implements ExpressionParser {
 
 	@Override
 	public Expression parse(String expression) throws ExpressionException {
+		clearCompiledCache();
 		try {
 			ExpressionEvaluator evaluator = parseToEvaluator(expression);
 			return new SimpleExpression(evaluator);
@@ -118,6 +159,48 @@ public class AntlrParser implements ExpressionParser {
 		}
 	}
 
+	/**
+	 * Parses the expression for the evaluation on all examples of an example set. In addition to
+	 * {@link #parse(String)}, the returned expression tells whether it can be evaluated for
+	 * different examples in parallel and provides a {@link BatchEvaluator} for numerical
+	 * expressions which can be evaluated column by column. The expression is parsed only once for
+	 * all of this.
+	 *
+	 * @param expression
+	 *            the expression to parse
+	 * @return the parsed expression
+	 * @throws ExpressionException
+	 *             if the parsing failed
+	 * @since 8.0
+	 */
+	public ExampleSetExpression parseForExampleSet(String expression) throws ExpressionException {
+		clearCompiledCache();
+		ParseTree tree = parseExpression(expression);
+		try {
+			ExpressionEvaluator evaluator = compile ? new CompilingEvaluatorCreationVisitor(lookup).visit(tree)
+					: new EvaluatorCreationVisitor(lookup).visit(tree);
+			boolean parallelizable = isParallelizable(tree);
+			// evaluators with state like random generators must be evaluated row by row
+			BatchEvaluator batchEvaluator = parallelizable ? new BatchEvaluatorCreationVisitor(lookup).create(tree)
+					: null;
+			return new ExampleSetExpression(evaluator, parallelizable, batchEvaluator);
+		} catch (ExpressionParsingException e) {
+			throw new ExpressionException(e);
+		}
+	}
+
+	/**
+	 * Clears the cached compiled evaluators since the meta data of dynamic variables might have
+	 * changed since the last expression.
+	 */
+	private void clearCompiledCache() {
+		if (compile) {
+			synchronized (compiledCache) {
+				compiledCache.clear();
+			}
+		}
+	}
+
 	/**
 	 * Parses the expression to a tree and creates an {@link ExpressionEvaluator} out of it.
 	 *
@@ -130,8 +213,50 @@ public class AntlrParser implements ExpressionParser {
 	 *             if the parsing failed
 	 */
 	public ExpressionEvaluator parseToEvaluator(String expression) throws ExpressionParsingException, ExpressionException {
+		if (!compile) {
+			ParseTree tree = parseExpression(expression);
+			return new EvaluatorCreationVisitor(lookup).visit(tree);
+		}
+		synchronized (compiledCache) {
+			ExpressionEvaluator cached = compiledCache.get(expression);
+			if (cached != null) {
+				return cached;
+			}
+		}
 		ParseTree tree = parseExpression(expression);
-		return new EvaluatorCreationVisitor(lookup).visit(tree);
+		ExpressionEvaluator evaluator = new CompilingEvaluatorCreationVisitor(lookup).visit(tree);
+		// evaluators with state like random generators must not be shared
+		if (isParallelizable(tree)) {
+			synchronized (compiledCache) {
+				compiledCache.put(expression, evaluator);
+			}
+		}
+		return evaluator;
+	}
+
+	/**
+	 * Checks whether the expression can be evaluated for different examples in parallel. This is
+	 * not the case if it contains a {@link Random} function, since its results depend on the order
+	 * of evaluation, or an {@link Evaluation} function, since it might introduce such functions at
+	 * evaluation time.
+	 *
+	 * @param tree
+	 *            the parse tree of the expression
+	 * @return {@code true} if the order of evaluation does not influence the results
+	 */
+	private boolean isParallelizable(ParseTree tree) {
+		final boolean[] parallelizable = { true };
+		new ParseTreeWalker().walk(new FunctionExpressionParserBaseListener() {
+
+			@Override
+			public void enterFunction(FunctionContext ctx) {
+				Function function = lookup.getFunction(ctx.NAME().getText());
+				if (function instanceof Random || function instanceof Evaluation) {
+					parallelizable[0] = false;
+				}
+			}
+		}, tree);
+		return parallelizable[0];
 	}
 
 	@Override
@@ -0,0 +1,245 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.tools.expression.internal.antlr;
+
+import java.util.Arrays;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.tools.expression.ExpressionException;
+import com.rapidminer.tools.expression.ExpressionParsingException;
+import com.rapidminer.tools.expression.internal.function.Abstract1DoubleInputFunction;
+import com.rapidminer.tools.expression.internal.function.Abstract2DoubleInputFunction;
+
+
+/**
+ * Evaluates a numerical expression for a batch of examples at once. Every part of the expression
+ * computes a column of values for all examples of the batch together with a bitmap of the missing
+ * values, where bit {@code i % 64} of entry {@code i / 64} belongs to the example {@code i}. Thus,
+ * the attribute values are read once per batch and the functions are applied in loops over the
+ * columns instead of walking the evaluator tree for every example.
+ * <p>
+ * Batch evaluators are created by {@link AntlrParser#parseForExampleSet(String)} for expressions
+ * consisting only of numerical attributes, numerical constants and functions with one or two double
+ * arguments, including the arithmetic operations. Since the same compute methods are used, they
+ * evaluate to exactly the same results as the row-wise evaluation. Batch evaluators do not have a
+ * state and can be used by different threads at the same time.
+ *
+ * @since 8.0
+ */
+public final class BatchEvaluator {
+
+	/**
+	 * A part of the expression which is evaluated for a batch of examples.
+	 */
+	abstract static class Column {
+
+		/**
+		 * Computes the values of the first {@code length} examples and marks the missing values in
+		 * the bitmap.
+		 */
+		abstract void evaluate(Example[] examples, int length, double[] values, long[] missing);
+
+	}
+
+	/**
+	 * Column of a constant value.
+	 */
+	static final class ConstantColumn extends Column {
+
+		private final double value;
+
+		ConstantColumn(double value) {
+			this.value = value;
+		}
+
+		@Override
+		void evaluate(Example[] examples, int length, double[] values, long[] missing) {
+			Arrays.fill(values, 0, length, value);
+			Arrays.fill(missing, 0, getBitmapLength(length), Double.isNaN(value) ? -1L : 0L);
+		}
+
+	}
+
+	/**
+	 * Column of the values of a numerical attribute. The values of integer attributes are rounded
+	 * down like in {@link com.rapidminer.tools.expression.ExampleResolver#getDoubleValue(String)}.
+	 */
+	static final class AttributeColumn extends Column {
+
+		private final String name;
+
+		private final boolean integer;
+
+		AttributeColumn(String name, boolean integer) {
+			this.name = name;
+			this.integer = integer;
+		}
+
+		@Override
+		void evaluate(Example[] examples, int length, double[] values, long[] missing) {
+			Arrays.fill(missing, 0, getBitmapLength(length), 0L);
+			if (length == 0) {
+				return;
+			}
+			Attribute attribute = examples[0].getAttributes().get(name);
+			for (int i = 0; i < length; i++) {
+				double value = examples[i].getNumericalValue(attribute);
+				if (integer) {
+					value = Math.floor(value);
+				}
+				values[i] = value;
+				if (Double.isNaN(value)) {
+					missing[i >>> 6] |= 1L << i;
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Column of the results of a function with one double argument.
+	 */
+	static final class Function1Column extends Column {
+
+		private final Abstract1DoubleInputFunction function;
+
+		private final Column input;
+
+		Function1Column(Abstract1DoubleInputFunction function, Column input) {
+			this.function = function;
+			this.input = input;
+		}
+
+		@Override
+		void evaluate(Example[] examples, int length, double[] values, long[] missing) {
+			input.evaluate(examples, length, values, missing);
+			function.compute(values, missing, length);
+		}
+
+	}
+
+	/**
+	 * Column of the results of a function with two double arguments.
+	 */
+	static final class Function2Column extends Column {
+
+		private final Abstract2DoubleInputFunction function;
+
+		private final Column left;
+
+		private final Column right;
+
+		Function2Column(Abstract2DoubleInputFunction function, Column left, Column right) {
+			this.function = function;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		void evaluate(Example[] examples, int length, double[] values, long[] missing) {
+			double[] rightValues = new double[length];
+			long[] rightMissing = createBitmap(length);
+			left.evaluate(examples, length, values, missing);
+			right.evaluate(examples, length, rightValues, rightMissing);
+			function.compute(values, missing, rightValues, rightMissing, length);
+		}
+
+	}
+
+	/**
+	 * Column of the negated values of the input, i.e. the unary minus.
+	 */
+	static final class NegationColumn extends Column {
+
+		private final Column input;
+
+		NegationColumn(Column input) {
+			this.input = input;
+		}
+
+		@Override
+		void evaluate(Example[] examples, int length, double[] values, long[] missing) {
+			input.evaluate(examples, length, values, missing);
+			for (int i = 0; i < length; i++) {
+				values[i] = -values[i];
+			}
+		}
+
+	}
+
+	private final Column column;
+
+	BatchEvaluator(Column column) {
+		this.column = column;
+	}
+
+	/**
+	 * Evaluates the expression for the first {@code length} examples.
+	 *
+	 * @param examples
+	 *            the examples of the batch, all of the same example set
+	 * @param length
+	 *            the number of examples to evaluate
+	 * @param values
+	 *            receives the result for each example, {@link Double#NaN} for missing values
+	 * @param missing
+	 *            receives the bitmap of the missing results, see {@link #createBitmap(int)}
+	 * @throws ExpressionException
+	 *             if the evaluation failed
+	 */
+	public void evaluate(Example[] examples, int length, double[] values, long[] missing) throws ExpressionException {
+		try {
+			column.evaluate(examples, length, values, missing);
+		} catch (ExpressionParsingException e) {
+			throw new ExpressionException(e);
+		} catch (RuntimeException e) {
+			throw new ExpressionException(e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Creates a bitmap of missing values for the given number of examples.
+	 *
+	 * @param length
+	 *            the number of examples
+	 * @return the bitmap with no value marked as missing
+	 */
+	public static long[] createBitmap(int length) {
+		return new long[getBitmapLength(length)];
+	}
+
+	/**
+	 * Checks whether the bitmap marks the value of the given example as missing.
+	 *
+	 * @param missing
+	 *            the bitmap
+	 * @param index
+	 *            the index of the example in the batch
+	 * @return {@code true} if the value is missing
+	 */
+	public static boolean isMissing(long[] missing, int index) {
+		return (missing[index >>> 6] & 1L << index) != 0;
+	}
+
+	private static int getBitmapLength(int length) {
+		return (length + 63) >>> 6;
+	}
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.tools.expression.internal.antlr;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import com.rapidminer.tools.expression.ExpressionContext;
+import com.rapidminer.tools.expression.ExpressionEvaluator;
+import com.rapidminer.tools.expression.ExpressionParsingException;
+import com.rapidminer.tools.expression.ExpressionType;
+import com.rapidminer.tools.expression.Function;
+import com.rapidminer.tools.expression.internal.antlr.BatchEvaluator.AttributeColumn;
+import com.rapidminer.tools.expression.internal.antlr.BatchEvaluator.Column;
+import com.rapidminer.tools.expression.internal.antlr.BatchEvaluator.ConstantColumn;
+import com.rapidminer.tools.expression.internal.antlr.BatchEvaluator.Function1Column;
+import com.rapidminer.tools.expression.internal.antlr.BatchEvaluator.Function2Column;
+import com.rapidminer.tools.expression.internal.antlr.BatchEvaluator.NegationColumn;
+import com.rapidminer.tools.expression.internal.antlr.FunctionExpressionParser.AttributeContext;
+import com.rapidminer.tools.expression.internal.function.Abstract1DoubleInputFunction;
+import com.rapidminer.tools.expression.internal.function.Abstract2DoubleInputFunction;
+import com.rapidminer.tools.expression.internal.function.basic.Minus;
+
+
+/**
+ * {@link EvaluatorCreationVisitor} that additionally builds the {@link Column}s of a
+ * {@link BatchEvaluator} for the numerical parts of the expression. The interpreted evaluators
+ * still check the arguments and determine type and constancy, the columns are only recorded next
+ * to them.
+ *
+ * @since 8.0
+ */
+class BatchEvaluatorCreationVisitor extends EvaluatorCreationVisitor {
+
+	/** the columns computing the values of the created evaluators */
+	private final Map<ExpressionEvaluator, Column> columns = new IdentityHashMap<>();
+
+	/**
+	 * Creates a Visitor that recursively builds an {@link ExpressionEvaluator} and the columns of a
+	 * {@link BatchEvaluator}.
+	 *
+	 * @param lookUp
+	 *            the {@link ExpressionContext} for looking up functions, variables and scope
+	 *            constants
+	 */
+	BatchEvaluatorCreationVisitor(ExpressionContext lookUp) {
+		super(lookUp);
+	}
+
+	/**
+	 * Creates the batch evaluator for the parse tree.
+	 *
+	 * @param tree
+	 *            the parse tree of the expression
+	 * @return the batch evaluator or {@code null} if the expression cannot be evaluated column by
+	 *         column
+	 * @throws ExpressionParsingException
+	 *             if the creation of the evaluators failed
+	 */
+	BatchEvaluator create(ParseTree tree) {
+		Column column = getColumn(visit(tree));
+		return column == null ? null : new BatchEvaluator(column);
+	}
+
+	@Override
+	ExpressionEvaluator apply(Function function, ExpressionEvaluator... inputEvaluators) {
+		ExpressionEvaluator evaluator = super.apply(function, inputEvaluators);
+		if (evaluator.isConstant() || !isNumerical(evaluator.getType())) {
+			return evaluator;
+		}
+		Column[] inputColumns = new Column[inputEvaluators.length];
+		for (int i = 0; i < inputEvaluators.length; i++) {
+			inputColumns[i] = getColumn(inputEvaluators[i]);
+			if (inputColumns[i] == null) {
+				return evaluator;
+			}
+		}
+
+		if (function instanceof Abstract1DoubleInputFunction && inputColumns.length == 1) {
+			columns.put(evaluator, new Function1Column((Abstract1DoubleInputFunction) function, inputColumns[0]));
+		} else if (function instanceof Minus && inputColumns.length == 1) {
+			columns.put(evaluator, new NegationColumn(inputColumns[0]));
+		} else if (function instanceof Abstract2DoubleInputFunction && inputColumns.length == 2) {
+			columns.put(evaluator,
+					new Function2Column((Abstract2DoubleInputFunction) function, inputColumns[0], inputColumns[1]));
+		}
+		return evaluator;
+	}
+
+	@Override
+	public ExpressionEvaluator visitAttribute(AttributeContext ctx) {
+		ExpressionEvaluator evaluator = super.visitAttribute(ctx);
+		if (isNumerical(evaluator.getType())) {
+			columns.put(evaluator,
+					new AttributeColumn(getAttributeName(ctx.getText()), evaluator.getType() == ExpressionType.INTEGER));
+		}
+		return evaluator;
+	}
+
+	/**
+	 * Returns the column computing the values of the evaluator or {@code null} if there is none.
+	 */
+	private Column getColumn(ExpressionEvaluator evaluator) {
+		if (!isNumerical(evaluator.getType())) {
+			return null;
+		}
+		if (evaluator.isConstant()) {
+			try {
+				return new ConstantColumn(evaluator.getDoubleFunction().call());
+			} catch (ExpressionParsingException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new ExpressionParsingException(e);
+			}
+		}
+		return columns.get(evaluator);
+	}
+
+	private static boolean isNumerical(ExpressionType type) {
+		return type == ExpressionType.DOUBLE || type == ExpressionType.INTEGER;
+	}
+
+}
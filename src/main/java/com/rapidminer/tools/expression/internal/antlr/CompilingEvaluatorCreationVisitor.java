@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.tools.expression.internal.antlr;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Callable;
+
+import com.rapidminer.tools.expression.DoubleCallable;
+import com.rapidminer.tools.expression.ExpressionContext;
+import com.rapidminer.tools.expression.ExpressionEvaluator;
+import com.rapidminer.tools.expression.ExpressionParsingException;
+import com.rapidminer.tools.expression.ExpressionType;
+import com.rapidminer.tools.expression.Function;
+import com.rapidminer.tools.expression.internal.SimpleExpressionEvaluator;
+import com.rapidminer.tools.expression.internal.function.Abstract1DoubleInputFunction;
+import com.rapidminer.tools.expression.internal.function.Abstract2DoubleInputFunction;
+import com.rapidminer.tools.expression.internal.function.comparison.AbstractComparisonFunctionWith2Inputs;
+
+
+/**
+ * {@link EvaluatorCreationVisitor} that compiles numerical parts of an expression into a single
+ * chain of {@link MethodHandle}s instead of nesting {@link DoubleCallable}s. Arithmetic operations,
+ * mathematical functions with double arguments and numerical comparisons are combined directly,
+ * constant arguments are folded into the chain. All other functions and the attribute values are
+ * called via their callables. Since the same compute methods are used, compiled expressions
+ * evaluate to exactly the same results as interpreted ones.
+ *
+ * @since 8.0
+ */
+class CompilingEvaluatorCreationVisitor extends EvaluatorCreationVisitor {
+
+	/**
+	 * {@link ExpressionEvaluator} whose callable invokes a compiled method handle.
+	 */
+	private static final class CompiledEvaluator extends SimpleExpressionEvaluator {
+
+		private final MethodHandle handle;
+
+		private CompiledEvaluator(final MethodHandle handle, ExpressionType type) {
+			super(type, null, type == ExpressionType.BOOLEAN ? null : new DoubleCallable() {
+
+				@Override
+				public double call() throws Exception {
+					try {
+						return (double) handle.invokeExact();
+					} catch (Exception | Error e) {
+						throw e;
+					} catch (Throwable t) {
+						throw new ExpressionParsingException(t);
+					}
+				}
+			}, type == ExpressionType.BOOLEAN ? new Callable<Boolean>() {
+
+				@Override
+				public Boolean call() throws Exception {
+					try {
+						return (Boolean) handle.invokeExact();
+					} catch (Exception | Error e) {
+						throw e;
+					} catch (Throwable t) {
+						throw new ExpressionParsingException(t);
+					}
+				}
+			} : null, null, false);
+			this.handle = handle;
+		}
+
+	}
+
+	/** the handle of {@link DoubleCallable#call()} */
+	private static final MethodHandle DOUBLE_CALL;
+
+	static {
+		try {
+			DOUBLE_CALL = MethodHandles.publicLookup().findVirtual(DoubleCallable.class, "call",
+					MethodType.methodType(double.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * Creates a Visitor that recursively builds an {@link ExpressionEvaluator} with compiled
+	 * numerical parts.
+	 *
+	 * @param lookUp
+	 *            the {@link ExpressionContext} for looking up functions, variables and scope
+	 *            constants
+	 */
+	CompilingEvaluatorCreationVisitor(ExpressionContext lookUp) {
+		super(lookUp);
+	}
+
+	@Override
+	ExpressionEvaluator apply(Function function, ExpressionEvaluator... inputEvaluators) {
+		// the interpreted evaluator checks the arguments and determines type and constancy
+		ExpressionEvaluator evaluator = super.apply(function, inputEvaluators);
+		if (evaluator.isConstant()) {
+			return evaluator;
+		}
+		for (ExpressionEvaluator input : inputEvaluators) {
+			if (!isNumerical(input.getType())) {
+				return evaluator;
+			}
+		}
+
+		MethodHandle target;
+		if (function instanceof Abstract1DoubleInputFunction && inputEvaluators.length == 1
+				&& isNumerical(evaluator.getType())) {
+			target = ((Abstract1DoubleInputFunction) function).getComputeHandle();
+		} else if (function instanceof Abstract2DoubleInputFunction && inputEvaluators.length == 2
+				&& isNumerical(evaluator.getType())) {
+			target = ((Abstract2DoubleInputFunction) function).getComputeHandle();
+		} else if (function instanceof AbstractComparisonFunctionWith2Inputs
+				&& evaluator.getType() == ExpressionType.BOOLEAN) {
+			target = ((AbstractComparisonFunctionWith2Inputs) function).getComputeHandle();
+		} else {
+			return evaluator;
+		}
+
+		// replace the arguments from last to first by the handles computing them
+		for (int i = inputEvaluators.length - 1; i >= 0; i--) {
+			target = MethodHandles.collectArguments(target, i, toHandle(inputEvaluators[i]));
+		}
+		return new CompiledEvaluator(target, evaluator.getType());
+	}
+
+	/**
+	 * Returns a method handle of type {@code ()double} computing the value of the numerical
+	 * evaluator.
+	 */
+	private static MethodHandle toHandle(ExpressionEvaluator evaluator) {
+		if (evaluator instanceof CompiledEvaluator) {
+			return ((CompiledEvaluator) evaluator).handle;
+		}
+		if (evaluator.isConstant()) {
+			try {
+				return MethodHandles.constant(double.class, evaluator.getDoubleFunction().call());
+			} catch (ExpressionParsingException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new ExpressionParsingException(e);
+			}
+		}
+		return DOUBLE_CALL.bindTo(evaluator.getDoubleFunction());
+	}
+
+	private static boolean isNumerical(ExpressionType type) {
+		return type == ExpressionType.DOUBLE || type == ExpressionType.INTEGER;
+	}
+
+}
@@ -71,7 +71,7 @@ class EvaluatorCreationVisitor extends FunctionExpressionParserBaseVisitor<Expre
 				if (function == null) {
 					throw new UnknownFunctionException(ctx, "expression_parser.unknown_operator", operatorName);
 				}
-				return function.compute(right);
+				return apply(function, right);
 
 			} else {
 				ExpressionEvaluator left = visit(ctx.operationExp(0));
@@ -82,11 +82,25 @@ class EvaluatorCreationVisitor extends FunctionExpressionParserBaseVisitor<Expre
 				if (function == null) {
 					throw new UnknownFunctionException(ctx, "expression_parser.unknown_operator", operatorName);
 				}
-				return function.compute(left, right);
+				return apply(function, left, right);
 			}
 		}
 	}
 
+	/**
+	 * Creates the {@link ExpressionEvaluator} for applying the function to the given inputs.
+	 * Subclasses can override this to change how function calls are evaluated.
+	 *
+	 * @param function
+	 *            the function to apply
+	 * @param inputEvaluators
+	 *            the evaluators of the function arguments
+	 * @return the evaluator of the function call
+	 */
+	ExpressionEvaluator apply(Function function, ExpressionEvaluator... inputEvaluators) {
+		return function.compute(inputEvaluators);
+	}
+
 	@Override
 	public ExpressionEvaluator visitLowerExp(LowerExpContext ctx) {
 		return visit(ctx.operationExp());
@@ -107,7 +121,7 @@ class EvaluatorCreationVisitor extends FunctionExpressionParserBaseVisitor<Expre
 			throw new UnknownFunctionException(ctx, "expression_parser.unknown_function", functionName);
 		}
 
-		return function.compute(innerEvaluators);
+		return apply(function, innerEvaluators);
 	}
 
 	@Override
@@ -127,7 +141,7 @@ class EvaluatorCreationVisitor extends FunctionExpressionParserBaseVisitor<Expre
 	 *            a ATTRIBUTE as defined in FunctionExpressionLexer.g4
 	 * @return
 	 */
-	private String getAttributeName(String text) {
+	String getAttributeName(String text) {
 		String attributeName = text.substring(1, text.length() - 1);
 		return attributeName.replace("\\[", "[").replace("\\]", "]").replace("\\\\", "\\");
 	}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.tools.expression.internal.antlr;
+
+import com.rapidminer.tools.expression.Expression;
+import com.rapidminer.tools.expression.ExpressionEvaluator;
+
+
+/**
+ * An {@link Expression} that is evaluated for all examples of an example set. Besides the row-wise
+ * evaluation, it tells whether different examples can be evaluated in parallel and provides a
+ * {@link BatchEvaluator} if the expression can be evaluated column by column. Created by
+ * {@link AntlrParser#parseForExampleSet(String)}.
+ *
+ * @since 8.0
+ */
+public class ExampleSetExpression extends SimpleExpression {
+
+	private final boolean parallelizable;
+
+	private final BatchEvaluator batchEvaluator;
+
+	/**
+	 * Creates an expression based on the evaluator.
+	 *
+	 * @param evaluator
+	 *            the evaluator to use for evaluating the expression row by row
+	 * @param parallelizable
+	 *            whether the results do not depend on the order of evaluation
+	 * @param batchEvaluator
+	 *            the evaluator for batches of examples, can be {@code null}
+	 */
+	ExampleSetExpression(ExpressionEvaluator evaluator, boolean parallelizable, BatchEvaluator batchEvaluator) {
+		super(evaluator);
+		this.parallelizable = parallelizable;
+		this.batchEvaluator = batchEvaluator;
+	}
+
+	/**
+	 * Returns whether the expression can be evaluated for different examples in parallel. This is
+	 * not the case if the results depend on the order of evaluation, e.g. for random numbers.
+	 *
+	 * @return {@code true} if the order of evaluation does not influence the results
+	 */
+	public boolean isParallelizable() {
+		return parallelizable;
+	}
+
+	/**
+	 * Returns the evaluator computing the numerical results for batches of examples.
+	 *
+	 * @return the batch evaluator or {@code null} if the expression cannot be evaluated column by
+	 *         column
+	 */
+	public BatchEvaluator getBatchEvaluator() {
+		return batchEvaluator;
+	}
+
+}
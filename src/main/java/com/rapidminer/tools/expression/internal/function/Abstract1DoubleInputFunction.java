@@ -18,6 +18,10 @@
 */
 package com.rapidminer.tools.expression.internal.function;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
 import com.rapidminer.tools.Ontology;
 import com.rapidminer.tools.expression.DoubleCallable;
 import com.rapidminer.tools.expression.ExpressionEvaluator;
@@ -37,6 +41,9 @@ import com.rapidminer.tools.expression.internal.SimpleExpressionEvaluator;
  */
 public abstract class Abstract1DoubleInputFunction extends AbstractFunction {
 
+	/** the handle of {@link #compute(double)} used for compiled expressions */
+	private static final MethodHandle COMPUTE_HANDLE = findComputeHandle();
+
 	/**
 	 * Constructs an AbstractFunction with {@link FunctionDescription} generated from the arguments
 	 * and the function name generated from the description.
@@ -113,6 +120,43 @@ public abstract class Abstract1DoubleInputFunction extends AbstractFunction {
 	 */
 	protected abstract double compute(double value1);
 
+	/**
+	 * Computes the results for a column of input values in place. Bit {@code i % 64} of
+	 * {@code missing[i / 64]} marks the value of row {@code i} as missing. The result for missing
+	 * values is computed only once. Afterwards, the bitmap marks the missing results.
+	 *
+	 * @param values
+	 *            the input values, replaced by the results
+	 * @param missing
+	 *            the bitmap of the missing input values, replaced by the bitmap of the missing
+	 *            results
+	 * @param length
+	 *            the number of rows
+	 * @since 8.0
+	 */
+	public void compute(double[] values, long[] missing, int length) {
+		double missingResult = Double.NaN;
+		boolean missingResultComputed = false;
+		for (int i = 0; i < length; i++) {
+			double result;
+			if ((missing[i >>> 6] & 1L << i) != 0) {
+				if (!missingResultComputed) {
+					missingResult = compute(Double.NaN);
+					missingResultComputed = true;
+				}
+				result = missingResult;
+			} else {
+				result = compute(values[i]);
+			}
+			values[i] = result;
+			if (Double.isNaN(result)) {
+				missing[i >>> 6] |= 1L << i;
+			} else {
+				missing[i >>> 6] &= ~(1L << i);
+			}
+		}
+	}
+
 	@Override
 	protected ExpressionType computeType(ExpressionType... inputTypes) {
 		ExpressionType input = inputTypes[0];
@@ -123,4 +167,24 @@ public abstract class Abstract1DoubleInputFunction extends AbstractFunction {
 		}
 	}
 
+	/**
+	 * Returns a {@link MethodHandle} of type {@code (double)double} that calls
+	 * {@link #compute(double)} of this function. It is used for compiling expressions into
+	 * chains of method handles.
+	 *
+	 * @return the bound method handle
+	 */
+	public MethodHandle getComputeHandle() {
+		return COMPUTE_HANDLE.bindTo(this);
+	}
+
+	private static MethodHandle findComputeHandle() {
+		try {
+			return MethodHandles.lookup().findVirtual(Abstract1DoubleInputFunction.class, "compute",
+					MethodType.methodType(double.class, double.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
 }
@@ -18,6 +18,10 @@
 */
 package com.rapidminer.tools.expression.internal.function;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
 import com.rapidminer.tools.Ontology;
 import com.rapidminer.tools.expression.DoubleCallable;
 import com.rapidminer.tools.expression.ExpressionEvaluator;
@@ -36,6 +40,9 @@ import com.rapidminer.tools.expression.internal.SimpleExpressionEvaluator;
  */
 public abstract class Abstract2DoubleInputFunction extends AbstractFunction {
 
+	/** the handle of {@link #compute(double, double)} used for compiled expressions */
+	private static final MethodHandle COMPUTE_HANDLE = findComputeHandle();
+
 	/**
 	 * Constructs an AbstractFunction with {@link FunctionDescription} generated from the arguments
 	 * and the function name generated from the description.
@@ -141,6 +148,48 @@ public abstract class Abstract2DoubleInputFunction extends AbstractFunction {
 	 */
 	protected abstract double compute(double value1, double value2);
 
+	/**
+	 * Computes the results for two columns of input values. The results replace the values of the
+	 * left column. Bit {@code i % 64} of a bitmap entry {@code i / 64} marks the value of row
+	 * {@code i} as missing. The result for two missing values is computed only once. Afterwards, the
+	 * left bitmap marks the missing results.
+	 *
+	 * @param left
+	 *            the left input values, replaced by the results
+	 * @param leftMissing
+	 *            the bitmap of the missing left input values, replaced by the bitmap of the missing
+	 *            results
+	 * @param right
+	 *            the right input values
+	 * @param rightMissing
+	 *            the bitmap of the missing right input values
+	 * @param length
+	 *            the number of rows
+	 * @since 8.0
+	 */
+	public void compute(double[] left, long[] leftMissing, double[] right, long[] rightMissing, int length) {
+		double missingResult = Double.NaN;
+		boolean missingResultComputed = false;
+		for (int i = 0; i < length; i++) {
+			double result;
+			if ((leftMissing[i >>> 6] & rightMissing[i >>> 6] & 1L << i) != 0) {
+				if (!missingResultComputed) {
+					missingResult = compute(Double.NaN, Double.NaN);
+					missingResultComputed = true;
+				}
+				result = missingResult;
+			} else {
+				result = compute(left[i], right[i]);
+			}
+			left[i] = result;
+			if (Double.isNaN(result)) {
+				leftMissing[i >>> 6] |= 1L << i;
+			} else {
+				leftMissing[i >>> 6] &= ~(1L << i);
+			}
+		}
+	}
+
 	@Override
 	protected ExpressionType computeType(ExpressionType... inputTypes) {
 		ExpressionType left = inputTypes[0];
@@ -155,4 +204,24 @@ public abstract class Abstract2DoubleInputFunction extends AbstractFunction {
 		}
 	}
 
+	/**
+	 * Returns a {@link MethodHandle} of type {@code (double,double)double} that calls
+	 * {@link #compute(double, double)} of this function. It is used for compiling expressions into
+	 * chains of method handles.
+	 *
+	 * @return the bound method handle
+	 */
+	public MethodHandle getComputeHandle() {
+		return COMPUTE_HANDLE.bindTo(this);
+	}
+
+	private static MethodHandle findComputeHandle() {
+		try {
+			return MethodHandles.lookup().findVirtual(Abstract2DoubleInputFunction.class, "compute",
+					MethodType.methodType(double.class, double.class, double.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
 }
@@ -18,6 +18,9 @@
 */
 package com.rapidminer.tools.expression.internal.function.comparison;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.concurrent.Callable;
 
 import com.rapidminer.tools.Ontology;
@@ -40,6 +43,9 @@ import com.rapidminer.tools.expression.internal.function.AbstractFunction;
  */
 public abstract class AbstractComparisonFunctionWith2Inputs extends AbstractFunction {
 
+	/** the handle of {@link #compute(double, double)} used for compiled expressions */
+	private static final MethodHandle COMPUTE_HANDLE = findComputeHandle();
+
 	/**
 	 * Constructs a comparison AbstractFunction with {@link FunctionDescription} generated from the
 	 * arguments and the function name generated from the description.
@@ -232,4 +238,25 @@ public abstract class AbstractComparisonFunctionWith2Inputs extends AbstractFunc
 		// result is always boolean
 		return ExpressionType.BOOLEAN;
 	}
+
+	/**
+	 * Returns a {@link MethodHandle} of type {@code (double,double)Boolean} that calls
+	 * {@link #compute(double, double)} of this function. It is used for compiling expressions into
+	 * chains of method handles.
+	 *
+	 * @return the bound method handle
+	 */
+	public MethodHandle getComputeHandle() {
+		return COMPUTE_HANDLE.bindTo(this);
+	}
+
+	private static MethodHandle findComputeHandle() {
+		try {
+			return MethodHandles.lookup().findVirtual(AbstractComparisonFunctionWith2Inputs.class, "compute",
+					MethodType.methodType(Boolean.class, double.class, double.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
 }
@@ -23,9 +23,12 @@ import com.rapidminer.tools.math.similarity.DistanceMeasure;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Stack;
 
 
@@ -61,7 +64,6 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 		if (root == null) {
 			this.root = new KDTreeNode<T>(values, storeValue, 0);
 		} else {
-			int currentDimension = 0;
 			int depth = 0;
 			KDTreeNode<T> currentNode = root;
 			KDTreeNode<T> childNode = null;
@@ -73,13 +75,70 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 				} else {
 					currentNode = childNode;
 					depth++;
-					currentDimension = depth % k;
 				}
 			}
-			currentNode.setChild(new KDTreeNode<T>(values, storeValue, currentDimension));
+			// the new node is one level below the current node and splits on the next dimension
+			currentNode.setChild(new KDTreeNode<T>(values, storeValue, (depth + 1) % k));
 		}
 	}
 
+	/**
+	 * Adds all given points to this tree. If the tree is still empty, the points are inserted in
+	 * median order so that the resulting tree is balanced, independent of the order of the given
+	 * points. Otherwise, the points are simply added one after another.
+	 *
+	 * @param points
+	 *            the coordinates of the points
+	 * @param storeValues
+	 *            the values stored with the points, must have the same size as points
+	 * @since 8.0
+	 */
+	public void addAll(List<double[]> points, List<T> storeValues) {
+		if (points.size() != storeValues.size()) {
+			throw new IllegalArgumentException("Number of points and values differ");
+		}
+		if (root != null) {
+			for (int i = 0; i < points.size(); i++) {
+				add(points.get(i), storeValues.get(i));
+			}
+			return;
+		}
+		Integer[] order = new Integer[points.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		addBalanced(points, storeValues, order, 0, order.length, 0);
+	}
+
+	/**
+	 * Inserts the median of the given range with respect to the dimension of the given depth and
+	 * continues with both halves. Since the median is inserted before all other points of the range,
+	 * it becomes their common ancestor.
+	 */
+	private void addBalanced(final List<double[]> points, List<T> storeValues, Integer[] order, int from, int to,
+			int depth) {
+		if (from >= to) {
+			return;
+		}
+		final int dimension = depth % k;
+		Arrays.sort(order, from, to, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Double.compare(points.get(o1)[dimension], points.get(o2)[dimension]);
+			}
+		});
+		// points equal to the median are sorted into the greater subtree, so use the first of them
+		int median = from + (to - from) / 2;
+		double medianValue = points.get(order[median])[dimension];
+		while (median > from && Double.compare(points.get(order[median - 1])[dimension], medianValue) == 0) {
+			median--;
+		}
+		add(points.get(order[median]), storeValues.get(order[median]));
+		addBalanced(points, storeValues, order, from, median, depth + 1);
+		addBalanced(points, storeValues, order, median + 1, to, depth + 1);
+	}
+
 	@Override
 	public Collection<T> getNearestValues(int k, double[] values) {
 		BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>> priorityQueue = getNearestNodes(k, values);
@@ -101,13 +160,16 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 	}
 
 	private BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>> getNearestNodes(int k, double[] values) {
-		Stack<KDTreeNode<T>> nodeStack = new Stack<KDTreeNode<T>>();
-		// first doing initial search for nearest Node
-		nodeStack = traverseTree(nodeStack, root, values);
-
 		// creating data structure for finding k nearest values
 		BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>> priorityQueue = new BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>>(
 				k);
+		if (root == null) {
+			return priorityQueue;
+		}
+
+		Stack<KDTreeNode<T>> nodeStack = new Stack<KDTreeNode<T>>();
+		// first doing initial search for nearest Node
+		nodeStack = traverseTree(nodeStack, root, values);
 
 		// now work on stack
 		while (!nodeStack.isEmpty()) {
@@ -116,10 +178,10 @@ public class KDTree<T extends Serializable> implements GeometricDataCollection<T
 			Tupel<Double, KDTreeNode<T>> currentTupel = new Tupel<Double, KDTreeNode<T>>(distance.calculateDistance(
 					currentNode.getValues(), values), currentNode);
 			priorityQueue.add(currentTupel);
-			// now check if far children has to be regarded
-			if (!priorityQueue.isFilled()
-					|| priorityQueue.peek().getFirst().doubleValue() > currentNode.getCompareValue()
-							- values[currentNode.getCompareDimension()]) {
+			// now check if far children has to be regarded: the distance to the splitting plane is a
+			// lower bound for all points behind it. Missing values (NaN) never allow pruning.
+			double planeDistance = Math.abs(currentNode.getCompareValue() - values[currentNode.getCompareDimension()]);
+			if (!priorityQueue.isFilled() || !(priorityQueue.peek().getFirst().doubleValue() <= planeDistance)) {
 				// if needs to be checked, traverse tree to nearest leaf
 				if (currentNode.hasFarChild(values)) {
 					traverseTree(nodeStack, currentNode.getFarChild(values), values);
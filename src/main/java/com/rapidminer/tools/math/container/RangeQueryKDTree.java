@@ -0,0 +1,257 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.tools.math.container;
+
+import java.util.Arrays;
+
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.numerical.ChebychevNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
+
+
+/**
+ * A static KD-Tree answering fixed-radius queries, i.e. finding all points that are closer than a
+ * given radius to a query point. In contrast to the {@link KDTree} the tree is built once on a
+ * complete set of points and works on primitive arrays only: the points are identified by their
+ * row index and the queries return sorted arrays of these indices.
+ * <p>
+ * Pruning of subtrees relies on the fact that the distance between two points is never smaller
+ * than their difference in a single dimension. This holds for the Euclidean, Manhattan and
+ * Chebychev distances (see {@link #isSupported(DistanceMeasure)}). The points must not contain
+ * missing values. Once built, the tree can be queried concurrently.
+ *
+ * @since 8.0
+ */
+public class RangeQueryKDTree {
+
+	/** the maximal number of points in a leaf */
+	private static final int LEAF_SIZE = 16;
+
+	private final double[][] points;
+
+	private final DistanceMeasure measure;
+
+	/** the permutation of the point indices, every node covers a consecutive range of it */
+	private final int[] order;
+
+	private int[] nodeStart;
+	private int[] nodeEnd;
+	private int[] splitDimension;
+	private double[] splitValue;
+	private int[] leftChild;
+	private int[] rightChild;
+	private int numberOfNodes;
+
+	/**
+	 * Builds the tree on the given points. The point arrays are not copied and must not be changed
+	 * afterwards.
+	 *
+	 * @param points
+	 *            the points, all of the same dimension and without missing values
+	 * @param measure
+	 *            the measure used to verify the candidates, must be supported
+	 * @throws IllegalArgumentException
+	 *             if the measure is not supported
+	 */
+	public RangeQueryKDTree(double[][] points, DistanceMeasure measure) {
+		if (!isSupported(measure)) {
+			throw new IllegalArgumentException("Distance measure not supported: " + measure);
+		}
+		this.points = points;
+		this.measure = measure;
+		this.order = new int[points.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		int capacity = Math.max(1, 4 * points.length / LEAF_SIZE + 1);
+		nodeStart = new int[capacity];
+		nodeEnd = new int[capacity];
+		splitDimension = new int[capacity];
+		splitValue = new double[capacity];
+		leftChild = new int[capacity];
+		rightChild = new int[capacity];
+		build();
+	}
+
+	/**
+	 * Returns whether the given measure is never smaller than the difference of two points in any
+	 * single dimension, which is required for the pruning of the tree.
+	 */
+	public static boolean isSupported(DistanceMeasure measure) {
+		if (measure == null) {
+			return false;
+		}
+		Class<?> measureClass = measure.getClass();
+		return measureClass == EuclideanDistance.class || measureClass == ManhattanDistance.class
+				|| measureClass == ChebychevNumericalDistance.class;
+	}
+
+	/**
+	 * Returns the indices of all points whose distance to the center is smaller than the given
+	 * radius, in ascending order.
+	 */
+	public int[] getNeighbours(double[] center, double radius) {
+		int[] result = new int[16];
+		int size = 0;
+		int[] stack = new int[64];
+		int stackSize = 0;
+		if (numberOfNodes > 0) {
+			stack[stackSize++] = 0;
+		}
+		while (stackSize > 0) {
+			int node = stack[--stackSize];
+			if (leftChild[node] < 0) {
+				for (int i = nodeStart[node]; i < nodeEnd[node]; i++) {
+					int index = order[i];
+					if (measure.calculateDistance(center, points[index]) < radius) {
+						if (size == result.length) {
+							result = Arrays.copyOf(result, size * 2);
+						}
+						result[size++] = index;
+					}
+				}
+			} else {
+				double difference = center[splitDimension[node]] - splitValue[node];
+				if (stackSize + 2 > stack.length) {
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				}
+				// left subtree contains only values <= split, right subtree only values >= split
+				if (difference < radius) {
+					stack[stackSize++] = leftChild[node];
+				}
+				if (-difference < radius) {
+					stack[stackSize++] = rightChild[node];
+				}
+			}
+		}
+		int[] neighbours = Arrays.copyOf(result, size);
+		Arrays.sort(neighbours);
+		return neighbours;
+	}
+
+	/**
+	 * Builds the nodes top down, splitting the dimension with the largest spread at the median.
+	 */
+	private void build() {
+		if (points.length == 0) {
+			return;
+		}
+		int dimensions = points[0].length;
+		int[] stack = new int[64];
+		int stackSize = 0;
+		stack[stackSize++] = createNode(0, points.length);
+		while (stackSize > 0) {
+			int node = stack[--stackSize];
+			int start = nodeStart[node];
+			int end = nodeEnd[node];
+			if (end - start <= LEAF_SIZE || dimensions == 0) {
+				continue;
+			}
+
+			int dimension = 0;
+			double maxSpread = -1;
+			for (int d = 0; d < dimensions; d++) {
+				double min = Double.POSITIVE_INFINITY;
+				double max = Double.NEGATIVE_INFINITY;
+				for (int i = start; i < end; i++) {
+					double value = points[order[i]][d];
+					min = Math.min(min, value);
+					max = Math.max(max, value);
+				}
+				if (max - min > maxSpread) {
+					maxSpread = max - min;
+					dimension = d;
+				}
+			}
+			if (maxSpread <= 0) {
+				// all points identical
+				continue;
+			}
+
+			int median = (start + end) >>> 1;
+			select(start, end - 1, median, dimension);
+			splitDimension[node] = dimension;
+			splitValue[node] = points[order[median]][dimension];
+			int left = createNode(start, median);
+			int right = createNode(median, end);
+			leftChild[node] = left;
+			rightChild[node] = right;
+			if (stackSize + 2 > stack.length) {
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			}
+			stack[stackSize++] = left;
+			stack[stackSize++] = right;
+		}
+	}
+
+	private int createNode(int start, int end) {
+		if (numberOfNodes == nodeStart.length) {
+			int capacity = numberOfNodes * 2;
+			nodeStart = Arrays.copyOf(nodeStart, capacity);
+			nodeEnd = Arrays.copyOf(nodeEnd, capacity);
+			splitDimension = Arrays.copyOf(splitDimension, capacity);
+			splitValue = Arrays.copyOf(splitValue, capacity);
+			leftChild = Arrays.copyOf(leftChild, capacity);
+			rightChild = Arrays.copyOf(rightChild, capacity);
+		}
+		int node = numberOfNodes++;
+		nodeStart[node] = start;
+		nodeEnd[node] = end;
+		leftChild[node] = -1;
+		rightChild[node] = -1;
+		return node;
+	}
+
+	/**
+	 * Rearranges the order between left and right (both inclusive) such that the point at position
+	 * k has its final sorted position regarding the given dimension, all points before have smaller
+	 * or equal and all after have larger or equal values.
+	 */
+	private void select(int left, int right, int k, int dimension) {
+		while (right > left) {
+			double pivot = points[order[(left + right) >>> 1]][dimension];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (points[order[i]][dimension] < pivot) {
+					i++;
+				}
+				while (points[order[j]][dimension] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int swap = order[i];
+					order[i] = order[j];
+					order[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.example.table;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+/**
+ * Tests that the {@link CompactPolynominalMapping} behaves like the {@link PolynominalMapping}.
+ *
+ * @since 8.0
+ */
+public class CompactPolynominalMappingTest {
+
+	private static final String[] SPECIAL_VALUES = { "", "\u0000", "\u00e4\u00f6\u00fc", "\u20ac", "\ud83d\ude00", "\ud800",
+			"a\u0000b", "x" };
+
+	@Test
+	public void mapLikePolynominal() {
+		NominalMapping expected = new PolynominalMapping();
+		NominalMapping mapping = new CompactPolynominalMapping();
+		Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			String value = "value" + random.nextInt(20_000);
+			assertEquals(expected.mapString(value), mapping.mapString(value));
+		}
+		for (String value : SPECIAL_VALUES) {
+			assertEquals(expected.mapString(value), mapping.mapString(value));
+		}
+		assertMappingEquals(expected, mapping);
+		assertEquals(-1, mapping.getIndex("unknown"));
+		assertEquals(-1, mapping.mapString(null));
+	}
+
+	@Test
+	public void setMapping() {
+		NominalMapping expected = new PolynominalMapping();
+		NominalMapping mapping = new CompactPolynominalMapping();
+		for (int i = 0; i < 100; i++) {
+			expected.mapString("value" + i);
+			mapping.mapString("value" + i);
+		}
+		Random random = new Random(7);
+		for (int i = 0; i < 1000; i++) {
+			int index = random.nextInt(100);
+			String value = "value" + random.nextInt(200);
+			expected.setMapping(value, index);
+			mapping.setMapping(value, index);
+			assertMappingEquals(expected, mapping);
+		}
+	}
+
+	@Test
+	public void sortAndClear() {
+		NominalMapping expected = new PolynominalMapping();
+		NominalMapping mapping = new CompactPolynominalMapping();
+		for (int i = 1000; i > 0; i--) {
+			expected.mapString("value" + i);
+			mapping.mapString("value" + i);
+		}
+		expected.sortMappings();
+		mapping.sortMappings();
+		assertMappingEquals(expected, mapping);
+
+		mapping.clear();
+		assertEquals(0, mapping.size());
+		assertEquals(0, mapping.mapString("value"));
+	}
+
+	@Test
+	public void copyWithHoles() {
+		Map<Integer, String> values = new HashMap<>();
+		values.put(0, "a");
+		values.put(3, "b");
+		NominalMapping mapping = new CompactPolynominalMapping(values);
+		assertEquals(4, mapping.size());
+		assertNull(mapping.mapIndex(1));
+		assertEquals(3, mapping.getIndex("b"));
+
+		NominalMapping copy = (NominalMapping) mapping.clone();
+		copy.mapString("c");
+		assertEquals(4, mapping.size());
+		assertMappingEquals(new PolynominalMapping(values), mapping);
+		values.put(1, "c");
+		values.put(2, "d");
+		assertTrue(new CompactPolynominalMapping(new PolynominalMapping(values)).equals(new PolynominalMapping(values)));
+	}
+
+	@Test
+	public void growCopy() {
+		NominalMapping mapping = new CompactPolynominalMapping();
+		mapping.mapString("a");
+		mapping.mapString("b");
+		NominalMapping copy = (NominalMapping) mapping.clone();
+		NominalMapping expected = new PolynominalMapping(mapping);
+		for (int i = 0; i < 100_000; i++) {
+			expected.mapString("value" + i);
+			copy.mapString("value" + i);
+		}
+
+		assertMappingEquals(expected, copy);
+		assertEquals(2, mapping.size());
+		assertEquals(1, mapping.getIndex("b"));
+	}
+
+	@Test
+	public void overwriteRepeatedly() {
+		NominalMapping expected = new PolynominalMapping();
+		NominalMapping mapping = new CompactPolynominalMapping();
+		for (int i = 0; i < 10; i++) {
+			expected.mapString("value" + i);
+			mapping.mapString("value" + i);
+		}
+		NominalMapping copy = (NominalMapping) mapping.clone();
+		for (int i = 0; i < 100_000; i++) {
+			String value = "long overwritten value " + i;
+			expected.setMapping(value, i % 10);
+			mapping.setMapping(value, i % 10);
+		}
+
+		assertMappingEquals(expected, mapping);
+		assertEquals("value3", copy.mapIndex(3));
+	}
+
+	@Test
+	public void serialization() throws IOException, ClassNotFoundException {
+		CompactPolynominalMapping mapping = new CompactPolynominalMapping();
+		for (int i = 0; i < 10_000; i++) {
+			mapping.mapString("value" + i);
+		}
+		for (String value : SPECIAL_VALUES) {
+			mapping.mapString(value);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(mapping);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertMappingEquals(mapping, (NominalMapping) in.readObject());
+		}
+	}
+
+	private static void assertMappingEquals(NominalMapping expected, NominalMapping actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.getValues(), actual.getValues());
+		for (int i = 0; i < expected.size(); i++) {
+			String value = expected.mapIndex(i);
+			assertEquals(value, actual.mapIndex(i));
+			assertEquals(expected.getIndex(value), actual.getIndex(value));
+		}
+	}
+
+}
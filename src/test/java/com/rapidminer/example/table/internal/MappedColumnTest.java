@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.example.table.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link MappedColumn}.
+ *
+ * @since 8.0
+ */
+public class MappedColumnTest {
+
+	private static final int SIZE = (1 << 20) + 10;
+
+	private static File writeValues(int size) throws IOException {
+		File file = File.createTempFile("mapped", ".column");
+		file.deleteOnExit();
+		ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			for (int i = 0; i < size; i++) {
+				buffer.clear();
+				buffer.putDouble(i);
+				out.write(buffer.array());
+			}
+		}
+		return file;
+	}
+
+	@Test
+	public void growBeyondFile() throws IOException {
+		MappedColumn column = new MappedColumn(writeValues(SIZE), 0, SIZE);
+		column.set(SIZE - 1, -1);
+
+		column.ensure(2 * SIZE);
+		column.set(2 * SIZE - 1, -2);
+
+		assertEquals(5, column.get(5), 0);
+		assertEquals(-1, column.get(SIZE - 1), 0);
+		assertTrue(Double.isNaN(column.get(SIZE)));
+		assertEquals(-2, column.get(2 * SIZE - 1), 0);
+	}
+
+	@Test
+	public void growWithoutFile() {
+		MappedColumn column = new MappedColumn(null, 0, 10);
+		column.set(3, 3);
+
+		column.ensure(20);
+		column.setLast(19, 19);
+
+		assertEquals(3, column.get(3), 0);
+		assertTrue(Double.isNaN(column.get(10)));
+		assertEquals(19, column.get(19), 0);
+	}
+
+	@Test
+	public void concurrentWritesToSamePage() throws IOException {
+		MappedColumn column = new MappedColumn(writeValues(SIZE), 0, SIZE);
+
+		IntStream.range(0, SIZE).parallel().forEach(i -> column.set(i, -i));
+
+		for (int i = 0; i < SIZE; i++) {
+			assertEquals(-i, column.get(i), 0);
+		}
+	}
+
+}
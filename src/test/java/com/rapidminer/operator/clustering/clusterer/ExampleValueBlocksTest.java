@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.clustering.clusterer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.studio.concurrency.internal.StudioConcurrencyContext;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+import com.rapidminer.tools.math.similarity.divergences.SquaredEuclideanDistance;
+
+
+/**
+ * Tests the {@link ExampleValueBlocks}.
+ *
+ * @since 8.0
+ */
+public class ExampleValueBlocksTest {
+
+	private static final int SIZE = 10_000;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		OperatorService.registerOperator(new OperatorDescription("test", "process", ProcessRootOperator.class,
+				ExampleValueBlocksTest.class.getClassLoader(), null, null), null);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+	}
+
+	private static ConcurrencyContext createContext() {
+		Process process = new Process();
+		process.resume();
+		return new StudioConcurrencyContext(process);
+	}
+
+	private static ExampleSet createExampleSet() {
+		Attribute first = AttributeFactory.createAttribute("first", Ontology.REAL);
+		Attribute second = AttributeFactory.createAttribute("second", Ontology.REAL);
+		Attribute label = AttributeFactory.createAttribute("label", Ontology.REAL);
+		return ExampleSets.from(first, second, label).withBlankSize(SIZE).withColumnFiller(first, i -> Math.sin(i))
+				.withColumnFiller(second, i -> i % 13).withColumnFiller(label, i -> -i)
+				.withRole(label, Attributes.LABEL_NAME).build();
+	}
+
+	@Test
+	public void regularValuesInOrder() {
+		ExampleSet exampleSet = createExampleSet();
+		ExampleValueBlocks blocks = new ExampleValueBlocks(exampleSet);
+		assertEquals(SIZE, blocks.size());
+		assertEquals(2, blocks.getDimensions());
+		double[] buffer = new double[2];
+		for (int i = 0; i < SIZE; i++) {
+			Example example = exampleSet.getExample(i);
+			assertArrayEquals(new double[] { example.getValue(exampleSet.getAttributes().get("first")),
+					example.getValue(exampleSet.getAttributes().get("second")) }, blocks.getValues(i, buffer), 0);
+		}
+	}
+
+	@Test
+	public void forEachExampleInParallel() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet();
+		ExampleValueBlocks blocks = new ExampleValueBlocks(exampleSet);
+		Attribute first = exampleSet.getAttributes().get("first");
+		Attribute second = exampleSet.getAttributes().get("second");
+		AtomicIntegerArray calls = new AtomicIntegerArray(SIZE);
+		double[] sums = new double[SIZE];
+		blocks.forEachExample((index, values) -> {
+			calls.incrementAndGet(index);
+			sums[index] = values[0] + values[1];
+		}, createContext());
+
+		for (int i = 0; i < SIZE; i++) {
+			Example example = exampleSet.getExample(i);
+			assertEquals("calls of example " + i, 1, calls.get(i));
+			assertEquals(example.getValue(first) + example.getValue(second), sums[i], 0);
+		}
+	}
+
+	/**
+	 * Examples on the x-axis at (i % 4) * 10 + i % 3 are nearest to the centroid i % 4 at
+	 * (i % 4) * 10 with the squared distance (i % 3)^2.
+	 */
+	@Test
+	public void nearestCentroids() throws OperatorException {
+		Attribute x = AttributeFactory.createAttribute("x", Ontology.REAL);
+		Attribute y = AttributeFactory.createAttribute("y", Ontology.REAL);
+		ExampleValueBlocks blocks = new ExampleValueBlocks(ExampleSets.from(x, y).withBlankSize(SIZE)
+				.withColumnFiller(x, i -> i % 4 * 10 + i % 3).withColumnFiller(y, i -> 0).build());
+		double[][] centroids = { { 0, 0 }, { 10, 0 }, { 20, 0 }, { 30, 0 } };
+
+		for (ConcurrencyContext context : new ConcurrencyContext[] { null, createContext() }) {
+			int[] assignments = new int[SIZE];
+			double[] distances = new double[SIZE];
+			blocks.assignToNearest(centroids, new SquaredEuclideanDistance(), assignments, distances, context);
+			for (int i = 0; i < SIZE; i++) {
+				assertEquals(i % 4, assignments[i]);
+				assertEquals(i % 3 * (i % 3), distances[i], 0);
+			}
+		}
+	}
+
+	@Test
+	public void nearestCentroidTiesGoToSmallerIndex() throws OperatorException {
+		Attribute x = AttributeFactory.createAttribute("x", Ontology.REAL);
+		ExampleValueBlocks blocks = new ExampleValueBlocks(
+				ExampleSets.from(x).withBlankSize(3).withColumnFiller(x, i -> 5 + i * 10).build());
+		int[] assignments = new int[3];
+		blocks.assignToNearest(new double[][] { { 30 }, { 20 }, { 10 }, { 0 } }, new SquaredEuclideanDistance(),
+				assignments, null, null);
+		assertArrayEquals(new int[] { 2, 1, 0 }, assignments);
+	}
+
+}
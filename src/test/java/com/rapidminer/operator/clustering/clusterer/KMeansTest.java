@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.clustering.clusterer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.operator.clustering.CentroidClusterModel;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+import com.rapidminer.tools.RandomGenerator;
+
+
+/**
+ * Tests that {@link KMeans} and {@link FastKMeans} build the same models with and without parallel
+ * assignments and that the mini-batch variant of {@link KMeans} finds the clusters of well
+ * separated data.
+ *
+ * @since 8.0
+ */
+public class KMeansTest {
+
+	/** More than two {@link ExampleValueBlocks} such that the assignments run in parallel. */
+	private static final int SIZE = 10_000;
+
+	/** The centers of the generated clusters. */
+	private static final double[][] CENTERS = { { -10, 10 }, { 0, 0 }, { 10, 10 } };
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		OperatorService.registerOperator(new OperatorDescription("test", "process", ProcessRootOperator.class,
+				KMeansTest.class.getClassLoader(), null, null), null);
+	}
+
+	/**
+	 * Creates examples scattered around the {@link #CENTERS}, example i belongs to the cluster
+	 * i % 3.
+	 */
+	private static ExampleSet createExampleSet(double deviation) {
+		Attribute x = AttributeFactory.createAttribute("x", Ontology.REAL);
+		Attribute y = AttributeFactory.createAttribute("y", Ontology.REAL);
+		Random random = new Random(42);
+		double[] noise = new double[2 * SIZE];
+		for (int i = 0; i < noise.length; i++) {
+			noise[i] = random.nextGaussian() * deviation;
+		}
+		return ExampleSets.from(x, y).withBlankSize(SIZE)
+				.withColumnFiller(x, i -> CENTERS[i % CENTERS.length][0] + noise[2 * i])
+				.withColumnFiller(y, i -> CENTERS[i % CENTERS.length][1] + noise[2 * i + 1]).build();
+	}
+
+	/**
+	 * Runs the clusterer in a process with the given number of threads and returns the model.
+	 */
+	private static CentroidClusterModel cluster(RMAbstractClusterer clusterer, int numberOfThreads, ExampleSet exampleSet,
+			String... parameters) throws OperatorException {
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS,
+				String.valueOf(numberOfThreads));
+		clusterer.setParameter(KMeans.PARAMETER_K, String.valueOf(CENTERS.length));
+		clusterer.setParameter(RMAbstractClusterer.PARAMETER_ADD_CLUSTER_ATTRIBUTE, "false");
+		clusterer.setParameter(RandomGenerator.PARAMETER_USE_LOCAL_RANDOM_SEED, "true");
+		clusterer.setParameter(RandomGenerator.PARAMETER_LOCAL_RANDOM_SEED, "1992");
+		for (int i = 0; i < parameters.length; i += 2) {
+			clusterer.setParameter(parameters[i], parameters[i + 1]);
+		}
+		Process process = new Process();
+		process.getRootOperator().getSubprocess(0).addOperator(clusterer);
+		process.resume();
+		return (CentroidClusterModel) clusterer.generateClusterModel(exampleSet);
+	}
+
+	private static KMeans createKMeans() {
+		return new KMeans(new OperatorDescription("test", "k_means", KMeans.class, KMeansTest.class.getClassLoader(),
+				null, null));
+	}
+
+	private static FastKMeans createFastKMeans() {
+		return new FastKMeans(new OperatorDescription("test", "fast_k_means", FastKMeans.class,
+				KMeansTest.class.getClassLoader(), null, null));
+	}
+
+	private static void assertSameModel(CentroidClusterModel expected, CentroidClusterModel actual,
+			ExampleSet exampleSet) {
+		assertEquals(expected.getNumberOfClusters(), actual.getNumberOfClusters());
+		for (int i = 0; i < expected.getNumberOfClusters(); i++) {
+			assertArrayEquals(expected.getCentroidCoordinates(i), actual.getCentroidCoordinates(i), 0);
+		}
+		assertArrayEquals(expected.getClusterAssignments(exampleSet), actual.getClusterAssignments(exampleSet));
+	}
+
+	@Test
+	public void kMeansSameModelInParallel() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet(4);
+		CentroidClusterModel sequential = cluster(createKMeans(), 1, exampleSet);
+		CentroidClusterModel parallel = cluster(createKMeans(), 4, exampleSet);
+		assertSameModel(sequential, parallel, exampleSet);
+	}
+
+	@Test
+	public void fastKMeansSameModelInParallel() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet(4);
+		CentroidClusterModel sequential = cluster(createFastKMeans(), 1, exampleSet);
+		CentroidClusterModel parallel = cluster(createFastKMeans(), 4, exampleSet);
+		assertSameModel(sequential, parallel, exampleSet);
+	}
+
+	@Test
+	public void miniBatchesSameModelInParallel() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet(4);
+		CentroidClusterModel sequential = cluster(createKMeans(), 1, exampleSet, KMeans.PARAMETER_USE_MINI_BATCHES,
+				"true", KMeans.PARAMETER_MINI_BATCH_SIZE, "200");
+		CentroidClusterModel parallel = cluster(createKMeans(), 4, exampleSet, KMeans.PARAMETER_USE_MINI_BATCHES,
+				"true", KMeans.PARAMETER_MINI_BATCH_SIZE, "200");
+		assertSameModel(sequential, parallel, exampleSet);
+	}
+
+	/**
+	 * On well separated clusters, the mini-batch centroids are close to the full k-means centroids
+	 * and both assign every example to its generating cluster.
+	 */
+	@Test
+	public void miniBatchesCloseToFullKMeans() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet(0.5);
+		CentroidClusterModel full = cluster(createKMeans(), 4, exampleSet);
+		CentroidClusterModel miniBatch = cluster(createKMeans(), 4, exampleSet, KMeans.PARAMETER_USE_MINI_BATCHES,
+				"true", KMeans.PARAMETER_MINI_BATCH_SIZE, "200");
+
+		for (CentroidClusterModel model : new CentroidClusterModel[] { full, miniBatch }) {
+			int[] assignments = model.getClusterAssignments(exampleSet);
+			for (int i = 0; i < SIZE; i++) {
+				assertEquals("example " + i, assignments[i % CENTERS.length], assignments[i]);
+			}
+		}
+		for (int i = 0; i < CENTERS.length; i++) {
+			double[] fullCentroid = full.getCentroidCoordinates(nearestCentroid(full, CENTERS[i]));
+			double[] miniBatchCentroid = miniBatch.getCentroidCoordinates(nearestCentroid(miniBatch, CENTERS[i]));
+			assertArrayEquals(CENTERS[i], fullCentroid, 0.05);
+			assertArrayEquals(fullCentroid, miniBatchCentroid, 0.1);
+		}
+	}
+
+	private static int nearestCentroid(CentroidClusterModel model, double[] point) {
+		int nearest = -1;
+		double nearestDistance = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < model.getNumberOfClusters(); i++) {
+			double[] centroid = model.getCentroidCoordinates(i);
+			double distance = 0;
+			for (int d = 0; d < point.length; d++) {
+				distance += (centroid[d] - point[d]) * (centroid[d] - point[d]);
+			}
+			if (distance < nearestDistance) {
+				nearest = i;
+				nearestDistance = distance;
+			}
+		}
+		assertTrue(nearest >= 0);
+		return nearest;
+	}
+
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.clustering.clusterer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.core.concurrency.ConcurrencyContext;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.operator.clustering.HierarchicalClusterLeafNode;
+import com.rapidminer.operator.clustering.HierarchicalClusterNode;
+import com.rapidminer.studio.concurrency.internal.StudioConcurrencyContext;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+
+
+/**
+ * Compares the {@link MemoryEfficientLinkage} with the linkage methods on a dense
+ * {@link DistanceMatrix}.
+ */
+public class MemoryEfficientLinkageTest {
+
+	private static final int SIZE = 150;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		OperatorService.registerOperator(new OperatorDescription("test", "process", ProcessRootOperator.class,
+				MemoryEfficientLinkageTest.class.getClassLoader(), null, null), null);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+	}
+
+	private static ConcurrencyContext createContext() {
+		Process process = new Process();
+		process.resume();
+		return new StudioConcurrencyContext(process);
+	}
+
+	@Test
+	public void singleLinkage() throws OperatorException {
+		double[][] points = randomPoints();
+		DistanceMeasure measure = new EuclideanDistance();
+		List<double[]> expected = denseMerges(points, measure, MemoryEfficientLinkage.SINGLE_LINKAGE);
+		assertMerges(expected, MemoryEfficientLinkage.singleLinkage(points, measure, null), 0);
+	}
+
+	@Test
+	public void chainLinkages() throws OperatorException {
+		double[][] points = randomPoints();
+		DistanceMeasure measure = new EuclideanDistance();
+		for (int linkage : new int[] { MemoryEfficientLinkage.SINGLE_LINKAGE, MemoryEfficientLinkage.COMPLETE_LINKAGE,
+				MemoryEfficientLinkage.AVERAGE_LINKAGE }) {
+			List<double[]> expected = denseMerges(points, measure, linkage);
+			CondensedDistanceMatrix matrix = MemoryEfficientLinkage.computeDistances(points, measure, null);
+			assertMerges(expected, MemoryEfficientLinkage.nearestNeighbourChain(matrix, linkage, null), 1e-5);
+		}
+	}
+
+	@Test
+	public void parallelSingleLinkage() throws OperatorException {
+		// grid points produce many equal distances, which have to be resolved as in the sequential case
+		double[][] points = gridPoints();
+		DistanceMeasure measure = new EuclideanDistance();
+		Agglomeration[] expected = MemoryEfficientLinkage.singleLinkage(points, measure, null);
+		Agglomeration[] actual = MemoryEfficientLinkage.singleLinkage(points, measure, createContext(), 0);
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].getClusterId1(), actual[i].getClusterId1());
+			assertEquals(expected[i].getClusterId2(), actual[i].getClusterId2());
+			assertEquals(expected[i].getDistance(), actual[i].getDistance(), 0);
+		}
+	}
+
+	@Test
+	public void parallelDistances() throws OperatorException {
+		double[][] points = randomPoints();
+		DistanceMeasure measure = new EuclideanDistance();
+		CondensedDistanceMatrix expected = MemoryEfficientLinkage.computeDistances(points, measure, null);
+		CondensedDistanceMatrix actual = MemoryEfficientLinkage.computeDistances(points, measure, createContext());
+		assertEquals(SIZE, actual.getSize());
+		for (int x = 0; x < SIZE; x++) {
+			for (int y = x + 1; y < SIZE; y++) {
+				assertEquals((float) measure.calculateDistance(points[x], points[y]), actual.get(x, y), 0);
+				assertEquals(expected.get(x, y), actual.get(x, y), 0);
+			}
+		}
+	}
+
+	private static double[][] gridPoints() {
+		Random random = new Random(5);
+		double[][] points = new double[SIZE][2];
+		for (double[] point : points) {
+			for (int d = 0; d < point.length; d++) {
+				point[d] = random.nextInt(8);
+			}
+		}
+		return points;
+	}
+
+	private static double[][] randomPoints() {
+		Random random = new Random(3);
+		double[][] points = new double[SIZE][3];
+		for (double[] point : points) {
+			for (int d = 0; d < point.length; d++) {
+				point[d] = random.nextDouble();
+			}
+		}
+		return points;
+	}
+
+	/**
+	 * Runs the dense implementation and returns the merges as the smallest point indices of both
+	 * clusters and the distance.
+	 */
+	private static List<double[]> denseMerges(double[][] points, DistanceMeasure measure, int linkage) {
+		DistanceMatrix matrix = new DistanceMatrix(points.length);
+		int[] clusterIds = new int[points.length];
+		Map<Integer, HierarchicalClusterNode> clusterMap = new HashMap<>();
+		Map<Integer, Integer> smallestPoint = new HashMap<>();
+		for (int x = 0; x < points.length; x++) {
+			clusterIds[x] = x;
+			clusterMap.put(x, new HierarchicalClusterLeafNode(x, (double) x));
+			smallestPoint.put(x, x);
+			for (int y = x + 1; y < points.length; y++) {
+				matrix.set(x, y, measure.calculateDistance(points[x], points[y]));
+			}
+		}
+		AbstractLinkageMethod method;
+		if (linkage == MemoryEfficientLinkage.SINGLE_LINKAGE) {
+			method = new SingleLinkageMethod(matrix, clusterIds);
+		} else if (linkage == MemoryEfficientLinkage.COMPLETE_LINKAGE) {
+			method = new CompleteLinkageMethod(matrix, clusterIds);
+		} else {
+			method = new AverageLinkageMethod(matrix, clusterIds);
+		}
+
+		List<double[]> merges = new ArrayList<>();
+		int nextClusterId = points.length;
+		while (clusterMap.size() > 1) {
+			Agglomeration agglomeration = method.getNextAgglomeration(nextClusterId, clusterMap);
+			int first = smallestPoint.get(agglomeration.getClusterId1());
+			int second = smallestPoint.get(agglomeration.getClusterId2());
+			merges.add(new double[] { Math.min(first, second), Math.max(first, second), agglomeration.getDistance() });
+			HierarchicalClusterNode node = new HierarchicalClusterNode(nextClusterId, agglomeration.getDistance());
+			node.addSubNode(clusterMap.remove(agglomeration.getClusterId1()));
+			node.addSubNode(clusterMap.remove(agglomeration.getClusterId2()));
+			clusterMap.put(nextClusterId, node);
+			smallestPoint.put(nextClusterId, Math.min(first, second));
+			nextClusterId++;
+		}
+		return merges;
+	}
+
+	private static void assertMerges(List<double[]> expected, Agglomeration[] agglomerations, double delta) {
+		assertEquals(expected.size(), agglomerations.length);
+		int[] smallestPoint = new int[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			smallestPoint[i] = i;
+		}
+		for (int i = 0; i < agglomerations.length; i++) {
+			int first = find(smallestPoint, agglomerations[i].getClusterId1());
+			int second = find(smallestPoint, agglomerations[i].getClusterId2());
+			assertEquals(expected.get(i)[0], Math.min(first, second), 0);
+			assertEquals(expected.get(i)[1], Math.max(first, second), 0);
+			assertEquals(expected.get(i)[2], agglomerations[i].getDistance(), delta);
+			smallestPoint[Math.max(first, second)] = Math.min(first, second);
+		}
+	}
+
+	private static int find(int[] smallestPoint, int point) {
+		while (smallestPoint[point] != point) {
+			point = smallestPoint[point];
+		}
+		return point;
+	}
+
+}
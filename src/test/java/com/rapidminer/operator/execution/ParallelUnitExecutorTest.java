@@ -0,0 +1,340 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.ExecutionUnit;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.operator.ProcessStoppedException;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+
+
+/**
+ * Tests the {@link ParallelUnitExecutor} against the {@link SimpleUnitExecutor} on a subprocess
+ * with two independent branches.
+ *
+ * @since 8.0
+ */
+public class ParallelUnitExecutorTest {
+
+	/** Creates an example set with a single value. */
+	public static class ValueSource extends Operator {
+
+		private final OutputPort output = getOutputPorts().createPort("output");
+
+		private double value;
+
+		private CountDownLatch latch;
+
+		private volatile boolean concurrent;
+
+		public ValueSource(OperatorDescription description) {
+			super(description);
+		}
+
+		@Override
+		public void doWork() throws OperatorException {
+			if (latch != null) {
+				// both sources only pass the latch if they run at the same time
+				latch.countDown();
+				try {
+					concurrent = latch.await(10, TimeUnit.SECONDS) && getProcess().isConcurrentExecution();
+				} catch (InterruptedException e) {
+					throw new OperatorException(e.getMessage(), e);
+				}
+			}
+			output.deliver(createExampleSet(value));
+		}
+	}
+
+	/** Delivers the same example set at both outputs, like a multiply operator without copies. */
+	public static class Fork extends Operator {
+
+		private final OutputPort first = getOutputPorts().createPort("first");
+
+		private final OutputPort second = getOutputPorts().createPort("second");
+
+		private ExampleSet exampleSet;
+
+		public Fork(OperatorDescription description) {
+			super(description);
+		}
+
+		@Override
+		public void doWork() throws OperatorException {
+			first.deliver(exampleSet);
+			second.deliver(exampleSet);
+		}
+	}
+
+	/** Doubles the value of the given example set or fails if requested. */
+	public static class Doubling extends Operator {
+
+		private final InputPort input = getInputPorts().createPort("input");
+
+		private final OutputPort output = getOutputPorts().createPort("output");
+
+		private boolean fail;
+
+		private boolean stop;
+
+		private volatile boolean executed;
+
+		/** counted down by the operator waiting for its cancellation, awaited by the others */
+		private CountDownLatch running;
+
+		private boolean waitForCancel;
+
+		private volatile boolean cancelled;
+
+		private volatile ExampleSet received;
+
+		public Doubling(OperatorDescription description) {
+			super(description);
+		}
+
+		@Override
+		public void doWork() throws OperatorException {
+			executed = true;
+			received = input.getData(ExampleSet.class);
+			if (running != null) {
+				try {
+					if (waitForCancel) {
+						running.countDown();
+						long end = System.currentTimeMillis() + 10000;
+						while (System.currentTimeMillis() < end) {
+							checkForStop();
+							Thread.sleep(1);
+						}
+					} else {
+						running.await(10, TimeUnit.SECONDS);
+					}
+				} catch (ProcessStoppedException e) {
+					cancelled = true;
+					throw e;
+				} catch (InterruptedException e) {
+					throw new OperatorException(e.getMessage(), e);
+				}
+			}
+			if (fail) {
+				throw new OperatorException("Branch failed.");
+			}
+			if (stop) {
+				getProcess().stop();
+				checkForStop();
+			}
+			ExampleSet exampleSet = input.getData(ExampleSet.class);
+			output.deliver(createExampleSet(2 * valueOf(exampleSet)));
+		}
+	}
+
+	private static OperatorDescription sourceDescription;
+
+	private static OperatorDescription doublingDescription;
+
+	private static OperatorDescription forkDescription;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		ClassLoader classLoader = ParallelUnitExecutorTest.class.getClassLoader();
+		OperatorService.registerOperator(
+				new OperatorDescription("test", "process", ProcessRootOperator.class, classLoader, null, null), null);
+		sourceDescription = new OperatorDescription("test", "value_source", ValueSource.class, classLoader, null, null);
+		doublingDescription = new OperatorDescription("test", "doubling", Doubling.class, classLoader, null, null);
+		forkDescription = new OperatorDescription("test", "fork", Fork.class, classLoader, null, null);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+	}
+
+	private static ExampleSet createExampleSet(double value) {
+		Attribute attribute = AttributeFactory.createAttribute("value", Ontology.REAL);
+		return ExampleSets.from(attribute).addRow(new double[] { value }).build();
+	}
+
+	private static double valueOf(ExampleSet exampleSet) {
+		return exampleSet.getExample(0).getValue(exampleSet.getAttributes().get("value"));
+	}
+
+	/** A process whose main subprocess consists of two branches {@code source -> doubling}. */
+	private static class TwoBranches {
+
+		private final Process process = new Process();
+
+		private final ExecutionUnit unit = process.getRootOperator().getSubprocess(0);
+
+		private final ValueSource[] sources = new ValueSource[2];
+
+		private final Doubling[] doublings = new Doubling[2];
+
+		private TwoBranches() throws Exception {
+			for (int i = 0; i < 2; i++) {
+				sources[i] = new ValueSource(sourceDescription);
+				sources[i].value = i + 1.5;
+				doublings[i] = new Doubling(doublingDescription);
+				unit.addOperator(sources[i]);
+				unit.addOperator(doublings[i]);
+				sources[i].output.connectTo(doublings[i].input);
+				doublings[i].output.connectTo(unit.getInnerSinks().getPortByIndex(i));
+			}
+			// the process is stopped until it is run, the unit is executed directly here
+			process.resume();
+		}
+
+		private double getResult(int index) throws OperatorException {
+			return valueOf(unit.getInnerSinks().getPortByIndex(index).getData(ExampleSet.class));
+		}
+	}
+
+	@Test
+	public void sameResultsAsSequentialExecution() throws Exception {
+		TwoBranches sequential = new TwoBranches();
+		new SimpleUnitExecutor().execute(sequential.unit);
+
+		TwoBranches parallel = new TwoBranches();
+		new ParallelUnitExecutor().execute(parallel.unit);
+
+		for (int i = 0; i < 2; i++) {
+			assertEquals(2 * (i + 1.5), sequential.getResult(i), 0);
+			assertEquals(sequential.getResult(i), parallel.getResult(i), 0);
+		}
+		assertFalse(parallel.process.isConcurrentExecution());
+	}
+
+	@Test
+	public void branchesRunConcurrently() throws Exception {
+		TwoBranches branches = new TwoBranches();
+		CountDownLatch latch = new CountDownLatch(2);
+		for (ValueSource source : branches.sources) {
+			source.latch = latch;
+		}
+		new ParallelUnitExecutor().execute(branches.unit);
+
+		for (ValueSource source : branches.sources) {
+			assertTrue(source.concurrent);
+		}
+		// the concurrently executed operators do not change the current operator
+		Operator current = branches.process.getCurrentOperator();
+		assertTrue(current != branches.sources[0] && current != branches.sources[1]);
+	}
+
+	@Test
+	public void errorsArePassedOn() throws Exception {
+		TwoBranches branches = new TwoBranches();
+		branches.doublings[0].fail = true;
+		try {
+			new ParallelUnitExecutor().execute(branches.unit);
+			fail("The error of the first branch was not passed on.");
+		} catch (ProcessStoppedException e) {
+			fail("The error of the first branch was replaced.");
+		} catch (OperatorException e) {
+			assertEquals("Branch failed.", e.getMessage());
+		}
+		assertSame(branches.doublings[0], branches.process.getCurrentOperator());
+		assertFalse(branches.process.isConcurrentExecution());
+	}
+
+	@Test
+	public void stopIsHonored() throws Exception {
+		TwoBranches branches = new TwoBranches();
+		branches.doublings[1].stop = true;
+		try {
+			new ParallelUnitExecutor().execute(branches.unit);
+			fail("The process was not stopped.");
+		} catch (ProcessStoppedException e) {
+			assertNotNull(e.getMessage());
+		}
+		assertTrue(branches.doublings[1].executed);
+		assertTrue(branches.process.shouldStop());
+		assertFalse(branches.process.isConcurrentExecution());
+	}
+
+	@Test
+	public void runningBranchesAreCancelled() throws Exception {
+		TwoBranches branches = new TwoBranches();
+		CountDownLatch running = new CountDownLatch(1);
+		branches.doublings[0].running = running;
+		branches.doublings[0].fail = true;
+		branches.doublings[1].running = running;
+		branches.doublings[1].waitForCancel = true;
+		try {
+			new ParallelUnitExecutor().execute(branches.unit);
+			fail("The error of the first branch was not passed on.");
+		} catch (ProcessStoppedException e) {
+			fail("The error of the first branch was replaced.");
+		} catch (OperatorException e) {
+			assertEquals("Branch failed.", e.getMessage());
+		}
+		assertTrue(branches.doublings[1].cancelled);
+		assertFalse(branches.process.shouldStop());
+		// the cancellation does not outlast the execution
+		branches.doublings[1].checkForStop();
+	}
+
+	@Test
+	public void sharedInputIsCopied() throws Exception {
+		Process process = new Process();
+		ExecutionUnit unit = process.getRootOperator().getSubprocess(0);
+		Fork fork = new Fork(forkDescription);
+		fork.exampleSet = createExampleSet(3);
+		unit.addOperator(fork);
+		Doubling[] doublings = new Doubling[2];
+		for (int i = 0; i < 2; i++) {
+			doublings[i] = new Doubling(doublingDescription);
+			unit.addOperator(doublings[i]);
+			doublings[i].output.connectTo(unit.getInnerSinks().getPortByIndex(i));
+		}
+		fork.first.connectTo(doublings[0].input);
+		fork.second.connectTo(doublings[1].input);
+		process.resume();
+
+		new ParallelUnitExecutor().execute(unit);
+
+		assertNotSame(fork.exampleSet, doublings[0].received);
+		assertNotSame(fork.exampleSet, doublings[1].received);
+		assertNotSame(doublings[0].received, doublings[1].received);
+		for (int i = 0; i < 2; i++) {
+			assertEquals(6, valueOf(unit.getInnerSinks().getPortByIndex(i).getData(ExampleSet.class)), 0);
+		}
+	}
+}
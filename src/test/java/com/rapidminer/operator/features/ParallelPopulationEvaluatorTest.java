@@ -0,0 +1,268 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.features;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.operator.performance.EstimatedPerformance;
+import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyTestUtils;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+
+
+/**
+ * Tests for the {@link ParallelPopulationEvaluator}. The evaluation process consists of a single
+ * {@link ScoreOperator} whose performance only depends on the selected attributes.
+ *
+ * @since 8.0
+ */
+public class ParallelPopulationEvaluatorTest {
+
+	private static final int NUMBER_OF_ATTRIBUTES = 6;
+
+	/** Counts the executions of all {@link ScoreOperator}s, including the copies. */
+	private static final AtomicInteger EVALUATIONS = new AtomicInteger();
+
+	/** A feature operator without search strategy which is only used for its evaluation process. */
+	public static class EvaluationOperator extends FeatureOperator {
+
+		public EvaluationOperator(OperatorDescription description) {
+			super(description);
+		}
+
+		@Override
+		public Population createInitialPopulation(ExampleSet es) {
+			return new Population();
+		}
+
+		@Override
+		public List<PopulationOperator> getPreEvaluationPopulationOperators(ExampleSet input) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public List<PopulationOperator> getPostEvaluationPopulationOperators(ExampleSet input) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public boolean solutionGoodEnough(Population pop) {
+			return false;
+		}
+	}
+
+	/**
+	 * Delivers the sum of the squared (1-based) indices of the selected attributes as performance.
+	 * Sleeps for a time depending on the selection so that parallel evaluations finish in a
+	 * different order than they were started.
+	 */
+	public static class ScoreOperator extends Operator {
+
+		private final InputPort exampleSetInput = getInputPorts().createPort("example set");
+		private final OutputPort performanceOutput = getOutputPorts().createPort("performance");
+
+		public ScoreOperator(OperatorDescription description) {
+			super(description);
+		}
+
+		@Override
+		public void doWork() throws OperatorException {
+			ExampleSet exampleSet = exampleSetInput.getData(ExampleSet.class);
+			double score = 0;
+			for (Attribute attribute : exampleSet.getAttributes()) {
+				int index = Integer.parseInt(attribute.getName().substring(1)) + 1;
+				score += index * index;
+			}
+			try {
+				Thread.sleep(2 * (NUMBER_OF_ATTRIBUTES - exampleSet.getAttributes().size()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			EVALUATIONS.incrementAndGet();
+			PerformanceVector performance = new PerformanceVector();
+			performance.addCriterion(new EstimatedPerformance("score", score, exampleSet.size(), false));
+			performanceOutput.deliver(performance);
+		}
+	}
+
+	private static OperatorDescription featureDescription;
+
+	private static OperatorDescription scoreDescription;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		ClassLoader classLoader = ParallelPopulationEvaluatorTest.class.getClassLoader();
+		OperatorService.registerOperator(
+				new OperatorDescription("test", "process", ProcessRootOperator.class, classLoader, null, null), null);
+		featureDescription = new OperatorDescription("test", "feature_evaluation", EvaluationOperator.class,
+				classLoader, null, null);
+		scoreDescription = new OperatorDescription("test", "score", ScoreOperator.class, classLoader, null, null);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+		ConcurrencyTestUtils.initializeExecutionService();
+	}
+
+	@Before
+	public void resetEvaluations() {
+		EVALUATIONS.set(0);
+	}
+
+	private static ExampleSet createExampleSet() {
+		Attribute[] attributes = new Attribute[NUMBER_OF_ATTRIBUTES];
+		for (int i = 0; i < attributes.length; i++) {
+			attributes[i] = AttributeFactory.createAttribute("a" + i, Ontology.REAL);
+		}
+		return ExampleSets.from(attributes).withBlankSize(20).withColumnFiller(attributes[0], i -> i).build();
+	}
+
+	/** Creates a feature operator with a score operator as evaluation process in a running process. */
+	private static FeatureOperator createOperator() {
+		FeatureOperator operator = new EvaluationOperator(featureDescription);
+		ScoreOperator score = new ScoreOperator(scoreDescription);
+		operator.getSubprocess(0).addOperator(score);
+		operator.getSubprocess(0).getInnerSources().getPortByName("example set")
+				.connectTo(score.getInputPorts().getPortByName("example set"));
+		score.getOutputPorts().getPortByName("performance")
+				.connectTo(operator.getSubprocess(0).getInnerSinks().getPortByName("performance"));
+		Process process = new Process();
+		process.getRootOperator().getSubprocess(0).addOperator(operator);
+		process.resume();
+		return operator;
+	}
+
+	/** Returns the weights selecting the attributes whose bits are set in the mask. */
+	private static double[] weights(int mask) {
+		double[] weights = new double[NUMBER_OF_ATTRIBUTES];
+		for (int i = 0; i < NUMBER_OF_ATTRIBUTES; i++) {
+			weights[i] = (mask >> i & 1) == 1 ? 1 : 0;
+		}
+		return weights;
+	}
+
+	private static double expectedScore(int mask) {
+		double score = 0;
+		for (int i = 0; i < NUMBER_OF_ATTRIBUTES; i++) {
+			if ((mask >> i & 1) == 1) {
+				score += (i + 1) * (i + 1);
+			}
+		}
+		return score;
+	}
+
+	private static Population createPopulation(int... masks) {
+		Population population = new Population();
+		for (int mask : masks) {
+			population.add(new Individual(weights(mask)));
+		}
+		return population;
+	}
+
+	private static double score(Population population, int index) {
+		return population.get(index).getPerformance().getMainCriterion().getAverage();
+	}
+
+	@Test
+	public void cacheHitsOnRepeatedMasks() throws OperatorException {
+		FeatureOperator operator = createOperator();
+		ExampleSet exampleSet = createExampleSet();
+		ParallelPopulationEvaluator evaluator = new ParallelPopulationEvaluator(operator, exampleSet, 1);
+
+		Population first = createPopulation(3, 5, 3, 5, 3);
+		evaluator.evaluate(first);
+		assertEquals(2, EVALUATIONS.get());
+		assertSamePerformance(first.get(0), first.get(2));
+		assertSamePerformance(first.get(0), first.get(4));
+		assertSamePerformance(first.get(1), first.get(3));
+
+		// masks known from the first generation are not evaluated again
+		Population second = createPopulation(5, 9, 3);
+		evaluator.evaluate(second);
+		assertEquals(3, EVALUATIONS.get());
+		assertSamePerformance(first.get(1), second.get(0));
+		assertSamePerformance(first.get(0), second.get(2));
+		assertEquals(expectedScore(9), score(second, 1), 0);
+	}
+
+	/** Checks that the individuals have equal but not the same performance vectors. */
+	private static void assertSamePerformance(Individual expected, Individual actual) {
+		assertNotSame(expected.getPerformance(), actual.getPerformance());
+		assertEquals(expected.getPerformance().getMainCriterion().getAverage(),
+				actual.getPerformance().getMainCriterion().getAverage(), 0);
+		assertEquals(expected.getPerformance().toString(), actual.getPerformance().toString());
+	}
+
+	@Test
+	public void assignmentIndependentOfFinishingOrder() throws OperatorException {
+		FeatureOperator operator = createOperator();
+		ExampleSet exampleSet = createExampleSet();
+		ParallelPopulationEvaluator evaluator = new ParallelPopulationEvaluator(operator, exampleSet, 4);
+
+		int[] masks = new int[2 * NUMBER_OF_ATTRIBUTES + 1];
+		for (int i = 0; i < masks.length; i++) {
+			// alternate between small and large selections so that later tasks finish first
+			masks[i] = i % 2 == 0 ? 1 << i % NUMBER_OF_ATTRIBUTES : (1 << NUMBER_OF_ATTRIBUTES) - 1 - (1 << i % 3);
+		}
+		Population population = createPopulation(masks);
+		evaluator.evaluate(population);
+
+		for (int i = 0; i < masks.length; i++) {
+			assertEquals("individual " + i, expectedScore(masks[i]), score(population, i), 0);
+		}
+	}
+
+	@Test
+	public void parallelEqualsSimple() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet();
+		int[] masks = { 1, 6, 63, 6, 17, 40, 33, 1, 62, 12, 5 };
+
+		Population simple = createPopulation(masks);
+		new SimplePopulationEvaluator(createOperator(), exampleSet).evaluate(simple);
+		Population parallel = createPopulation(masks);
+		new ParallelPopulationEvaluator(createOperator(), exampleSet, 4).evaluate(parallel);
+
+		for (int i = 0; i < masks.length; i++) {
+			assertEquals("individual " + i, score(simple, i), score(parallel, i), 0);
+		}
+		assertEquals(simple.getBestIndividualEver().getPerformance().getMainCriterion().getAverage(),
+				parallel.getBestIndividualEver().getPerformance().getMainCriterion().getAverage(), 0);
+	}
+
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.features.selection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.AttributeWeights;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorChain;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.operator.performance.EstimatedPerformance;
+import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyTestUtils;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+
+
+/**
+ * Tests that the {@link ForwardAttributeSelectionOperator} and the
+ * {@link BackwardAttributeEliminationOperator} select the same attributes whether the candidates of
+ * a round are evaluated one after another or in parallel by the {@link ParallelSelectionEvaluator}.
+ *
+ * @since 8.0
+ */
+public class ParallelSelectionEvaluatorTest {
+
+	/** The score every attribute contributes, the best selection is a0, a1, a3 and a5. */
+	private static final double[] SCORES = { 1, 4, -2, 3, -1, 2 };
+
+	/** The threads the {@link ScoreOperator}s were executed in. */
+	private static final Set<Thread> THREADS = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+	/** Delivers the sum of the {@link #SCORES} of the selected attributes as performance. */
+	public static class ScoreOperator extends Operator {
+
+		private final InputPort exampleSetInput = getInputPorts().createPort("example set");
+		private final OutputPort performanceOutput = getOutputPorts().createPort("performance");
+
+		public ScoreOperator(OperatorDescription description) {
+			super(description);
+		}
+
+		@Override
+		public void doWork() throws OperatorException {
+			ExampleSet exampleSet = exampleSetInput.getData(ExampleSet.class);
+			double score = 0;
+			for (Attribute attribute : exampleSet.getAttributes()) {
+				score += SCORES[Integer.parseInt(attribute.getName().substring(1))];
+			}
+			THREADS.add(Thread.currentThread());
+			PerformanceVector performance = new PerformanceVector();
+			performance.addCriterion(new EstimatedPerformance("score", score, exampleSet.size(), false));
+			performanceOutput.deliver(performance);
+		}
+	}
+
+	private static OperatorDescription scoreDescription;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		ClassLoader classLoader = ParallelSelectionEvaluatorTest.class.getClassLoader();
+		OperatorService.registerOperator(
+				new OperatorDescription("test", "process", ProcessRootOperator.class, classLoader, null, null), null);
+		scoreDescription = new OperatorDescription("test", "score", ScoreOperator.class, classLoader, null, null);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+		ConcurrencyTestUtils.initializeExecutionService();
+	}
+
+	@Before
+	public void resetThreads() {
+		THREADS.clear();
+	}
+
+	private static ExampleSet createExampleSet() {
+		Attribute[] attributes = new Attribute[SCORES.length];
+		for (int i = 0; i < attributes.length; i++) {
+			attributes[i] = AttributeFactory.createAttribute("a" + i, Ontology.REAL);
+		}
+		return ExampleSets.from(attributes).withBlankSize(20).withColumnFiller(attributes[0], i -> i).build();
+	}
+
+	/**
+	 * Creates the operator with a score operator as subprocess in a running process, applies it and
+	 * returns the delivered weights and performance.
+	 */
+	private static Object[] select(Class<? extends OperatorChain> operatorClass, boolean parallel)
+			throws Exception {
+		OperatorChain operator = operatorClass.getConstructor(OperatorDescription.class)
+				.newInstance(new OperatorDescription("test", "selection", operatorClass,
+						ParallelSelectionEvaluatorTest.class.getClassLoader(), null, null));
+		operator.setParameter(ForwardAttributeSelectionOperator.PARAMETER_ENABLE_PARALLEL_EXECUTION,
+				String.valueOf(parallel));
+		ScoreOperator score = new ScoreOperator(scoreDescription);
+		operator.getSubprocess(0).addOperator(score);
+		operator.getSubprocess(0).getInnerSources().getPortByName("example set")
+				.connectTo(score.getInputPorts().getPortByName("example set"));
+		score.getOutputPorts().getPortByName("performance")
+				.connectTo(operator.getSubprocess(0).getInnerSinks().getPortByName("performance"));
+		Process process = new Process();
+		process.getRootOperator().getSubprocess(0).addOperator(operator);
+		process.resume();
+
+		operator.getInputPorts().getPortByName("example set").receive(createExampleSet());
+		operator.doWork();
+		AttributeWeights weights = operator.getOutputPorts().getPortByName("attribute weights")
+				.getData(AttributeWeights.class);
+		PerformanceVector performance = operator.getOutputPorts().getPortByName("performance")
+				.getData(PerformanceVector.class);
+		return new Object[] { weights, performance.getMainCriterion().getAverage() };
+	}
+
+	private static void assertSameSelection(Class<? extends OperatorChain> operatorClass) throws Exception {
+		Object[] sequential = select(operatorClass, false);
+		assertTrue("only the calling thread", THREADS.size() == 1 && THREADS.contains(Thread.currentThread()));
+		THREADS.clear();
+		Object[] parallel = select(operatorClass, true);
+		assertTrue("evaluated on pool threads", THREADS.size() > 1 || !THREADS.contains(Thread.currentThread()));
+
+		AttributeWeights sequentialWeights = (AttributeWeights) sequential[0];
+		AttributeWeights parallelWeights = (AttributeWeights) parallel[0];
+		for (int i = 0; i < SCORES.length; i++) {
+			String name = "a" + i;
+			assertEquals(name, SCORES[i] > 0 ? 1 : 0, sequentialWeights.getWeight(name), 0);
+			assertEquals(name, sequentialWeights.getWeight(name), parallelWeights.getWeight(name), 0);
+		}
+		assertEquals(10, (double) sequential[1], 0);
+		assertEquals(sequential[1], parallel[1]);
+	}
+
+	@Test
+	public void forwardSelection() throws Exception {
+		assertSameSelection(ForwardAttributeSelectionOperator.class);
+	}
+
+	@Test
+	public void backwardElimination() throws Exception {
+		assertSameSelection(BackwardAttributeEliminationOperator.class);
+	}
+
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.associations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+
+
+/**
+ * Tests that the {@link AssociationRuleGenerator} generates the same rules with and without
+ * pruning of the premises and delivers them as rule data.
+ *
+ * @since 8.0
+ */
+public class AssociationRuleGeneratorTest {
+
+	private static final int NUMBER_OF_ITEMS = 7;
+
+	private static final int NUMBER_OF_TRANSACTIONS = 500;
+
+	private static OperatorDescription description;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		ClassLoader classLoader = AssociationRuleGeneratorTest.class.getClassLoader();
+		OperatorService.registerOperator(
+				new OperatorDescription("test", "process", ProcessRootOperator.class, classLoader, null, null), null);
+		description = new OperatorDescription("test", "create_association_rules", AssociationRuleGenerator.class,
+				classLoader, null, null);
+	}
+
+	/**
+	 * Creates all item sets with a minimal frequency of random transactions, which is a downward
+	 * closed collection.
+	 */
+	private static FrequentItemSets createItemSets() {
+		Random random = new Random(1234);
+		int[] transactions = new int[NUMBER_OF_TRANSACTIONS];
+		for (int t = 0; t < NUMBER_OF_TRANSACTIONS; t++) {
+			for (int i = 0; i < NUMBER_OF_ITEMS; i++) {
+				// items with smaller index and pairs of neighbors are more frequent
+				if (random.nextDouble() < 0.8 - 0.08 * i || i > 0 && (transactions[t] & 1 << i - 1) != 0
+						&& random.nextDouble() < 0.3) {
+					transactions[t] |= 1 << i;
+				}
+			}
+		}
+		int[] frequencies = new int[1 << NUMBER_OF_ITEMS];
+		for (int transaction : transactions) {
+			for (int set = 1; set < frequencies.length; set++) {
+				if ((transaction & set) == set) {
+					frequencies[set]++;
+				}
+			}
+		}
+		List<Item> items = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_ITEMS; i++) {
+			Attribute attribute = AttributeFactory.createAttribute("item" + i, Ontology.BINOMINAL);
+			BooleanAttributeItem item = new BooleanAttributeItem(attribute);
+			item.increaseFrequency(frequencies[1 << i]);
+			items.add(item);
+		}
+		FrequentItemSets sets = new FrequentItemSets(NUMBER_OF_TRANSACTIONS);
+		for (int set = 1; set < frequencies.length; set++) {
+			if (frequencies[set] >= 10) {
+				ArrayList<Item> setItems = new ArrayList<>();
+				for (int i = 0; i < NUMBER_OF_ITEMS; i++) {
+					if ((set & 1 << i) != 0) {
+						setItems.add(items.get(i));
+					}
+				}
+				sets.addFrequentSet(new FrequentItemSet(setItems, frequencies[set]));
+			}
+		}
+		return sets;
+	}
+
+	private static AssociationRuleGenerator createGenerator(String criterion, double minValue) throws OperatorException {
+		AssociationRuleGenerator generator = new AssociationRuleGenerator(description);
+		generator.setParameter(AssociationRuleGenerator.PARAMETER_CRITERION, criterion);
+		generator.setParameter(AssociationRuleGenerator.PARAMETER_MIN_CONFIDENCE, String.valueOf(minValue));
+		generator.setParameter(AssociationRuleGenerator.PARAMETER_MIN_CRITERION_VALUE, String.valueOf(minValue));
+		Process process = new Process();
+		process.getRootOperator().getSubprocess(0).addOperator(generator);
+		process.resume();
+		return generator;
+	}
+
+	private static AssociationRules generate(AssociationRuleGenerator generator) throws OperatorException {
+		generator.getInputPorts().getPortByName("item sets").receive(createItemSets());
+		generator.execute();
+		return generator.getOutputPorts().getPortByName("rules").getData(AssociationRules.class);
+	}
+
+	private static void assertSameRules(String criterion, double minValue) throws OperatorException {
+		AssociationRules pruned = generate(createGenerator(criterion, minValue));
+		AssociationRuleGenerator unprunedGenerator = createGenerator(criterion, minValue);
+		unprunedGenerator.setCompatibilityLevel(AssociationRuleGenerator.VERSION_EVALUATE_ALL_PREMISES);
+		AssociationRules unpruned = generate(unprunedGenerator);
+
+		assertTrue(criterion + " generates rules", unpruned.getNumberOfRules() > 0);
+		assertEquals(criterion, unpruned.getNumberOfRules(), pruned.getNumberOfRules());
+		for (int i = 0; i < unpruned.getNumberOfRules(); i++) {
+			AssociationRule expected = unpruned.getRule(i);
+			AssociationRule actual = pruned.getRule(i);
+			assertEquals(expected.toPremiseString(), actual.toPremiseString());
+			assertEquals(expected.toConclusionString(), actual.toConclusionString());
+			assertEquals(expected.getConfidence(), actual.getConfidence(), 0);
+			assertEquals(expected.getLaplace(), actual.getLaplace(), 0);
+			assertEquals(expected.getGain(), actual.getGain(), 0);
+		}
+	}
+
+	@Test
+	public void confidencePruning() throws OperatorException {
+		assertSameRules("confidence", 0.7);
+	}
+
+	@Test
+	public void laplacePruning() throws OperatorException {
+		assertSameRules("laplace", 0.9);
+	}
+
+	@Test
+	public void gainPruning() throws OperatorException {
+		assertSameRules("gain", -0.3);
+	}
+
+	@Test
+	public void ruleData() throws OperatorException {
+		AssociationRules rules = generate(createGenerator("confidence", 0.7));
+
+		AssociationRuleGenerator generator = createGenerator("confidence", 0.7);
+		InputPort sink = generator.getExecutionUnit().getInnerSinks().createPort("result");
+		generator.getOutputPorts().getPortByName("rule data").connectTo(sink);
+		generator.getInputPorts().getPortByName("item sets").receive(createItemSets());
+		generator.execute();
+		ExampleSet ruleData = generator.getOutputPorts().getPortByName("rule data").getData(ExampleSet.class);
+
+		assertEquals(rules.getNumberOfRules(), ruleData.size());
+		Attribute premises = ruleData.getAttributes().get("Premises");
+		Attribute conclusion = ruleData.getAttributes().get("Conclusion");
+		Attribute confidence = ruleData.getAttributes().get("Confidence");
+		Attribute support = ruleData.getAttributes().get("Support");
+		for (AssociationRule rule : rules) {
+			boolean found = false;
+			for (Example example : ruleData) {
+				// the item lists are shown without brackets
+				if (rule.toPremiseString().equals("[" + example.getNominalValue(premises) + "]")
+						&& rule.toConclusionString().equals("[" + example.getNominalValue(conclusion) + "]")) {
+					assertEquals(rule.getConfidence(), example.getValue(confidence), 0);
+					assertEquals(rule.getTotalSupport(), example.getValue(support), 0);
+					found = true;
+				}
+			}
+			assertTrue(rule.toString(), found);
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.associations;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the lookup of item sets in the {@link ItemSetIndex}.
+ *
+ * @since 8.0
+ */
+public class ItemSetIndexTest {
+
+	@Test
+	public void lookupIndependentOfOrder() {
+		Item[] items = new Item[50];
+		for (int i = 0; i < items.length; i++) {
+			items[i] = new NamedItem("item" + i, items.length - i);
+		}
+		FrequentItemSets sets = new FrequentItemSets(100);
+		for (int i = 0; i < items.length; i++) {
+			sets.addFrequentSet(createSet(i + 1, items[i]));
+			for (int j = i + 1; j < items.length; j++) {
+				sets.addFrequentSet(createSet(1000 * i + j, items[j], items[i]));
+			}
+		}
+		ItemSetIndex index = new ItemSetIndex(sets);
+		assertEquals(50 + 50 * 49 / 2, index.size());
+
+		for (int i = 0; i < items.length; i++) {
+			int[] ids = { index.getItemId(items[i]) };
+			assertEquals(i + 1, index.getFrequency(ids, 1));
+			for (int j = i + 1; j < items.length; j++) {
+				int[] pair = { index.getItemId(items[i]), index.getItemId(items[j]) };
+				Arrays.sort(pair);
+				assertEquals(1000 * i + j, index.getFrequency(pair, 2));
+			}
+		}
+		int[] unknown = { 0, 1, 2 };
+		assertEquals(0, index.getFrequency(unknown, 3));
+		assertEquals(-1, index.getItemId(new NamedItem("unknown", 1)));
+	}
+
+	@Test
+	public void lastDuplicateWins() {
+		Item item = new NamedItem("item", 1);
+		FrequentItemSets sets = new FrequentItemSets(10);
+		sets.addFrequentSet(createSet(3, item));
+		sets.addFrequentSet(createSet(5, item));
+		ItemSetIndex index = new ItemSetIndex(sets);
+		assertEquals(1, index.size());
+		assertEquals(5, index.getFrequency(new int[] { 0 }, 1));
+	}
+
+	private static FrequentItemSet createSet(int frequency, Item... items) {
+		return new FrequentItemSet(new ArrayList<>(Arrays.asList(items)), frequency);
+	}
+
+	private static class NamedItem implements Item {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+		private final int frequency;
+
+		private NamedItem(String name, int frequency) {
+			this.name = name;
+			this.frequency = frequency;
+		}
+
+		@Override
+		public int getFrequency() {
+			return frequency;
+		}
+
+		@Override
+		public void increaseFrequency() {}
+
+		@Override
+		public void increaseFrequency(int value) {}
+
+		@Override
+		public int compareTo(Item other) {
+			return name.compareTo(other.toString());
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+}
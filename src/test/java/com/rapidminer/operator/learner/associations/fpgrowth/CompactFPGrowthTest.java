@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.associations.fpgrowth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.learner.associations.FrequentItemSet;
+import com.rapidminer.operator.learner.associations.Item;
+
+
+/**
+ * Tests the {@link CompactFPTree} and the {@link CompactFPGrowth} against a brute force search.
+ *
+ * @since 8.0
+ */
+public class CompactFPGrowthTest {
+
+	private static final int NUMBER_OF_ITEMS = 12;
+	private static final int NUMBER_OF_TRANSACTIONS = 400;
+
+	@Test
+	public void treeStructure() {
+		int[][] transactions = { { 0, 2 }, { 0, 1 }, { 1 }, { 0, 1, 2 }, { 0, 1 } };
+		CompactFPTree tree = CompactFPTree.create(3, transactions, null, transactions.length);
+
+		assertEquals(6, tree.size());
+		assertEquals(4, tree.getSupport(0));
+		assertEquals(4, tree.getSupport(1));
+		assertEquals(2, tree.getSupport(2));
+
+		int first = tree.getFirstChild(CompactFPTree.ROOT);
+		assertEquals(0, tree.getItem(first));
+		assertEquals(4, tree.getCount(first));
+		int second = tree.getNextSibling(first);
+		assertEquals(1, tree.getItem(second));
+		assertEquals(1, tree.getCount(second));
+		assertEquals(CompactFPTree.NONE, tree.getNextSibling(second));
+
+		int child = tree.getFirstChild(first);
+		assertEquals(1, tree.getItem(child));
+		assertEquals(3, tree.getCount(child));
+		assertEquals(2, tree.getItem(tree.getNextSibling(child)));
+
+		int count = 0;
+		for (int node = tree.getFirstNode(1); node != CompactFPTree.NONE; node = tree.getNextNode(node)) {
+			assertEquals(1, tree.getItem(node));
+			count += tree.getCount(node);
+		}
+		assertEquals(4, count);
+	}
+
+	@Test
+	public void allItemSets() throws OperatorException {
+		int[] masks = createTransactions();
+		Map<Integer, Integer> expected = bruteForce(masks, 40, Integer.MAX_VALUE);
+		assertEquals(expected, mine(masks, 40, -1, 0));
+	}
+
+	@Test
+	public void maximalSize() throws OperatorException {
+		int[] masks = createTransactions();
+		Map<Integer, Integer> expected = bruteForce(masks, 20, 2);
+		assertEquals(expected, mine(masks, 20, 2, 0));
+	}
+
+	@Test
+	public void bestItemSets() throws OperatorException {
+		int[] masks = createTransactions();
+		Map<Integer, Integer> all = bruteForce(masks, 1, Integer.MAX_VALUE);
+		List<Integer> supports = new ArrayList<>(all.values());
+		supports.sort(null);
+		int minimalSupport = supports.get(supports.size() - 50);
+		Map<Integer, Integer> expected = bruteForce(masks, minimalSupport, Integer.MAX_VALUE);
+
+		Map<Integer, Integer> actual = mine(masks, 1, -1, 50);
+		assertTrue(actual.size() >= expected.size());
+		for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), actual.get(entry.getKey()));
+		}
+	}
+
+	private static int[] createTransactions() {
+		Random random = new Random(1234);
+		int[] masks = new int[NUMBER_OF_TRANSACTIONS];
+		for (int i = 0; i < masks.length; i++) {
+			for (int item = 0; item < NUMBER_OF_ITEMS; item++) {
+				// the smaller ids are more frequent
+				if (random.nextDouble() < 0.6 - 0.04 * item) {
+					masks[i] |= 1 << item;
+				}
+			}
+		}
+		return masks;
+	}
+
+	private static Map<Integer, Integer> bruteForce(int[] masks, int minSupport, int maxItems) {
+		Map<Integer, Integer> sets = new HashMap<>();
+		for (int set = 1; set < 1 << NUMBER_OF_ITEMS; set++) {
+			if (Integer.bitCount(set) > maxItems) {
+				continue;
+			}
+			int support = 0;
+			for (int mask : masks) {
+				if ((mask & set) == set) {
+					support++;
+				}
+			}
+			if (support >= minSupport) {
+				sets.put(set, support);
+			}
+		}
+		return sets;
+	}
+
+	/**
+	 * Mines the transactions and returns the supports of the item sets by their bit mask.
+	 */
+	private static Map<Integer, Integer> mine(int[] masks, int minSupport, int maxItems, int maxNumberOfItemSets)
+			throws OperatorException {
+		Item[] items = new Item[NUMBER_OF_ITEMS];
+		for (int item = 0; item < NUMBER_OF_ITEMS; item++) {
+			items[item] = new IdItem(item);
+		}
+		int[][] transactions = new int[masks.length][];
+		for (int i = 0; i < masks.length; i++) {
+			transactions[i] = new int[Integer.bitCount(masks[i])];
+			int position = 0;
+			for (int item = 0; item < NUMBER_OF_ITEMS; item++) {
+				if ((masks[i] & 1 << item) != 0) {
+					transactions[i][position++] = item;
+				}
+			}
+		}
+
+		CompactFPTree tree = CompactFPTree.create(NUMBER_OF_ITEMS, transactions, null, transactions.length);
+		CompactFPGrowth miner = new CompactFPGrowth(items, minSupport, maxItems, maxNumberOfItemSets);
+		List<FrequentItemSet> sets = miner.mine(tree, new int[0], null);
+		int minimalSupport = CompactFPGrowth.getMinimalSupportOfBest(sets, maxNumberOfItemSets);
+
+		Map<Integer, Integer> result = new HashMap<>();
+		for (FrequentItemSet set : sets) {
+			if (set.getFrequency() < minimalSupport) {
+				continue;
+			}
+			int mask = 0;
+			for (Item item : set.getItems()) {
+				mask |= 1 << ((IdItem) item).id;
+			}
+			assertEquals(null, result.put(mask, set.getFrequency()));
+		}
+		return result;
+	}
+
+	private static class IdItem implements Item {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int id;
+
+		private IdItem(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public int getFrequency() {
+			return NUMBER_OF_ITEMS - id;
+		}
+
+		@Override
+		public void increaseFrequency() {}
+
+		@Override
+		public void increaseFrequency(int value) {}
+
+		@Override
+		public int compareTo(Item other) {
+			return Integer.compare(id, ((IdItem) other).id);
+		}
+
+		@Override
+		public String toString() {
+			return "item" + id;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.functions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSetBuilder;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * Tests the {@link LogisticRegressionDesignMatrix} and the {@link LogisticRegressionSolver}.
+ *
+ * @since 8.0
+ */
+public class LogisticRegressionSolverTest {
+
+	private static final int SIZE = 5000;
+
+	private static final int DIMENSIONS = 4;
+
+	/** Creates noisy logistic data, every value is non-zero with the given probability. */
+	private static ExampleSet createExampleSet(double density) {
+		Random random = new Random(17);
+		double[][] values = new double[DIMENSIONS + 1][SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			double eta = 0.5;
+			for (int j = 0; j < DIMENSIONS; j++) {
+				if (random.nextDouble() < density) {
+					values[j][i] = random.nextGaussian();
+					eta += (j + 1) * (j % 2 == 0 ? 0.5 : -0.5) * values[j][i];
+				}
+			}
+			values[DIMENSIONS][i] = random.nextDouble() < 1 / (1 + Math.exp(-eta)) ? 1 : 0;
+		}
+
+		Attribute[] attributes = new Attribute[DIMENSIONS + 1];
+		for (int j = 0; j < DIMENSIONS; j++) {
+			attributes[j] = AttributeFactory.createAttribute("att" + j, Ontology.REAL);
+		}
+		attributes[DIMENSIONS] = AttributeFactory.createAttribute("label", Ontology.REAL);
+		ExampleSetBuilder builder = ExampleSets.from(attributes).withBlankSize(SIZE)
+				.withRole(attributes[DIMENSIONS], Attributes.LABEL_NAME);
+		for (int j = 0; j <= DIMENSIONS; j++) {
+			final double[] column = values[j];
+			builder.withColumnFiller(attributes[j], i -> column[i]);
+		}
+		return builder.build();
+	}
+
+	@Test
+	public void gradientMatchesDifferences() throws OperatorException {
+		LogisticRegressionDesignMatrix matrix = new LogisticRegressionDesignMatrix(createExampleSet(1), true);
+		int n = matrix.getNumberOfCoefficients();
+		double[] beta = { 0.3, -0.2, 0.1, 0.4, -0.1 };
+		double[] gradient = new double[n];
+		double[][] hessian = new double[n][n];
+		matrix.computeLoss(beta, gradient, hessian, null);
+
+		double h = 1e-6;
+		for (int j = 0; j < n; j++) {
+			double[] plus = beta.clone();
+			plus[j] += h;
+			double[] minus = beta.clone();
+			minus[j] -= h;
+			double[] gradientPlus = new double[n];
+			double[] gradientMinus = new double[n];
+			double difference = (matrix.computeLoss(plus, gradientPlus, null, null)
+					- matrix.computeLoss(minus, gradientMinus, null, null)) / (2 * h);
+			assertEquals(gradient[j], difference, 1e-4 * Math.max(1, Math.abs(gradient[j])));
+			for (int k = 0; k < n; k++) {
+				assertEquals(hessian[j][k], (gradientPlus[k] - gradientMinus[k]) / (2 * h),
+						1e-4 * Math.max(1, Math.abs(hessian[j][k])));
+			}
+		}
+	}
+
+	@Test
+	public void solversFindSameOptimum() throws OperatorException {
+		for (double density : new double[] { 1, 0.2 }) {
+			LogisticRegressionDesignMatrix matrix = new LogisticRegressionDesignMatrix(createExampleSet(density), true);
+			LogisticRegressionSolver irls = new LogisticRegressionSolver(matrix, 0, 0, 100, 1e-12, null, null, null);
+			LogisticRegressionSolver lbfgs = new LogisticRegressionSolver(matrix, 0, 0, 1000, 1e-14, null, null, null);
+			double[] irlsBeta = irls.solveIRLS();
+			double[] lbfgsBeta = lbfgs.solveLBFGS();
+			assertArrayEquals(irlsBeta, lbfgsBeta, 1e-5);
+			assertEquals(irls.getLogLikelihood(), lbfgs.getLogLikelihood(), 1e-6);
+
+			double[] gradient = new double[matrix.getNumberOfCoefficients()];
+			matrix.computeLoss(irlsBeta, gradient, null, null);
+			for (double derivative : gradient) {
+				assertEquals(0, derivative, 1e-6);
+			}
+		}
+	}
+
+	@Test
+	public void strongL1RegularizationRemovesCoefficients() throws OperatorException {
+		LogisticRegressionDesignMatrix matrix = new LogisticRegressionDesignMatrix(createExampleSet(1), true);
+		double l1 = 400;
+		double[] beta = new LogisticRegressionSolver(matrix, l1, 0, 1000, 1e-14, null, null, null).solveLBFGS();
+		double[] gradient = new double[matrix.getNumberOfCoefficients()];
+		matrix.computeLoss(beta, gradient, null, null);
+
+		int zeros = 0;
+		for (int j = 0; j < DIMENSIONS; j++) {
+			if (beta[j] == 0) {
+				zeros++;
+				assertTrue(Math.abs(gradient[j]) <= l1 + 1e-4);
+			} else {
+				assertEquals(-l1 * Math.signum(beta[j]), gradient[j], 1e-3);
+			}
+		}
+		assertTrue(zeros > 0);
+		assertTrue(zeros < DIMENSIONS);
+		// the intercept is not regularized
+		assertEquals(0, gradient[DIMENSIONS], 1e-3);
+	}
+
+	@Test
+	public void singularSystemIsSolvedWithRidge() throws OperatorException {
+		double[][] a = { { 1, 1 }, { 1, 1 } };
+		double[] x = LogisticRegressionSolver.solveLinearSystem(a, new double[] { 2, 2 });
+		assertEquals(2, x[0] + x[1], 1e-6);
+	}
+
+	@Test(expected = OperatorException.class)
+	public void nonFiniteSystemFails() throws OperatorException {
+		double[][] a = { { Double.NaN, 0 }, { 0, 1 } };
+		LogisticRegressionSolver.solveLinearSystem(a, new double[] { 1, 1 });
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.functions.neuralnet;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSetBuilder;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.studio.concurrency.internal.StudioConcurrencyContext;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.ParameterService;
+import com.rapidminer.tools.RandomGenerator;
+
+
+/**
+ * Tests that the {@link NeuralNetMiniBatchTrainer} reproduces the online training of the
+ * {@link ImprovedNeuralNetModel} for mini-batches of size one.
+ *
+ * @since 8.0
+ */
+public class NeuralNetMiniBatchTrainerTest {
+
+	private static final int SIZE = 300;
+
+	private static final int CYCLES = 20;
+
+	/** Creates three random attributes and a label that depends on them. */
+	private static ExampleSet createExampleSet(boolean nominal) {
+		Random random = new Random(3);
+		double[][] values = new double[4][SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			values[0][i] = random.nextGaussian() * 3 + 1;
+			values[1][i] = random.nextDouble() * 10;
+			values[2][i] = random.nextGaussian();
+			if (nominal) {
+				values[3][i] = values[0][i] + values[1][i] > 6 ? values[2][i] > 0 ? 2 : 1 : 0;
+			} else {
+				values[3][i] = 2 * values[0][i] - values[1][i] + 0.3 * values[2][i];
+			}
+		}
+
+		Attribute[] attributes = new Attribute[4];
+		for (int j = 0; j < 3; j++) {
+			attributes[j] = AttributeFactory.createAttribute("att" + j, Ontology.REAL);
+		}
+		if (nominal) {
+			attributes[3] = AttributeFactory.createAttribute("label", Ontology.NOMINAL);
+			attributes[3].getMapping().mapString("x");
+			attributes[3].getMapping().mapString("y");
+			attributes[3].getMapping().mapString("z");
+		} else {
+			attributes[3] = AttributeFactory.createAttribute("label", Ontology.REAL);
+		}
+		ExampleSetBuilder builder = ExampleSets.from(attributes).withBlankSize(SIZE).withRole(attributes[3],
+				Attributes.LABEL_NAME);
+		for (int j = 0; j < 4; j++) {
+			final double[] column = values[j];
+			builder.withColumnFiller(attributes[j], i -> column[i]);
+		}
+		return builder.build();
+	}
+
+	private static List<String[]> createHiddenLayers() {
+		List<String[]> hiddenLayers = new ArrayList<>();
+		hiddenLayers.add(new String[] { "first", "5" });
+		hiddenLayers.add(new String[] { "second", "4" });
+		return hiddenLayers;
+	}
+
+	private static void assertSameWeights(ImprovedNeuralNetModel expected, ImprovedNeuralNetModel actual) {
+		assertSameWeights(expected, actual, 1e-10);
+	}
+
+	private static void assertSameWeights(ImprovedNeuralNetModel expected, ImprovedNeuralNetModel actual,
+			double delta) {
+		InnerNode[] expectedNodes = expected.getInnerNodes();
+		InnerNode[] actualNodes = actual.getInnerNodes();
+		assertEquals(expectedNodes.length, actualNodes.length);
+		for (int i = 0; i < expectedNodes.length; i++) {
+			double[] expectedWeights = expectedNodes[i].getWeights();
+			double[] actualWeights = actualNodes[i].getWeights();
+			assertEquals(expectedWeights.length, actualWeights.length);
+			for (int j = 0; j < expectedWeights.length; j++) {
+				assertEquals(expectedWeights[j], actualWeights[j], delta);
+			}
+		}
+	}
+
+	private static void testOnlineEquivalence(boolean nominal, boolean decay) throws OperatorException {
+		ExampleSet exampleSet = createExampleSet(nominal);
+		ImprovedNeuralNetModel online = new ImprovedNeuralNetModel(exampleSet);
+		online.train(exampleSet, createHiddenLayers(), CYCLES, 0.00001, 0.3, 0.2, decay, true, true,
+				new RandomGenerator(7), null);
+		ImprovedNeuralNetModel batch = new ImprovedNeuralNetModel(exampleSet);
+		batch.train(exampleSet, createHiddenLayers(), CYCLES, 0.00001, 0.3, 0.2, decay, true, true, 1,
+				new RandomGenerator(7), null, null);
+		assertSameWeights(online, batch);
+	}
+
+	@Test
+	public void singleExampleBatchesMatchOnlineClassification() throws OperatorException {
+		testOnlineEquivalence(true, false);
+	}
+
+	@Test
+	public void singleExampleBatchesMatchOnlineRegression() throws OperatorException {
+		testOnlineEquivalence(false, true);
+	}
+
+	@Test
+	public void largeBatchesAreDeterministic() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet(true);
+		ImprovedNeuralNetModel first = new ImprovedNeuralNetModel(exampleSet);
+		first.train(exampleSet, createHiddenLayers(), CYCLES, 0.00001, 0.3, 0.2, false, true, true, 100,
+				new RandomGenerator(7), null, null);
+		ImprovedNeuralNetModel second = new ImprovedNeuralNetModel(exampleSet);
+		second.train(exampleSet, createHiddenLayers(), CYCLES, 0.00001, 0.3, 0.2, false, true, true, 100,
+				new RandomGenerator(7), null, null);
+		assertSameWeights(first, second);
+	}
+
+	@Test
+	public void parallelBatchesMatchSequential() throws OperatorException {
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+		Process process = new Process();
+		process.resume();
+		StudioConcurrencyContext context = new StudioConcurrencyContext(process);
+
+		ExampleSet exampleSet = createExampleSet(true);
+		ImprovedNeuralNetModel sequential = new ImprovedNeuralNetModel(exampleSet);
+		sequential.train(exampleSet, createHiddenLayers(), CYCLES, 0.00001, 0.3, 0.2, false, true, true, 100,
+				new RandomGenerator(7), null, null);
+		ImprovedNeuralNetModel parallel = new ImprovedNeuralNetModel(exampleSet);
+		parallel.train(exampleSet, createHiddenLayers(), CYCLES, 0.00001, 0.3, 0.2, false, true, true, 100,
+				new RandomGenerator(7), null, context);
+		assertSameWeights(sequential, parallel, 1e-8);
+	}
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.lazy;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+
+
+/**
+ * Tests that the batched and parallel {@link KNNBatchPrediction} writes the same results as single
+ * queries in the order of the examples.
+ *
+ * @since 8.0
+ */
+public class KNNBatchPredictionTest {
+
+	/** More than a single batch of the parallel prediction with four threads. */
+	private static final int SIZE = 10_000;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		OperatorService.registerOperator(new OperatorDescription("test", "process", ProcessRootOperator.class,
+				KNNBatchPredictionTest.class.getClassLoader(), null, null), null);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+	}
+
+	private static ExampleSet createExampleSet() {
+		Attribute first = AttributeFactory.createAttribute("first", Ontology.REAL);
+		Attribute second = AttributeFactory.createAttribute("second", Ontology.REAL);
+		Attribute result = AttributeFactory.createAttribute("result", Ontology.REAL);
+		return ExampleSets.from(first, second, result).withBlankSize(SIZE).withColumnFiller(first, i -> i)
+				.withColumnFiller(second, i -> Math.sin(i)).build();
+	}
+
+	/** The query of the test, independent of the order of the calls. */
+	private static double query(double[] values) {
+		return values[0] * 3 + values[1];
+	}
+
+	/** Applies the test query with the given operator and returns the written results. */
+	private static double[] apply(Operator operator) throws OperatorException {
+		ExampleSet exampleSet = createExampleSet();
+		List<Attribute> attributes = Arrays.asList(exampleSet.getAttributes().get("first"),
+				exampleSet.getAttributes().get("second"));
+		Attribute result = exampleSet.getAttributes().get("result");
+		KNNBatchPrediction.apply(exampleSet, attributes, operator, false, KNNBatchPredictionTest::query,
+				(example, value) -> example.setValue(result, value));
+
+		double[] results = new double[exampleSet.size()];
+		int i = 0;
+		for (Example example : exampleSet) {
+			results[i++] = example.getValue(result);
+		}
+		return results;
+	}
+
+	@Test
+	public void batchedEqualsSingleQueries() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet();
+		double[] expected = new double[exampleSet.size()];
+		int i = 0;
+		for (Example example : exampleSet) {
+			expected[i++] = query(new double[] { example.getValue(exampleSet.getAttributes().get("first")),
+					example.getValue(exampleSet.getAttributes().get("second")) });
+		}
+
+		double[] sequential = apply(null);
+		for (i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], sequential[i], 0);
+		}
+
+		// the operator provides the concurrency context and is checked for stop between batches
+		Process process = new Process();
+		process.resume();
+		double[] parallel = apply(process.getRootOperator());
+		for (i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], parallel[i], 0);
+		}
+	}
+}
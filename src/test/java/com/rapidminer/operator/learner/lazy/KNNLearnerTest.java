@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.lazy;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.Model;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.math.similarity.DistanceMeasures;
+
+
+/**
+ * Tests that the k-NN models predict the same for all {@link KNNLearner#INDEX_TYPES}.
+ *
+ * @since 8.0
+ */
+public class KNNLearnerTest {
+
+	private static final int SIZE = 2_000;
+
+	private static final String[] MEASURES = { "EuclideanDistance", "ManhattanDistance", "ChebychevDistance" };
+
+	private static OperatorDescription learnerDescription;
+
+	@BeforeClass
+	public static void setup() {
+		learnerDescription = new OperatorDescription("test", "k_nn", KNNLearner.class,
+				KNNLearnerTest.class.getClassLoader(), null, null);
+	}
+
+	private static ExampleSet createExampleSet(int offset, boolean nominalLabel) {
+		Attribute first = AttributeFactory.createAttribute("first", Ontology.REAL);
+		Attribute second = AttributeFactory.createAttribute("second", Ontology.REAL);
+		Attribute third = AttributeFactory.createAttribute("third", Ontology.REAL);
+		Attribute label;
+		if (nominalLabel) {
+			label = AttributeFactory.createAttribute("label", Ontology.NOMINAL);
+			label.getMapping().mapString("a");
+			label.getMapping().mapString("b");
+			label.getMapping().mapString("c");
+		} else {
+			label = AttributeFactory.createAttribute("label", Ontology.REAL);
+		}
+		return ExampleSets.from(first, second, third, label).withBlankSize(SIZE)
+				.withColumnFiller(first, i -> Math.sin((i + offset) * 1.3))
+				.withColumnFiller(second, i -> Math.cos((i + offset) * 0.7) * 2)
+				.withColumnFiller(third, i -> (i + offset) * 0.6180339887 % 1 * 3)
+				.withColumnFiller(label, i -> nominalLabel ? (i + offset) % 3 : Math.sin(i + offset) + (i + offset) % 5)
+				.withRole(label, Attributes.LABEL_NAME).build();
+	}
+
+	private static double[] learnAndPredict(String measure, int indexType, boolean nominalLabel)
+			throws OperatorException {
+		KNNLearner learner = new KNNLearner(learnerDescription);
+		learner.setParameter(KNNLearner.PARAMETER_K, "5");
+		learner.setParameter(KNNLearner.PARAMETER_INDEX_TYPE, KNNLearner.INDEX_TYPES[indexType]);
+		learner.setParameter(DistanceMeasures.PARAMETER_MEASURE_TYPES,
+				DistanceMeasures.MEASURE_TYPES[DistanceMeasures.NUMERICAL_MEASURES_TYPE]);
+		learner.setParameter(DistanceMeasures.PARAMETER_NUMERICAL_MEASURE, measure);
+		Model model = learner.learn(createExampleSet(0, nominalLabel));
+
+		ExampleSet testSet = model.apply(createExampleSet(SIZE / 3, nominalLabel));
+		Attribute predictedLabel = testSet.getAttributes().getPredictedLabel();
+		double[] predictions = new double[testSet.size()];
+		int i = 0;
+		for (Example example : testSet) {
+			predictions[i++] = example.getValue(predictedLabel);
+		}
+		return predictions;
+	}
+
+	@Test
+	public void sameRegressionForAllIndexTypes() throws OperatorException {
+		for (String measure : MEASURES) {
+			double[] expected = learnAndPredict(measure, KNNLearner.INDEX_TYPE_LINEAR, false);
+			for (int indexType : new int[] { KNNLearner.INDEX_TYPE_AUTOMATIC, KNNLearner.INDEX_TYPE_KD_TREE,
+					KNNLearner.INDEX_TYPE_BALL_TREE }) {
+				assertArrayEquals(measure + " " + KNNLearner.INDEX_TYPES[indexType], expected,
+						learnAndPredict(measure, indexType, false), 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void sameClassificationForAllIndexTypes() throws OperatorException {
+		for (String measure : MEASURES) {
+			double[] expected = learnAndPredict(measure, KNNLearner.INDEX_TYPE_LINEAR, true);
+			for (int indexType : new int[] { KNNLearner.INDEX_TYPE_AUTOMATIC, KNNLearner.INDEX_TYPE_KD_TREE,
+					KNNLearner.INDEX_TYPE_BALL_TREE }) {
+				double[] actual = learnAndPredict(measure, indexType, true);
+				for (int i = 0; i < expected.length; i++) {
+					assertEquals(measure + " " + KNNLearner.INDEX_TYPES[indexType] + " at " + i, expected[i], actual[i], 0);
+				}
+			}
+		}
+	}
+}
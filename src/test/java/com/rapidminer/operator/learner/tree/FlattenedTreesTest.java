@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.tree;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.learner.SimplePredictionModel;
+import com.rapidminer.operator.learner.tree.ConfigurableRandomForestModel.VotingStrategy;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * Tests that the scoring of {@link TreeModel}s and {@link ConfigurableRandomForestModel}s on
+ * {@link FlattenedTrees} gives the same results as the prediction for single examples.
+ *
+ * @since 8.0
+ */
+public class FlattenedTreesTest {
+
+	private static final int SIZE = 50_000;
+
+	private static ExampleSet createExampleSet() {
+		Attribute real = AttributeFactory.createAttribute("real", Ontology.REAL);
+		Attribute nominal = AttributeFactory.createAttribute("nominal", Ontology.NOMINAL);
+		nominal.getMapping().mapString("a");
+		nominal.getMapping().mapString("b");
+		nominal.getMapping().mapString("c");
+		Attribute label = AttributeFactory.createAttribute("label", Ontology.NOMINAL);
+		label.getMapping().mapString("yes");
+		label.getMapping().mapString("no");
+		return ExampleSets.from(real, nominal, label).withBlankSize(SIZE)
+				.withColumnFiller(real, i -> i % 11 == 0 ? Double.NaN : i % 10)
+				.withColumnFiller(nominal, i -> i % 13 == 0 ? Double.NaN : i % 3).withColumnFiller(label, i -> i % 2)
+				.withRole(label, Attributes.LABEL_NAME).build();
+	}
+
+	private static Tree leaf(ExampleSet exampleSet, String label, int yes, int no) {
+		Tree leaf = new Tree(exampleSet);
+		leaf.setLeaf(label);
+		leaf.addCount("yes", yes);
+		leaf.addCount("no", no);
+		return leaf;
+	}
+
+	/**
+	 * Creates a tree with numerical and nominal splits, examples with a missing real value or the
+	 * nominal value c end in inner nodes.
+	 */
+	private static Tree createTree(ExampleSet exampleSet, double threshold, int bias) {
+		Attribute real = exampleSet.getAttributes().get("real");
+		Attribute nominal = exampleSet.getAttributes().get("nominal");
+		Tree inner = new Tree(exampleSet);
+		inner.addChild(leaf(exampleSet, "yes", 3 + bias, 1), new NominalSplitCondition(nominal, "a"));
+		inner.addChild(leaf(exampleSet, "no", 0, 2 + bias), new NominalSplitCondition(nominal, "b"));
+		inner.addChild(leaf(exampleSet, "no", 1, 5), new NominalSplitCondition(nominal, null));
+		Tree root = new Tree(exampleSet);
+		root.addChild(inner, new LessEqualsSplitCondition(real, threshold));
+		root.addChild(leaf(exampleSet, "yes", 4, bias), new GreaterSplitCondition(real, threshold));
+		return root;
+	}
+
+	private static void assertSamePredictions(SimplePredictionModel model, ExampleSet exampleSet)
+			throws OperatorException {
+		ExampleSet result = model.apply(exampleSet);
+		Attribute predictedLabel = result.getAttributes().getPredictedLabel();
+		for (Example example : result) {
+			double prediction = example.getValue(predictedLabel);
+			double yes = example.getConfidence("yes");
+			double no = example.getConfidence("no");
+			assertEquals(model.predict(example), prediction, 0);
+			assertEquals(example.getConfidence("yes"), yes, 0);
+			assertEquals(example.getConfidence("no"), no, 0);
+		}
+	}
+
+	@Test
+	public void treeTest() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet();
+		assertSamePredictions(new TreeModel(exampleSet, createTree(exampleSet, 4.5, 0)), exampleSet);
+	}
+
+	@Test
+	public void confidenceVoteTest() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet();
+		List<TreeModel> trees = Arrays.asList(new TreeModel(exampleSet, createTree(exampleSet, 2.5, 1)),
+				new TreeModel(exampleSet, createTree(exampleSet, 4.5, 2)),
+				new TreeModel(exampleSet, createTree(exampleSet, 6.5, 3)));
+		assertSamePredictions(new ConfigurableRandomForestModel(exampleSet, trees, VotingStrategy.CONFIDENCE_VOTE),
+				exampleSet);
+	}
+
+	@Test
+	public void majorityVoteTest() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet();
+		List<TreeModel> trees = Arrays.asList(new TreeModel(exampleSet, createTree(exampleSet, 2.5, 1)),
+				new TreeModel(exampleSet, createTree(exampleSet, 4.5, 2)),
+				new TreeModel(exampleSet, createTree(exampleSet, 6.5, 3)));
+		assertSamePredictions(new ConfigurableRandomForestModel(exampleSet, trees, VotingStrategy.MAJORITY_VOTE),
+				exampleSet);
+	}
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.learner.tree.criterions.InfoGainColumnCriterion;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * Tests building trees with {@link HistogramBenefitCalculator}s.
+ *
+ * @since 8.0
+ */
+public class HistogramTreeBuilderTest {
+
+	private static final int SIZE = 20_000;
+
+	private static ExampleSet createExampleSet(boolean fewValues) {
+		Attribute first = AttributeFactory.createAttribute("first", Ontology.REAL);
+		Attribute second = AttributeFactory.createAttribute("second", Ontology.REAL);
+		Attribute nominal = AttributeFactory.createAttribute("nominal", Ontology.NOMINAL);
+		nominal.getMapping().mapString("a");
+		nominal.getMapping().mapString("b");
+		Attribute label = AttributeFactory.createAttribute("label", Ontology.NOMINAL);
+		label.getMapping().mapString("yes");
+		label.getMapping().mapString("no");
+		return ExampleSets.from(first, second, nominal, label).withBlankSize(SIZE)
+				.withColumnFiller(first, i -> fewValues ? i % 7 : Math.sin(i))
+				.withColumnFiller(second, i -> fewValues ? i * 3 % 11 : i % 13 == 0 ? Double.NaN : Math.cos(i * 0.7))
+				.withColumnFiller(nominal, i -> i % 5 == 0 ? 1 : 0)
+				.withColumnFiller(label, i -> fewValues ? (i % 7 > 3 ^ i * 3 % 11 < 2 ^ i % 31 == 0 ? 1 : 0)
+						: (Math.sin(i) > 0.37 ^ i % 31 == 0 ? 1 : 0))
+				.withRole(label, Attributes.LABEL_NAME).build();
+	}
+
+	private static double[] learnAndPredict(ExampleSet exampleSet, int numberOfBins) throws OperatorException {
+		List<ColumnTerminator> terminators = new ArrayList<>(Arrays.asList(new ColumnSingleLabelTermination(),
+				new ColumnNoAttributeLeftTermination(), new ColumnEmptyTermination(), new ColumnMaxDepthTermination(8)));
+		NonParallelTreeBuilder builder = new NonParallelTreeBuilder(null, new InfoGainColumnCriterion(0.01), terminators,
+				null, null, true, 3, 4, 2);
+		builder.setNumberOfHistogramBins(numberOfBins);
+		TreeModel model = new TreeModel(exampleSet, builder.learnTree(exampleSet));
+		double[] predictions = new double[exampleSet.size()];
+		int i = 0;
+		for (Example example : exampleSet) {
+			predictions[i++] = model.predict(example);
+		}
+		return predictions;
+	}
+
+	@Test
+	public void sameAsExactForFewValuesTest() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet(true);
+		double[] exact = learnAndPredict(exampleSet, 0);
+		double[] histogram = learnAndPredict(exampleSet, 256);
+		for (int i = 0; i < exact.length; i++) {
+			assertEquals(exact[i], histogram[i], 0);
+		}
+	}
+
+	@Test
+	public void quantileBinsTest() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet(false);
+		double[] histogram = learnAndPredict(exampleSet, 32);
+		Attribute label = exampleSet.getAttributes().getLabel();
+		int correct = 0;
+		int i = 0;
+		for (Example example : exampleSet) {
+			if (example.getValue(label) == histogram[i++]) {
+				correct++;
+			}
+		}
+		assertTrue(correct > 0.9 * SIZE);
+	}
+
+	@Test
+	public void binningTest() throws OperatorException {
+		ExampleSet exampleSet = createExampleSet(false);
+		ColumnExampleTable table = new ColumnExampleTable(exampleSet, null, false);
+		ColumnHistogramBinning binning = table.getHistogramBinning(16, null);
+		for (int attribute = table.getNumberOfRegularNominalAttributes(); attribute < table
+				.getTotalNumberOfRegularAttributes(); attribute++) {
+			double[] values = table.getNumericalAttributeColumn(attribute);
+			short[] bins = binning.getBinColumn(attribute);
+			int missingBin = binning.getNumberOfBins(attribute) - 1;
+			assertEquals(17, binning.getNumberOfBins(attribute));
+			for (int row = 0; row < values.length; row++) {
+				int bin = bins[row];
+				if (Double.isNaN(values[row])) {
+					assertEquals(missingBin, bin);
+				} else {
+					assertTrue(bin < missingBin);
+					assertTrue(bin == missingBin - 1 || values[row] <= binning.getUpperBoundary(attribute, bin));
+					assertTrue(bin == 0 || values[row] > binning.getUpperBoundary(attribute, bin - 1));
+				}
+			}
+		}
+		assertTrue(binning == table.getHistogramBinning(16, null));
+	}
+}
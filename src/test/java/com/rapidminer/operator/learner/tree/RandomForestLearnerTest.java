@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.learner.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.Model;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+import com.rapidminer.tools.RandomGenerator;
+
+
+/**
+ * Tests that the {@link RandomForestLearner} builds the same forest for a fixed seed independent
+ * of the number of threads.
+ *
+ * @since 8.0
+ */
+@SuppressWarnings("deprecation")
+public class RandomForestLearnerTest {
+
+	private static OperatorDescription description;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		ClassLoader classLoader = RandomForestLearnerTest.class.getClassLoader();
+		OperatorService.registerOperator(
+				new OperatorDescription("test", "process", ProcessRootOperator.class, classLoader, null, null), null);
+		description = new OperatorDescription("test", "random_forest", RandomForestLearner.class, classLoader, null,
+				null);
+	}
+
+	private static ExampleSet createExampleSet() {
+		Attribute real = AttributeFactory.createAttribute("real", Ontology.REAL);
+		Attribute integer = AttributeFactory.createAttribute("integer", Ontology.INTEGER);
+		Attribute nominal = AttributeFactory.createAttribute("nominal", Ontology.NOMINAL);
+		nominal.getMapping().mapString("a");
+		nominal.getMapping().mapString("b");
+		nominal.getMapping().mapString("c");
+		Attribute label = AttributeFactory.createAttribute("label", Ontology.NOMINAL);
+		label.getMapping().mapString("yes");
+		label.getMapping().mapString("no");
+		return ExampleSets.from(real, integer, nominal, label).withBlankSize(500)
+				.withColumnFiller(real, i -> i % 17 == 0 ? Double.NaN : (i * 0.6180339887) % 1 * 10)
+				.withColumnFiller(integer, i -> (i * 7919) % 23).withColumnFiller(nominal, i -> i % 3)
+				.withColumnFiller(label, i -> (i * 0.6180339887) % 1 * 10 + i % 3 > 6 ? 0 : 1)
+				.withRole(label, Attributes.LABEL_NAME).build();
+	}
+
+	/**
+	 * Learns a forest with the given number of threads and returns the string representations of
+	 * its trees.
+	 */
+	private static List<String> learnForest(int numberOfThreads) throws OperatorException {
+		return learnForest(numberOfThreads, 0);
+	}
+
+	/**
+	 * Learns a forest with the given number of threads and histogram bins (0 for exact splits) and
+	 * returns the string representations of its trees.
+	 */
+	private static List<String> learnForest(int numberOfThreads, int numberOfBins) throws OperatorException {
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS,
+				String.valueOf(numberOfThreads));
+		RandomForestLearner learner = new RandomForestLearner(description);
+		learner.setParameter(RandomForestLearner.PARAMETER_NUMBER_OF_TREES, "12");
+		learner.setParameter(RandomGenerator.PARAMETER_USE_LOCAL_RANDOM_SEED, "true");
+		learner.setParameter(RandomGenerator.PARAMETER_LOCAL_RANDOM_SEED, "1992");
+		if (numberOfBins > 0) {
+			learner.setParameter(RandomForestLearner.PARAMETER_USE_HISTOGRAMS, "true");
+			learner.setParameter(RandomForestLearner.PARAMETER_NUMBER_OF_BINS, String.valueOf(numberOfBins));
+		}
+		Process process = new Process();
+		process.getRootOperator().getSubprocess(0).addOperator(learner);
+		process.resume();
+
+		ConfigurableRandomForestModel forest = (ConfigurableRandomForestModel) learner.learn(createExampleSet());
+		List<String> trees = new ArrayList<>();
+		for (Model tree : forest.getModels()) {
+			trees.add(tree.toString());
+		}
+		return trees;
+	}
+
+	@Test
+	public void sameForestForAnyParallelism() throws OperatorException {
+		List<String> sequential = learnForest(1);
+		List<String> parallel = learnForest(4);
+
+		assertEquals(12, sequential.size());
+		assertEquals(sequential, parallel);
+	}
+
+	@Test
+	public void sameHistogramForestForAnyParallelism() throws OperatorException {
+		List<String> sequential = learnForest(1, 4);
+		List<String> parallel = learnForest(4, 4);
+
+		assertEquals(12, sequential.size());
+		assertEquals(sequential, parallel);
+		// with only four bins the numerical split points differ from the exact ones
+		assertNotEquals(learnForest(4), parallel);
+	}
+
+	@Test
+	public void histogramDecisionTree() throws OperatorException {
+		OperatorDescription treeDescription = new OperatorDescription("test", "decision_tree",
+				DecisionTreeLearner.class, RandomForestLearnerTest.class.getClassLoader(), null, null);
+		DecisionTreeLearner exactLearner = new DecisionTreeLearner(treeDescription);
+		DecisionTreeLearner histogramLearner = new DecisionTreeLearner(treeDescription);
+		histogramLearner.setParameter(DecisionTreeLearner.PARAMETER_USE_HISTOGRAMS, "true");
+		histogramLearner.setParameter(DecisionTreeLearner.PARAMETER_NUMBER_OF_BINS, "4");
+		Process process = new Process();
+		process.getRootOperator().getSubprocess(0).addOperator(exactLearner);
+		process.getRootOperator().getSubprocess(0).addOperator(histogramLearner);
+		process.resume();
+
+		Model exact = exactLearner.learn(createExampleSet());
+		Model histogram = histogramLearner.learn(createExampleSet());
+		assertEquals(TreeModel.class, histogram.getClass());
+		assertNotEquals(exact.toString(), histogram.toString());
+	}
+
+}
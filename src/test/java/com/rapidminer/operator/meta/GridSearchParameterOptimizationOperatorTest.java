@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.meta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.IOObject;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.operator.performance.EstimatedPerformance;
+import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.ParameterTypeTupel;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyTestUtils;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+
+
+/**
+ * Tests the parallel evaluation of the {@link GridSearchParameterOptimizationOperator} against the
+ * serial one.
+ *
+ * @since 8.0
+ */
+public class GridSearchParameterOptimizationOperatorTest {
+
+	/**
+	 * Delivers a performance which is best for the value 3 and the sum of the value and the input
+	 * value as result.
+	 */
+	public static class Score extends Operator {
+
+		private static final String PARAMETER_VALUE = "value";
+
+		private final InputPort exampleSetInput = getInputPorts().createPort("example set");
+
+		private final OutputPort performanceOutput = getOutputPorts().createPort("performance");
+
+		private final OutputPort resultOutput = getOutputPorts().createPort("result");
+
+		public Score(OperatorDescription description) {
+			super(description);
+		}
+
+		@Override
+		public void doWork() throws OperatorException {
+			int value = getParameterAsInt(PARAMETER_VALUE);
+			PerformanceVector performance = new PerformanceVector();
+			performance.addCriterion(new EstimatedPerformance("score", -(value - 3) * (value - 3), 1, false));
+			performanceOutput.deliver(performance);
+			resultOutput.deliver(createExampleSet(value + valueOf(exampleSetInput.getData(ExampleSet.class))));
+		}
+
+		@Override
+		public List<ParameterType> getParameterTypes() {
+			List<ParameterType> types = super.getParameterTypes();
+			types.add(new ParameterTypeInt(PARAMETER_VALUE, "The value.", 0, 10, 0));
+			return types;
+		}
+	}
+
+	private static OperatorDescription gridDescription;
+
+	private static OperatorDescription scoreDescription;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		ClassLoader classLoader = GridSearchParameterOptimizationOperatorTest.class.getClassLoader();
+		OperatorService.registerOperator(
+				new OperatorDescription("test", "process", ProcessRootOperator.class, classLoader, null, null), null);
+		gridDescription = new OperatorDescription("test", "optimize_parameters_grid",
+				GridSearchParameterOptimizationOperator.class, classLoader, null, null);
+		scoreDescription = new OperatorDescription("test", "score", Score.class, classLoader, null, null);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+		ConcurrencyTestUtils.initializeExecutionService();
+	}
+
+	private static ExampleSet createExampleSet(double value) {
+		Attribute attribute = AttributeFactory.createAttribute("value", Ontology.REAL);
+		return ExampleSets.from(attribute).addRow(new double[] { value }).build();
+	}
+
+	private static double valueOf(ExampleSet exampleSet) {
+		return exampleSet.getExample(0).getValue(exampleSet.getAttributes().get("value"));
+	}
+
+	/** Creates a grid search over the values 1 to 5 of a {@link Score} operator named "Score". */
+	private static GridSearchParameterOptimizationOperator createGridSearch() throws Exception {
+		Process process = new Process();
+		GridSearchParameterOptimizationOperator grid = new GridSearchParameterOptimizationOperator(gridDescription);
+		process.getRootOperator().getSubprocess(0).addOperator(grid);
+		grid.setListParameter(ParameterConfigurator.PARAMETER_PARAMETERS, Collections.singletonList(
+				new String[] { ParameterTypeTupel.transformTupel2String("Score", Score.PARAMETER_VALUE), "1,2,3,4,5" }));
+		grid.setParameter(GridSearchParameterOptimizationOperator.PARAMETER_MAX_PARALLEL_EVALUATIONS, "2");
+
+		Score score = new Score(scoreDescription);
+		grid.getSubprocess(0).addOperator(score);
+		score.rename("Score");
+		grid.getSubprocess(0).getInnerSources().getPortByName("input 1").connectTo(score.exampleSetInput);
+		score.performanceOutput.connectTo(grid.getSubprocess(0).getInnerSinks().getPortByName("performance"));
+		score.resultOutput.connectTo(grid.getSubprocess(0).getInnerSinks().getPortByName("result 1"));
+
+		grid.getInputPorts().getPortByName("input 1").receive(createExampleSet(0.5));
+		// the process is stopped until it is run, the operator is executed directly here
+		process.resume();
+		return grid;
+	}
+
+	private static Score getScore(GridSearchParameterOptimizationOperator grid) {
+		for (Operator operator : grid.getAllInnerOperators()) {
+			if ("Score".equals(operator.getName())) {
+				return (Score) operator;
+			}
+		}
+		throw new AssertionError("Score operator is missing.");
+	}
+
+	@Test
+	public void parallelEqualsSerialOptimization() throws Exception {
+		GridSearchParameterOptimizationOperator serial = createGridSearch();
+		serial.setParameter(GridSearchParameterOptimizationOperator.PARAMETER_ENABLE_PARALLEL_EXECUTION, "false");
+		assertFalse(serial.canEvaluateInParallel());
+		serial.execute();
+
+		GridSearchParameterOptimizationOperator parallel = createGridSearch();
+		assertTrue(parallel.canEvaluateInParallel());
+		parallel.execute();
+
+		for (GridSearchParameterOptimizationOperator grid : new GridSearchParameterOptimizationOperator[] { serial,
+				parallel }) {
+			ParameterSet best = grid.getOutputPorts().getPortByName("parameter").getData(ParameterSet.class);
+			ParameterValue value = best.iterator().next();
+			assertEquals("Score", value.getOperator());
+			assertEquals("3", value.getParameterValue());
+			assertEquals(0, best.getPerformance().getMainCriterion().getAverage(), 0);
+			ExampleSet result = grid.getOutputPorts().getPortByName("result 1").getData(ExampleSet.class);
+			assertEquals(3.5, valueOf(result), 0);
+		}
+	}
+
+	@Test
+	public void oldCompatibilityLevelIsSerial() throws Exception {
+		GridSearchParameterOptimizationOperator grid = createGridSearch();
+		grid.setCompatibilityLevel(GridSearchParameterOptimizationOperator.VERSION_SERIAL_EVALUATION);
+		assertFalse(grid.canEvaluateInParallel());
+	}
+
+	@Test
+	public void evaluationCopyUsesCombination() throws Exception {
+		GridSearchParameterOptimizationOperator grid = createGridSearch();
+		grid.getParametersToOptimize();
+		ExampleSet input = createExampleSet(0.5);
+		List<IOObject> inputs = Collections.singletonList(input);
+
+		GridSearchParameterOptimizationOperator copy = grid.createEvaluationCopy(new int[] { 3 }, inputs);
+
+		// the parameter is set on the operator of the copy with the same name only
+		Score copiedScore = getScore(copy);
+		assertNotSame(getScore(grid), copiedScore);
+		assertEquals(4, copiedScore.getParameterAsInt(Score.PARAMETER_VALUE));
+		assertEquals(0, getScore(grid).getParameterAsInt(Score.PARAMETER_VALUE));
+
+		// the copy gets its own copy of the input
+		ExampleSet copiedInput = copy.getInputPorts().getPortByName("input 1").getData(ExampleSet.class);
+		assertNotSame(input, copiedInput);
+		assertEquals(0.5, valueOf(copiedInput), 0);
+	}
+}
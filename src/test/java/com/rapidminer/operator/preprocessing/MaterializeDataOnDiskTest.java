@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.preprocessing;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.internal.MappedExampleTable;
+import com.rapidminer.example.test.ExampleTestTools;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.test_utils.RapidAssert;
+
+
+/**
+ * Tests the {@link MaterializeDataOnDisk} operator.
+ *
+ * @since 8.0
+ */
+public class MaterializeDataOnDiskTest {
+
+	@BeforeClass
+	public static void setup() {
+		RapidMiner.initAsserters();
+	}
+
+	@Test
+	public void mappedCopyTest() throws OperatorException {
+		Attribute[] attributes = ExampleTestTools.createFourAttributes();
+		Random random = new Random(0);
+		ExampleSet exampleSet = ExampleSets.from(attributes).withBlankSize(1000)
+				.withColumnFiller(attributes[0], i -> random.nextInt(attributes[0].getMapping().size()))
+				.withColumnFiller(attributes[1], i -> i % 9 == 0 ? Double.NaN : random.nextInt(2))
+				.withColumnFiller(attributes[2], i -> random.nextInt(200) - 100)
+				.withColumnFiller(attributes[3], i -> random.nextDouble()).withRole(attributes[0], Attributes.LABEL_NAME)
+				.build();
+		exampleSet.getAnnotations().setAnnotation("Comment", "mapped");
+
+		MaterializeDataOnDisk materialize = new MaterializeDataOnDisk(new OperatorDescription("test",
+				"materialize_data_on_disk", MaterializeDataOnDisk.class, getClass().getClassLoader(), null, null));
+		ExampleSet mapped = materialize.apply(exampleSet);
+
+		assertTrue(mapped.getExampleTable() instanceof MappedExampleTable);
+		RapidAssert.assertEquals("ExampleSets are not equal", exampleSet, mapped);
+	}
+}
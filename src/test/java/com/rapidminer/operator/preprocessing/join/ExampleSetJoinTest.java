@@ -0,0 +1,349 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.preprocessing.join;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.OperatorVersion;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.operator.UserError;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+
+
+/**
+ * Tests the {@link ExampleSetJoin} against a reference implementation of the join semantics used
+ * before version 8.0: a map from the key values of the build side to its examples, probed with the
+ * examples of the other side in their order. Covers the hash join and the sort merge join.
+ *
+ * @since 8.0
+ */
+public class ExampleSetJoinTest {
+
+	private static OperatorDescription joinDescription;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		ClassLoader classLoader = ExampleSetJoinTest.class.getClassLoader();
+		OperatorService.registerOperator(
+				new OperatorDescription("test", "process", ProcessRootOperator.class, classLoader, null, null), null);
+		joinDescription = new OperatorDescription("test", "join", ExampleSetJoin.class, classLoader, null, null);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+	}
+
+	/**
+	 * Creates an example set with a numerical and a nominal key, both with duplicates and missing
+	 * values, a value attribute and an attribute named "shared" which exists on both sides.
+	 */
+	static ExampleSet createExampleSet(int size, boolean left) {
+		Attribute number = AttributeFactory.createAttribute("number", Ontology.INTEGER);
+		Attribute key = AttributeFactory.createAttribute("key", Ontology.NOMINAL);
+		// the mappings of both sides contain the values in different orders
+		for (String value : left ? new String[] { "x", "y", "z" } : new String[] { "w", "z", "y", "x" }) {
+			key.getMapping().mapString(value);
+		}
+		Attribute value = AttributeFactory.createAttribute(left ? "a" : "b", Ontology.REAL);
+		Attribute shared = AttributeFactory.createAttribute("shared", Ontology.REAL);
+		// few duplicates for large example sets
+		int keys = Math.max(left ? 7 : 9, size / 2);
+		int missing = left ? 11 : 10;
+		return ExampleSets.from(number, key, value, shared).withBlankSize(size)
+				.withColumnFiller(number, i -> i % missing == 3 ? Double.NaN : i * 3 % keys)
+				.withColumnFiller(key, i -> i % 13 == 5 ? Double.NaN : i % (left ? 3 : 4))
+				.withColumnFiller(value, i -> left ? i : 100 + i).withColumnFiller(shared, i -> left ? i * 0.5 : -i)
+				.build();
+	}
+
+	/**
+	 * Creates an example set like {@link #createExampleSet(int, boolean)} which is sorted by the
+	 * number and the key attribute, except for the second and third example if requested.
+	 */
+	static ExampleSet createSortedExampleSet(int size, boolean left, boolean swapSecondAndThird) {
+		Attribute number = AttributeFactory.createAttribute("number", Ontology.INTEGER);
+		Attribute key = AttributeFactory.createAttribute("key", Ontology.NOMINAL);
+		for (String value : left ? new String[] { "x", "y", "z" } : new String[] { "w", "z", "y", "x" }) {
+			key.getMapping().mapString(value);
+		}
+		Attribute value = AttributeFactory.createAttribute(left ? "a" : "b", Ontology.REAL);
+		Attribute shared = AttributeFactory.createAttribute("shared", Ontology.REAL);
+		int keys = left ? size / 2 : size / 3;
+		int missing = left ? 11 : 10;
+		return ExampleSets.from(number, key, value, shared).withBlankSize(size).withColumnFiller(number, i -> {
+			int row = swapSecondAndThird && (i == 1 || i == 2) ? 3 - i : i;
+			return row % missing == 3 ? Double.NaN : row * keys / size;
+		}).withColumnFiller(key, i -> i % 13 == 5 ? Double.NaN : key.getMapping().getIndex("x"))
+				.withColumnFiller(value, i -> left ? i : 100 + i).withColumnFiller(shared, i -> left ? i * 0.5 : -i)
+				.build();
+	}
+
+	/** Joins the example sets on the number and the key attribute with the given parameters. */
+	static ExampleSet join(ExampleSet left, ExampleSet right, int joinType, boolean removeDoubleAttributes,
+			int algorithm) throws OperatorException {
+		return join(left, right, joinType, removeDoubleAttributes, algorithm, null);
+	}
+
+	/**
+	 * Joins the example sets like {@link #join(ExampleSet, ExampleSet, int, boolean, int)} with the
+	 * given compatibility level, the current one if {@code null}.
+	 */
+	static ExampleSet join(ExampleSet left, ExampleSet right, int joinType, boolean removeDoubleAttributes,
+			int algorithm, OperatorVersion compatibilityLevel) throws OperatorException {
+		Process process = new Process();
+		ExampleSetJoin join = new ExampleSetJoin(joinDescription);
+		process.getRootOperator().getSubprocess(0).addOperator(join);
+		if (compatibilityLevel != null) {
+			join.setCompatibilityLevel(compatibilityLevel);
+		}
+		join.setParameter(ExampleSetJoin.PARAMETER_JOIN_TYPE, ExampleSetJoin.JOIN_TYPES[joinType]);
+		join.setParameter(ExampleSetJoin.PARAMETER_USE_ID, "false");
+		join.setListParameter(ExampleSetJoin.PARAMETER_JOIN_ATTRIBUTES,
+				Arrays.asList(new String[] { "number", "number" }, new String[] { "key", "key" }));
+		join.setParameter(ExampleSetJoin.PARAMETER_REMOVE_DOUBLE_ATTRIBUTES, String.valueOf(removeDoubleAttributes));
+		join.setParameter(ExampleSetJoin.PARAMETER_JOIN_ALGORITHM, ExampleSetJoin.JOIN_ALGORITHMS[algorithm]);
+		join.getLeftInput().receive(left);
+		join.getRightInput().receive(right);
+		// the process is stopped until it is run, the operator is executed directly here
+		process.resume();
+		join.execute();
+		return join.getJoinOutput().getData(ExampleSet.class);
+	}
+
+	/** Returns the rows of the example set as strings of the values of all attributes. */
+	static List<String> toRows(ExampleSet exampleSet) {
+		List<String> rows = new ArrayList<>(exampleSet.size());
+		for (Example example : exampleSet) {
+			StringBuilder builder = new StringBuilder();
+			for (Attribute attribute : exampleSet.getAttributes()) {
+				builder.append(attribute.getName()).append('=').append(format(example, attribute)).append(' ');
+			}
+			rows.add(builder.toString());
+		}
+		return rows;
+	}
+
+	private static String format(Example example, Attribute attribute) {
+		if (example == null) {
+			return "?";
+		}
+		double value = example.getValue(attribute);
+		if (Double.isNaN(value)) {
+			return "?";
+		}
+		return attribute.isNominal() ? attribute.getMapping().mapIndex((int) value) : Double.toString(value);
+	}
+
+	/** Returns the key of the example or {@code null} if one of the key values is missing. */
+	private static List<String> getKey(Example example) {
+		List<String> key = new ArrayList<>(2);
+		for (String name : new String[] { "number", "key" }) {
+			Attribute attribute = example.getAttributes().get(name);
+			if (Double.isNaN(example.getValue(attribute))) {
+				return null;
+			}
+			key.add(format(example, attribute));
+		}
+		return key;
+	}
+
+	private static Map<List<String>, List<Example>> createKeyMapping(ExampleSet exampleSet) {
+		Map<List<String>, List<Example>> mapping = new HashMap<>();
+		for (Example example : exampleSet) {
+			List<String> key = getKey(example);
+			if (key != null) {
+				mapping.computeIfAbsent(key, k -> new ArrayList<>()).add(example);
+			}
+		}
+		return mapping;
+	}
+
+	/** Creates a result row from the examples, one of them can be {@code null}. */
+	private static String toRow(Example left, Example right, boolean removeDoubleAttributes) {
+		// the key values are taken from the right example if there is no left one
+		Example keyExample = left != null ? left : right;
+		StringBuilder builder = new StringBuilder();
+		builder.append("number=").append(format(keyExample, keyExample.getAttributes().get("number"))).append(' ');
+		builder.append("key=").append(format(keyExample, keyExample.getAttributes().get("key"))).append(' ');
+		builder.append("a=").append(left != null ? format(left, left.getAttributes().get("a")) : "?").append(' ');
+		builder.append("shared=").append(left != null ? format(left, left.getAttributes().get("shared")) : "?")
+				.append(' ');
+		builder.append("b=").append(right != null ? format(right, right.getAttributes().get("b")) : "?").append(' ');
+		if (!removeDoubleAttributes) {
+			builder.append("shared_from_ES2=")
+					.append(right != null ? format(right, right.getAttributes().get("shared")) : "?").append(' ');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * The join as computed before version 8.0, except that a missing nominal key of a right only row
+	 * stays missing instead of becoming the first value of the mapping.
+	 */
+	static List<String> referenceJoin(ExampleSet left, ExampleSet right, int joinType,
+			boolean removeDoubleAttributes) {
+		List<String> rows = new ArrayList<>();
+		if (joinType == ExampleSetJoin.JOIN_TYPE_RIGHT) {
+			Map<List<String>, List<Example>> leftMapping = createKeyMapping(left);
+			for (Example rightExample : right) {
+				List<String> key = getKey(rightExample);
+				List<Example> matches = key != null ? leftMapping.get(key) : null;
+				if (matches != null) {
+					for (Example leftExample : matches) {
+						rows.add(toRow(leftExample, rightExample, removeDoubleAttributes));
+					}
+				} else {
+					rows.add(toRow(null, rightExample, removeDoubleAttributes));
+				}
+			}
+			return rows;
+		}
+
+		Map<List<String>, List<Example>> rightMapping = createKeyMapping(right);
+		Set<List<String>> matchedKeys = new HashSet<>();
+		for (Example leftExample : left) {
+			List<String> key = getKey(leftExample);
+			List<Example> matches = key != null ? rightMapping.get(key) : null;
+			if (matches != null) {
+				for (Example rightExample : matches) {
+					rows.add(toRow(leftExample, rightExample, removeDoubleAttributes));
+				}
+				matchedKeys.add(key);
+			} else if (joinType != ExampleSetJoin.JOIN_TYPE_INNER) {
+				rows.add(toRow(leftExample, null, removeDoubleAttributes));
+			}
+		}
+		if (joinType == ExampleSetJoin.JOIN_TYPE_OUTER) {
+			for (Example rightExample : right) {
+				List<String> key = getKey(rightExample);
+				if (key == null || !matchedKeys.contains(key)) {
+					rows.add(toRow(null, rightExample, removeDoubleAttributes));
+				}
+			}
+		}
+		return rows;
+	}
+
+	private static void assertSameJoin(int leftSize, int rightSize, int joinType, boolean removeDoubleAttributes)
+			throws OperatorException {
+		ExampleSet left = createExampleSet(leftSize, true);
+		ExampleSet right = createExampleSet(rightSize, false);
+		List<String> expected = referenceJoin(left, right, joinType, removeDoubleAttributes);
+		List<String> actual = toRows(
+				join(left, right, joinType, removeDoubleAttributes, ExampleSetJoin.JOIN_ALGORITHM_HASH));
+		assertEquals(ExampleSetJoin.JOIN_TYPES[joinType] + " join", expected, actual);
+	}
+
+	@Test
+	public void sameAsReferenceJoin() throws OperatorException {
+		for (int joinType = 0; joinType < ExampleSetJoin.JOIN_TYPES.length; joinType++) {
+			assertSameJoin(60, 45, joinType, true);
+			assertSameJoin(60, 45, joinType, false);
+		}
+	}
+
+	@Test
+	public void missingRightKeyKeepsFirstMappingValueInOldVersions() throws OperatorException {
+		ExampleSet left = createExampleSet(60, true);
+		ExampleSet right = createExampleSet(45, false);
+		List<String> expected = new ArrayList<>();
+		for (String row : referenceJoin(left, right, ExampleSetJoin.JOIN_TYPE_OUTER, true)) {
+			// right only rows get the first value of the right mapping
+			expected.add(row.contains(" a=? ") ? row.replace(" key=? ", " key=w ") : row);
+		}
+		assertTrue(expected.stream().anyMatch(row -> row.contains(" key=w ")));
+		assertEquals(expected, toRows(join(left, right, ExampleSetJoin.JOIN_TYPE_OUTER, true,
+				ExampleSetJoin.JOIN_ALGORITHM_HASH, ExampleSetJoin.VERSION_MISSING_KEY_FIRST_MAPPING_VALUE)));
+		// the current version keeps the missing values
+		assertEquals(referenceJoin(left, right, ExampleSetJoin.JOIN_TYPE_OUTER, true), toRows(
+				join(left, right, ExampleSetJoin.JOIN_TYPE_OUTER, true, ExampleSetJoin.JOIN_ALGORITHM_HASH)));
+	}
+
+	@Test
+	public void sortMergeSameAsReferenceJoin() throws OperatorException {
+		for (int joinType = 0; joinType < ExampleSetJoin.JOIN_TYPES.length; joinType++) {
+			ExampleSet left = createSortedExampleSet(5_000, true, false);
+			ExampleSet right = createSortedExampleSet(4_000, false, false);
+			List<String> expected = referenceJoin(left, right, joinType, true);
+			for (int algorithm : new int[] { ExampleSetJoin.JOIN_ALGORITHM_SORT_MERGE,
+					ExampleSetJoin.JOIN_ALGORITHM_AUTOMATIC }) {
+				assertEquals(ExampleSetJoin.JOIN_TYPES[joinType] + " join", expected,
+						toRows(join(left, right, joinType, true, algorithm)));
+			}
+		}
+	}
+
+	@Test
+	public void unsortedFallsBackToHashJoin() throws OperatorException {
+		ExampleSet sorted = createSortedExampleSet(5_000, true, false);
+		ExampleSet unsorted = createExampleSet(5_000, true);
+		// unsorted between the sampled examples, detected while merging only
+		ExampleSet almostSorted = createSortedExampleSet(5_000, true, true);
+		Attribute[] keyAttributes = { sorted.getAttributes().get("number"), sorted.getAttributes().get("key") };
+		assertTrue(SortMergeJoin.isSampleSorted(sorted, keyAttributes));
+		assertFalse(SortMergeJoin.isSampleSorted(unsorted, new Attribute[] { unsorted.getAttributes().get("number"),
+				unsorted.getAttributes().get("key") }));
+		assertTrue(SortMergeJoin.isSampleSorted(almostSorted, new Attribute[] {
+				almostSorted.getAttributes().get("number"), almostSorted.getAttributes().get("key") }));
+
+		ExampleSet right = createSortedExampleSet(4_000, false, false);
+		for (ExampleSet left : new ExampleSet[] { unsorted, almostSorted }) {
+			for (int joinType = 0; joinType < ExampleSetJoin.JOIN_TYPES.length; joinType++) {
+				assertEquals(ExampleSetJoin.JOIN_TYPES[joinType] + " join", referenceJoin(left, right, joinType, true),
+						toRows(join(left, right, joinType, true, ExampleSetJoin.JOIN_ALGORITHM_AUTOMATIC)));
+			}
+			try {
+				join(left, right, ExampleSetJoin.JOIN_TYPE_INNER, true, ExampleSetJoin.JOIN_ALGORITHM_SORT_MERGE);
+				fail("The unsorted example set was not detected.");
+			} catch (UserError e) {
+				assertEquals("join.not_sorted", e.getErrorIdentifier());
+			}
+		}
+	}
+
+	@Test
+	public void sameAsReferenceJoinPartitioned() throws OperatorException {
+		// enough rows on both sides for the partitioned join
+		for (int joinType = 0; joinType < ExampleSetJoin.JOIN_TYPES.length; joinType++) {
+			assertSameJoin(120_000, 110_000, joinType, true);
+		}
+	}
+}
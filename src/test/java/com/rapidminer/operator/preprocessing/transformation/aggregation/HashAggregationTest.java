@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.preprocessing.transformation.aggregation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * Tests that the {@link HashAggregation} groups like the tree of the {@link AggregationOperator}.
+ *
+ * @since 8.0
+ */
+public class HashAggregationTest {
+
+	private static final int SIZE = 500;
+
+	private static final String[] FUNCTIONS = { AggregationFunction.FUNCTION_NAME_SUM,
+			AggregationFunction.FUNCTION_NAME_AVERAGE, AggregationFunction.FUNCTION_NAME_COUNT_IGNORE_MISSINGS };
+
+	private static AggregationOperator operator;
+
+	private static ExampleSet exampleSet;
+
+	@BeforeClass
+	public static void setup() {
+		operator = new AggregationOperator(new OperatorDescription("test", "aggregate", AggregationOperator.class,
+				HashAggregationTest.class.getClassLoader(), null, null));
+
+		Attribute nominal = AttributeFactory.createAttribute("nominal", Ontology.NOMINAL);
+		// the mapping order differs from the sorted order
+		for (String value : new String[] { "b", "a", "c" }) {
+			nominal.getMapping().mapString(value);
+		}
+		Attribute complete = AttributeFactory.createAttribute("complete", Ontology.NOMINAL);
+		for (String value : new String[] { "y", "x", "z", "never" }) {
+			complete.getMapping().mapString(value);
+		}
+		Attribute numerical = AttributeFactory.createAttribute("numerical", Ontology.INTEGER);
+		Attribute date = AttributeFactory.createAttribute("date", Ontology.DATE_TIME);
+		Attribute value = AttributeFactory.createAttribute("value", Ontology.REAL);
+		Attribute weight = AttributeFactory.createAttribute("weight", Ontology.REAL);
+		exampleSet = ExampleSets.from(nominal, complete, numerical, date, value, weight).withBlankSize(SIZE)
+				.withColumnFiller(nominal, i -> i % 7 == 0 ? Double.NaN : (i * 31) % 3)
+				.withColumnFiller(complete, i -> (i * 17) % 3)
+				.withColumnFiller(numerical, i -> i % 11 == 0 ? Double.NaN : (i * 13) % 5 - 2)
+				.withColumnFiller(date, i -> 1500000000000d + (i % 4) * 86400000d)
+				.withColumnFiller(value, i -> i % 9 == 0 ? Double.NaN : (i * 0.6180339887) % 1 * 100)
+				.withColumnFiller(weight, i -> 1 + i % 3).withRole(weight, Attributes.WEIGHT_NAME).build();
+	}
+
+	private static List<AggregationFunction> createFunctions() throws OperatorException {
+		Attribute value = exampleSet.getAttributes().get("value");
+		List<AggregationFunction> functions = new ArrayList<>();
+		for (String name : FUNCTIONS) {
+			functions.add(AggregationFunction.createAggregationFunction(name, value, true, false));
+		}
+		return functions;
+	}
+
+	private static Attribute[] getGroupAttributes(String... names) {
+		Attribute[] groupAttributes = new Attribute[names.length];
+		for (int i = 0; i < names.length; i++) {
+			groupAttributes[i] = exampleSet.getAttributes().get(names[i]);
+		}
+		return groupAttributes;
+	}
+
+	/** Creates the result attributes for the group attributes as the operator does. */
+	private static Attribute[] createGroupResultAttributes(Attribute[] groupAttributes) {
+		Attribute[] newAttributes = new Attribute[groupAttributes.length];
+		for (int i = 0; i < groupAttributes.length; i++) {
+			newAttributes[i] = AttributeFactory.createAttribute(groupAttributes[i]);
+			newAttributes[i].setTableIndex(i);
+		}
+		return newAttributes;
+	}
+
+	/**
+	 * Groups the example set either by hashing or by the tree and returns the result rows,
+	 * consisting of the group values followed by the aggregated values.
+	 */
+	private static List<double[]> aggregate(boolean hash, Attribute[] groupAttributes, Attribute[] newAttributes,
+			boolean weighted, boolean countAllCombinations) throws OperatorException {
+		List<AggregationFunction> functions = createFunctions();
+		Attribute weightAttribute = weighted ? exampleSet.getAttributes().getWeight() : null;
+		List<double[]> groups = new ArrayList<>();
+		List<List<Aggregator>> aggregators = new ArrayList<>();
+		for (int i = 0; i < functions.size(); i++) {
+			aggregators.add(new ArrayList<Aggregator>());
+		}
+		if (hash) {
+			HashAggregation aggregation = HashAggregation.create(operator, exampleSet, groupAttributes);
+			assertNotNull(aggregation);
+			aggregation.aggregate(exampleSet, functions, weightAttribute);
+			aggregation.collectGroups(newAttributes, groups, aggregators);
+		} else {
+			operator.aggregateInTree(exampleSet, groupAttributes, functions, weightAttribute, newAttributes,
+					countAllCombinations, groups, aggregators);
+		}
+
+		for (int j = 0; j < functions.size(); j++) {
+			functions.get(j).postProcessing(aggregators.get(j));
+		}
+		List<double[]> rows = new ArrayList<>(groups.size());
+		for (int r = 0; r < groups.size(); r++) {
+			double[] row = Arrays.copyOf(groups.get(r), groupAttributes.length + functions.size());
+			DoubleArrayDataRow dataRow = new DoubleArrayDataRow(row);
+			for (int j = 0; j < functions.size(); j++) {
+				Attribute target = functions.get(j).getTargetAttribute();
+				target.setTableIndex(groupAttributes.length + j);
+				Aggregator aggregator = aggregators.get(j).get(r);
+				if (aggregator != null) {
+					aggregator.set(target, dataRow);
+				} else {
+					functions.get(j).setDefault(target, dataRow);
+				}
+				row[groupAttributes.length + j] = target.getValue(dataRow);
+			}
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	private static void assertSameAsTree(boolean weighted, String... groupNames) throws OperatorException {
+		Attribute[] groupAttributes = getGroupAttributes(groupNames);
+		Attribute[] newAttributes = createGroupResultAttributes(groupAttributes);
+		List<double[]> expected = aggregate(false, groupAttributes, newAttributes, weighted, false);
+		List<double[]> actual = aggregate(true, groupAttributes, newAttributes, weighted, false);
+
+		assertEquals(expected.size(), actual.size());
+		for (int r = 0; r < expected.size(); r++) {
+			assertArrayEquals(Arrays.toString(groupNames) + " row " + r, expected.get(r), actual.get(r), 1e-10);
+		}
+	}
+
+	@Test
+	public void nominalGroupsWithMissings() throws OperatorException {
+		assertSameAsTree(false, "nominal");
+	}
+
+	@Test
+	public void numericalGroupsWithMissings() throws OperatorException {
+		assertSameAsTree(false, "numerical");
+	}
+
+	@Test
+	public void dateGroups() throws OperatorException {
+		assertSameAsTree(false, "date");
+	}
+
+	@Test
+	public void combinedGroups() throws OperatorException {
+		assertSameAsTree(false, "nominal", "numerical", "date");
+		assertSameAsTree(false, "date", "complete", "nominal");
+	}
+
+	@Test
+	public void weightedGroups() throws OperatorException {
+		assertSameAsTree(true, "nominal");
+		assertSameAsTree(true, "numerical", "nominal");
+	}
+
+	@Test
+	public void countAllCombinationsContainsHashedGroups() throws OperatorException {
+		// the tree is still used for counting all combinations, it must agree on the existing groups
+		Attribute[] groupAttributes = getGroupAttributes("numerical", "complete");
+		Attribute[] newAttributes = createGroupResultAttributes(groupAttributes);
+		List<double[]> allCombinations = aggregate(false, groupAttributes, newAttributes, false, true);
+		List<double[]> hashed = aggregate(true, groupAttributes, newAttributes, false, false);
+
+		// six numerical values including missings, four nominal values of which one never occurs
+		assertEquals(6 * 4, allCombinations.size());
+		Map<String, double[]> combinationsByGroup = new HashMap<>();
+		for (double[] row : allCombinations) {
+			combinationsByGroup.put(row[0] + "/" + row[1], row);
+		}
+		for (double[] row : hashed) {
+			assertArrayEquals(row, combinationsByGroup.get(row[0] + "/" + row[1]), 1e-10);
+		}
+		assertEquals(6 * 3, hashed.size());
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * Tests writing and reading example sets with {@link ExampleSetToColumns}.
+ *
+ * @since 8.0
+ */
+public class ExampleSetToColumnsTest {
+
+	private static final int SIZE = 5000;
+
+	/** More rows than fit into one row group of an example set with four attributes. */
+	private static final int MULTI_GROUP_SIZE = 200_000;
+
+	private static ExampleSet createExampleSet() {
+		return createExampleSet(SIZE);
+	}
+
+	private static ExampleSet createExampleSet(int size) {
+		Attribute nominal = AttributeFactory.createAttribute("nominal", Ontology.NOMINAL);
+		Attribute integer = AttributeFactory.createAttribute("integer", Ontology.INTEGER);
+		Attribute real = AttributeFactory.createAttribute("real", Ontology.REAL);
+		Attribute label = AttributeFactory.createAttribute("label", Ontology.BINOMINAL);
+		for (int i = 0; i < 300; i++) {
+			nominal.getMapping().mapString("value" + i);
+		}
+		label.getMapping().mapString("yes");
+		label.getMapping().mapString("no");
+		Random random = new Random(42);
+		ExampleSet exampleSet = ExampleSets.from(nominal, integer, real, label).withBlankSize(size)
+				.withColumnFiller(nominal, i -> i % 17 == 0 ? Double.NaN : random.nextInt(300))
+				.withColumnFiller(integer, i -> i % 13 == 0 ? Double.NaN : random.nextInt(1000) - 500)
+				.withColumnFiller(real, i -> i % 11 == 0 ? Double.NaN : random.nextGaussian())
+				.withColumnFiller(label, i -> i % 2).withRole(label, Attributes.LABEL_NAME).build();
+		exampleSet.getAnnotations().setAnnotation("Comment", "columns");
+		return exampleSet;
+	}
+
+	private static void assertSameValues(ExampleSet expected, ExampleSet actual, int offset, String... names) {
+		for (String name : names) {
+			Attribute expectedAttribute = expected.getAttributes().get(name);
+			Attribute actualAttribute = actual.getAttributes().get(name);
+			assertNotNull(actualAttribute);
+			for (int row = 0; row < actual.size(); row++) {
+				double expectedValue = expected.getExample(row + offset).getValue(expectedAttribute);
+				double actualValue = actual.getExample(row).getValue(actualAttribute);
+				if (expectedAttribute.isNominal()) {
+					assertEquals(
+							Double.isNaN(expectedValue) ? null
+									: expectedAttribute.getMapping().mapIndex((int) expectedValue),
+							Double.isNaN(actualValue) ? null : actualAttribute.getMapping().mapIndex((int) actualValue));
+				} else {
+					assertEquals(expectedValue, actualValue, 0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void completeRoundTripTest() throws IOException {
+		ExampleSet exampleSet = createExampleSet();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ExampleSetToColumns().write(exampleSet, out);
+
+		ExampleSet read = new ExampleSetToColumns().read(new ByteArrayInputStream(out.toByteArray()));
+
+		assertEquals(SIZE, read.size());
+		assertEquals(4, read.getAttributes().allSize());
+		assertEquals("label", read.getAttributes().getLabel().getName());
+		assertEquals("columns", read.getAnnotations().getAnnotation("Comment"));
+		assertSameValues(exampleSet, read, 0, "nominal", "integer", "real", "label");
+	}
+
+	@Test
+	public void partialReadTest() throws IOException {
+		ExampleSet exampleSet = createExampleSet();
+		File file = File.createTempFile("columns", ".ioo");
+		file.deleteOnExit();
+		try (OutputStream out = new FileOutputStream(file)) {
+			out.write(new byte[] { 1, 2, 3 });
+			new ExampleSetToColumns().write(exampleSet, out);
+		}
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			channel.position(3);
+			ExampleSet read = new ExampleSetToColumns().read(channel,
+					role -> role.isSpecial() || "real".equals(role.getAttribute().getName()), 1500, 3100);
+
+			assertEquals(1600, read.size());
+			assertEquals(2, read.getAttributes().allSize());
+			assertNull(read.getAttributes().get("nominal"));
+			assertEquals("label", read.getAttributes().getLabel().getName());
+			assertSameValues(exampleSet, read, 1500, "real", "label");
+		}
+	}
+
+	@Test
+	public void multipleRowGroupsTest() throws IOException {
+		ExampleSet exampleSet = createExampleSet(MULTI_GROUP_SIZE);
+		File file = File.createTempFile("columns", ".ioo");
+		file.deleteOnExit();
+		try (OutputStream out = new FileOutputStream(file)) {
+			new ExampleSetToColumns().write(exampleSet, out);
+		}
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ExampleSet read = new ExampleSetToColumns().read(channel, null, 0, MULTI_GROUP_SIZE);
+
+			assertEquals(MULTI_GROUP_SIZE, read.size());
+			assertSameValues(exampleSet, read, 0, "nominal", "integer", "real", "label");
+		}
+
+		// the range starts and ends within a row group and covers one completely
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ExampleSet read = new ExampleSetToColumns().read(channel,
+					role -> !"integer".equals(role.getAttribute().getName()), 60_000, 140_000);
+
+			assertEquals(80_000, read.size());
+			assertEquals(3, read.getAttributes().allSize());
+			assertSameValues(exampleSet, read, 60_000, "nominal", "real", "label");
+		}
+	}
+
+	@Test
+	public void emptyRangeTest() throws IOException {
+		ExampleSet exampleSet = createExampleSet();
+		File file = File.createTempFile("columns", ".ioo");
+		file.deleteOnExit();
+		try (OutputStream out = new FileOutputStream(file)) {
+			new ExampleSetToColumns().write(exampleSet, out);
+		}
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ExampleSet read = new ExampleSetToColumns().read(channel, null, SIZE, SIZE + 10);
+
+			assertEquals(0, read.size());
+			assertEquals(4, read.getAttributes().allSize());
+		}
+	}
+}
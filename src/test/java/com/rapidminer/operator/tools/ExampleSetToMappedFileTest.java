@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * Tests example sets backed by files written by {@link ExampleSetToMappedFile}.
+ *
+ * @since 8.0
+ */
+public class ExampleSetToMappedFileTest {
+
+	private static final int SIZE = 3_000_000;
+
+	private static ExampleSet createExampleSet() {
+		Attribute real = AttributeFactory.createAttribute("real", Ontology.REAL);
+		Attribute label = AttributeFactory.createAttribute("label", Ontology.NOMINAL);
+		label.getMapping().mapString("a");
+		label.getMapping().mapString("b");
+		return ExampleSets.from(real, label).withBlankSize(SIZE)
+				.withColumnFiller(real, i -> i % 7 == 0 ? Double.NaN : i * 0.5).withColumnFiller(label, i -> i % 2)
+				.withRole(label, Attributes.LABEL_NAME).build();
+	}
+
+	private static File write(ExampleSet exampleSet) throws IOException {
+		File file = File.createTempFile("mapped", ".data");
+		file.deleteOnExit();
+		new ExampleSetToMappedFile().write(exampleSet, file);
+		return file;
+	}
+
+	@Test
+	public void readTest() throws IOException {
+		File file = write(createExampleSet());
+
+		ExampleSet read = new ExampleSetToMappedFile().read(file);
+
+		assertEquals(SIZE, read.size());
+		Attribute real = read.getAttributes().get("real");
+		Attribute label = read.getAttributes().getLabel();
+		assertEquals("label", label.getName());
+		for (int row : new int[] { 0, 1, 7, 1_048_575, 1_048_576, SIZE - 1 }) {
+			double value = read.getExample(row).getValue(real);
+			if (row % 7 == 0) {
+				assertTrue(Double.isNaN(value));
+			} else {
+				assertEquals(row * 0.5, value, 0);
+			}
+			assertEquals(row % 2 == 0 ? "a" : "b", read.getExample(row).getNominalValue(label));
+		}
+	}
+
+	@Test
+	public void changesAreNotWrittenTest() throws IOException {
+		File file = write(createExampleSet());
+
+		ExampleSet read = new ExampleSetToMappedFile().read(file);
+		Attribute real = read.getAttributes().get("real");
+		read.getExample(1_048_577).setValue(real, -1);
+		Attribute added = AttributeFactory.createAttribute("added", Ontology.REAL);
+		read.getExampleTable().addAttribute(added);
+		read.getAttributes().addRegular(added);
+		read.getExample(2).setValue(added, 3);
+
+		assertEquals(-1, read.getExample(1_048_577).getValue(real), 0);
+		assertEquals(1_048_576 * 0.5, read.getExample(1_048_576).getValue(real), 0);
+		assertEquals(3, read.getExample(2).getValue(added), 0);
+		assertTrue(Double.isNaN(read.getExample(3).getValue(added)));
+
+		ExampleSet reread = new ExampleSetToMappedFile().read(file);
+		assertEquals(1_048_577 * 0.5, reread.getExample(1_048_577).getValue(reread.getAttributes().get("real")), 0);
+	}
+}
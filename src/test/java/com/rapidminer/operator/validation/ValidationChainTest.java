@@ -0,0 +1,227 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.operator.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.SplittedExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.operator.learner.lazy.DefaultModel;
+import com.rapidminer.operator.performance.EstimatedPerformance;
+import com.rapidminer.operator.performance.PerformanceCriterion;
+import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.studio.concurrency.internal.ConcurrencyTestUtils;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+
+
+/**
+ * Tests that the parallel iterations of a {@link ValidationChain} average to the same performance
+ * as the sequential iterations.
+ *
+ * @since 8.0
+ */
+public class ValidationChainTest {
+
+	/** Predicts the mean label of the training set. */
+	public static class MeanLearner extends Operator {
+
+		private final InputPort exampleSetInput = getInputPorts().createPort("training set");
+
+		private final OutputPort modelOutput = getOutputPorts().createPort("model");
+
+		public MeanLearner(OperatorDescription description) {
+			super(description);
+		}
+
+		@Override
+		public void doWork() throws OperatorException {
+			ExampleSet exampleSet = exampleSetInput.getData(ExampleSet.class);
+			Attribute label = exampleSet.getAttributes().getLabel();
+			double sum = 0;
+			for (Example example : exampleSet) {
+				sum += example.getValue(label);
+			}
+			modelOutput.deliver(new DefaultModel(exampleSet, sum / exampleSet.size()));
+		}
+	}
+
+	/** Delivers the mean squared error of the prediction of a {@link DefaultModel}. */
+	public static class SquaredErrorEvaluator extends Operator {
+
+		private final InputPort modelInput = getInputPorts().createPort("model");
+
+		private final InputPort exampleSetInput = getInputPorts().createPort("test set");
+
+		private final OutputPort performanceOutput = getOutputPorts().createPort("performance");
+
+		public SquaredErrorEvaluator(OperatorDescription description) {
+			super(description);
+		}
+
+		@Override
+		public void doWork() throws OperatorException {
+			double prediction = modelInput.getData(DefaultModel.class).getValue();
+			ExampleSet exampleSet = exampleSetInput.getData(ExampleSet.class);
+			Attribute label = exampleSet.getAttributes().getLabel();
+			double sum = 0;
+			for (Example example : exampleSet) {
+				double error = example.getValue(label) - prediction;
+				sum += error * error;
+			}
+			PerformanceVector performance = new PerformanceVector();
+			performance.addCriterion(
+					new EstimatedPerformance("squared_error", sum / exampleSet.size(), exampleSet.size(), true));
+			performanceOutput.deliver(performance);
+		}
+	}
+
+	/** A cross validation which counts the calls of its iteration hook. */
+	public static class CountingXValidation extends XValidation {
+
+		private int iterations;
+
+		public CountingXValidation(OperatorDescription description) {
+			super(description);
+		}
+
+		@Override
+		protected void performIteration(SplittedExampleSet splittedES, int iteration) throws OperatorException {
+			iterations++;
+			super.performIteration(splittedES, iteration);
+		}
+	}
+
+	private static final String PARAMETER_ENABLE_PARALLEL_EXECUTION = "enable_parallel_execution";
+
+	private static OperatorDescription validationDescription;
+
+	private static OperatorDescription learnerDescription;
+
+	private static OperatorDescription evaluatorDescription;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		ClassLoader classLoader = ValidationChainTest.class.getClassLoader();
+		OperatorService.registerOperator(
+				new OperatorDescription("test", "process", ProcessRootOperator.class, classLoader, null, null), null);
+		validationDescription = new OperatorDescription("test", "x_validation", XValidation.class, classLoader, null,
+				null);
+		learnerDescription = new OperatorDescription("test", "mean_learner", MeanLearner.class, classLoader, null, null);
+		evaluatorDescription = new OperatorDescription("test", "squared_error", SquaredErrorEvaluator.class, classLoader,
+				null, null);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+		ConcurrencyTestUtils.initializeExecutionService();
+	}
+
+	private static ExampleSet createExampleSet() {
+		Attribute attribute = AttributeFactory.createAttribute("x", Ontology.REAL);
+		Attribute label = AttributeFactory.createAttribute("label", Ontology.REAL);
+		return ExampleSets.from(attribute, label).withBlankSize(53).withColumnFiller(attribute, i -> i)
+				.withColumnFiller(label, i -> (i * i) % 17 + 0.25 * i).withRole(label, Attributes.LABEL_NAME).build();
+	}
+
+	/** Creates a cross validation of a {@link MeanLearner} and a {@link SquaredErrorEvaluator}. */
+	private static XValidation createValidation() throws Exception {
+		return createValidation(new XValidation(validationDescription));
+	}
+
+	/** Sets up the given cross validation like {@link #createValidation()}. */
+	private static XValidation createValidation(XValidation validation) throws Exception {
+		Process process = new Process();
+		process.getRootOperator().getSubprocess(0).addOperator(validation);
+		validation.setParameter(XValidation.PARAMETER_NUMBER_OF_VALIDATIONS, "10");
+
+		MeanLearner learner = new MeanLearner(learnerDescription);
+		validation.getSubprocess(0).addOperator(learner);
+		validation.getSubprocess(0).getInnerSources().getPortByName("training").connectTo(learner.exampleSetInput);
+		learner.modelOutput.connectTo(validation.getSubprocess(0).getInnerSinks().getPortByName("model"));
+
+		SquaredErrorEvaluator evaluator = new SquaredErrorEvaluator(evaluatorDescription);
+		validation.getSubprocess(1).addOperator(evaluator);
+		validation.getSubprocess(1).getInnerSources().getPortByName("model").connectTo(evaluator.modelInput);
+		validation.getSubprocess(1).getInnerSources().getPortByName("test set").connectTo(evaluator.exampleSetInput);
+		evaluator.performanceOutput.connectTo(validation.getSubprocess(1).getInnerSinks().getPortByIndex(0));
+
+		// the process is stopped until it is run, the validation is executed directly here
+		process.resume();
+		return validation;
+	}
+
+	private static PerformanceCriterion validate(XValidation validation) throws OperatorException {
+		validation.getInputPorts().getPortByName("training").receive(createExampleSet());
+		validation.execute();
+		return validation.getOutputPorts().getPortByName("averagable 1").getData(PerformanceVector.class).getCriterion(0);
+	}
+
+	@Test
+	public void parallelEqualsSequentialPerformance() throws Exception {
+		XValidation sequential = createValidation();
+		sequential.setParameter(PARAMETER_ENABLE_PARALLEL_EXECUTION, "false");
+		assertFalse(sequential.canExecuteIterationsInParallel());
+		PerformanceCriterion expected = validate(sequential);
+
+		XValidation parallel = createValidation();
+		assertTrue(parallel.canExecuteIterationsInParallel());
+		PerformanceCriterion actual = validate(parallel);
+
+		assertEquals(expected.getAverageCount(), actual.getAverageCount());
+		assertEquals(expected.getAverage(), actual.getAverage(), 0);
+		assertEquals(expected.getVariance(), actual.getVariance(), 0);
+	}
+
+	@Test
+	public void oldCompatibilityLevelIsSequential() throws Exception {
+		XValidation validation = createValidation();
+		validation.setCompatibilityLevel(ValidationChain.VERSION_SERIAL_ITERATIONS);
+		assertFalse(validation.canExecuteIterationsInParallel());
+	}
+
+	@Test
+	public void overriddenIterationHookIsCalled() throws Exception {
+		PerformanceCriterion expected = validate(createValidation());
+
+		CountingXValidation counting = (CountingXValidation) createValidation(
+				new CountingXValidation(validationDescription));
+		assertFalse(counting.canExecuteIterationsInParallel());
+		PerformanceCriterion actual = validate(counting);
+
+		assertEquals(10, counting.iterations);
+		assertEquals(expected.getAverage(), actual.getAverage(), 0);
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.studio.concurrency.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.rapidminer.Process;
+import com.rapidminer.operator.IOContainer;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.studio.concurrency.internal.util.BackgroundExecution;
+import com.rapidminer.studio.concurrency.internal.util.BackgroundExecutionServiceListener;
+import com.rapidminer.studio.concurrency.internal.util.ProcessBackgroundExecution;
+import com.rapidminer.studio.internal.Resources;
+
+
+/**
+ * Utilities for tests of operators which execute tasks via the {@link ConcurrencyExecutionService}.
+ *
+ * @since 8.0
+ */
+public class ConcurrencyTestUtils {
+
+	/**
+	 * Executes the operator tasks in the concurrency context of the operator, as the concurrency
+	 * extension would do.
+	 */
+	private static class ContextExecutionService implements ConcurrencyExecutionService {
+
+		@Override
+		public <V, T> Callable<V> prepareOperatorTask(Process parentProcess, Operator clonedOperator, int applyCount,
+				boolean synchronizeSideEffects, Callable<V> task) {
+			// the copy is executed in a running process of its own
+			Process process = new Process();
+			process.getRootOperator().getSubprocess(0).addOperator(clonedOperator);
+			process.resume();
+			return task;
+		}
+
+		@Override
+		public <T> List<T> executeOperatorTasks(Operator operator, List<Callable<T>> tasks) throws OperatorException {
+			try {
+				return Resources.getConcurrencyContext(operator).call(tasks);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof OperatorException) {
+					throw (OperatorException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				} else {
+					throw new OperatorException(cause.getMessage(), cause);
+				}
+			}
+		}
+
+		@Override
+		public void executeProcess(Process process) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void executeProcess(Process process, IOContainer container, Map<String, String> macroSettings) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <T> Future<T> submitOperatorTask(Operator operator, Callable<T> task) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <T> List<T> collectResults(Operator operator, List<Future<T>> futures) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void removeOperatorTask(Process parentProcess, String operatorName, int applyCount) {}
+
+		@Override
+		public List<BackgroundExecution> getExecutions() {
+			return new ArrayList<>();
+		}
+
+		@Override
+		public <T> T executeBlockingTask(Callable<T> callable) throws Exception {
+			return callable.call();
+		}
+
+		@Override
+		public void stopProcessExecution(ProcessBackgroundExecution execution) {}
+
+		@Override
+		public void removeProcessExecution(ProcessBackgroundExecution execution) {}
+
+		@Override
+		public void addListener(BackgroundExecutionServiceListener listener) {}
+
+		@Override
+		public void newProcessEvent(BackgroundExecution execution) {}
+
+		@Override
+		public void removedProcessEvent(BackgroundExecution execution) {}
+	}
+
+	private ConcurrencyTestUtils() {}
+
+	/**
+	 * Initializes the {@link ConcurrencyExecutionServiceProvider} with a service that executes the
+	 * operator tasks in the concurrency context of the operator, unless a service is already set.
+	 */
+	public static synchronized void initializeExecutionService() {
+		if (!ConcurrencyExecutionServiceProvider.INSTANCE.isInitialized()) {
+			ConcurrencyExecutionServiceProvider.INSTANCE.setConcurrencyExecutionService(new ContextExecutionService());
+		}
+	}
+}
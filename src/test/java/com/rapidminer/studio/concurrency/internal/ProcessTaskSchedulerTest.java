@@ -0,0 +1,247 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.studio.concurrency.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.core.concurrency.ExecutionStoppedException;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+
+
+/**
+ * Tests the scheduling of the tasks of different processes by the {@link ProcessTaskScheduler} of
+ * the {@link StudioConcurrencyContext}.
+ *
+ * @since 8.0
+ */
+public class ProcessTaskSchedulerTest {
+
+	private static final int THREADS = 4;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		OperatorService.registerOperator(new OperatorDescription("test", "process", ProcessRootOperator.class,
+				ProcessTaskSchedulerTest.class.getClassLoader(), null, null), null);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS,
+				String.valueOf(THREADS));
+	}
+
+	private static StudioConcurrencyContext createContext(int quota) {
+		Process process = new Process();
+		process.resume();
+		StudioConcurrencyContext context = new StudioConcurrencyContext(process);
+		context.setParallelismQuota(quota);
+		return context;
+	}
+
+	/**
+	 * Creates tasks which wait for a permit of the semaphore before they finish.
+	 */
+	private static List<Callable<Void>> createBlockedTasks(int number, Semaphore permits, AtomicInteger executions) {
+		List<Callable<Void>> tasks = new ArrayList<>(number);
+		for (int i = 0; i < number; i++) {
+			tasks.add(() -> {
+				executions.incrementAndGet();
+				permits.acquire();
+				return null;
+			});
+		}
+		return tasks;
+	}
+
+	private static void awaitRunning(StudioConcurrencyContext context, int running) throws InterruptedException {
+		while (context.getSchedulingMetrics().getRunningTasks() < running) {
+			Thread.sleep(5);
+		}
+	}
+
+	@Test(timeout = 20_000)
+	public void quotaCapsRunningTasks() throws ExecutionException {
+		StudioConcurrencyContext context = createContext(2);
+		AtomicInteger concurrent = new AtomicInteger();
+		AtomicInteger maximum = new AtomicInteger();
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			tasks.add(() -> {
+				int now = concurrent.incrementAndGet();
+				maximum.accumulateAndGet(now, Math::max);
+				Thread.sleep(20);
+				concurrent.decrementAndGet();
+				return null;
+			});
+		}
+
+		context.call(tasks);
+
+		assertEquals(2, context.getParallelism());
+		assertTrue("at most two tasks at once", maximum.get() <= 2);
+		assertEquals(12, context.getSchedulingMetrics().getCompletedTasks());
+	}
+
+	@Test(timeout = 20_000)
+	public void freeSlotGoesToProcessWithFewestRunningTasks() throws Exception {
+		StudioConcurrencyContext busy = createContext(0);
+		StudioConcurrencyContext waiting = createContext(0);
+		Semaphore permits = new Semaphore(0);
+		List<Future<Void>> busyFutures = busy.submit(createBlockedTasks(2 * THREADS, permits, new AtomicInteger()));
+		awaitRunning(busy, THREADS);
+
+		// the tasks of the second process record how many tasks of the first process still wait
+		List<Integer> busyQueueDepths = new ArrayList<>();
+		List<Callable<Void>> waitingTasks = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			waitingTasks.add(() -> {
+				synchronized (busyQueueDepths) {
+					busyQueueDepths.add(busy.getSchedulingMetrics().getQueueDepth());
+				}
+				return null;
+			});
+		}
+		List<Future<Void>> waitingFutures = waiting.submit(waitingTasks);
+		assertEquals(2, waiting.getSchedulingMetrics().getQueueDepth());
+
+		// a single free slot must be used for both tasks of the second process first
+		permits.release();
+		waiting.collectResults(waitingFutures);
+		assertEquals(Arrays.asList(THREADS, THREADS), busyQueueDepths);
+
+		permits.release(2 * THREADS);
+		busy.collectResults(busyFutures);
+	}
+
+	@Test(timeout = 20_000)
+	public void slotsAreSharedByPriority() throws Exception {
+		StudioConcurrencyContext blocking = createContext(0);
+		Semaphore blockingPermits = new Semaphore(0);
+		List<Future<Void>> blockingFutures = blocking
+				.submit(createBlockedTasks(THREADS, blockingPermits, new AtomicInteger()));
+		awaitRunning(blocking, THREADS);
+
+		StudioConcurrencyContext low = createContext(0);
+		StudioConcurrencyContext high = createContext(0);
+		high.setPriority(3);
+		assertEquals(3, high.getPriority());
+		assertEquals(ProcessTaskScheduler.DEFAULT_PRIORITY, low.getPriority());
+		Semaphore permits = new Semaphore(0);
+		List<Future<Void>> lowFutures = low.submit(createBlockedTasks(2 * THREADS, permits, new AtomicInteger()));
+		List<Future<Void>> highFutures = high.submit(createBlockedTasks(2 * THREADS, permits, new AtomicInteger()));
+
+		// the slots freed by the first process are shared 3:1 between the other two
+		blockingPermits.release(THREADS);
+		blocking.collectResults(blockingFutures);
+		while (low.getSchedulingMetrics().getRunningTasks() + high.getSchedulingMetrics().getRunningTasks() < THREADS) {
+			Thread.sleep(5);
+		}
+		assertEquals(3, high.getSchedulingMetrics().getPriority());
+		assertEquals(3, high.getSchedulingMetrics().getRunningTasks());
+		assertEquals(1, low.getSchedulingMetrics().getRunningTasks());
+
+		permits.release(4 * THREADS);
+		low.collectResults(lowFutures);
+		high.collectResults(highFutures);
+	}
+
+	@Test(timeout = 20_000)
+	public void cancelledTasksAreSkipped() throws Exception {
+		StudioConcurrencyContext context = createContext(0);
+		Semaphore permits = new Semaphore(0);
+		AtomicInteger executions = new AtomicInteger();
+		List<Future<Void>> futures = context.submit(createBlockedTasks(2 * THREADS, permits, executions));
+		awaitRunning(context, THREADS);
+
+		for (Future<Void> future : futures.subList(THREADS, futures.size())) {
+			assertTrue(future.cancel(false));
+		}
+		permits.release(2 * THREADS);
+		context.collectResults(futures.subList(0, THREADS));
+		// the cancelled tasks still pass through their slots
+		while (context.getSchedulingMetrics().getCompletedTasks() < 2 * THREADS) {
+			Thread.sleep(5);
+		}
+
+		assertEquals(THREADS, executions.get());
+		assertEquals(0, context.getSchedulingMetrics().getQueueDepth());
+	}
+
+	@Test(timeout = 20_000)
+	public void stoppedProcessStopsTasks() throws ExecutionException {
+		Process process = new Process();
+		process.resume();
+		StudioConcurrencyContext context = new StudioConcurrencyContext(process);
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int i = 0; i < 2 * THREADS; i++) {
+			tasks.add(() -> {
+				process.stop();
+				context.checkStatus();
+				return null;
+			});
+		}
+
+		try {
+			context.call(tasks);
+			fail("process was stopped");
+		} catch (ExecutionStoppedException e) {
+			// expected
+		}
+	}
+
+	@Test(timeout = 20_000)
+	public void nestedCallsDoNotWaitForSlots() throws ExecutionException {
+		StudioConcurrencyContext context = createContext(1);
+		List<Callable<Integer>> tasks = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			final int offset = i * 10;
+			tasks.add(() -> {
+				List<Callable<Integer>> nested = new ArrayList<>();
+				for (int j = 0; j < 5; j++) {
+					final int value = offset + j;
+					nested.add(() -> value);
+				}
+				int sum = 0;
+				for (int value : context.call(nested)) {
+					sum += value;
+				}
+				return sum;
+			});
+		}
+
+		assertEquals(Arrays.asList(10, 60, 110), context.call(tasks));
+	}
+
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.tools.container;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link LongIndexMap}.
+ */
+public class LongIndexMapTest {
+
+	@Test
+	public void indicesInInsertionOrder() {
+		LongIndexMap map = new LongIndexMap();
+		assertEquals(0, map.getOrAdd(42L));
+		assertEquals(1, map.getOrAdd(-7L));
+		assertEquals(0, map.getOrAdd(42L));
+		assertEquals(2, map.getOrAdd(Long.MIN_VALUE));
+		assertEquals(3, map.size());
+		assertArrayEquals(new long[] { 42L, -7L, Long.MIN_VALUE }, map.getKeys());
+	}
+
+	@Test
+	public void notFound() {
+		LongIndexMap map = new LongIndexMap();
+		assertEquals(LongIndexMap.NOT_FOUND, map.get(0L));
+		map.getOrAdd(1L);
+		assertEquals(LongIndexMap.NOT_FOUND, map.get(0L));
+		assertEquals(0, map.get(1L));
+	}
+
+	@Test
+	public void growing() {
+		Random random = new Random(1);
+		LongIndexMap map = new LongIndexMap(1);
+		Map<Long, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 100000; i++) {
+			// keys differing only in the upper bits must not collide
+			long key = random.nextInt(20000) * (random.nextBoolean() ? 1L << 40 : 1L);
+			int index = map.getOrAdd(key);
+			Integer expectedIndex = expected.get(key);
+			if (expectedIndex == null) {
+				assertEquals(expected.size(), index);
+				expected.put(key, index);
+			} else {
+				assertEquals(expectedIndex.intValue(), index);
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+			assertEquals(entry.getValue().intValue(), map.get(entry.getKey()));
+			assertEquals(entry.getKey().longValue(), map.getKey(entry.getValue()));
+		}
+	}
+
+	@Test(expected = ArrayIndexOutOfBoundsException.class)
+	public void keyOutOfBounds() {
+		LongIndexMap map = new LongIndexMap();
+		map.getOrAdd(1L);
+		map.getKey(1);
+	}
+}
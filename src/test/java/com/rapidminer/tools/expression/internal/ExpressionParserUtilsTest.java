@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.tools.expression.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ProcessRootOperator;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.ParameterService;
+import com.rapidminer.tools.expression.ExampleResolver;
+import com.rapidminer.tools.expression.Expression;
+import com.rapidminer.tools.expression.ExpressionParser;
+import com.rapidminer.tools.expression.internal.antlr.AntlrParser;
+
+
+/**
+ * Tests that {@link ExpressionParserUtils#addAttribute} computes the same values in parallel blocks
+ * of examples as sequentially, and the same values column by column as row by row.
+ *
+ * @since 8.0
+ */
+public class ExpressionParserUtilsTest {
+
+	/** Operator only used as executing operator of the expressions. */
+	public static class ExecutingOperator extends Operator {
+
+		public ExecutingOperator(OperatorDescription description) {
+			super(description);
+		}
+	}
+
+	private static final int SIZE = 30_000;
+
+	private static Operator operator;
+
+	@BeforeClass
+	public static void setup() throws OperatorException {
+		ClassLoader classLoader = ExpressionParserUtilsTest.class.getClassLoader();
+		OperatorService.registerOperator(
+				new OperatorDescription("test", "process", ProcessRootOperator.class, classLoader, null, null), null);
+		ParameterService.setParameterValue(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_NUMBER_OF_THREADS, "4");
+		operator = new ExecutingOperator(
+				new OperatorDescription("test", "executing", ExecutingOperator.class, classLoader, null, null));
+		Process process = new Process();
+		process.getRootOperator().getSubprocess(0).addOperator(operator);
+		process.resume();
+	}
+
+	private static ExampleSet createExampleSet() {
+		Attribute real = AttributeFactory.createAttribute("real", Ontology.REAL);
+		Attribute integer = AttributeFactory.createAttribute("integer", Ontology.INTEGER);
+		return ExampleSets.from(real, integer).withBlankSize(SIZE)
+				.withColumnFiller(real, i -> i % 11 == 0 ? Double.NaN : i * 0.37)
+				.withColumnFiller(integer, i -> (i * 7919) % 101).build();
+	}
+
+	/**
+	 * Adds the attribute for the expression once without and once with the executing operator and
+	 * checks that the values and nominal indices are equal.
+	 */
+	private static void assertSameValues(String expression) throws OperatorException {
+		ExampleSet sequential = createExampleSet();
+		ExampleResolver sequentialResolver = new ExampleResolver(sequential);
+		Attribute expected = ExpressionParserUtils.addAttribute(sequential, "new", expression,
+				ExpressionParserUtils.createAllModulesParser(operator, sequentialResolver), sequentialResolver, null);
+
+		ExampleSet parallel = createExampleSet();
+		ExampleResolver parallelResolver = new ExampleResolver(parallel);
+		Attribute actual = ExpressionParserUtils.addAttribute(parallel, "new", expression,
+				ExpressionParserUtils.createAllModulesParser(operator, parallelResolver), parallelResolver, operator);
+
+		assertEquals(expected.getValueType(), actual.getValueType());
+		for (int i = 0; i < SIZE; i++) {
+			assertEquals(expression + " in row " + i, sequential.getExample(i).getValue(expected),
+					parallel.getExample(i).getValue(actual), 0);
+			if (expected.isNominal()) {
+				assertEquals(sequential.getExample(i).getNominalValue(expected),
+						parallel.getExample(i).getNominalValue(actual));
+			}
+		}
+	}
+
+	/**
+	 * Adds the attribute for the expression once without and once with the executing operator and
+	 * checks that the values are equal to the ones evaluated row by row.
+	 */
+	private static void assertSameAsRowWise(String expression) throws OperatorException {
+		ExampleSet reference = createExampleSet();
+		ExampleResolver referenceResolver = new ExampleResolver(reference);
+		ExpressionParser referenceParser = ExpressionParserUtils.createAllModulesParser(operator, referenceResolver);
+		Expression parsed = referenceParser.parse(expression);
+		double[] expected = new double[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			referenceResolver.bind(reference.getExample(i));
+			expected[i] = parsed.evaluateNumerical();
+			referenceResolver.unbind();
+		}
+
+		for (Operator executingOperator : new Operator[] { null, operator }) {
+			ExampleSet exampleSet = createExampleSet();
+			ExampleResolver resolver = new ExampleResolver(exampleSet);
+			Attribute actual = ExpressionParserUtils.addAttribute(exampleSet, "new", expression,
+					ExpressionParserUtils.createAllModulesParser(operator, resolver), resolver, executingOperator);
+			for (int i = 0; i < SIZE; i++) {
+				assertEquals(expression + " in row " + i, expected[i], exampleSet.getExample(i).getValue(actual), 0);
+			}
+		}
+	}
+
+	@Test
+	public void numerical() throws OperatorException {
+		assertSameValues("sqrt(real) * 2 + integer % 7");
+		assertSameValues("round(real) + integer");
+	}
+
+	@Test
+	public void nominal() throws OperatorException {
+		assertSameValues("concat(str(integer % 13), \"x\")");
+		assertSameValues("real > integer");
+	}
+
+	@Test
+	public void randomIsSequential() throws OperatorException {
+		assertSameValues("rand(2015) + integer");
+	}
+
+	@Test
+	public void evalIsSequential() throws OperatorException {
+		assertSameValues("eval(\"real * 2\") + integer");
+	}
+
+	@Test
+	public void parallelizability() throws OperatorException {
+		AntlrParser parser = (AntlrParser) ExpressionParserUtils.createAllModulesParser(operator,
+				new ExampleResolver(createExampleSet()));
+		assertTrue(parser.parseForExampleSet("sqrt(real) + integer").isParallelizable());
+		assertFalse(parser.parseForExampleSet("rand() + integer").isParallelizable());
+		assertFalse(parser.parseForExampleSet("real + rand(42)").isParallelizable());
+		assertFalse(parser.parseForExampleSet("eval(\"rand()\")").isParallelizable());
+	}
+
+	@Test
+	public void batchEvaluators() throws OperatorException {
+		AntlrParser parser = (AntlrParser) ExpressionParserUtils.createAllModulesParser(operator,
+				new ExampleResolver(createExampleSet()));
+		assertNotNull(parser.parseForExampleSet("sqrt(real) * 2 + integer % 7").getBatchEvaluator());
+		assertNotNull(parser.parseForExampleSet("-real + sin(integer) ^ 2").getBatchEvaluator());
+		assertNotNull(parser.parseForExampleSet("3 * 4").getBatchEvaluator());
+		assertNull(parser.parseForExampleSet("if(real > 3, real, integer)").getBatchEvaluator());
+		assertNull(parser.parseForExampleSet("str(integer)").getBatchEvaluator());
+		assertNull(parser.parseForExampleSet("rand(2015) + integer").getBatchEvaluator());
+	}
+
+	@Test
+	public void batchSameAsRowWise() throws OperatorException {
+		assertSameAsRowWise("sqrt(real) * 2 + integer % 7");
+		assertSameAsRowWise("-real + sin(integer) ^ 2 - integer / (integer - 50)");
+		// the power of a missing value to zero is not missing
+		assertSameAsRowWise("real ^ 0 + ln(real) * integer");
+		assertSameAsRowWise("-(3 * 4) + real");
+	}
+
+}
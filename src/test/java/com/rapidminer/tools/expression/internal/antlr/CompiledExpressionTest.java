@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.tools.expression.internal.antlr;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.utils.ExampleSetBuilder;
+import com.rapidminer.example.utils.ExampleSets;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.expression.ExampleResolver;
+import com.rapidminer.tools.expression.Expression;
+import com.rapidminer.tools.expression.ExpressionException;
+import com.rapidminer.tools.expression.ExpressionParser;
+import com.rapidminer.tools.expression.ExpressionParserBuilder;
+import com.rapidminer.tools.expression.ExpressionRegistry;
+import com.rapidminer.tools.expression.ExpressionType;
+
+
+/**
+ * Tests that compiled expressions of the {@link AntlrParser} evaluate to the same results as
+ * interpreted ones.
+ *
+ * @since 8.0
+ */
+public class CompiledExpressionTest {
+
+	private static ExampleSet exampleSet;
+	private static ExampleResolver resolver;
+	private static ExpressionParser interpreter;
+	private static ExpressionParser compiler;
+
+	@BeforeClass
+	public static void setUpForAll() {
+		List<Attribute> attributes = new LinkedList<>();
+		attributes.add(AttributeFactory.createAttribute("real", Ontology.REAL));
+		attributes.add(AttributeFactory.createAttribute("integer", Ontology.INTEGER));
+		ExampleSetBuilder builder = ExampleSets.from(attributes);
+		builder.addRow(new double[] { 1.5, 3 });
+		builder.addRow(new double[] { -0.25, 0 });
+		builder.addRow(new double[] { Double.NaN, 7 });
+		builder.addRow(new double[] { 12, Double.NaN });
+		exampleSet = builder.build();
+
+		resolver = new ExampleResolver(exampleSet);
+		interpreter = new ExpressionParserBuilder().withModules(ExpressionRegistry.INSTANCE.getAll())
+				.withDynamics(resolver).build();
+		compiler = new ExpressionParserBuilder().withModules(ExpressionRegistry.INSTANCE.getAll()).withDynamics(resolver)
+				.withCompilation(true).build();
+	}
+
+	private void assertSameResults(String expressionString) throws ExpressionException {
+		Expression interpreted = interpreter.parse(expressionString);
+		Expression compiled = compiler.parse(expressionString);
+		assertEquals(interpreted.getExpressionType(), compiled.getExpressionType());
+		for (Example example : exampleSet) {
+			resolver.bind(example);
+			try {
+				if (interpreted.getExpressionType() == ExpressionType.BOOLEAN) {
+					assertEquals(expressionString, interpreted.evaluateBoolean(), compiled.evaluateBoolean());
+				} else {
+					assertEquals(expressionString, interpreted.evaluateNumerical(), compiled.evaluateNumerical(), 0);
+				}
+			} finally {
+				resolver.unbind();
+			}
+		}
+	}
+
+	@Test
+	public void arithmetic() throws ExpressionException {
+		assertSameResults("real + integer");
+		assertSameResults("real * 2 - integer / 4");
+		assertSameResults("(real + 1) ^ 2 % 5");
+		assertSameResults("integer * integer + 3 * 4");
+		assertSameResults("-real + integer");
+	}
+
+	@Test
+	public void mathematicalFunctions() throws ExpressionException {
+		assertSameResults("sqrt(abs(real)) + log(integer + 1)");
+		assertSameResults("sin(real) * cos(integer)");
+		assertSameResults("round(real * 10) + floor(integer / 2)");
+	}
+
+	@Test
+	public void comparisons() throws ExpressionException {
+		assertSameResults("real > integer");
+		assertSameResults("real * 2 <= integer + 1");
+		assertSameResults("real > 1 && integer < 5");
+		assertSameResults("if(real > 0, real, integer) >= 1.5");
+	}
+
+	@Test
+	public void subexpressionsOfEval() throws ExpressionException {
+		assertSameResults("eval(\"real * 2 + integer\") > 3");
+	}
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2001-2017 by RapidMiner and the contributors
+ * 
+ * Complete list of developers available at our web site:
+ * 
+ * http://rapidminer.com
+ * 
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License along with this program.
+ * If not, see http://www.gnu.org/licenses/.
+*/
+package com.rapidminer.tools.math.container;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.numerical.ChebychevNumericalDistance;
+import com.rapidminer.tools.math.similarity.numerical.CosineSimilarity;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
+
+
+/**
+ * Tests the {@link RangeQueryKDTree} against a linear scan.
+ */
+public class RangeQueryKDTreeTest {
+
+	@Test
+	public void supportedMeasures() {
+		assertTrue(RangeQueryKDTree.isSupported(new EuclideanDistance()));
+		assertTrue(RangeQueryKDTree.isSupported(new ManhattanDistance()));
+		assertTrue(RangeQueryKDTree.isSupported(new ChebychevNumericalDistance()));
+		assertFalse(RangeQueryKDTree.isSupported(new CosineSimilarity()));
+		assertFalse(RangeQueryKDTree.isSupported(null));
+	}
+
+	@Test
+	public void sameAsLinearScan() {
+		Random random = new Random(7);
+		double[][] points = new double[3000][3];
+		for (double[] point : points) {
+			for (int d = 0; d < point.length; d++) {
+				// rounded values produce many duplicates and ties at the split values
+				point[d] = Math.round(random.nextGaussian() * 20) / 10d;
+			}
+		}
+		for (DistanceMeasure measure : new DistanceMeasure[] { new EuclideanDistance(), new ManhattanDistance(),
+				new ChebychevNumericalDistance() }) {
+			RangeQueryKDTree tree = new RangeQueryKDTree(points, measure);
+			for (double radius : new double[] { 0, 0.1, 0.35, 1, 10 }) {
+				for (int i = 0; i < points.length; i += 7) {
+					assertArrayEquals(linearScan(points, points[i], radius, measure), tree.getNeighbours(points[i], radius));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void identicalAndEmpty() {
+		double[][] points = new double[100][2];
+		RangeQueryKDTree tree = new RangeQueryKDTree(points, new EuclideanDistance());
+		assertArrayEquals(linearScan(points, points[0], 1, new EuclideanDistance()), tree.getNeighbours(points[0], 1));
+		assertArrayEquals(new int[0], tree.getNeighbours(new double[] { 5, 5 }, 1));
+		assertArrayEquals(new int[0],
+				new RangeQueryKDTree(new double[0][], new EuclideanDistance()).getNeighbours(new double[] { 0 }, 1));
+	}
+
+	private static int[] linearScan(double[][] points, double[] center, double radius, DistanceMeasure measure) {
+		int[] result = new int[points.length];
+		int size = 0;
+		for (int i = 0; i < points.length; i++) {
+			if (measure.calculateDistance(center, points[i]) < radius) {
+				result[size++] = i;
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+}